@@ -13,6 +13,11 @@
 package de.iip_ecosphere.platform.connectors.aas;
 
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,6 +28,7 @@ import de.iip_ecosphere.platform.connectors.ConnectorDescriptor;
 import de.iip_ecosphere.platform.connectors.ConnectorParameter;
 import de.iip_ecosphere.platform.connectors.MachineConnector;
 import de.iip_ecosphere.platform.connectors.model.AbstractModelAccess;
+import de.iip_ecosphere.platform.connectors.model.ModelElementCache;
 import de.iip_ecosphere.platform.connectors.types.ProtocolAdapter;
 import de.iip_ecosphere.platform.support.Endpoint;
 import de.iip_ecosphere.platform.support.Schema;
@@ -31,19 +37,30 @@ import de.iip_ecosphere.platform.support.aas.AasFactory;
 import de.iip_ecosphere.platform.support.aas.Operation;
 import de.iip_ecosphere.platform.support.aas.Property;
 import de.iip_ecosphere.platform.support.aas.Submodel;
+import de.iip_ecosphere.platform.support.aas.SubmodelElement;
+import de.iip_ecosphere.platform.support.aas.SubmodelElementCollection;
 
 /**
  * A generic Asset Administration Shell connector. We use hierarchical names to identify sub-models
  * and elements within. Requires the model URN as {@link ConnectorParameter#getApplicationId()}, e.g., 
  * "urn:::AAS:::testMachines#" and the registry URL part, e.g. "registry" in 
- * {@link ConnectorParameter#getEndpointPath()}. 
+ * {@link ConnectorParameter#getEndpointPath()}. Qualified names may address elements within (nested) sub-model 
+ * element collections, e.g., "submodel/collection/property".
+ * 
+ * Resolved AAS elements are cached (bounded by {@link ConnectorParameter#getCacheSize()}) and invalidated if 
+ * accessing them fails, i.e., the AAS structure may have changed. Structs are mapped to sub-model element 
+ * collections, i.e., a field of a struct type corresponds to the property with the same short id. Struct types need 
+ * a no-argument constructor, fields without corresponding property keep their default value. As the AAS does 
+ * not notify changes, monitored properties are read in the background (see 
+ * {@link ConnectorParameter#getMonitoringSettings(String)}) and the connector is triggered only if a monitored 
+ * property changed.
  * 
  * @param <CO> the output type to the IIP-Ecosphere platform
  * @param <CI> the input type from the IIP-Ecosphere platform
  *
  * @author Holger Eichelberger, SSE
  */
-@MachineConnector(hasModel = true, supportsModelStructs = false, supportsEvents = false)
+@MachineConnector // default values sufficient
 public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO, CI> {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AasConnector.class);
@@ -51,6 +68,9 @@ public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO,
 
     private Aas connectedAAS;
     private AasFactory factory;
+    private ModelElementCache<SubmodelElement> elements 
+        = new ModelElementCache<>(ConnectorParameter.DEFAULT_CACHE_SIZE);
+    private PropertyMonitor monitor;
 
     /**
      * The descriptor of this connector (see META-INF/services).
@@ -124,6 +144,7 @@ public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO,
             if (null == connectedAAS) {
                 throw new IOException("No AAS retrieved!");
             }
+            elements = new ModelElementCache<>(params.getCacheSize());
         }
     }
     
@@ -131,7 +152,13 @@ public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO,
 
     @Override
     protected void disconnectImpl() throws IOException {
-        // if anything to be cleaned up, do it here
+        synchronized (this) {
+            if (null != monitor) {
+                monitor.stop();
+                monitor = null;
+            }
+        }
+        elements.clear();
         connectedAAS = null; 
     }
 
@@ -183,70 +210,103 @@ public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO,
         }
 
         /**
-         * Finds an AAS property.
+         * Finds an AAS element, either cached or by resolving {@code qName} along the sub-model and the 
+         * (nested) sub-model element collections.
          * 
-         * @param qName the qualified name of the property
-         * @return the property
-         * @throws IOException if the poperty cannot be found/retrieved
+         * @param <E> the type of the element
+         * @param qName the qualified name of the element
+         * @param type the type of the element
+         * @return the element
+         * @throws IOException if the element cannot be found/retrieved
          */
-        private Property findProperty(String qName) throws IOException {
-            Property result = null;
-            int pos = qName.indexOf(SEPARATOR_CHAR);
-            if (pos > 1) {
-                String subModelName = qName.substring(0, pos);
-                String elementName = qName.substring(pos + 1);
-                Submodel subModel = connectedAAS.getSubmodel(subModelName);
-                if (null != subModel) {
-                    Property prop = subModel.getProperty(elementName);
-                    if (null == prop) {
-                        throw new IOException("Property " + elementName + " in " + qName + " does not exist");
+        private <E extends SubmodelElement> E find(String qName, Class<E> type) throws IOException {
+            SubmodelElement result = elements.get(qName);
+            if (!type.isInstance(result)) {
+                int pos = qName.lastIndexOf(SEPARATOR_CHAR);
+                if (qName.indexOf(SEPARATOR_CHAR) > 1) {
+                    String parentName = qName.substring(0, pos);
+                    String elementName = qName.substring(pos + 1);
+                    if (parentName.indexOf(SEPARATOR_CHAR) < 0) {
+                        Submodel subModel = connectedAAS.getSubmodel(parentName);
+                        if (null == subModel) {
+                            throw new IOException("Submodel " + parentName + " in " + qName + " does not exist");
+                        }
+                        result = subModel.getSubmodelElement(elementName);
                     } else {
-                        result = prop;
+                        result = find(parentName, SubmodelElementCollection.class).getElement(elementName);
                     }
+                    if (!type.isInstance(result)) {
+                        throw new IOException(type.getSimpleName() + " " + elementName + " in " + qName 
+                            + " does not exist");
+                    }
+                    elements.put(qName, result);
                 } else {
-                    throw new IOException("Submodel " + subModelName + "in " + qName + " does not exist");    
+                    throw new IOException("No qualification/submodel given in " + qName);
+                }
+            }
+            return type.cast(result);
+        }
+
+        /**
+         * Invalidates the cached element {@code qName} and its parent collections, e.g., as accessing it failed and 
+         * the structure of the AAS may have changed.
+         * 
+         * @param qName the qualified name of the element
+         */
+        private void invalidate(String qName) {
+            String name = qName;
+            int pos;
+            do {
+                elements.remove(name);
+                pos = name.lastIndexOf(SEPARATOR_CHAR);
+                if (pos > 0) {
+                    name = name.substring(0, pos);
+                }
+            } while (pos > 0);
+        }
+
+        /**
+         * Returns the fields of {@code cls} (including inherited, excluding static and transient ones) corresponding 
+         * to the properties of a sub-model element collection.
+         * 
+         * @param cls the class
+         * @return the fields, made accessible
+         */
+        private List<Field> getStructFields(Class<?> cls) {
+            List<Field> result = new ArrayList<>();
+            Class<?> c = cls;
+            while (null != c && Object.class != c) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+                    if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !f.isSynthetic()) {
+                        f.setAccessible(true);
+                        result.add(f);
+                    }
                 }
-            } else {
-                throw new IOException("No qualification/submodel given in " + qName);
+                c = c.getSuperclass();
             }
             return result;
         }
-        
+
         // checkstyle: stop exception type check
         
         @Override
         public Object call(String qName, Object... args) throws IOException {
-            Object result = null;
-            int pos = qName.indexOf(SEPARATOR_CHAR);
-            if (pos > 1) {
-                String subModelName = qName.substring(0, pos);
-                String operationName = qName.substring(pos + 1);
-                Submodel subModel = connectedAAS.getSubmodel(subModelName);
-                if (null != subModel) {
-                    Operation operation = subModel.getOperation(operationName);
-                    if (null != operation) {
-                        try {
-                            result = operation.invoke(args);
-                        } catch (Exception e) {
-                            throw new IOException("While calling " + operationName + ": " + e.getMessage(), e);
-                        }
-                    } else {
-                        throw new IOException("Operation " + operationName + " in " + qName + " does not exist");
-                    }
-                } else {
-                    throw new IOException("Submodel " + subModelName + "in " + qName + " does not exist");    
-                }
-            } else {
-                throw new IOException("No qualification/submodel given in " + qName);
+            Operation operation = find(qName, Operation.class);
+            try {
+                return operation.invoke(args);
+            } catch (Exception e) {
+                invalidate(qName);
+                throw new IOException("While calling " + qName + ": " + e.getMessage(), e);
             }
-            return result;
         }
         
         @Override
         public Object get(String qName) throws IOException {
             try {
-                return findProperty(qName).getValue();
+                return find(qName, Property.class).getValue();
             } catch (Exception e) {
+                invalidate(qName);
                 throw new IOException("Accessing " + qName + ": " + e.getMessage(), e);
             }
         }
@@ -254,32 +314,82 @@ public class AasConnector<CO, CI> extends AbstractConnector<Object, Object, CO,
         @Override
         public void set(String qName, Object value) throws IOException {
             try {
-                findProperty(qName).setValue(value); // writes into model, may not be reflected further
+                find(qName, Property.class).setValue(value); // writes into model, may not be reflected further
             } catch (Exception e) {
+                invalidate(qName);
                 throw new IOException("Accessing " + qName + ": " + e.getMessage(), e);
             }
         }
 
-        // checkstyle: resume exception type check
-
         @Override
         public <T> T getStruct(String qName, Class<T> type) throws IOException {
-            throw new IOException("Structs are not implemented in AAS"); // see @MachineConnector
+            try {
+                SubmodelElementCollection collection = find(qName, SubmodelElementCollection.class);
+                Constructor<T> constructor = type.getDeclaredConstructor();
+                constructor.setAccessible(true);
+                T result = constructor.newInstance();
+                for (Field f : getStructFields(type)) {
+                    Property prop = collection.getProperty(f.getName());
+                    if (null != prop) {
+                        f.set(result, prop.getValue());
+                    }
+                }
+                return result;
+            } catch (Exception e) {
+                invalidate(qName);
+                throw new IOException("Accessing " + qName + ": " + e.getMessage(), e);
+            }
         }
 
         @Override
         public void setStruct(String qName, Object value) throws IOException {
-            throw new IOException("Structs are not implemented in AAS"); // see @MachineConnector
+            if (null == value) {
+                throw new IOException("No value given for " + qName);
+            }
+            try {
+                SubmodelElementCollection collection = find(qName, SubmodelElementCollection.class);
+                for (Field f : getStructFields(value.getClass())) {
+                    Property prop = collection.getProperty(f.getName());
+                    if (null != prop) {
+                        prop.setValue(f.get(value)); // writes into model, may not be reflected further
+                    }
+                }
+            } catch (Exception e) {
+                invalidate(qName);
+                throw new IOException("Accessing " + qName + ": " + e.getMessage(), e);
+            }
         }
 
+        // checkstyle: resume exception type check
+
         @Override
         public void registerCustomType(Class<?> cls) throws IOException {
-            throw new IOException("Structs are not implemented in AAS"); // see @MachineConnector
+            // not needed, structs are mapped to sub-model element collections by field names
         }
 
         @Override
         public void monitor(String... qName) throws IOException {
-            throw new IOException("Event-based monitoring is not supported. Please use polling.");
+            for (String n : qName) {
+                find(n, Property.class); // fail early
+            }
+            synchronized (AasConnector.this) {
+                if (null == monitor) {
+                    monitor = new PropertyMonitor(getName(), getConnectorParameter(), this::get, 
+                        () -> onMonitoredChange());
+                }
+                monitor.monitor(qName);
+            }
+        }
+
+        /**
+         * Is called if at least one monitored property changed.
+         */
+        private void onMonitoredChange() {
+            try {
+                received(DUMMY);
+            } catch (IOException e) {
+                LOGGER.info("While triggering reception", e);
+            }
         }
         
     }
@@ -0,0 +1,208 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors.aas;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.connectors.ConnectorParameter;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings;
+import de.iip_ecosphere.platform.connectors.PollingEngine;
+
+/**
+ * Monitors AAS properties for changes. As the AAS abstraction does not offer server-side change notifications, the
+ * monitored properties are read on the shared {@link PollingEngine}, grouped by the publishing interval of their
+ * {@link ConnectorParameter#getMonitoringSettings(String) monitoring settings}, and the connector is notified only
+ * if at least one property of a group changed. Absolute deadbands are considered for numeric values, percent
+ * deadbands are ignored as the value range is not known. Properties are monitored only once.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+class PropertyMonitor {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PropertyMonitor.class);
+    private String name;
+    private ConnectorParameter params;
+    private ValueReader reader;
+    private Runnable onChange;
+    private Map<Integer, Group> groups = new HashMap<>();
+    private Set<String> monitored = new HashSet<>();
+
+    /**
+     * Reads the value of a property.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    interface ValueReader {
+
+        /**
+         * Reads the value of a property.
+         *
+         * @param qName the qualified name of the property
+         * @return the value
+         * @throws IOException if reading the value fails
+         */
+        public Object read(String qName) throws IOException;
+
+    }
+
+    /**
+     * A monitored property.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Item {
+
+        private String qName;
+        private double deadband;
+        private Object last;
+        private boolean hasLast;
+
+        /**
+         * Creates an item.
+         *
+         * @param qName the qualified name of the property
+         * @param settings the monitoring settings
+         */
+        private Item(String qName, MonitoringSettings settings) {
+            this.qName = qName;
+            this.deadband = MonitoringSettings.DeadbandType.ABSOLUTE == settings.getDeadbandType()
+                ? Math.abs(settings.getDeadband()) : 0;
+        }
+
+        /**
+         * Updates the value of this item.
+         *
+         * @param value the actual value of the property
+         * @return {@code true} if the value changed, {@code false} else
+         */
+        private boolean update(Object value) {
+            boolean changed;
+            if (!hasLast) {
+                changed = true;
+            } else if (deadband > 0 && last instanceof Number && value instanceof Number) {
+                changed = Math.abs(((Number) last).doubleValue() - ((Number) value).doubleValue()) > deadband;
+            } else {
+                changed = !Objects.equals(last, value);
+            }
+            if (changed) {
+                last = value;
+                hasLast = true;
+            }
+            return changed;
+        }
+
+    }
+
+    /**
+     * Properties monitored with the same publishing interval.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private class Group implements Runnable {
+
+        private List<Item> items = new ArrayList<>();
+        private PollingEngine.Poll poll;
+
+        @Override
+        public void run() {
+            boolean changed = false;
+            for (Item item : getItems()) {
+                try {
+                    changed |= item.update(reader.read(item.qName));
+                } catch (IOException e) {
+                    LOGGER.warn("While monitoring {}: {}", item.qName, e.getMessage());
+                }
+            }
+            if (changed) {
+                onChange.run();
+            }
+        }
+
+        /**
+         * Returns a copy of the items to iterate over while further items may be added.
+         *
+         * @return the items
+         */
+        private List<Item> getItems() {
+            synchronized (PropertyMonitor.this) {
+                return new ArrayList<>(items);
+            }
+        }
+
+    }
+
+    /**
+     * Creates a property monitor.
+     *
+     * @param name the name of the monitor, e.g., the connector name, used as metric tag
+     * @param params the connector parameters
+     * @param reader reads the monitored properties
+     * @param onChange called if at least one monitored property changed
+     */
+    PropertyMonitor(String name, ConnectorParameter params, ValueReader reader, Runnable onChange) {
+        this.name = name;
+        this.params = params;
+        this.reader = reader;
+        this.onChange = onChange;
+    }
+
+    /**
+     * Monitors the given properties.
+     *
+     * @param qNames the qualified names of the properties, already monitored properties are ignored
+     * @throws IOException if a publishing interval is not positive
+     */
+    synchronized void monitor(String... qNames) throws IOException {
+        for (String qName : qNames) {
+            if (!monitored.contains(qName)) {
+                MonitoringSettings settings = params.getMonitoringSettings(qName);
+                int publishingInterval = settings.getPublishingInterval(params);
+                if (publishingInterval < 1) {
+                    throw new IOException("No publishing interval for " + qName);
+                }
+                Item item = new Item(qName, settings);
+                monitored.add(qName);
+                Group group = groups.get(publishingInterval);
+                if (null == group) {
+                    group = new Group();
+                    groups.put(publishingInterval, group);
+                    group.poll = PollingEngine.getInstance().schedule(name, group, publishingInterval,
+                        params.getPollingMode(), params.getPollingJitter());
+                }
+                group.items.add(item);
+            }
+        }
+    }
+
+    /**
+     * Stops monitoring all properties.
+     */
+    synchronized void stop() {
+        for (Group group : groups.values()) {
+            group.poll.cancel();
+        }
+        groups.clear();
+        monitored.clear();
+    }
+
+}
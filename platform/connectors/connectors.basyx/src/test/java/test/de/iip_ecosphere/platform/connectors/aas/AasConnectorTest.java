@@ -37,6 +37,8 @@ import de.iip_ecosphere.platform.support.aas.DeploymentRecipe;
 import de.iip_ecosphere.platform.support.aas.Aas;
 import de.iip_ecosphere.platform.support.aas.Aas.AasBuilder;
 import de.iip_ecosphere.platform.support.aas.Submodel.SubmodelBuilder;
+import de.iip_ecosphere.platform.support.aas.SubmodelElementCollection.SubmodelElementCollectionBuilder;
+import de.iip_ecosphere.platform.support.aas.Type;
 import de.iip_ecosphere.platform.support.iip_aas.AasPartRegistry;
 import de.iip_ecosphere.platform.support.iip_aas.ActiveAasBase;
 import de.iip_ecosphere.platform.support.iip_aas.AasContributor.Kind;
@@ -54,7 +56,7 @@ import test.de.iip_ecosphere.platform.support.aas.TestMachine;
 import test.de.iip_ecosphere.platform.support.aas.basyx.BaSyxTest;
 
 /**
- * Tests {@link AasConnector} with polling and no security.
+ * Tests {@link AasConnector} with polling/monitoring and no security.
  * 
  * @author Holger Eichelberger, SSE
  */
@@ -65,6 +67,8 @@ public class AasConnectorTest extends AbstractInformationModelConnectorTest<Obje
     private static final ServerAddress AAS_SERVER = new ServerAddress(Schema.HTTP); // localhost, ephemeral
     private static final ServerAddress VAB_SERVER = new ServerAddress(Schema.HTTP); // localhost, ephemeral
     private static final Endpoint REGISTRY = new Endpoint(AAS_SERVER, AasPartRegistry.DEFAULT_REGISTRY_ENDPOINT);
+    private static final String NAME_STRUCT = "struct";
+    private static final String STRUCT_VENDOR = "Test";
     
     private static Server platformAasServer;
     private static Server httpServer;
@@ -72,6 +76,19 @@ public class AasConnectorTest extends AbstractInformationModelConnectorTest<Obje
     private static NotificationMode oldNotificationMode;
     private static AasSetup oldSetup;
     
+    /**
+     * A struct mapped to the sub-model element collection {@link #NAME_STRUCT}.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Struct {
+        
+        private String vendor;
+        private int count;
+        private double missing = -1; // no property in collection, not mapped
+
+    }
+
     /**
      * Creates an instance of this test.
      */
@@ -143,6 +160,11 @@ public class AasConnectorTest extends AbstractInformationModelConnectorTest<Obje
         AasBuilder aasBuilder = factory.createAasBuilder(AasTest.NAME_AAS, AAS_URN);
         SubmodelBuilder subModelBuilder = aasBuilder.createSubmodelBuilder(AasTest.NAME_SUBMODEL, null);
         BaSyxTest.createAasOperationsElements(subModelBuilder, VAB_SERVER, AasFactory.DEFAULT_PROTOCOL);
+        SubmodelElementCollectionBuilder structBuilder = subModelBuilder.createSubmodelElementCollectionBuilder(
+            NAME_STRUCT, false, false);
+        structBuilder.createPropertyBuilder("vendor").setValue(Type.STRING, STRUCT_VENDOR).build();
+        structBuilder.createPropertyBuilder("count").setValue(Type.INTEGER, 0).build();
+        structBuilder.build();
         
         subModelBuilder.build();
         return aasBuilder.build();
@@ -158,6 +180,16 @@ public class AasConnectorTest extends AbstractInformationModelConnectorTest<Obje
         testConnector(false);
     }
 
+    /**
+     * Tests the connector in event mode, i.e., with monitored properties.
+     * 
+     * @throws IOException in case that creating the connector fails
+     */
+    @Test
+    public void testWithNotifications() throws IOException {
+        testConnector(true);
+    }
+
     @Override
     protected Class<? extends ConnectorDescriptor> getConnectorDescriptor() {
         return AasConnector.Descriptor.class;
@@ -217,22 +249,31 @@ public class AasConnectorTest extends AbstractInformationModelConnectorTest<Obje
             } catch (IOException e) {
                 // expected
             }
+            access.monitor(AasTest.QNAME_VAR_LOTSIZE, AasTest.QNAME_VAR_POWCONSUMPTION);
+            access.monitor(AasTest.QNAME_VAR_LOTSIZE); // already monitored, ignored
         }
-        try {
-            access.registerCustomType(Object.class);
-            Assert.fail("No exception raised");
-        } catch (IOException e) {
-            // expected
-        }
+        access.registerCustomType(Object.class); // not needed, but shall not fail
     }
     
     @Override
     public String getVendor(ModelAccess access) throws IOException {
         try {
-            access.getStruct(AasTest.NAME_SUBMODEL + access.getQSeparator() + "struct", Object.class);
+            access.getStruct(AasTest.NAME_SUBMODEL + access.getQSeparator() + "abxy", Struct.class);
+            Assert.fail("No exception raised");
         } catch (IOException e) {
-            // expected
+            // expected, no such collection
         }
+        String qName = AasTest.NAME_SUBMODEL + access.getQSeparator() + NAME_STRUCT;
+        Struct struct = access.getStruct(qName, Struct.class);
+        Assert.assertEquals(STRUCT_VENDOR, struct.vendor);
+        Assert.assertEquals(-1, struct.missing, 0.001); // not mapped, default value
+        struct.count++;
+        struct.missing = 2;
+        access.setStruct(qName, struct); // round trip
+        Struct changed = access.getStruct(qName, Struct.class);
+        Assert.assertEquals(struct.count, changed.count);
+        Assert.assertEquals(STRUCT_VENDOR, changed.vendor);
+        Assert.assertEquals(-1, changed.missing, 0.001);
         return (String) access.get(AasTest.QNAME_VAR_VENDOR);
     }
 
@@ -19,21 +19,20 @@ import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
-import java.util.function.BiConsumer;
 import java.util.function.Predicate;
 
 import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.SessionActivityListener;
+import org.eclipse.milo.opcua.sdk.client.api.UaSession;
 import org.eclipse.milo.opcua.sdk.client.api.config.OpcUaClientConfigBuilder;
 import org.eclipse.milo.opcua.sdk.client.api.identity.AnonymousProvider;
 import org.eclipse.milo.opcua.sdk.client.api.identity.IdentityProvider;
 import org.eclipse.milo.opcua.sdk.client.api.identity.SignedIdentityToken;
 import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
-import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
-import org.eclipse.milo.opcua.sdk.client.nodes.UaNode;
 import org.eclipse.milo.opcua.sdk.client.nodes.UaVariableNode;
-import org.eclipse.milo.opcua.stack.core.AttributeId;
 import org.eclipse.milo.opcua.stack.core.Stack;
 import org.eclipse.milo.opcua.stack.core.UaException;
 import org.eclipse.milo.opcua.stack.core.serialization.codecs.GenericDataTypeCodec;
@@ -44,19 +43,13 @@ import org.eclipse.milo.opcua.stack.core.types.builtin.ExpandedNodeId;
 import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
 import org.eclipse.milo.opcua.stack.core.types.builtin.LocalizedText;
 import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
-import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
 import org.eclipse.milo.opcua.stack.core.types.builtin.StatusCode;
 import org.eclipse.milo.opcua.stack.core.types.builtin.Variant;
-import org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.UInteger;
-import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
 import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
 import org.eclipse.milo.opcua.stack.core.types.structured.AnonymousIdentityToken;
 import org.eclipse.milo.opcua.stack.core.types.structured.CallMethodRequest;
 import org.eclipse.milo.opcua.stack.core.types.structured.EndpointDescription;
 import org.eclipse.milo.opcua.stack.core.types.structured.IssuedIdentityToken;
-import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
-import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
-import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
 import org.eclipse.milo.opcua.stack.core.types.structured.SignatureData;
 import org.eclipse.milo.opcua.stack.core.types.structured.UserIdentityToken;
 import org.eclipse.milo.opcua.stack.core.types.structured.UserNameIdentityToken;
@@ -72,6 +65,7 @@ import de.iip_ecosphere.platform.connectors.IdentityToken;
 import de.iip_ecosphere.platform.connectors.MachineConnector;
 import de.iip_ecosphere.platform.connectors.model.AbstractModelAccess;
 import de.iip_ecosphere.platform.connectors.model.ModelAccess;
+import de.iip_ecosphere.platform.connectors.model.ModelElementCache;
 import de.iip_ecosphere.platform.connectors.types.ConnectorOutputTypeTranslator;
 import de.iip_ecosphere.platform.connectors.types.ProtocolAdapter;
 
@@ -89,6 +83,14 @@ import de.iip_ecosphere.platform.connectors.types.ProtocolAdapter;
  *       in {@link ConnectorOutputTypeTranslator#initializeModelAccess()}.</li>
  * </ul>
  * 
+ * Resolved variable nodes are cached (bounded by {@link ConnectorParameter#getCacheSize()}) and invalidated when 
+ * the session becomes inactive/is re-activated, e.g., upon a reconnect. {@link ModelAccess#getMany(String...)} and
+ * {@link ModelAccess#setMany(Map)} are realized by a single OPC UA read/write service call. Monitored items are 
+ * grouped into shared subscriptions according to {@link ConnectorParameter#getSubscriptionCount()} and 
+ * {@link ConnectorParameter#getMonitoringSettings(String)}. Changes of monitored items are directly passed on to 
+ * the reception of the connector, i.e., with {@link ModelAccess#useNotifications(boolean) notifications}, no polling
+ * is needed.
+ * 
  * @param <CO> the output type to the IIP-Ecosphere platform
  * @param <CI> the input type from the IIP-Ecosphere platform
  * @author Holger Eichelberger, SSE
@@ -102,6 +104,8 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
     private static final String FIELD_BINARY_ENCODING_ID = "BINARY_ENCODING_ID";
     private OpcUaClient client;
     private ConnectorParameter params;
+    private SubscriptionManager subscriptions;
+    private ModelElementCache<UaVariableNode> nodes = new ModelElementCache<>(ConnectorParameter.DEFAULT_CACHE_SIZE);
 
     /**
      * The descriptor of this connector (see META-INF/services).
@@ -151,6 +155,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
     protected void connectImpl(ConnectorParameter params) throws IOException {
         if (null == client) {
             this.params = params;
+            nodes = new ModelElementCache<>(params.getCacheSize());
             String endpointURL = "opc." + params.getSchema().toUri() + params.getHost() + ":" + params.getPort() 
                 + "/" + params.getEndpointPath();
             try {
@@ -161,7 +166,21 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
                         .findFirst(),
                     configBuilder -> configure(configBuilder).build()
                  );
+                client.addSessionActivityListener(new SessionActivityListener() {
+
+                    @Override
+                    public void onSessionActive(UaSession session) {
+                        nodes.clear();
+                    }
+
+                    @Override
+                    public void onSessionInactive(UaSession session) {
+                        nodes.clear();
+                    }
+                    
+                });
                 client.connect().get();
+                subscriptions = new SubscriptionManager(client, params);
             } catch (UaException | InterruptedException | ExecutionException e) { // also for interrupted
                 client = null;
                 throw new IOException(e);
@@ -254,6 +273,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
 
     @Override
     protected void disconnectImpl() throws IOException {
+        nodes.clear();
         if (null != client) {
             try {
                 client.disconnect().get();
@@ -297,8 +317,6 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
 
         private static final char SEPARATOR_CHAR = '/';
         private static final String SEPARATOR_STRING = "/";
-        
-        // TODO cache node ids?
 
         /**
          * Creates the instance and binds the listener to the creating connector instance.
@@ -356,30 +374,108 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
             return callResult;
         }
 
+        /**
+         * Returns the variable node for {@code qName}, either from the node cache or resolved via the server.
+         * 
+         * @param qName the qualified name of the node
+         * @return the node
+         * @throws UaException if the node cannot be resolved
+         */
+        private UaVariableNode getVariableNode(String qName) throws UaException {
+            UaVariableNode node = nodes.get(qName);
+            if (null == node) {
+                node = client.getAddressSpace().getVariableNode(new NodeId(2, qName));
+                nodes.put(qName, node);
+            }
+            return node;
+        }
+
+        /**
+         * Turns an OPC UA exception into an IO exception and removes the (potentially outdated) node of 
+         * {@code qName} from the node cache.
+         * 
+         * @param qName the qualified name of the node
+         * @param ex the exception
+         * @return the IO exception
+         */
+        private IOException toIOException(String qName, UaException ex) {
+            nodes.remove(qName);
+            return new IOException(ex);
+        }
+
+        /**
+         * Returns the value of a variant.
+         * 
+         * @param variant the variant, may be <b>null</b>
+         * @return the value, may be <b>null</b>
+         */
+        private Object getValue(Variant variant) {
+            return null == variant ? null : variant.getValue();
+        }
+
         @Override
         public Object get(String qName) throws IOException {
-            Object result;
             try {
-                UaVariableNode node = client.getAddressSpace().getVariableNode(new NodeId(2, qName));
-                DataValue value = node.readValue();
-                Variant r = value.getValue();
-                if (null != r) {
-                    result = r.getValue();
-                } else {
-                    result = null;
-                }
+                return getValue(getVariableNode(qName).readValue().getValue());
             } catch (UaException e) {
-                throw new IOException(e);
+                throw toIOException(qName, e);
             }
-            return result;
         }
 
         @Override
         public void set(String qName, Object value) throws IOException {
             try {
-                UaVariableNode node = client.getAddressSpace().getVariableNode(new NodeId(2, qName));
-                node.writeValue(new DataValue(new Variant(value)));
+                getVariableNode(qName).writeValue(new DataValue(new Variant(value)));
             } catch (UaException e) {
+                throw toIOException(qName, e);
+            }
+        }
+
+        @Override
+        public Object[] getMany(String... qNames) throws IOException {
+            List<NodeId> nodeIds = new ArrayList<>(qNames.length);
+            for (String qName : qNames) {
+                nodeIds.add(new NodeId(2, qName));
+            }
+            try {
+                List<DataValue> values = client.readValues(0.0, TimestampsToReturn.Neither, nodeIds).get();
+                Object[] result = new Object[qNames.length];
+                for (int i = 0; i < qNames.length; i++) {
+                    DataValue value = values.get(i);
+                    StatusCode status = value.getStatusCode();
+                    if (null != status && status.isBad()) {
+                        throw new IOException("Cannot read '" + qNames[i] + "': " + status);
+                    }
+                    result[i] = getValue(value.getValue());
+                }
+                return result;
+            } catch (ExecutionException | InterruptedException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void setMany(Map<String, Object> values) throws IOException {
+            List<NodeId> nodeIds = new ArrayList<>(values.size());
+            List<DataValue> dataValues = new ArrayList<>(values.size());
+            List<String> qNames = new ArrayList<>(values.size());
+            for (Map.Entry<String, Object> ent : values.entrySet()) {
+                qNames.add(ent.getKey());
+                nodeIds.add(new NodeId(2, ent.getKey()));
+                dataValues.add(new DataValue(new Variant(ent.getValue())));
+            }
+            try {
+                List<StatusCode> status = client.writeValues(nodeIds, dataValues).get();
+                String failed = "";
+                for (int i = 0; i < status.size(); i++) {
+                    if (status.get(i).isBad()) {
+                        failed += (failed.length() > 0 ? ", " : "") + "'" + qNames.get(i) + "': " + status.get(i);
+                    }
+                }
+                if (failed.length() > 0) {
+                    throw new IOException("Cannot write " + failed);
+                }
+            } catch (ExecutionException | InterruptedException e) {
                 throw new IOException(e);
             }
         }
@@ -387,7 +483,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
         @Override
         public <T> T getStruct(String qName, Class<T> type) throws IOException {
             try {
-                UaVariableNode node = client.getAddressSpace().getVariableNode(new NodeId(2, qName));
+                UaVariableNode node = getVariableNode(qName);
                 DataValue value = node.readValue();
                 Variant variant = value.getValue();
                 ExtensionObject xo = (ExtensionObject) variant.getValue();
@@ -396,7 +492,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
                 ));
                 return decoded;
             } catch (UaException e) {
-                throw new IOException(e);
+                throw toIOException(qName, e);
             }
         }
 
@@ -404,7 +500,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
         public void setStruct(String qName, Object value) throws IOException {
             try {
                 ExpandedNodeId encodingId = getEncodingId(value.getClass());
-                UaVariableNode node = client.getAddressSpace().getVariableNode(new NodeId(2, qName));
+                UaVariableNode node = getVariableNode(qName);
                 ExtensionObject modifiedXo = ExtensionObject.encode(
                     client.getSerializationContext(),
                     value,
@@ -413,7 +509,7 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
                 );
                 node.writeValue(new DataValue(new Variant(modifiedXo)));
             } catch (UaException e) {
-                throw new IOException(e);
+                throw toIOException(qName, e);
             }
         }
         
@@ -477,50 +573,8 @@ public class OpcUaConnector<CO, CI> extends AbstractConnector<DataItem, Object,
         @Override
         public void monitor(String... qName) throws IOException {
             try {
-                UaSubscription subscription = client.getSubscriptionManager().createSubscription(
-                    params.getNotificationInterval()).get();
-                UInteger clientHandle = subscription.nextClientHandle();
-            
-                MonitoringParameters parameters = new MonitoringParameters(
-                    clientHandle,
-                    (double) params.getNotificationInterval(), // sampling interval
-                    null,       // filter, null means use default
-                    uint(10),   // queue size
-                    true        // discard oldest
-                );
-
-                List<MonitoredItemCreateRequest> requests = new ArrayList<MonitoredItemCreateRequest>();
-                for (String n: qName) {
-                    UaNode node = client.getAddressSpace().getNode(new NodeId(2, n));
-                    ReadValueId readValueId = new ReadValueId(
-                        node.getNodeId(), AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE
-                    );
-                    MonitoredItemCreateRequest request = new MonitoredItemCreateRequest(
-                        readValueId,
-                        MonitoringMode.Reporting,
-                        parameters
-                    );
-                    requests.add(request);
-                }
-                
-                BiConsumer<UaMonitoredItem, Integer> onItemCreated =
-                    (item, id) -> item.setValueConsumer(this::onSubscriptionValue);
-
-                List<UaMonitoredItem> items = subscription.createMonitoredItems(
-                    TimestampsToReturn.Both,
-                    requests,
-                    onItemCreated
-                ).get();              
-                
-                for (UaMonitoredItem item : items) {
-                    if (item.getStatusCode().isGood()) {
-                        LOGGER.info("Monitoring for nodeId={} activated", item.getReadValueId().getNodeId());
-                    } else {
-                        LOGGER.warn("failed to create item for nodeId={} (status={})",
-                            item.getReadValueId().getNodeId(), item.getStatusCode());
-                    }
-                }
-            } catch (UaException | ExecutionException | InterruptedException e) {
+                subscriptions.monitor(qName, this::onSubscriptionValue);
+            } catch (ExecutionException | InterruptedException e) {
                 throw new IOException(e);
             }
         }
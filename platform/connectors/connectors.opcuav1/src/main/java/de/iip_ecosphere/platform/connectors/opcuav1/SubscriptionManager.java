@@ -0,0 +1,228 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors.opcuav1;
+
+import static org.eclipse.milo.opcua.stack.core.types.builtin.unsigned.Unsigned.uint;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.function.BiConsumer;
+
+import org.eclipse.milo.opcua.sdk.client.OpcUaClient;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaMonitoredItem;
+import org.eclipse.milo.opcua.sdk.client.api.subscriptions.UaSubscription;
+import org.eclipse.milo.opcua.stack.core.AttributeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.DataValue;
+import org.eclipse.milo.opcua.stack.core.types.builtin.ExtensionObject;
+import org.eclipse.milo.opcua.stack.core.types.builtin.NodeId;
+import org.eclipse.milo.opcua.stack.core.types.builtin.QualifiedName;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DataChangeTrigger;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.DeadbandType;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.MonitoringMode;
+import org.eclipse.milo.opcua.stack.core.types.enumerated.TimestampsToReturn;
+import org.eclipse.milo.opcua.stack.core.types.structured.DataChangeFilter;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoredItemCreateRequest;
+import org.eclipse.milo.opcua.stack.core.types.structured.MonitoringParameters;
+import org.eclipse.milo.opcua.stack.core.types.structured.ReadValueId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.connectors.ConnectorParameter;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings;
+
+/**
+ * Groups monitored items into shared subscriptions. Items with the same publishing interval are distributed over
+ * at most {@link ConnectorParameter#getSubscriptionCount()} subscriptions, each item is monitored with its
+ * {@link ConnectorParameter#getMonitoringSettings(String) monitoring settings}. Items are monitored only once.
+ * Items that cannot be created are not counted for the subscription load and can be monitored again, subscriptions
+ * created for such items only are deleted.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+class SubscriptionManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionManager.class);
+    private OpcUaClient client;
+    private ConnectorParameter params;
+    private Map<Integer, List<UaSubscription>> subscriptions = new HashMap<>();
+    private Map<UaSubscription, Integer> load = new HashMap<>();
+    private Set<String> monitored = new HashSet<>();
+
+    /**
+     * Creates a subscription manager.
+     *
+     * @param client the client to create the subscriptions on
+     * @param params the connector parameters
+     */
+    SubscriptionManager(OpcUaClient client, ConnectorParameter params) {
+        this.client = client;
+        this.params = params;
+    }
+
+    /**
+     * Monitors the given items.
+     *
+     * @param qNames the qualified names of the items to monitor, already monitored items are ignored
+     * @param consumer the consumer to be called on changes of the items
+     * @throws ExecutionException if creating a subscription or a monitored item fails
+     * @throws InterruptedException if waiting for the server is interrupted
+     */
+    synchronized void monitor(String[] qNames, BiConsumer<UaMonitoredItem, DataValue> consumer)
+        throws ExecutionException, InterruptedException {
+        Map<UaSubscription, List<MonitoredItemCreateRequest>> requests = new LinkedHashMap<>();
+        Map<UaSubscription, List<String>> names = new HashMap<>();
+        Set<UaSubscription> done = new HashSet<>();
+        List<UaSubscription> created = new ArrayList<>();
+        boolean success = false;
+        try {
+            for (String qName : qNames) {
+                if (!monitored.contains(qName)) {
+                    MonitoringSettings settings = params.getMonitoringSettings(qName);
+                    int publishingInterval = settings.getPublishingInterval(params);
+                    UaSubscription subscription = selectSubscription(publishingInterval, created);
+                    names.computeIfAbsent(subscription, s -> new ArrayList<>()).add(qName);
+                    monitored.add(qName);
+                    requests.computeIfAbsent(subscription, s -> new ArrayList<>()).add(
+                        createRequest(subscription, qName, settings, publishingInterval));
+                }
+            }
+            BiConsumer<UaMonitoredItem, Integer> onItemCreated = (item, id) -> item.setValueConsumer(consumer);
+            for (Map.Entry<UaSubscription, List<MonitoredItemCreateRequest>> ent : requests.entrySet()) {
+                List<UaMonitoredItem> items = ent.getKey().createMonitoredItems(
+                    TimestampsToReturn.Both, ent.getValue(), onItemCreated).get();
+                done.add(ent.getKey());
+                for (UaMonitoredItem item : items) {
+                    NodeId nodeId = item.getReadValueId().getNodeId();
+                    if (item.getStatusCode().isGood()) {
+                        LOGGER.info("Monitoring for nodeId={} activated", nodeId);
+                    } else {
+                        LOGGER.warn("failed to create item for nodeId={} (status={})", nodeId, item.getStatusCode());
+                        monitored.remove(nodeId.getIdentifier().toString());
+                        release(ent.getKey(), 1);
+                    }
+                }
+            }
+            success = true;
+        } finally {
+            if (!success) { // allow for retry, items of completed requests are monitored
+                for (Map.Entry<UaSubscription, List<String>> ent : names.entrySet()) {
+                    if (!done.contains(ent.getKey())) {
+                        monitored.removeAll(ent.getValue());
+                        release(ent.getKey(), ent.getValue().size());
+                    }
+                }
+            }
+            deleteUnused(created);
+        }
+    }
+
+    /**
+     * Releases items from the load of a subscription.
+     *
+     * @param subscription the subscription
+     * @param count the number of items to release
+     */
+    private void release(UaSubscription subscription, int count) {
+        load.put(subscription, Math.max(0, load.getOrDefault(subscription, 0) - count));
+    }
+
+    /**
+     * Deletes the given subscriptions if they do not have items, e.g., as creating their items failed. Deletion
+     * on the server happens asynchronously, failures are logged.
+     *
+     * @param subs the subscriptions to consider
+     */
+    private void deleteUnused(List<UaSubscription> subs) {
+        for (UaSubscription sub : subs) {
+            if (load.getOrDefault(sub, 0) == 0) {
+                load.remove(sub);
+                for (List<UaSubscription> s : subscriptions.values()) {
+                    s.remove(sub);
+                }
+                client.getSubscriptionManager().deleteSubscription(sub.getSubscriptionId()).exceptionally(t -> {
+                    LOGGER.warn("Cannot delete subscription {}: {}", sub.getSubscriptionId(), t.getMessage());
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Selects the subscription for an item with the given publishing interval. Creates a new subscription until
+     * {@link ConnectorParameter#getSubscriptionCount()} is reached, afterwards the subscription with the least
+     * items is selected.
+     *
+     * @param publishingInterval the publishing interval in ms
+     * @param created collects the created subscriptions, modified as a side effect
+     * @return the subscription
+     * @throws ExecutionException if creating a subscription fails
+     * @throws InterruptedException if waiting for the server is interrupted
+     */
+    private UaSubscription selectSubscription(int publishingInterval, List<UaSubscription> created)
+        throws ExecutionException, InterruptedException {
+        List<UaSubscription> subs = subscriptions.computeIfAbsent(publishingInterval, i -> new ArrayList<>());
+        UaSubscription result = null;
+        if (subs.size() < params.getSubscriptionCount()) {
+            result = client.getSubscriptionManager().createSubscription(publishingInterval).get();
+            subs.add(result);
+            created.add(result);
+        } else {
+            for (UaSubscription sub : subs) {
+                if (null == result || load.get(sub) < load.get(result)) {
+                    result = sub;
+                }
+            }
+        }
+        load.put(result, load.getOrDefault(result, 0) + 1);
+        return result;
+    }
+
+    /**
+     * Creates a monitored item request.
+     *
+     * @param subscription the subscription to create the request for
+     * @param qName the qualified name of the item
+     * @param settings the monitoring settings of the item
+     * @param publishingInterval the publishing interval of the item in ms
+     * @return the request
+     */
+    private MonitoredItemCreateRequest createRequest(UaSubscription subscription, String qName,
+        MonitoringSettings settings, int publishingInterval) {
+        ExtensionObject filter = null; // default
+        if (MonitoringSettings.DeadbandType.NONE != settings.getDeadbandType()) {
+            DeadbandType type = MonitoringSettings.DeadbandType.PERCENT == settings.getDeadbandType()
+                ? DeadbandType.Percent : DeadbandType.Absolute;
+            filter = ExtensionObject.encode(client.getSerializationContext(),
+                new DataChangeFilter(DataChangeTrigger.StatusValue, uint(type.getValue()), settings.getDeadband()));
+        }
+        int samplingInterval = settings.getSamplingInterval() < 0
+            ? publishingInterval : settings.getSamplingInterval();
+        MonitoringParameters parameters = new MonitoringParameters(
+            subscription.nextClientHandle(),
+            (double) samplingInterval,
+            filter,
+            uint(settings.getQueueSize()),
+            settings.isDiscardOldest()
+        );
+        ReadValueId readValueId = new ReadValueId(
+            new NodeId(2, qName), AttributeId.Value.uid(), null, QualifiedName.NULL_VALUE);
+        return new MonitoredItemCreateRequest(readValueId, MonitoringMode.Reporting, parameters);
+    }
+
+}
@@ -127,6 +127,7 @@ public class AbstractOpcUaConnectorTest extends AbstractInformationModelConnecto
     public void initializeModelAccess(ModelAccess access, boolean withNotifications) throws IOException {
         if (withNotifications) { // for testing
             access.monitor(Namespace.QNAME_VAR_LOT_SIZE, Namespace.QNAME_VAR_POWER_CONSUMPTION);
+            access.monitor(Namespace.QNAME_VAR_LOT_SIZE); // already monitored, ignored
         }
         access.registerCustomType(VendorStruct.class);
     }
@@ -15,6 +15,8 @@ package test.de.iip_ecosphere.platform.connectors.opcuav1;
 import static org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig.USER_TOKEN_POLICY_ANONYMOUS;
 import static org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfig.USER_TOKEN_POLICY_USERNAME;
 
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 
 import org.eclipse.milo.opcua.sdk.server.api.config.OpcUaServerConfigBuilder;
@@ -25,6 +27,10 @@ import org.eclipse.milo.opcua.stack.server.EndpointConfiguration.Builder;
 
 import de.iip_ecosphere.platform.connectors.ConnectorParameter;
 import de.iip_ecosphere.platform.connectors.ConnectorParameter.ConnectorParameterBuilder;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings.DeadbandType;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings.MonitoringSettingsBuilder;
+import test.de.iip_ecosphere.platform.connectors.opcuav1.simpleMachineNamespace.Namespace;
 
 /**
  * Describes a non-secure setup for testing purposes.
@@ -86,10 +92,17 @@ public class NoSecuritySetup extends ServerSetup {
     public ConnectorParameter getConnectorParameter() {
         // no identity -> anonymous
         // no encryption 
+        Map<String, MonitoringSettings> monitoring = new HashMap<>();
+        monitoring.put(Namespace.QNAME_VAR_POWER_CONSUMPTION, MonitoringSettingsBuilder.newBuilder()
+            .setDeadband(DeadbandType.ABSOLUTE, 1.0) // test changes by 10
+            .setQueueSize(1)
+            .build());
         return ConnectorParameterBuilder.newBuilder("localhost", getTcpPort())
             .setEndpointPath(getPath())
             .setApplicationInformation("urn:eclipse:milo:examples:client", "eclipse milo opc-ua client")
             .setNotificationInterval(1000) // test waits for that
+            .setSubscriptionCount(2)
+            .setMonitoringSettings(monitoring)
             .build();
     }
 
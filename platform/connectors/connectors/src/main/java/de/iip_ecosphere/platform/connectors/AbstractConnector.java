@@ -13,13 +13,13 @@
 package de.iip_ecosphere.platform.connectors;
 
 import java.io.IOException;
-import java.util.Timer;
-import java.util.TimerTask;
 
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.ChangeDetection;
 import de.iip_ecosphere.platform.connectors.model.AbstractModelAccess.NotificationChangedListener;
 import de.iip_ecosphere.platform.connectors.model.ModelAccess;
 import de.iip_ecosphere.platform.connectors.types.ProtocolAdapter;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
+import io.micrometer.core.instrument.Metrics;
 
 /**
  * Provides a reusable base of a {@link Connector} implementation using the {@link ProtocolAdapter}. Call 
@@ -39,8 +39,8 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
     private ProtocolAdapter<O, I, CO, CI>[] adapter;
     private AdapterSelector<O, I, CO, CI> selector;
     private ReceptionCallback<CO> callback;
-    private Timer timer;
-    private TimerTask pollTask;
+    private PollingEngine.Poll poll;
+    private ChangeDetector<CO> changeDetector;
     private ConnectorParameter params;
 
     /**
@@ -115,7 +115,8 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
     /**
      * Connects the connector to the underlying machine/platform. Calls {@link #connectImpl(ConnectorParameter)} 
      * and if successful (no exception thrown) {@link #initializeModelAccess()}. Calls 
-     * {@link ConnectorRegistry#registerConnector(Connector)}. 
+     * {@link ConnectorRegistry#registerConnector(Connector)}. Installs a {@link ChangeDetector} if requested by
+     * {@link ConnectorParameter#getChangeDetection()}.
      * 
      * @param params connection parameter
      * @throws IOException in case that connecting fails
@@ -123,6 +124,11 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
     @Override
     public void connect(ConnectorParameter params) throws IOException {
         this.params = params;
+        closeChangeDetector();
+        if (null != params && ChangeDetection.NONE != params.getChangeDetection()) {
+            changeDetector = new ChangeDetector<>(params.getChangeDetection(), params.getChangeDeadband(), 
+                params.getChangeHeartbeat(), getName(), Metrics.globalRegistry);
+        }
         connectImpl(params);
         initializeModelAccess();
         ConnectorRegistry.registerConnector(this);
@@ -147,29 +153,30 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
     }
     
     /**
-     * Install poll task. No task will be installed if {@link ConnectorParameter#getNotificationInterval()} is 
-     * less than 1. Call only after {@link #connect(ConnectorParameter)} and before {@link #disconnect()}.
+     * Install poll task on the shared {@link PollingEngine}. No task will be installed if 
+     * {@link ConnectorParameter#getNotificationInterval()} is less than 1. Polling happens according to
+     * {@link ConnectorParameter#getPollingMode()} and {@link ConnectorParameter#getPollingJitter()}. Call only after 
+     * {@link #connect(ConnectorParameter)} and before {@link #disconnect()}.
      */
     protected void installPollTask() {
         int pollingPeriod = params.getNotificationInterval();
-        if (null == timer && pollingPeriod > 0) {
-            timer = new Timer();
-            pollTask = new TimerTask() {
+        if (null == poll && pollingPeriod > 0) {
+            poll = PollingEngine.getInstance().schedule(getName(), () -> doPolling(), pollingPeriod, 
+                params.getPollingMode(), params.getPollingJitter());
+        }
+    }
 
-                @Override
-                public void run() {
-                    try {
-                        O data = read();
-                        if (null != data) {
-                            received(data);
-                        }
-                    } catch (IOException e) {
-                        error("While polling. Data discarded.", e);
-                    }
-                }
-                
-            };
-            timer.scheduleAtFixedRate(pollTask, 0, pollingPeriod);
+    /**
+     * Polls by {@link #read() reading} and passing the data on to {@link #received(Object)}.
+     */
+    private void doPolling() {
+        try {
+            O data = read();
+            if (null != data) {
+                received(data);
+            }
+        } catch (IOException | RuntimeException e) {
+            error("While polling. Data discarded.", e);
         }
     }
     
@@ -179,26 +186,32 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
      * @return {@code true} for polling, {@code false} for events
      */
     protected boolean isPolling() {
-        return null != pollTask;
+        return null != poll;
+    }
+
+    /**
+     * Returns the actual poll, e.g., to access its statistics.
+     * 
+     * @return the poll, <b>null</b> if not {@link #isPolling() polling}
+     */
+    protected PollingEngine.Poll getPoll() {
+        return poll;
     }
 
     /**
      * Uninstall poll task.
      */
     protected void uninstallPollTask() {
-        if (null != pollTask) {
-            pollTask.cancel();
-        }
-        if (null != timer) {
-            timer.cancel();
-            timer = null;
+        if (null != poll) {
+            poll.cancel();
+            poll = null;
         }
     }
     
     /**
      * Disconnects the connector from the underlying machine/platform.
      * Calls {@link #disconnectImpl()}, {@link #uninstallPollTask()} 
-     * and {@link ConnectorRegistry#unregisterConnector(Connector)}.
+     * and {@link ConnectorRegistry#unregisterConnector(Connector)}. Closes the change detector, if any.
      * 
      * @throws IOException in case that connecting fails
      */
@@ -207,6 +220,17 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
         ConnectorRegistry.unregisterConnector(this);
         disconnectImpl();
         uninstallPollTask(); // does not hurt if it is not running
+        closeChangeDetector();
+    }
+
+    /**
+     * Closes and removes the change detector, if any.
+     */
+    private void closeChangeDetector() {
+        if (null != changeDetector) {
+            changeDetector.close();
+            changeDetector = null;
+        }
     }
     
     /**
@@ -231,16 +255,29 @@ public abstract class AbstractConnector<O, I, CO, CI> implements Connector<O, I,
     protected abstract void writeImpl(I data) throws IOException;
 
     /**
-     * Call this if data was received. 
+     * Call this if data was received. If a {@link #getChangeDetector() change detector} is installed, unchanged
+     * translated data is not passed on.
      * 
      * @param data the received data, further processed if {@link #callback} is not <b>null</b>
      * @throws IOException if receiving/translation fails
      */
     protected void received(O data) throws IOException {
         if (null != callback) {
-            callback.received(selector.selectSouthOutput(data).adaptOutput(data));
+            CO out = selector.selectSouthOutput(data).adaptOutput(data);
+            if (null == changeDetector || changeDetector.isChanged(out)) {
+                callback.received(out);
+            }
         }
     }
+
+    /**
+     * Returns the change detector for report-by-exception, e.g., to access its statistics.
+     * 
+     * @return the change detector, <b>null</b> if no change detection is enabled
+     */
+    protected ChangeDetector<CO> getChangeDetector() {
+        return changeDetector;
+    }
     
     @Override
     public void setReceptionCallback(ReceptionCallback<CO> callback) throws IOException {
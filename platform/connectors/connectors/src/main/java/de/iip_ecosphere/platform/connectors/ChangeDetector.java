@@ -0,0 +1,281 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.ChangeDetection;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Detects changes between subsequent data objects for report-by-exception, i.e., unchanged data objects are
+ * suppressed. Data objects are compared field-by-field (including inherited, excluding static and transient fields),
+ * simple values such as numbers, strings or arrays directly and nested objects recursively field-by-field up to
+ * {@link #MAX_DEPTH} levels, below by their equals. In {@link ChangeDetection#DEADBAND} mode, numeric values 
+ * (also in nested objects) are considered unchanged if their absolute difference does not exceed the deadband. A 
+ * heartbeat forces that a data object is reported after a given number of suppressed data objects. Data objects are
+ * compared against a snapshot of the field values of the last reported data object, i.e., data objects may be 
+ * re-used and modified after being passed to {@link #isChanged(Object)}. However, JDK objects other than arrays,
+ * e.g., collections, are not copied into the snapshot and must not be modified. The number of suppressed data 
+ * objects is recorded via Micrometer as {@value #METRIC_SUPPRESSED}, tagged by the given name and the unique 
+ * {@link #getId() detector id}. The meter shall be removed by {@link #close()}.
+ *
+ * @param <T> the type of the data objects
+ * @author Holger Eichelberger, SSE
+ */
+public class ChangeDetector<T> {
+
+    public static final String METRIC_SUPPRESSED = "connector.samples.suppressed";
+    public static final String TAG_DETECTOR = "detector";
+    public static final int MAX_DEPTH = 8;
+
+    private static final AtomicInteger DETECTOR_COUNT = new AtomicInteger();
+
+    private final String id;
+    private final double deadband;
+    private final int heartbeat;
+    private final MeterRegistry registry;
+    private final Counter suppressed;
+    private final AtomicLong suppressedCount = new AtomicLong();
+    private final Map<Class<?>, Field[]> fields = new HashMap<>();
+    private Object last;
+    private boolean hasLast;
+    private int unchanged;
+
+    /**
+     * The field values of a data object at the time it was reported.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Snapshot {
+
+        private final Class<?> type;
+        private final Object[] values;
+
+        /**
+         * Creates a snapshot.
+         *
+         * @param type the type of the data object
+         * @param values the (snapshots of the) field values in the sequence of {@link #getFields(Class)}
+         */
+        private Snapshot(Class<?> type, Object[] values) {
+            this.type = type;
+            this.values = values;
+        }
+
+    }
+
+    /**
+     * Creates a change detector.
+     *
+     * @param mode the detection mode, {@link ChangeDetection#NONE} reports all data objects
+     * @param deadband the numeric deadband (absolute), considered only in {@link ChangeDetection#DEADBAND} mode
+     * @param heartbeat forces reporting after the given number of suppressed data objects, disabled if less than 1
+     * @param name the name of the detector, e.g., the connector name, used with the detector id as metric tag
+     * @param registry the meter registry to record the metrics in
+     */
+    public ChangeDetector(ChangeDetection mode, double deadband, int heartbeat, String name,
+        MeterRegistry registry) {
+        this.id = String.valueOf(DETECTOR_COUNT.incrementAndGet());
+        this.deadband = ChangeDetection.DEADBAND == mode ? Math.abs(deadband) : 0;
+        this.heartbeat = ChangeDetection.NONE == mode ? 1 : heartbeat;
+        this.registry = registry;
+        this.suppressed = Counter.builder(METRIC_SUPPRESSED)
+            .description("Unchanged data objects not reported by a connector")
+            .tag(PollingEngine.TAG_CONNECTOR, name)
+            .tag(TAG_DETECTOR, id)
+            .register(registry);
+    }
+
+    /**
+     * Returns the unique id of this detector, used as metric tag {@link #TAG_DETECTOR}.
+     *
+     * @return the id
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Removes the meter of this detector from the registry. Values are still detected, but suppressed values are
+     * only counted by {@link #getSuppressedCount()}.
+     */
+    public void close() {
+        registry.remove(suppressed);
+    }
+
+    /**
+     * Returns whether {@code value} shall be reported, i.e., whether it is the first value, it changed with respect
+     * to the last reported value or the heartbeat is due. Counts suppressed values.
+     *
+     * @param value the value, may be <b>null</b>
+     * @return {@code true} for report, {@code false} for suppress
+     */
+    public synchronized boolean isChanged(T value) {
+        boolean report = !hasLast || !equals(last, value) || (heartbeat > 0 && unchanged + 1 >= heartbeat);
+        if (report) {
+            last = snapshot(value, 0);
+            hasLast = true;
+            unchanged = 0;
+        } else {
+            unchanged++;
+            suppressedCount.incrementAndGet();
+            suppressed.increment();
+        }
+        return report;
+    }
+
+    /**
+     * Returns the number of suppressed values.
+     *
+     * @return the number of suppressed values
+     */
+    public long getSuppressedCount() {
+        return suppressedCount.get();
+    }
+
+    /**
+     * Creates a snapshot of a value, i.e., a copy that is not affected by subsequent modifications of {@code value}.
+     *
+     * @param value the value, may be <b>null</b>
+     * @param depth the nesting depth of {@code value}
+     * @return the snapshot, a {@link Snapshot} for a non-simple value, a copy for an array, else {@code value}
+     */
+    private Object snapshot(Object value, int depth) {
+        Object result = value;
+        if (null != value) {
+            Class<?> cls = value.getClass();
+            if (cls.isArray()) {
+                int length = Array.getLength(value);
+                result = Array.newInstance(cls.getComponentType(), length);
+                System.arraycopy(value, 0, result, 0, length);
+            } else if (!isSimple(cls) && depth < MAX_DEPTH) {
+                Field[] flds = getFields(cls);
+                Object[] values = new Object[flds.length];
+                try {
+                    for (int f = 0; f < flds.length; f++) {
+                        values[f] = snapshot(flds[f].get(value), depth + 1);
+                    }
+                    result = new Snapshot(cls, values);
+                } catch (IllegalAccessException e) {
+                    result = value; // compare by equals
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Compares a value to a snapshot.
+     *
+     * @param snapshot the snapshot as created by {@link #snapshot(Object, int)}, may be <b>null</b>
+     * @param value the value, may be <b>null</b>
+     * @return {@code true} if both are considered equal, {@code false} else
+     */
+    private boolean equals(Object snapshot, Object value) {
+        boolean result;
+        if (null == snapshot || null == value) {
+            result = snapshot == value;
+        } else if (snapshot instanceof Snapshot) {
+            Snapshot snap = (Snapshot) snapshot;
+            result = snap.type == value.getClass();
+            try {
+                Field[] flds = getFields(snap.type);
+                for (int f = 0; result && f < flds.length; f++) {
+                    result = equals(snap.values[f], flds[f].get(value));
+                }
+            } catch (IllegalAccessException e) {
+                result = false;
+            }
+        } else if (snapshot.getClass() != value.getClass()) {
+            result = false;
+        } else if (isSimple(value.getClass())) {
+            result = equalsSimple(snapshot, value);
+        } else {
+            result = Objects.equals(snapshot, value); // below max depth or not accessible
+        }
+        return result;
+    }
+
+    /**
+     * Compares two non-null values of a {@link #isSimple(Class) simple type}.
+     *
+     * @param v1 the first value
+     * @param v2 the second value
+     * @return {@code true} if both are considered equal, {@code false} else
+     */
+    private boolean equalsSimple(Object v1, Object v2) {
+        boolean result;
+        if (v1 instanceof Number && v2 instanceof Number) {
+            double d1 = ((Number) v1).doubleValue();
+            double d2 = ((Number) v2).doubleValue();
+            result = deadband > 0 ? Math.abs(d1 - d2) <= deadband : v1.equals(v2);
+        } else if (v1.getClass().isArray()) {
+            result = Arrays.deepEquals(new Object[] {v1}, new Object[] {v2});
+        } else {
+            result = v1.equals(v2);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether {@code cls} is a simple type, i.e., compared as a whole rather than field-by-field. JDK types
+     * are considered as simple as they are compared by their own equals.
+     *
+     * @param cls the class
+     * @return {@code true} for simple, {@code false} else
+     */
+    private static boolean isSimple(Class<?> cls) {
+        return cls.isPrimitive() || cls.isArray() || cls.isEnum() || Number.class.isAssignableFrom(cls)
+            || cls.getName().startsWith("java.");
+    }
+
+    /**
+     * Returns the (accessible) fields to compare of {@code cls}.
+     *
+     * @param cls the class
+     * @return the fields
+     */
+    private Field[] getFields(Class<?> cls) {
+        Field[] result = fields.get(cls);
+        if (null == result) {
+            List<Field> tmp = new ArrayList<>();
+            Class<?> c = cls;
+            while (null != c && Object.class != c) {
+                for (Field f : c.getDeclaredFields()) {
+                    int mod = f.getModifiers();
+                    if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !f.isSynthetic()) {
+                        f.setAccessible(true);
+                        tmp.add(f);
+                    }
+                }
+                c = c.getSuperclass();
+            }
+            result = tmp.toArray(new Field[tmp.size()]);
+            fields.put(cls, result);
+        }
+        return result;
+    }
+
+}
@@ -27,10 +27,16 @@ import de.iip_ecosphere.platform.support.ServerAddress;
 public class ConnectorParameter {
 
     public static final String ANY_ENDPOINT = "";
+    public static final String ANY_ITEM = "";
     public static final Schema DEFAULT_SCHEMA = Schema.TCP;
     public static final int DEFAULT_REQUEST_TIMEOUT = 5000;
     public static final int DEFAULT_NOTIFICATION_INTERVAL = 1000;
     public static final int DEFAULT_KEEP_ALIVE = 2000;
+    public static final int DEFAULT_CACHE_SIZE = 1000;
+    public static final int DEFAULT_SUBSCRIPTION_COUNT = 1;
+    public static final PollingMode DEFAULT_POLLING_MODE = PollingMode.FIXED_RATE;
+    public static final int DEFAULT_POLLING_JITTER = 0;
+    public static final ChangeDetection DEFAULT_CHANGE_DETECTION = ChangeDetection.NONE;
     
     // taken from OPC UA, preliminary
     private X509Certificate certificate;
@@ -46,6 +52,55 @@ public class ConnectorParameter {
     private String applicationDescription = "";
     private int notificationInterval = DEFAULT_NOTIFICATION_INTERVAL;
     private int keepAlive = DEFAULT_KEEP_ALIVE;
+    private int cacheSize = DEFAULT_CACHE_SIZE;
+    private int subscriptionCount = DEFAULT_SUBSCRIPTION_COUNT;
+    private Map<String, MonitoringSettings> monitoringSettings;
+    private PollingMode pollingMode = DEFAULT_POLLING_MODE;
+    private int pollingJitter = DEFAULT_POLLING_JITTER;
+    private ChangeDetection changeDetection = DEFAULT_CHANGE_DETECTION;
+    private double changeDeadband;
+    private int changeHeartbeat;
+
+    /**
+     * The polling modes, see {@link PollingEngine}.
+     */
+    public enum PollingMode {
+
+        /**
+         * Polls are executed at fixed rate, i.e., every notification interval. Slots missed by a poll taking longer
+         * than the notification interval are skipped.
+         */
+        FIXED_RATE,
+
+        /**
+         * Polls are executed with a fixed delay of the notification interval after the end of the previous poll.
+         */
+        FIXED_DELAY
+        
+    }
+
+    /**
+     * The change detection modes for report-by-exception, see {@link ChangeDetector}.
+     */
+    public enum ChangeDetection {
+
+        /**
+         * No change detection, all received data is reported.
+         */
+        NONE,
+
+        /**
+         * Data is reported only if it is not equal to the last reported data.
+         */
+        EQUALITY,
+
+        /**
+         * As {@link #EQUALITY}, but numeric values are considered as equal if they do not differ by more than
+         * a deadband.
+         */
+        DEADBAND
+        
+    }
     
     /**
      * Builds a connector parameter object.
@@ -151,6 +206,80 @@ public class ConnectorParameter {
             return this;
         }
 
+        /**
+         * Defines the maximum number of resolved model elements, e.g., OPC UA nodes, that a connector shall cache 
+         * to avoid repeated lookups (if supported).
+         * 
+         * @param cacheSize the maximum number of cached elements, caching is disabled if less than 1, default is
+         * {@value ConnectorParameter#DEFAULT_CACHE_SIZE}
+         * @return <b>this</b>
+         */
+        public ConnectorParameterBuilder setCacheSize(int cacheSize) {
+            instance.cacheSize = cacheSize;
+            return this;
+        }
+
+        /**
+         * Defines how polling shall happen if the connector polls.
+         * 
+         * @param pollingMode the polling mode, <b>null</b> is turned into 
+         *   {@link ConnectorParameter#DEFAULT_POLLING_MODE}
+         * @param pollingJitter the maximum random delay in ms of the first poll (and for 
+         *   {@link PollingMode#FIXED_DELAY} of every poll) to avoid that many connectors poll at the same time, 
+         *   disabled if less than 1, default is {@value ConnectorParameter#DEFAULT_POLLING_JITTER}
+         * @return <b>this</b>
+         */
+        public ConnectorParameterBuilder setPolling(PollingMode pollingMode, int pollingJitter) {
+            instance.pollingMode = null == pollingMode ? DEFAULT_POLLING_MODE : pollingMode;
+            instance.pollingJitter = pollingJitter;
+            return this;
+        }
+
+        /**
+         * Defines the change detection for report-by-exception, i.e., whether unchanged data shall be suppressed 
+         * rather than passed on by the connector.
+         * 
+         * @param changeDetection the change detection mode, <b>null</b> is turned into 
+         *   {@link ConnectorParameter#DEFAULT_CHANGE_DETECTION}
+         * @param deadband the absolute numeric deadband, only for {@link ChangeDetection#DEADBAND}
+         * @param heartbeat forces passing on data after the given number of suppressed data, disabled if less 
+         *   than 1 (default)
+         * @return <b>this</b>
+         */
+        public ConnectorParameterBuilder setChangeDetection(ChangeDetection changeDetection, double deadband, 
+            int heartbeat) {
+            instance.changeDetection = null == changeDetection ? DEFAULT_CHANGE_DETECTION : changeDetection;
+            instance.changeDeadband = deadband;
+            instance.changeHeartbeat = heartbeat;
+            return this;
+        }
+
+        /**
+         * Defines the number of subscriptions that monitored items with the same publishing interval shall be 
+         * distributed over (if supported).
+         * 
+         * @param subscriptionCount the number of subscriptions per publishing interval, at least 1, default is
+         * {@value ConnectorParameter#DEFAULT_SUBSCRIPTION_COUNT}
+         * @return <b>this</b>
+         */
+        public ConnectorParameterBuilder setSubscriptionCount(int subscriptionCount) {
+            instance.subscriptionCount = Math.max(1, subscriptionCount);
+            return this;
+        }
+
+        /**
+         * Defines the settings for monitored items. Optional, if not called {@link MonitoringSettings#DEFAULT} 
+         * is used.
+         * 
+         * @param monitoringSettings the settings per qualified item name (may be <b>null</b> for default settings), 
+         *   an {@link #ANY_ITEM} denotes just all items
+         * @return <b>this</b>
+         */
+        public ConnectorParameterBuilder setMonitoringSettings(Map<String, MonitoringSettings> monitoringSettings) {
+            instance.monitoringSettings = monitoringSettings;
+            return this;
+        }
+
         /**
          * Sets connector-dependent application information. Optional, if not called both settings will remain empty 
          * strings. 
@@ -364,6 +493,88 @@ public class ConnectorParameter {
     public int getKeepAlive() {
         return keepAlive;
     }
+
+    /**
+     * Returns the polling mode.
+     * 
+     * @return the polling mode
+     */
+    public PollingMode getPollingMode() {
+        return pollingMode;
+    }
+
+    /**
+     * Returns the maximum polling jitter.
+     * 
+     * @return the jitter in ms, disabled if less than 1
+     */
+    public int getPollingJitter() {
+        return pollingJitter;
+    }
+
+    /**
+     * Returns the change detection mode for report-by-exception.
+     * 
+     * @return the change detection mode
+     */
+    public ChangeDetection getChangeDetection() {
+        return changeDetection;
+    }
+
+    /**
+     * Returns the numeric deadband for {@link ChangeDetection#DEADBAND}.
+     * 
+     * @return the absolute deadband
+     */
+    public double getChangeDeadband() {
+        return changeDeadband;
+    }
+
+    /**
+     * Returns the heartbeat of the change detection.
+     * 
+     * @return the number of suppressed data after which data is passed on anyway, disabled if less than 1
+     */
+    public int getChangeHeartbeat() {
+        return changeHeartbeat;
+    }
+
+    /**
+     * Returns the number of subscriptions that monitored items with the same publishing interval shall be 
+     * distributed over.
+     * 
+     * @return the number of subscriptions per publishing interval
+     */
+    public int getSubscriptionCount() {
+        return subscriptionCount;
+    }
+
+    /**
+     * Returns the monitoring settings for an item.
+     * 
+     * @param qName the qualified name of the monitored item
+     * @return the settings for {@code qName}, the settings for {@link #ANY_ITEM} if there are none or 
+     *   {@link MonitoringSettings#DEFAULT}
+     */
+    public MonitoringSettings getMonitoringSettings(String qName) {
+        MonitoringSettings settings = null;
+        if (null != monitoringSettings) {
+            settings = monitoringSettings.get(qName);
+            if (null == settings) {
+                settings = monitoringSettings.get(ANY_ITEM);
+            }
+        }
+        return null == settings ? MonitoringSettings.DEFAULT : settings;
+    }
+
+    /**
+     * Returns the maximum number of resolved model elements, e.g., OPC UA nodes, that a connector shall cache.
+     * 
+     * @return the maximum number of cached elements, deactivated if less than 1
+     */
+    public int getCacheSize() {
+        return cacheSize;
+    }
     
     /**
      * Returns whether the application identification is expected to be unique or shall be made unique upon first 
@@ -0,0 +1,229 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors;
+
+import de.iip_ecosphere.platform.connectors.model.ModelAccess;
+
+/**
+ * Settings for an item monitored through {@link ModelAccess#monitor(String...)}. Settings may be ignored if not
+ * supported by a connector. Instances are created via {@link MonitoringSettingsBuilder}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MonitoringSettings {
+
+    public static final int DEFAULT_QUEUE_SIZE = 10;
+    public static final MonitoringSettings DEFAULT = MonitoringSettingsBuilder.newBuilder().build();
+
+    private int publishingInterval = -1;
+    private int samplingInterval = -1;
+    private int queueSize = DEFAULT_QUEUE_SIZE;
+    private DeadbandType deadbandType = DeadbandType.NONE;
+    private double deadband;
+    private boolean discardOldest = true;
+
+    /**
+     * The deadband types, i.e., how changes of numeric values are filtered before being notified.
+     */
+    public enum DeadbandType {
+
+        /**
+         * No deadband, every change is notified.
+         */
+        NONE,
+
+        /**
+         * Absolute deadband, changes are notified if they exceed the deadband value.
+         */
+        ABSOLUTE,
+
+        /**
+         * Percent deadband, changes are notified if they exceed the given percentage of the value range of the
+         * item (requires that the range is known to the server).
+         */
+        PERCENT
+
+    }
+
+    /**
+     * Helps building monitoring settings.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public static class MonitoringSettingsBuilder {
+
+        private MonitoringSettings instance;
+
+        /**
+         * Prevents external creation, only through builder.
+         */
+        private MonitoringSettingsBuilder() {
+        }
+
+        /**
+         * Creates a builder for default settings.
+         *
+         * @return the builder instance
+         */
+        public static MonitoringSettingsBuilder newBuilder() {
+            MonitoringSettingsBuilder builder = new MonitoringSettingsBuilder();
+            builder.instance = new MonitoringSettings();
+            return builder;
+        }
+
+        /**
+         * Defines the publishing interval, i.e., how frequently changes are reported to the connector. Items with the
+         * same publishing interval may share subscriptions.
+         *
+         * @param publishingInterval the publishing interval in ms, if less than 1 the
+         *   {@link ConnectorParameter#getNotificationInterval() notification interval} is used (default)
+         * @return <b>this</b>
+         */
+        public MonitoringSettingsBuilder setPublishingInterval(int publishingInterval) {
+            instance.publishingInterval = publishingInterval;
+            return this;
+        }
+
+        /**
+         * Defines the sampling interval, i.e., how frequently the server shall look for changes of the item.
+         *
+         * @param samplingInterval the sampling interval in ms, {@code 0} for the fastest practical rate, the
+         *   publishing interval if negative (default)
+         * @return <b>this</b>
+         */
+        public MonitoringSettingsBuilder setSamplingInterval(int samplingInterval) {
+            instance.samplingInterval = samplingInterval;
+            return this;
+        }
+
+        /**
+         * Defines the queue size, i.e., how many changes are kept for an item between two publishing cycles.
+         *
+         * @param queueSize the queue size, default is {@value MonitoringSettings#DEFAULT_QUEUE_SIZE}
+         * @return <b>this</b>
+         */
+        public MonitoringSettingsBuilder setQueueSize(int queueSize) {
+            instance.queueSize = queueSize;
+            return this;
+        }
+
+        /**
+         * Defines the deadband.
+         *
+         * @param deadbandType the deadband type, <b>null</b> is turned into {@link DeadbandType#NONE} (default)
+         * @param deadband the deadband value, either absolute or in percent (0-100) depending on
+         *   {@code deadbandType}
+         * @return <b>this</b>
+         */
+        public MonitoringSettingsBuilder setDeadband(DeadbandType deadbandType, double deadband) {
+            instance.deadbandType = null == deadbandType ? DeadbandType.NONE : deadbandType;
+            instance.deadband = deadband;
+            return this;
+        }
+
+        /**
+         * Defines the discard policy if the queue is full.
+         *
+         * @param discardOldest {@code true} for discarding the oldest (default), {@code false} for discarding the
+         *   newest change
+         * @return <b>this</b>
+         */
+        public MonitoringSettingsBuilder setDiscardOldest(boolean discardOldest) {
+            instance.discardOldest = discardOldest;
+            return this;
+        }
+
+        /**
+         * Creates the instance.
+         *
+         * @return the created instance
+         */
+        public MonitoringSettings build() {
+            return instance;
+        }
+
+    }
+
+    /**
+     * Creates an instance.
+     */
+    private MonitoringSettings() {
+    }
+
+    /**
+     * Returns the publishing interval.
+     *
+     * @return the publishing interval in ms, use the notification interval if less than 1
+     */
+    public int getPublishingInterval() {
+        return publishingInterval;
+    }
+
+    /**
+     * Returns the publishing interval.
+     *
+     * @param params the connector parameters providing the default publishing interval
+     * @return the publishing interval in ms, the {@link ConnectorParameter#getNotificationInterval() notification
+     *   interval} if no publishing interval is set
+     */
+    public int getPublishingInterval(ConnectorParameter params) {
+        return publishingInterval > 0 ? publishingInterval : params.getNotificationInterval();
+    }
+
+    /**
+     * Returns the sampling interval.
+     *
+     * @return the sampling interval in ms, {@code 0} for the fastest practical rate, the publishing interval if
+     *   negative
+     */
+    public int getSamplingInterval() {
+        return samplingInterval;
+    }
+
+    /**
+     * Returns the queue size.
+     *
+     * @return the queue size
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Returns the deadband type.
+     *
+     * @return the deadband type
+     */
+    public DeadbandType getDeadbandType() {
+        return deadbandType;
+    }
+
+    /**
+     * Returns the deadband value.
+     *
+     * @return the deadband value, either absolute or in percent depending on {@link #getDeadbandType()}
+     */
+    public double getDeadband() {
+        return deadband;
+    }
+
+    /**
+     * Returns the discard policy.
+     *
+     * @return {@code true} for discarding the oldest, {@code false} for discarding the newest change
+     */
+    public boolean isDiscardOldest() {
+        return discardOldest;
+    }
+
+}
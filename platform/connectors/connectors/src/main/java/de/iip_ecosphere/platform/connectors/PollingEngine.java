@@ -0,0 +1,326 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.PollingMode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A polling engine shared among connectors. Polls are executed by a bounded number of (daemon) threads rather than
+ * a timer thread per connector. Polls are rescheduled after each execution, i.e., a poll is never executed
+ * concurrently to itself and an exception does not terminate polling. Polls can be executed at
+ * {@link PollingMode#FIXED_RATE fixed rate} (missed slots of a poll that takes longer than its period are skipped
+ * rather than executed in a burst) or with {@link PollingMode#FIXED_DELAY fixed delay}. A jitter delays the first
+ * execution (and for fixed delay each execution) by a random amount to avoid that many connectors poll at the
+ * same time. Per poll, the poll latency ({@value #METRIC_POLL_LATENCY}) as well as the number of
+ * overruns ({@value #METRIC_POLL_OVERRUNS}) and skipped slots ({@value #METRIC_POLL_SKIPPED}) are recorded, tagged
+ * by the given name, e.g., the connector name, and the unique {@link Poll#getId() poll id} as polls may have the same
+ * name. The meters of a poll are removed when the poll is {@link Poll#cancel() cancelled}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class PollingEngine {
+
+    public static final int DEFAULT_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+    public static final String METRIC_POLL_LATENCY = "connector.poll.latency";
+    public static final String METRIC_POLL_OVERRUNS = "connector.poll.overruns";
+    public static final String METRIC_POLL_SKIPPED = "connector.poll.skipped";
+    public static final String TAG_CONNECTOR = "connector";
+    public static final String TAG_POLL = "poll";
+
+    private static PollingEngine instance;
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final AtomicInteger POLL_COUNT = new AtomicInteger();
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final MeterRegistry registry;
+
+    /**
+     * A scheduled poll.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public class Poll implements Runnable {
+
+        private final String id;
+        private final Runnable task;
+        private final long period;
+        private final PollingMode mode;
+        private final long jitter;
+        private final Timer latency;
+        private final Counter overruns;
+        private final Counter skipped;
+        private final AtomicLong pollCount = new AtomicLong();
+        private final AtomicLong overrunCount = new AtomicLong();
+        private final AtomicLong skippedCount = new AtomicLong();
+        private long next;
+        private volatile boolean cancelled;
+        private ScheduledFuture<?> future;
+
+        /**
+         * Creates a poll.
+         *
+         * @param name the name of the poll, used with the poll id as metric tag
+         * @param task the task to execute
+         * @param period the polling period in ms
+         * @param mode the polling mode
+         * @param jitter the maximum jitter in ms
+         */
+        private Poll(String name, Runnable task, int period, PollingMode mode, int jitter) {
+            this.id = String.valueOf(POLL_COUNT.incrementAndGet());
+            this.task = task;
+            this.period = TimeUnit.MILLISECONDS.toNanos(period);
+            this.mode = mode;
+            this.jitter = TimeUnit.MILLISECONDS.toNanos(Math.max(0, jitter));
+            latency = Timer.builder(METRIC_POLL_LATENCY)
+                .description("Execution time of connector polls")
+                .tag(TAG_CONNECTOR, name)
+                .tag(TAG_POLL, id)
+                .register(registry);
+            overruns = Counter.builder(METRIC_POLL_OVERRUNS)
+                .description("Connector polls taking longer than the polling period")
+                .tag(TAG_CONNECTOR, name)
+                .tag(TAG_POLL, id)
+                .register(registry);
+            skipped = Counter.builder(METRIC_POLL_SKIPPED)
+                .description("Connector poll slots skipped due to overruns")
+                .tag(TAG_CONNECTOR, name)
+                .tag(TAG_POLL, id)
+                .register(registry);
+        }
+
+        /**
+         * Starts polling.
+         */
+        private synchronized void start() {
+            long delay = jitter();
+            next = System.nanoTime() + delay;
+            future = executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Returns a random jitter.
+         *
+         * @return the jitter in ns
+         */
+        private long jitter() {
+            return jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter) : 0;
+        }
+
+        @Override
+        public void run() {
+            if (!cancelled) {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LoggerFactory.getLogger(PollingEngine.class).error("While polling: " + e.getMessage(), e);
+                }
+                long end = System.nanoTime();
+                latency.record(end - start, TimeUnit.NANOSECONDS);
+                pollCount.incrementAndGet();
+                long delay;
+                if (PollingMode.FIXED_DELAY == mode) {
+                    if (end - start > period) {
+                        countOverrun(0);
+                    }
+                    delay = period + jitter();
+                } else {
+                    next += period;
+                    if (end - next > 0) { // next slot already passed, skip missed slots
+                        long missed = (end - next) / period + 1;
+                        countOverrun(missed);
+                        next += missed * period;
+                    }
+                    delay = next - end;
+                }
+                schedule(delay);
+            }
+        }
+
+        /**
+         * Counts an overrun.
+         *
+         * @param missed the number of skipped slots
+         */
+        private void countOverrun(long missed) {
+            overruns.increment();
+            overrunCount.incrementAndGet();
+            if (missed > 0) {
+                skipped.increment(missed);
+                skippedCount.addAndGet(missed);
+            }
+        }
+
+        /**
+         * Schedules the next execution if not cancelled.
+         *
+         * @param delay the delay in ns
+         */
+        private synchronized void schedule(long delay) {
+            if (!cancelled && !executor.isShutdown()) {
+                future = executor.schedule(this, delay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        /**
+         * Cancels this poll and removes its meters. A running execution is completed.
+         */
+        public synchronized void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                if (null != future) {
+                    future.cancel(false);
+                }
+                registry.remove(latency);
+                registry.remove(overruns);
+                registry.remove(skipped);
+            }
+        }
+
+        /**
+         * Returns the unique id of this poll, used as metric tag {@link #TAG_POLL}.
+         *
+         * @return the id
+         */
+        public String getId() {
+            return id;
+        }
+
+        /**
+         * Returns whether this poll was cancelled.
+         *
+         * @return {@code true} for cancelled, {@code false} else
+         */
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        /**
+         * Returns the number of executions.
+         *
+         * @return the number of executions
+         */
+        public long getPollCount() {
+            return pollCount.get();
+        }
+
+        /**
+         * Returns the number of executions taking longer than the polling period.
+         *
+         * @return the number of overruns
+         */
+        public long getOverrunCount() {
+            return overrunCount.get();
+        }
+
+        /**
+         * Returns the number of skipped slots in {@link PollingMode#FIXED_RATE} mode.
+         *
+         * @return the number of skipped slots
+         */
+        public long getSkippedCount() {
+            return skippedCount.get();
+        }
+
+    }
+
+    /**
+     * Creates a polling engine.
+     *
+     * @param threads the maximum number of polling threads (at least 1)
+     * @param registry the meter registry to record the metrics in
+     */
+    public PollingEngine(int threads, MeterRegistry registry) {
+        this.registry = registry;
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), r -> {
+            Thread result = new Thread(r, "ConnectorPolling-" + THREAD_COUNT.incrementAndGet());
+            result.setDaemon(true);
+            return result;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Returns the default instance, creates it with {@link #DEFAULT_THREADS} recording into the
+     * {@link Metrics#globalRegistry global meter registry} if required.
+     *
+     * @return the default instance
+     */
+    public static synchronized PollingEngine getInstance() {
+        if (null == instance) {
+            instance = new PollingEngine(DEFAULT_THREADS, Metrics.globalRegistry);
+        }
+        return instance;
+    }
+
+    /**
+     * Defines the default instance. Polls scheduled on a previous instance are not affected.
+     *
+     * @param engine the new default instance, ignored if <b>null</b>
+     */
+    public static synchronized void setInstance(PollingEngine engine) {
+        if (null != engine) {
+            instance = engine;
+        }
+    }
+
+    /**
+     * Schedules a poll.
+     *
+     * @param name the name of the poll, e.g., the connector name, used with the poll id as metric tag
+     * @param task the task to execute
+     * @param period the polling period in ms
+     * @param mode the polling mode, <b>null</b> for {@link PollingMode#FIXED_RATE}
+     * @param jitter the maximum jitter in ms, no jitter if not positive
+     * @return the scheduled poll
+     * @throws IllegalArgumentException if {@code period} is not positive
+     */
+    public Poll schedule(String name, Runnable task, int period, PollingMode mode, int jitter) {
+        if (period < 1) {
+            throw new IllegalArgumentException("period must be positive");
+        }
+        Poll poll = new Poll(name, task, period, null == mode ? PollingMode.FIXED_RATE : mode, jitter);
+        poll.start();
+        return poll;
+    }
+
+    /**
+     * Returns the maximum number of polling threads.
+     *
+     * @return the maximum number of polling threads
+     */
+    public int getThreadCount() {
+        return executor.getCorePoolSize();
+    }
+
+    /**
+     * Shuts down this engine, i.e., no further polls are executed.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+}
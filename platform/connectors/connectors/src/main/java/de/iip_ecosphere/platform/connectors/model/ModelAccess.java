@@ -13,6 +13,7 @@
 package de.iip_ecosphere.platform.connectors.model;
 
 import java.io.IOException;
+import java.util.Map;
 
 import de.iip_ecosphere.platform.connectors.MachineConnector;
 import de.iip_ecosphere.platform.connectors.types.ConnectorOutputTypeTranslator;
@@ -75,6 +76,41 @@ public interface ModelAccess {
      */
     public void set(String qName, Object value) throws IOException;
 
+    /**
+     * Returns multiple property values at once. Connectors may realize this through a single request to the 
+     * underlying protocol, e.g., one OPC UA read service call, which is more efficient than individual 
+     * {@link #get(String)} calls, e.g., when translating a whole data object. By default, individual 
+     * {@link #get(String)} calls are performed.
+     * 
+     * @param qNames the qualified names of the properties (composed using {@link #getQSeparator()}).
+     * @return the property values in the sequence of {@code qNames} (individual values may be <b>null</b>)
+     * @throws IOException in case that accessing any of the properties fails or reading properties is not 
+     * implemented (see {@link MachineConnector#supportsModelProperties()} is {@code false})
+     */
+    public default Object[] getMany(String... qNames) throws IOException {
+        Object[] result = new Object[qNames.length];
+        for (int i = 0; i < qNames.length; i++) {
+            result[i] = get(qNames[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Changes multiple property values at once. Connectors may realize this through a single request to the 
+     * underlying protocol, e.g., one OPC UA write service call, which is more efficient than individual 
+     * {@link #set(String, Object)} calls. By default, individual {@link #set(String, Object)} calls are performed.
+     * 
+     * @param values the new property values (in iteration sequence) per qualified property name (composed using 
+     *   {@link #getQSeparator()}).
+     * @throws IOException in case that accessing any of the properties fails or setting properties is not 
+     * implemented (see {@link MachineConnector#supportsModelProperties()} is {@code false})
+     */
+    public default void setMany(Map<String, Object> values) throws IOException {
+        for (Map.Entry<String, Object> ent : values.entrySet()) {
+            set(ent.getKey(), ent.getValue());
+        }
+    }
+
     // complex types
     
     /**
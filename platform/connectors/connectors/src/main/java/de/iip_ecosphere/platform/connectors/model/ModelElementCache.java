@@ -0,0 +1,106 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.connectors.model;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A bounded, thread-safe least-recently-used cache for resolved model elements, e.g., OPC UA nodes, by their
+ * qualified name. Connectors shall {@link #clear() clear} the cache if the resolved elements may become invalid,
+ * e.g., upon a reconnect or a structural change of the model.
+ *
+ * @param <E> the type of the cached elements
+ * @author Holger Eichelberger, SSE
+ */
+public class ModelElementCache<E> {
+
+    private final int capacity;
+    private final Map<String, E> elements;
+
+    /**
+     * Creates a cache.
+     *
+     * @param capacity the maximum number of cached elements, caching is disabled if less than 1
+     */
+    public ModelElementCache(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.elements = new LinkedHashMap<String, E>(16, 0.75f, true) {
+
+            private static final long serialVersionUID = 3210472961185307262L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, E> eldest) {
+                return size() > ModelElementCache.this.capacity;
+            }
+
+        };
+    }
+
+    /**
+     * Returns a cached element.
+     *
+     * @param qName the qualified name of the element
+     * @return the element, <b>null</b> if not cached
+     */
+    public synchronized E get(String qName) {
+        return elements.get(qName);
+    }
+
+    /**
+     * Caches an element. May evict the least recently used element.
+     *
+     * @param qName the qualified name of the element
+     * @param element the element
+     */
+    public synchronized void put(String qName, E element) {
+        if (capacity > 0) {
+            elements.put(qName, element);
+        }
+    }
+
+    /**
+     * Removes an element, e.g., as it turned out to be invalid.
+     *
+     * @param qName the qualified name of the element
+     */
+    public synchronized void remove(String qName) {
+        elements.remove(qName);
+    }
+
+    /**
+     * Removes all cached elements.
+     */
+    public synchronized void clear() {
+        elements.clear();
+    }
+
+    /**
+     * Returns the number of cached elements.
+     *
+     * @return the number of cached elements
+     */
+    public synchronized int size() {
+        return elements.size();
+    }
+
+    /**
+     * Returns the maximum number of cached elements.
+     *
+     * @return the maximum number of cached elements, caching is disabled if {@code 0}
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+}
@@ -20,9 +20,12 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
+    ChangeDetectorTest.class,
     ConnectorParameterTest.class,
     ConnectorTest.class,
-    ConnectorsAasTest.class
+    ConnectorsAasTest.class,
+    ModelElementCacheTest.class,
+    PollingEngineTest.class
 })
 public class AllTests {
 }
@@ -0,0 +1,159 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0 which is available 
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.connectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.connectors.ChangeDetector;
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.ChangeDetection;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link ChangeDetector}.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class ChangeDetectorTest {
+
+    /**
+     * Tests field-level equality with heartbeat.
+     */
+    @Test
+    public void testEquality() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ChangeDetector<MachineData> detector = new ChangeDetector<>(ChangeDetection.EQUALITY, 1, 3, "eq", registry);
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 0.5, "v"))); // first
+        Assert.assertFalse(detector.isChanged(new MachineData(1, 0.5, "v"))); // equal fields, other instance
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 0.6, "v"))); // no deadband
+        Assert.assertFalse(detector.isChanged(new MachineData(1, 0.6, "v")));
+        Assert.assertFalse(detector.isChanged(new MachineData(1, 0.6, "v")));
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 0.6, "v"))); // heartbeat
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 0.6, "w")));
+        Assert.assertTrue(detector.isChanged(null));
+        Assert.assertFalse(detector.isChanged(null));
+        Assert.assertEquals(4, detector.getSuppressedCount());
+        Assert.assertEquals(4, registry.get(ChangeDetector.METRIC_SUPPRESSED).counter().count(), 0.001);
+
+        // same name, distinct meters, removed on close
+        ChangeDetector<MachineData> other = new ChangeDetector<>(ChangeDetection.EQUALITY, 1, 3, "eq", registry);
+        Assert.assertNotEquals(detector.getId(), other.getId());
+        Assert.assertEquals(2, registry.get(ChangeDetector.METRIC_SUPPRESSED).counters().size());
+        detector.close();
+        other.close();
+        Assert.assertTrue(registry.getMeters().isEmpty());
+    }
+
+    /**
+     * A nested struct for testing.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Position {
+
+        private double x;
+        private double y;
+
+        /**
+         * Creates a position.
+         * 
+         * @param x the x coordinate
+         * @param y the y coordinate
+         */
+        private Position(double x, double y) {
+            this.x = x;
+            this.y = y;
+        }
+
+    }
+
+    /**
+     * A struct containing a nested struct for testing.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Axis {
+
+        private String name;
+        private Position pos;
+
+        /**
+         * Creates an axis.
+         * 
+         * @param name the name
+         * @param pos the position
+         */
+        private Axis(String name, Position pos) {
+            this.name = name;
+            this.pos = pos;
+        }
+
+    }
+
+    /**
+     * Tests deadband on nested structs and re-used, modified data objects.
+     */
+    @Test
+    public void testNested() {
+        ChangeDetector<Axis> detector = new ChangeDetector<>(ChangeDetection.DEADBAND, 0.5, 0, "nested", 
+            new SimpleMeterRegistry());
+        Assert.assertTrue(detector.isChanged(new Axis("a", new Position(1, 1))));
+        Assert.assertFalse(detector.isChanged(new Axis("a", new Position(1.4, 0.6)))); // nested deadband
+        Assert.assertTrue(detector.isChanged(new Axis("a", new Position(1.6, 1))));
+        Assert.assertTrue(detector.isChanged(new Axis("a", null)));
+        Assert.assertFalse(detector.isChanged(new Axis("a", null)));
+
+        Axis reused = new Axis("b", new Position(0, 0)); // translator re-using its output instance
+        Assert.assertTrue(detector.isChanged(reused));
+        reused.pos.x = 0.2;
+        Assert.assertFalse(detector.isChanged(reused));
+        reused.pos.x = 2;
+        Assert.assertTrue(detector.isChanged(reused));
+        Assert.assertFalse(detector.isChanged(reused));
+        reused.name = "c";
+        Assert.assertTrue(detector.isChanged(reused));
+        detector.close();
+    }
+
+    /**
+     * Tests numeric deadband on fields and simple values.
+     */
+    @Test
+    public void testDeadband() {
+        ChangeDetector<MachineData> detector = new ChangeDetector<>(ChangeDetection.DEADBAND, 0.5, 0, "db", 
+            new SimpleMeterRegistry());
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 10, "v")));
+        Assert.assertFalse(detector.isChanged(new MachineData(1, 10.4, "v")));
+        Assert.assertFalse(detector.isChanged(new MachineData(1, 9.6, "v"))); // relative to last reported
+        Assert.assertTrue(detector.isChanged(new MachineData(1, 10.6, "v")));
+        Assert.assertTrue(detector.isChanged(new MachineData(2, 10.6, "v")));
+        Assert.assertFalse(detector.isChanged(new MachineData(2, 10.6, "v"))); // no heartbeat
+
+        ChangeDetector<Object> simple = new ChangeDetector<>(ChangeDetection.DEADBAND, 0.5, 0, "simple", 
+            new SimpleMeterRegistry());
+        Assert.assertTrue(simple.isChanged(1.0));
+        Assert.assertFalse(simple.isChanged(1.2));
+        Assert.assertTrue(simple.isChanged("abc"));
+        Assert.assertFalse(simple.isChanged("abc"));
+        Assert.assertTrue(simple.isChanged(new byte[] {1, 2}));
+        Assert.assertFalse(simple.isChanged(new byte[] {1, 2}));
+        Assert.assertTrue(simple.isChanged(new byte[] {1, 3}));
+        
+        ChangeDetector<Object> none = new ChangeDetector<>(ChangeDetection.NONE, 0.5, 0, "none", 
+            new SimpleMeterRegistry());
+        Assert.assertTrue(none.isChanged("abc"));
+        Assert.assertTrue(none.isChanged("abc"));
+        Assert.assertEquals(0, none.getSuppressedCount());
+    }
+
+}
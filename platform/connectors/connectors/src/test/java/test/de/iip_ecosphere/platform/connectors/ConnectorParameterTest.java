@@ -34,9 +34,14 @@ import org.junit.Assert;
 import org.junit.Test;
 
 import de.iip_ecosphere.platform.connectors.ConnectorParameter;
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.ChangeDetection;
 import de.iip_ecosphere.platform.connectors.ConnectorParameter.ConnectorParameterBuilder;
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.PollingMode;
 import de.iip_ecosphere.platform.connectors.IdentityToken;
 import de.iip_ecosphere.platform.connectors.IdentityToken.IdentityTokenBuilder;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings.DeadbandType;
+import de.iip_ecosphere.platform.connectors.MonitoringSettings.MonitoringSettingsBuilder;
 import de.iip_ecosphere.platform.support.Schema;
 import de.iip_ecosphere.platform.support.ServerAddress;
 
@@ -64,6 +69,13 @@ public class ConnectorParameterTest {
         Assert.assertEquals(ConnectorParameter.DEFAULT_SCHEMA, params.getSchema());
         Assert.assertEquals(ConnectorParameter.DEFAULT_KEEP_ALIVE, params.getKeepAlive());
         Assert.assertEquals(ConnectorParameter.DEFAULT_NOTIFICATION_INTERVAL, params.getNotificationInterval());
+        Assert.assertEquals(ConnectorParameter.DEFAULT_CACHE_SIZE, params.getCacheSize());
+        Assert.assertEquals(ConnectorParameter.DEFAULT_SUBSCRIPTION_COUNT, params.getSubscriptionCount());
+        Assert.assertEquals(ConnectorParameter.DEFAULT_POLLING_MODE, params.getPollingMode());
+        Assert.assertEquals(ConnectorParameter.DEFAULT_POLLING_JITTER, params.getPollingJitter());
+        Assert.assertEquals(ConnectorParameter.DEFAULT_CHANGE_DETECTION, params.getChangeDetection());
+        Assert.assertEquals(0, params.getChangeHeartbeat());
+        Assert.assertTrue(MonitoringSettings.DEFAULT == params.getMonitoringSettings("a"));
         Assert.assertNull(params.getClientCertificate());
         Assert.assertNull(params.getClientKeyPair());
         Assert.assertNull(params.getIdentityToken(ConnectorParameter.ANY_ENDPOINT));
@@ -226,6 +238,9 @@ public class ConnectorParameterTest {
             .setAutoApplicationId(false)
             .setEndpointPath("epp/")
             .setKeepAlive(2345)
+            .setCacheSize(50)
+            .setPolling(PollingMode.FIXED_DELAY, 100)
+            .setChangeDetection(ChangeDetection.DEADBAND, 0.5, 10)
             .setNotificationInterval(9999)
             .setRequestTimeout(3421)
             .setIdentities(tokens)
@@ -240,6 +255,12 @@ public class ConnectorParameterTest {
         Assert.assertFalse(params.getAutoApplicationId());
         Assert.assertEquals("epp/", params.getEndpointPath());
         Assert.assertEquals(2345, params.getKeepAlive());
+        Assert.assertEquals(50, params.getCacheSize());
+        Assert.assertEquals(PollingMode.FIXED_DELAY, params.getPollingMode());
+        Assert.assertEquals(100, params.getPollingJitter());
+        Assert.assertEquals(ChangeDetection.DEADBAND, params.getChangeDetection());
+        Assert.assertEquals(0.5, params.getChangeDeadband(), 0.001);
+        Assert.assertEquals(10, params.getChangeHeartbeat());
         Assert.assertEquals(9999, params.getNotificationInterval());
         Assert.assertEquals(3421, params.getRequestTimeout());
         Assert.assertTrue(tokens.get("a") == params.getIdentityToken("a"));
@@ -258,4 +279,49 @@ public class ConnectorParameterTest {
         Assert.assertEquals(addr.getSchema(), params.getSchema());
     }
 
+    /**
+     * Tests the monitoring settings.
+     */
+    @Test
+    public void testMonitoringSettings() {
+        MonitoringSettings dflt = MonitoringSettings.DEFAULT;
+        Assert.assertEquals(-1, dflt.getPublishingInterval());
+        Assert.assertEquals(-1, dflt.getSamplingInterval());
+        Assert.assertEquals(MonitoringSettings.DEFAULT_QUEUE_SIZE, dflt.getQueueSize());
+        Assert.assertEquals(DeadbandType.NONE, dflt.getDeadbandType());
+        Assert.assertTrue(dflt.isDiscardOldest());
+
+        Map<String, MonitoringSettings> settings = new HashMap<String, MonitoringSettings>();
+        settings.put("a", MonitoringSettingsBuilder.newBuilder()
+            .setPublishingInterval(500)
+            .setSamplingInterval(100)
+            .setQueueSize(5)
+            .setDeadband(DeadbandType.PERCENT, 2.5)
+            .setDiscardOldest(false)
+            .build());
+        settings.put(ConnectorParameter.ANY_ITEM, MonitoringSettingsBuilder.newBuilder()
+            .setDeadband(null, 1)
+            .build());
+        ConnectorParameter params = ConnectorParameterBuilder
+            .newBuilder("aaa", 1234)
+            .setNotificationInterval(2000)
+            .setSubscriptionCount(0)
+            .setMonitoringSettings(settings)
+            .build();
+        Assert.assertEquals(1, params.getSubscriptionCount());
+        
+        MonitoringSettings a = params.getMonitoringSettings("a");
+        Assert.assertEquals(500, a.getPublishingInterval(params));
+        Assert.assertEquals(100, a.getSamplingInterval());
+        Assert.assertEquals(5, a.getQueueSize());
+        Assert.assertEquals(DeadbandType.PERCENT, a.getDeadbandType());
+        Assert.assertEquals(2.5, a.getDeadband(), 0.001);
+        Assert.assertFalse(a.isDiscardOldest());
+        
+        MonitoringSettings b = params.getMonitoringSettings("b");
+        Assert.assertTrue(settings.get(ConnectorParameter.ANY_ITEM) == b);
+        Assert.assertEquals(2000, b.getPublishingInterval(params));
+        Assert.assertEquals(DeadbandType.NONE, b.getDeadbandType());
+    }
+
 }
@@ -13,6 +13,7 @@
 package test.de.iip_ecosphere.platform.connectors;
 
 import java.io.IOException;
+import java.util.Collections;
 
 import org.junit.Assert;
 
@@ -108,6 +109,13 @@ public class MachineCommandInputTranslator<O> extends AbstractConnectorInputType
         } catch (IOException e) {
             // expected
         }
+        try {  // property does not exist, multiple access
+            access.setMany(Collections.singletonMap(
+                customizer.getTopLevelModelPartName() + access.getQSeparator() + "abxy", ""));
+            Assert.fail("Property shall not exist");
+        } catch (IOException e) {
+            // expected
+        }
         try {  // operation does not exist
             access.call(customizer.getTopLevelModelPartName() + access.getQSeparator() + "abxy");
             Assert.fail("Operation shall not exist");
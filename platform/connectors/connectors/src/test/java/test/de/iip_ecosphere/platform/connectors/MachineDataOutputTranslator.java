@@ -116,11 +116,17 @@ public class MachineDataOutputTranslator<S> extends AbstractConnectorOutputTypeT
         } catch (IOException e) {
             // expected
         }
+        try {
+            access.getMany(customizer.getQNameVarLotSize(), "abxy"); // second property does not exist
+            Assert.fail("Property shall not exist");
+        } catch (IOException e) {
+            // expected
+        }
         String vendor = customizer.getVendor(access);
-        return new MachineData(
-            (int) access.get(customizer.getQNameVarLotSize()), 
-            (double) access.get(customizer.getQNameVarPowerConsumption()), 
-            vendor);
+        Object[] values = access.getMany(customizer.getQNameVarLotSize(), 
+            customizer.getQNameVarPowerConsumption());
+        Assert.assertEquals(2, values.length);
+        return new MachineData((int) values[0], (double) values[1], vendor);
     }
 
     @Override
@@ -0,0 +1,53 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0 which is available 
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.connectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.connectors.model.ModelElementCache;
+
+/**
+ * Tests {@link ModelElementCache}.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class ModelElementCacheTest {
+
+    /**
+     * Tests the bounded least-recently-used behavior.
+     */
+    @Test
+    public void testCache() {
+        ModelElementCache<String> cache = new ModelElementCache<>(2);
+        Assert.assertEquals(2, cache.getCapacity());
+        cache.put("a", "A");
+        cache.put("b", "B");
+        Assert.assertEquals("A", cache.get("a")); // b is now least recently used
+        cache.put("c", "C");
+        Assert.assertEquals(2, cache.size());
+        Assert.assertNull(cache.get("b"));
+        Assert.assertEquals("A", cache.get("a"));
+        Assert.assertEquals("C", cache.get("c"));
+        cache.remove("a");
+        Assert.assertNull(cache.get("a"));
+        cache.clear();
+        Assert.assertEquals(0, cache.size());
+        
+        cache = new ModelElementCache<>(0); // disabled
+        cache.put("a", "A");
+        Assert.assertNull(cache.get("a"));
+        Assert.assertEquals(0, cache.size());
+    }
+
+}
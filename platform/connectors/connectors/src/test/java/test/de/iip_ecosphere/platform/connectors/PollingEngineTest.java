@@ -0,0 +1,98 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0 which is available 
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.connectors;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.connectors.ConnectorParameter.PollingMode;
+import de.iip_ecosphere.platform.connectors.PollingEngine;
+import de.iip_ecosphere.platform.support.TimeUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link PollingEngine}.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class PollingEngineTest {
+
+    /**
+     * Tests fixed rate polling with overruns and failing polls.
+     */
+    @Test
+    public void testFixedRate() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PollingEngine engine = new PollingEngine(1, registry);
+        Assert.assertEquals(1, engine.getThreadCount());
+        AtomicInteger count = new AtomicInteger();
+        PollingEngine.Poll poll = engine.schedule("slow", () -> {
+            if (count.incrementAndGet() % 2 == 0) {
+                throw new IllegalStateException("poll fails"); // shall not terminate polling
+            }
+            TimeUtils.sleep(120); // overrun, skip one slot
+        }, 50, PollingMode.FIXED_RATE, 0);
+        TimeUtils.sleep(1000);
+        Assert.assertTrue(registry.get(PollingEngine.METRIC_POLL_LATENCY).tag(PollingEngine.TAG_CONNECTOR, "slow")
+            .tag(PollingEngine.TAG_POLL, poll.getId()).timer().count() > 0);
+        Assert.assertTrue(registry.get(PollingEngine.METRIC_POLL_OVERRUNS).tag(PollingEngine.TAG_CONNECTOR, "slow")
+            .tag(PollingEngine.TAG_POLL, poll.getId()).counter().count() > 0);
+        poll.cancel();
+        Assert.assertTrue(poll.isCancelled());
+        TimeUtils.sleep(200); // running poll is completed
+        long polls = poll.getPollCount();
+        Assert.assertTrue(polls > 3);
+        Assert.assertTrue(polls < 15); // without skipping, about 20
+        Assert.assertTrue(poll.getOverrunCount() > 0);
+        Assert.assertTrue(poll.getSkippedCount() >= poll.getOverrunCount());
+        TimeUtils.sleep(200);
+        Assert.assertEquals(polls, poll.getPollCount()); // no further polls
+        Assert.assertTrue(registry.getMeters().isEmpty()); // meters removed by cancel
+        engine.shutdown();
+    }
+
+    /**
+     * Tests fixed delay polling with jitter and multiple polls on a shared thread.
+     */
+    @Test
+    public void testFixedDelay() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        PollingEngine engine = new PollingEngine(1, registry);
+        AtomicInteger count1 = new AtomicInteger();
+        AtomicInteger count2 = new AtomicInteger();
+        PollingEngine.Poll poll1 = engine.schedule("p", () -> count1.incrementAndGet(), 
+            50, PollingMode.FIXED_DELAY, 20);
+        PollingEngine.Poll poll2 = engine.schedule("p", () -> count2.incrementAndGet(), 50, null, 20);
+        Assert.assertNotEquals(poll1.getId(), poll2.getId());
+        // same name, distinct meters
+        Assert.assertEquals(2, registry.get(PollingEngine.METRIC_POLL_LATENCY).tag(PollingEngine.TAG_CONNECTOR, "p")
+            .timers().size());
+        TimeUtils.sleep(600);
+        poll1.cancel();
+        poll2.cancel();
+        Assert.assertTrue(count1.get() > 3);
+        Assert.assertTrue(count2.get() > 3);
+        Assert.assertEquals(0, poll1.getOverrunCount());
+        Assert.assertEquals(0, poll1.getSkippedCount());
+        try {
+            engine.schedule("p3", () -> { }, 0, PollingMode.FIXED_DELAY, 0);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+        engine.shutdown();
+    }
+
+}
@@ -30,6 +30,7 @@ public class Configuration extends AasConfiguration {
     private TransportSetup transport = new TransportSetup();
     private NetworkManagerSetup netMgr = new NetworkManagerSetup();
     private int monitoringUpdatePeriod = 2000;
+    private int openMetricsPort = -1;
 
     /**
      * Returns the monitoring update period.
@@ -40,6 +41,15 @@ public class Configuration extends AasConfiguration {
         return monitoringUpdatePeriod;
     }
     
+    /**
+     * Returns the port of the OpenMetrics scrape endpoint.
+     * 
+     * @return the port, {@code 0} for an ephemeral port, negative if the endpoint is disabled
+     */
+    public int getOpenMetricsPort() {
+        return openMetricsPort;
+    }
+
     /**
      * Returns the transport setup.
      * 
@@ -67,6 +77,15 @@ public class Configuration extends AasConfiguration {
         this.monitoringUpdatePeriod = Math.max(200, monitoringUpdatePeriod);
     }
     
+    /**
+     * Changes the port of the OpenMetrics scrape endpoint. [snakeyaml]
+     * 
+     * @param openMetricsPort the port, {@code 0} for an ephemeral port, negative to disable the endpoint
+     */
+    public void setOpenMetricsPort(int openMetricsPort) {
+        this.openMetricsPort = openMetricsPort;
+    }
+
     /**
      * Defines the transport setup. [snakeyaml]
      * 
@@ -19,6 +19,9 @@ import java.util.TimerTask;
 import org.slf4j.LoggerFactory;
 
 import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.OpenMetricsServer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstants;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstructor;
 import de.iip_ecosphere.platform.support.iip_aas.Id;
 import de.iip_ecosphere.platform.transport.TransportFactory;
@@ -27,16 +30,18 @@ import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
- * Does OS/JVM level monitoring.
+ * Does OS/JVM level monitoring. Metrics are sent via the transport layer and, if 
+ * {@link Configuration#getOpenMetricsPort() configured}, exposed for scraping by an {@link OpenMetricsServer}.
  * 
  * @author Holger Eichelberger, SSE
  */
 class Monitor {
     
-    public static final String TRANSPORT_METRICS_CHANNEL = "EcsMetrics";
+    public static final String TRANSPORT_METRICS_CHANNEL = MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL;
     private static MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
     private static Timer timer = new Timer();
     private static TransportConnector connector;
+    private static OpenMetricsServer openMetricsServer;
     private static boolean update = false;
 
     /**
@@ -56,6 +61,7 @@ class Monitor {
         Configuration config = EcsFactory.getConfiguration();
         TransportSetup transport = config.getTransport();
         if (null != transport) {
+            MetricsSnapshotSerializer.register();
             try {
                 connector = TransportFactory.createConnector();
                 connector.connect(transport.createParameter());
@@ -64,6 +70,15 @@ class Monitor {
                 connector = null;
             }
         }
+        if (config.getOpenMetricsPort() >= 0) {
+            try {
+                openMetricsServer = new OpenMetricsServer(provider, config.getOpenMetricsPort());
+                openMetricsServer.start();
+            } catch (IOException e) {
+                LoggerFactory.getLogger(Monitor.class).error("Cannot start OpenMetrics endpoint: " + e.getMessage());
+                openMetricsServer = null;
+            }
+        }
         timer.schedule(new TimerTask() {
 
             @Override
@@ -71,7 +86,7 @@ class Monitor {
                 provider.calculateNonNativeSystemMetrics();
                 if (null != connector) {
                     try {
-                        connector.asyncSend(TRANSPORT_METRICS_CHANNEL, provider.toJson(id, update));
+                        connector.asyncSend(TRANSPORT_METRICS_CHANNEL, provider.toSnapshot(id, update));
                     } catch (IOException e) {
                         LoggerFactory.getLogger(Monitor.class).error(
                             "Cannot sent monitoring message: " + e.getMessage());
@@ -89,6 +104,11 @@ class Monitor {
     static void stopScheduling() {
         MetricsAasConstructor.clear();
         timer.cancel();
+        provider.close();
+        if (null != openMetricsServer) {
+            openMetricsServer.stop(true);
+            openMetricsServer = null;
+        }
         if (null != connector) {
             try {
                 connector.disconnect();
@@ -0,0 +1,99 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.monitoring;
+
+import static de.iip_ecosphere.platform.support.iip_aas.AasUtils.*;
+
+import de.iip_ecosphere.platform.support.aas.Aas;
+import de.iip_ecosphere.platform.support.aas.Aas.AasBuilder;
+import de.iip_ecosphere.platform.support.aas.InvocablesCreator;
+import de.iip_ecosphere.platform.support.aas.ProtocolServerBuilder;
+import de.iip_ecosphere.platform.support.aas.Submodel.SubmodelBuilder;
+import de.iip_ecosphere.platform.support.aas.Type;
+import de.iip_ecosphere.platform.support.iip_aas.AasContributor;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonResultWrapper;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonUtils;
+
+/**
+ * Builds an active AAS for querying the {@link TimeSeriesStore#getInstance() default time series store}. Results are
+ * wrapped by {@link JsonResultWrapper}, the result values are in JSON.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MonitoringAas implements AasContributor {
+
+    public static final String NAME_SUBMODEL = "monitoring";
+    public static final String OP_QUERY_TIME_SERIES = "queryTimeSeries";
+    public static final String OP_GET_TIME_SERIES_SOURCES = "getTimeSeriesSources";
+    public static final String OP_GET_TIME_SERIES_METRICS = "getTimeSeriesMetrics";
+
+    @Override
+    public Aas contributeTo(AasBuilder aasBuilder, InvocablesCreator iCreator) {
+        SubmodelBuilder smB = aasBuilder.createSubmodelBuilder(NAME_SUBMODEL, null);
+        if (smB.isNew()) { // incremental remote deployment, avoid double creation
+            smB.createOperationBuilder(OP_QUERY_TIME_SERIES)
+                .addInputVariable("source", Type.STRING)
+                .addInputVariable("metric", Type.STRING)
+                .addInputVariable("from", Type.INT64)
+                .addInputVariable("to", Type.INT64)
+                .addInputVariable("window", Type.INT64)
+                .addOutputVariable("result", Type.STRING)
+                .setInvocable(iCreator.createInvocable(getQName(OP_QUERY_TIME_SERIES)))
+                .build();
+            smB.createOperationBuilder(OP_GET_TIME_SERIES_SOURCES)
+                .addOutputVariable("result", Type.STRING)
+                .setInvocable(iCreator.createInvocable(getQName(OP_GET_TIME_SERIES_SOURCES)))
+                .build();
+            smB.createOperationBuilder(OP_GET_TIME_SERIES_METRICS)
+                .addInputVariable("source", Type.STRING)
+                .addOutputVariable("result", Type.STRING)
+                .setInvocable(iCreator.createInvocable(getQName(OP_GET_TIME_SERIES_METRICS)))
+                .build();
+            smB.build();
+        }
+        return null;
+    }
+
+    @Override
+    public void contributeTo(ProtocolServerBuilder sBuilder) {
+        sBuilder.defineOperation(getQName(OP_QUERY_TIME_SERIES),
+            new JsonResultWrapper(p -> JsonUtils.toJson(TimeSeriesStore.getInstance().query(readString(p, 0),
+                readString(p, 1), readLong(p, 2, 0), readLong(p, 3, Long.MAX_VALUE), readLong(p, 4, 0)))));
+        sBuilder.defineOperation(getQName(OP_GET_TIME_SERIES_SOURCES),
+            new JsonResultWrapper(p -> JsonUtils.toJson(TimeSeriesStore.getInstance().getSources())));
+        sBuilder.defineOperation(getQName(OP_GET_TIME_SERIES_METRICS),
+            new JsonResultWrapper(p -> JsonUtils.toJson(TimeSeriesStore.getInstance().getMetrics(
+                readString(p, 0)))));
+    }
+
+    /**
+     * Returns the qualified name for an operation/property implementation.
+     *
+     * @param elementName the element name
+     * @return the qualified name
+     */
+    public static String getQName(String elementName) {
+        return NAME_SUBMODEL + "_" + elementName;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.ACTIVE;
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+}
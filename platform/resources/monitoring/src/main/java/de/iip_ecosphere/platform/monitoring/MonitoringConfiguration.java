@@ -0,0 +1,70 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+
+package de.iip_ecosphere.platform.monitoring;
+
+import java.io.IOException;
+
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.support.iip_aas.AasConfiguration;
+import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
+
+/**
+ * Monitoring configuration.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MonitoringConfiguration extends AasConfiguration {
+
+    private static MonitoringConfiguration instance;
+    private TransportSetup transport = new TransportSetup();
+
+    /**
+     * Returns the transport setup.
+     *
+     * @return the transport setup
+     */
+    public TransportSetup getTransport() {
+        return transport;
+    }
+
+    /**
+     * Defines the transport setup. [snakeyaml]
+     *
+     * @param transport the transport setup
+     */
+    public void setTransport(TransportSetup transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Reads once an instance from a default "iipecosphere.yml" file in the root folder of the jar.
+     *
+     * @return the configuration instance
+     * @see #readFromYaml(Class)
+     */
+    public static MonitoringConfiguration getInstance() {
+        if (null == instance) {
+            try {
+                instance = readFromYaml(MonitoringConfiguration.class);
+            } catch (IOException e) {
+                LoggerFactory.getLogger(MonitoringConfiguration.class).error(
+                    "Cannot read monitoring configuration: " + e.getMessage());
+                instance = new MonitoringConfiguration();
+            }
+        }
+        return instance;
+    }
+
+}
@@ -0,0 +1,83 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+
+package de.iip_ecosphere.platform.monitoring;
+
+import java.io.IOException;
+
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollup;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollupAas;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollupRecorder;
+import de.iip_ecosphere.platform.support.iip_aas.AbstractAasLifecycleDescriptor;
+
+/**
+ * The monitoring lifecycle descriptor for powering up the AAS and for recording the metrics received via the
+ * transport layer into the {@link TimeSeriesStore#getInstance() default time series store} queried by 
+ * {@link MonitoringAas}. Also rolls up the received metrics in the {@link MetricsRollup#getInstance() default rollup}
+ * published by {@link MetricsRollupAas}, which is contributed only here.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MonitoringLifecycleDescriptor extends AbstractAasLifecycleDescriptor {
+
+    private TimeSeriesRecorder recorder;
+    private MetricsRollupRecorder rollupRecorder;
+
+    /**
+     * Creates an instance for the monitoring.
+     */
+    public MonitoringLifecycleDescriptor() {
+        super("Monitoring", () -> MonitoringConfiguration.getInstance().getAas());
+    }
+
+    @Override
+    public void startup(String[] args) {
+        super.startup(args);
+        recorder = new TimeSeriesRecorder(TimeSeriesStore.getInstance());
+        try {
+            recorder.start(MonitoringConfiguration.getInstance().getTransport());
+        } catch (IOException e) {
+            LoggerFactory.getLogger(getClass()).error("Cannot start recording time series: " + e.getMessage());
+        }
+        rollupRecorder = new MetricsRollupRecorder(MetricsRollup.getInstance());
+        try {
+            rollupRecorder.start(MonitoringConfiguration.getInstance().getTransport());
+        } catch (IOException e) {
+            LoggerFactory.getLogger(getClass()).error("Cannot start rolling up metrics: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (null != recorder) {
+            try {
+                recorder.stop();
+            } catch (IOException e) {
+                LoggerFactory.getLogger(getClass()).warn("Cannot stop recording time series: " + e.getMessage());
+            }
+            recorder = null;
+        }
+        if (null != rollupRecorder) {
+            try {
+                rollupRecorder.stop();
+            } catch (IOException e) {
+                LoggerFactory.getLogger(getClass()).warn("Cannot stop rolling up metrics: " + e.getMessage());
+            }
+            rollupRecorder = null;
+        }
+        super.shutdown();
+    }
+
+}
@@ -0,0 +1,191 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.monitoring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A memory-bounded time series of double values. Timestamps and values are held in primitive ring buffers of fixed
+ * capacity, i.e., adding a value to a full series overwrites the oldest value. Timestamps are expected to be
+ * non-decreasing, values older than the latest value are ignored. Instances are thread-safe.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeries {
+
+    public static final int MAX_WINDOWS = 10000;
+
+    private final long[] timestamps;
+    private final double[] values;
+    private int first;
+    private int size;
+
+    /**
+     * Creates a time series.
+     *
+     * @param capacity the maximum number of values to keep
+     * @throws IllegalArgumentException if {@code capacity} is not positive
+     */
+    public TimeSeries(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        timestamps = new long[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param timestamp the timestamp of the value in ms
+     * @param value the value
+     * @return {@code true} if the value was added, {@code false} if it was ignored as it is older than the latest
+     *     value
+     */
+    public synchronized boolean add(long timestamp, double value) {
+        boolean added = false;
+        if (0 == size || timestamp >= timestamps[pos(size - 1)]) {
+            int pos;
+            if (size < values.length) {
+                pos = pos(size);
+                size++;
+            } else {
+                pos = first;
+                first = pos(1);
+            }
+            timestamps[pos] = timestamp;
+            values[pos] = value;
+            added = true;
+        }
+        return added;
+    }
+
+    /**
+     * Turns a logical index into a position in the ring buffers.
+     *
+     * @param index the 0-based logical index, 0 being the oldest value
+     * @return the position
+     */
+    private int pos(int index) {
+        int result = first + index;
+        if (result >= values.length) {
+            result -= values.length;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the capacity of this series.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of values held.
+     *
+     * @return the number of values
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the timestamp of the latest value.
+     *
+     * @return the timestamp, {@link Long#MIN_VALUE} if there is no value
+     */
+    public synchronized long getLatestTimestamp() {
+        return 0 == size ? Long.MIN_VALUE : timestamps[pos(size - 1)];
+    }
+
+    /**
+     * Returns the latest value.
+     *
+     * @return the value, {@link Double#NaN} if there is no value
+     */
+    public synchronized double getLatestValue() {
+        return 0 == size ? Double.NaN : values[pos(size - 1)];
+    }
+
+    /**
+     * Downsamples the values in [{@code from}, {@code to}) into consecutive windows of {@code window} ms starting
+     * at {@code from}. Windows without values are not part of the result.
+     *
+     * @param from the start timestamp in ms (inclusive)
+     * @param to the end timestamp in ms (exclusive)
+     * @param window the window length in ms
+     * @return the non-empty windows in ascending order
+     * @throws IllegalArgumentException if {@code window} is not positive, {@code to} is before {@code from} or
+     *     more than {@link #MAX_WINDOWS} windows would be needed or the range exceeds the value range of long
+     */
+    public List<TimeSeriesWindow> downsample(long from, long to, long window) {
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        if (to < from) {
+            throw new IllegalArgumentException("to must not be before from");
+        }
+        long range;
+        try {
+            range = Math.subtractExact(to, from);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("range from " + from + " to " + to + " is too large");
+        }
+        if (range / window >= MAX_WINDOWS) {
+            throw new IllegalArgumentException("more than " + MAX_WINDOWS + " windows requested");
+        }
+        List<TimeSeriesWindow> result = new ArrayList<>();
+        synchronized (this) {
+            double[] scratch = new double[size];
+            int index = firstIndex(from);
+            while (index < size && timestamps[pos(index)] < to) {
+                long start = from + ((timestamps[pos(index)] - from) / window) * window;
+                long end = to - start <= window ? to : start + window; // no overflow close to Long.MAX_VALUE
+                int count = 0;
+                while (index < size && timestamps[pos(index)] < end) {
+                    scratch[count++] = values[pos(index)];
+                    index++;
+                }
+                Arrays.sort(scratch, 0, count);
+                result.add(new TimeSeriesWindow(start, end, scratch, count));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the logical index of the first value with a timestamp of at least {@code from}.
+     *
+     * @param from the timestamp
+     * @return the logical index, {@link #size} if there is none
+     */
+    private int firstIndex(long from) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (timestamps[pos(mid)] < from) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+}
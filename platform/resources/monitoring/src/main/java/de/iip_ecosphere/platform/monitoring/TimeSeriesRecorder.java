@@ -0,0 +1,110 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.monitoring;
+
+import java.io.IOException;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstants;
+import de.iip_ecosphere.platform.transport.TransportFactory;
+import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
+import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
+
+/**
+ * Feeds a {@link TimeSeriesStore} with the {@link MetricsSnapshot metrics snapshots} sent by the ECS runtimes and
+ * the services on the metrics transport channels. Values are recorded with their reception time for the 
+ * {@link TimeSeriesStore#getSource(String, String) source} composed of channel and sender id.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeriesRecorder {
+
+    private static final String[] CHANNELS = {MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL,
+        MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL};
+
+    private TimeSeriesStore store;
+    private TransportConnector connector;
+
+    /**
+     * Creates a recorder.
+     *
+     * @param store the store to feed
+     */
+    public TimeSeriesRecorder(TimeSeriesStore store) {
+        this.store = store;
+    }
+
+    /**
+     * Starts recording. Does nothing if the recorder is already started.
+     *
+     * @param setup the transport setup
+     * @throws IOException if connecting to the transport layer fails
+     */
+    public void start(TransportSetup setup) throws IOException {
+        if (null == connector) {
+            MetricsSnapshotSerializer.register();
+            TransportConnector conn = TransportFactory.createConnector();
+            conn.connect(setup.createParameter());
+            for (String channel : CHANNELS) {
+                conn.setReceptionCallback(channel, new SnapshotReceptionCallback(channel));
+            }
+            connector = conn;
+        }
+    }
+
+    /**
+     * Stops recording. Does nothing if the recorder is not started.
+     *
+     * @throws IOException if disconnecting from the transport layer fails
+     */
+    public void stop() throws IOException {
+        if (null != connector) {
+            TransportConnector conn = connector;
+            connector = null;
+            conn.disconnect();
+        }
+    }
+
+    /**
+     * Records snapshots received on a channel.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private class SnapshotReceptionCallback implements ReceptionCallback<MetricsSnapshot> {
+
+        private String channel;
+
+        /**
+         * Creates a callback.
+         *
+         * @param channel the channel the callback is registered for
+         */
+        private SnapshotReceptionCallback(String channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void received(MetricsSnapshot data) {
+            store.record(channel, data, System.currentTimeMillis());
+        }
+
+        @Override
+        public Class<MetricsSnapshot> getType() {
+            return MetricsSnapshot.class;
+        }
+
+    }
+
+}
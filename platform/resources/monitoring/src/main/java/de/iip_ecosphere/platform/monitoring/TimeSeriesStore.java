@@ -0,0 +1,435 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+
+/**
+ * An embedded, memory-bounded store of {@link TimeSeries} per source (device or service) and metric. Each series
+ * keeps at most {@link #getCapacity() capacity} values and the store keeps at most {@link #getMaxSeries() max
+ * series}, i.e., the memory consumption is bounded by roughly capacity * max series * 16 bytes. Values for further
+ * series are rejected. Series that were not updated within the {@link #getRetention() retention period} expire, i.e.,
+ * they are removed and free their share of the maximum number of series. The store can be fed directly or with
+ * {@link MetricsSnapshot metrics snapshots}, see {@link TimeSeriesRecorder}. As deltas only carry changed meters,
+ * unchanged values do not lead to new values in the series.<br>
+ * A metric of a snapshot is named by {@link MetricsSnapshot.MeterDescriptor#getMetricName(int)}, i.e., after its 
+ * meter if the meter has only one statistic, else after the meter and the statistic separated by a dot, e.g., 
+ * {@code myTimer.total_time}, followed by the tags of the meter, e.g., {@code jvm.memory.used{area=heap}}. As
+ * devices and services may use the same id on different transport channels, snapshots received on a channel are
+ * recorded for the {@link #getSource(String, String) source} composed of channel and id.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeriesStore {
+
+    public static final int DEFAULT_CAPACITY = 720; // 1 hour at 5 s
+    public static final int DEFAULT_MAX_SERIES = 2000;
+    public static final long DEFAULT_RETENTION = 60 * 60 * 1000; // 1 hour
+
+    private static TimeSeriesStore instance = new TimeSeriesStore(DEFAULT_CAPACITY, DEFAULT_MAX_SERIES);
+
+    private final int capacity;
+    private final int maxSeries;
+    private final long retention;
+    private volatile long nextExpiry = Long.MIN_VALUE;
+    private final Map<String, Map<String, TimeSeries>> series = new ConcurrentHashMap<>();
+    private final Map<String, SourceDictionary> dictionaries = new ConcurrentHashMap<>();
+    private int seriesCount;
+    private long rejected;
+
+    /**
+     * The series of a source in the sequence of the dictionary of the last full {@link MetricsSnapshot}.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class SourceDictionary {
+
+        private String source;
+        private long dictionarySequence;
+        private long sequence;
+        private String[][] metrics;
+        private TimeSeries[][] series;
+
+        /**
+         * Releases the series that are not held by {@code sourceSeries} anymore, e.g., as they expired. Released
+         * series are obtained again when the next value for them is recorded.
+         *
+         * @param sourceSeries the series of the source
+         */
+        private void release(Map<String, TimeSeries> sourceSeries) {
+            for (int d = 0; d < series.length; d++) {
+                for (int s = 0; s < series[d].length; s++) {
+                    if (null != series[d][s] && sourceSeries.get(metrics[d][s]) != series[d][s]) {
+                        series[d][s] = null;
+                    }
+                }
+            }
+        }
+
+    }
+
+    /**
+     * Creates a store with {@link #DEFAULT_RETENTION default retention period}.
+     *
+     * @param capacity the capacity of each series
+     * @param maxSeries the maximum number of series
+     * @throws IllegalArgumentException if {@code capacity} or {@code maxSeries} is not positive
+     */
+    public TimeSeriesStore(int capacity, int maxSeries) {
+        this(capacity, maxSeries, DEFAULT_RETENTION);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param capacity the capacity of each series
+     * @param maxSeries the maximum number of series
+     * @param retention the retention period in ms after which series without new values expire
+     * @throws IllegalArgumentException if {@code capacity}, {@code maxSeries} or {@code retention} is not positive
+     */
+    public TimeSeriesStore(int capacity, int maxSeries, long retention) {
+        if (capacity < 1 || maxSeries < 1 || retention < 1) {
+            throw new IllegalArgumentException("capacity, maxSeries and retention must be positive");
+        }
+        this.capacity = capacity;
+        this.maxSeries = maxSeries;
+        this.retention = retention;
+    }
+
+    /**
+     * Returns the default instance.
+     *
+     * @return the default instance
+     */
+    public static TimeSeriesStore getInstance() {
+        return instance;
+    }
+
+    /**
+     * Defines the default instance.
+     *
+     * @param store the new default instance, ignored if <b>null</b>
+     */
+    public static void setInstance(TimeSeriesStore store) {
+        if (null != store) {
+            instance = store;
+        }
+    }
+
+    /**
+     * Returns the capacity of each series.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the maximum number of series.
+     *
+     * @return the maximum number of series
+     */
+    public int getMaxSeries() {
+        return maxSeries;
+    }
+
+    /**
+     * Returns the retention period after which series without new values expire.
+     *
+     * @return the retention period in ms
+     */
+    public long getRetention() {
+        return retention;
+    }
+
+    /**
+     * Returns the number of series.
+     *
+     * @return the number of series
+     */
+    public synchronized int getSeriesCount() {
+        return seriesCount;
+    }
+
+    /**
+     * Returns the number of values rejected as the maximum number of series was reached.
+     *
+     * @return the number of rejected values
+     */
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param source the source, e.g., the device or service id
+     * @param metric the metric name
+     * @param timestamp the timestamp in ms
+     * @param value the value
+     * @return {@code true} if the value was recorded, {@code false} if it was rejected or ignored
+     */
+    public boolean record(String source, String metric, long timestamp, double value) {
+        expireIfDue(timestamp);
+        TimeSeries ts = obtain(source, metric);
+        return null != ts && ts.add(timestamp, value);
+    }
+
+    /**
+     * Returns the source name for snapshots received on a transport channel.
+     *
+     * @param channel the transport channel, may be <b>null</b> for none
+     * @param id the id of the sender
+     * @return the source name, {@code id} if there is no channel, else channel and id separated by a slash
+     */
+    public static String getSource(String channel, String id) {
+        return null == channel ? id : channel + "/" + id;
+    }
+
+    /**
+     * Records the values of a snapshot for the source given by the id of {@code snapshot}.
+     *
+     * @param snapshot the snapshot
+     * @param timestamp the timestamp of the snapshot in ms
+     * @return {@code true} if the snapshot was recorded, {@code false} if it was ignored
+     * @see #record(String, MetricsSnapshot, long)
+     */
+    public boolean record(MetricsSnapshot snapshot, long timestamp) {
+        return record((String) null, snapshot, timestamp);
+    }
+
+    /**
+     * Records the values of a snapshot received on {@code channel} for the {@link #getSource(String, String) source}
+     * given by {@code channel} and the id of {@code snapshot}. Deltas are only recorded if they are more recent than 
+     * the last snapshot and refer to the dictionary of the last full snapshot of the source. Snapshots without id are
+     * ignored.
+     *
+     * @param channel the transport channel the snapshot was received on, may be <b>null</b> for none
+     * @param snapshot the snapshot
+     * @param timestamp the timestamp of the snapshot in ms
+     * @return {@code true} if the snapshot was recorded, {@code false} if it was ignored
+     */
+    public synchronized boolean record(String channel, MetricsSnapshot snapshot, long timestamp) {
+        String source = null == snapshot.getId() ? null : getSource(channel, snapshot.getId());
+        boolean accept = false;
+        expireIfDue(timestamp);
+        if (null != source) {
+            SourceDictionary dict;
+            if (snapshot.isFull()) {
+                dict = new SourceDictionary();
+                dict.source = source;
+                List<MetricsSnapshot.MeterDescriptor> descriptors = snapshot.getDictionary();
+                dict.metrics = new String[descriptors.size()][];
+                dict.series = new TimeSeries[descriptors.size()][];
+                for (int d = 0; d < descriptors.size(); d++) {
+                    MetricsSnapshot.MeterDescriptor desc = descriptors.get(d);
+                    int count = desc.getStatisticsCount();
+                    dict.metrics[d] = new String[count];
+                    dict.series[d] = new TimeSeries[count];
+                    for (int s = 0; s < count; s++) {
+                        dict.metrics[d][s] = desc.getMetricName(s);
+                        dict.series[d][s] = obtain(source, dict.metrics[d][s]);
+                    }
+                }
+                dict.dictionarySequence = snapshot.getSequence();
+                dictionaries.put(source, dict);
+                accept = true;
+            } else {
+                dict = dictionaries.get(source);
+                accept = null != dict && snapshot.getDictionarySequence() == dict.dictionarySequence
+                    && snapshot.getSequence() > dict.sequence;
+            }
+            if (accept) {
+                dict.sequence = snapshot.getSequence();
+                record(dict, snapshot, timestamp);
+            }
+        }
+        return accept;
+    }
+
+    /**
+     * Records the values of {@code snapshot} into the series of {@code dict}. Released series are obtained again.
+     *
+     * @param dict the dictionary of the source
+     * @param snapshot the snapshot
+     * @param timestamp the timestamp of the snapshot in ms
+     */
+    private void record(SourceDictionary dict, MetricsSnapshot snapshot, long timestamp) {
+        for (int m = 0; m < snapshot.getMeterCount(); m++) {
+            int index = snapshot.getMeterIndex(m);
+            if (index < dict.series.length) {
+                TimeSeries[] meterSeries = dict.series[index];
+                int count = Math.min(meterSeries.length, snapshot.getValueCount(m));
+                for (int v = 0; v < count; v++) {
+                    if (null == meterSeries[v]) {
+                        meterSeries[v] = obtain(dict.source, dict.metrics[index][v]);
+                    }
+                    if (null != meterSeries[v]) {
+                        meterSeries[v].add(timestamp, snapshot.getValue(m, v));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Expires series if the last expiry is at least a tenth of the retention period before {@code now}.
+     *
+     * @param now the current timestamp in ms
+     */
+    private void expireIfDue(long now) {
+        if (now >= nextExpiry) {
+            synchronized (this) {
+                if (now >= nextExpiry) {
+                    expire(now);
+                    long step = Math.max(1, retention / 10);
+                    nextExpiry = now > Long.MAX_VALUE - step ? Long.MAX_VALUE : now + step;
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the series without values within the retention period before {@code now} as well as sources without
+     * remaining series.
+     *
+     * @param now the current timestamp in ms
+     * @return the number of removed series
+     */
+    public synchronized int expire(long now) {
+        long cutoff = now < Long.MIN_VALUE + retention ? Long.MIN_VALUE : now - retention;
+        int removed = 0;
+        Iterator<Map.Entry<String, Map<String, TimeSeries>>> sources = series.entrySet().iterator();
+        while (sources.hasNext()) {
+            Map.Entry<String, Map<String, TimeSeries>> source = sources.next();
+            Map<String, TimeSeries> sourceSeries = source.getValue();
+            int sourceRemoved = 0;
+            Iterator<TimeSeries> iter = sourceSeries.values().iterator();
+            while (iter.hasNext()) {
+                if (iter.next().getLatestTimestamp() < cutoff) {
+                    iter.remove();
+                    sourceRemoved++;
+                }
+            }
+            SourceDictionary dict = dictionaries.get(source.getKey());
+            if (sourceSeries.isEmpty()) {
+                sources.remove();
+                dictionaries.remove(source.getKey());
+            } else if (sourceRemoved > 0 && null != dict) {
+                dict.release(sourceSeries);
+            }
+            removed += sourceRemoved;
+        }
+        seriesCount -= removed;
+        return removed;
+    }
+
+    /**
+     * Returns a series, creates it if it does not exist and the maximum number of series is not reached.
+     *
+     * @param source the source
+     * @param metric the metric name
+     * @return the series, <b>null</b> if the maximum number of series is reached
+     */
+    private TimeSeries obtain(String source, String metric) {
+        Map<String, TimeSeries> sourceSeries = series.get(source);
+        TimeSeries result = null == sourceSeries ? null : sourceSeries.get(metric);
+        if (null == result) {
+            synchronized (this) {
+                sourceSeries = series.computeIfAbsent(source, s -> new ConcurrentHashMap<>());
+                result = sourceSeries.get(metric);
+                if (null == result) {
+                    if (seriesCount < maxSeries) {
+                        result = new TimeSeries(capacity);
+                        sourceSeries.put(metric, result);
+                        seriesCount++;
+                    } else {
+                        rejected++;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a series.
+     *
+     * @param source the source
+     * @param metric the metric name
+     * @return the series, <b>null</b> if there is none
+     */
+    public TimeSeries getTimeSeries(String source, String metric) {
+        Map<String, TimeSeries> sourceSeries = series.get(source);
+        return null == sourceSeries ? null : sourceSeries.get(metric);
+    }
+
+    /**
+     * Returns the known sources.
+     *
+     * @return the sources
+     */
+    public Set<String> getSources() {
+        return Collections.unmodifiableSet(series.keySet());
+    }
+
+    /**
+     * Returns the known metrics of a source.
+     *
+     * @param source the source
+     * @return the metrics, empty if the source is unknown
+     */
+    public Set<String> getMetrics(String source) {
+        Map<String, TimeSeries> sourceSeries = series.get(source);
+        return null == sourceSeries ? Collections.emptySet() : Collections.unmodifiableSet(sourceSeries.keySet());
+    }
+
+    /**
+     * Downsamples a series, see {@link TimeSeries#downsample(long, long, long)}.
+     *
+     * @param source the source
+     * @param metric the metric name
+     * @param from the start timestamp in ms (inclusive)
+     * @param to the end timestamp in ms (exclusive)
+     * @param window the window length in ms
+     * @return the non-empty windows in ascending order, empty if the series is unknown
+     * @throws IllegalArgumentException if the window parameters are invalid
+     */
+    public List<TimeSeriesWindow> query(String source, String metric, long from, long to, long window) {
+        TimeSeries ts = getTimeSeries(source, metric);
+        return null == ts ? new ArrayList<>() : ts.downsample(from, to, window);
+    }
+
+    /**
+     * Removes all series of a source, e.g., if a device or service was removed.
+     *
+     * @param source the source
+     */
+    public synchronized void remove(String source) {
+        Map<String, TimeSeries> sourceSeries = series.remove(source);
+        if (null != sourceSeries) {
+            seriesCount -= sourceSeries.size();
+        }
+        dictionaries.remove(source);
+    }
+
+}
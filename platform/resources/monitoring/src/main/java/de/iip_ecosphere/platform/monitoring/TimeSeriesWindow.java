@@ -0,0 +1,116 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.monitoring;
+
+/**
+ * The aggregated values of a {@link TimeSeries} within a time window as created by
+ * {@link TimeSeries#downsample(long, long, long)}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeriesWindow {
+
+    private long start;
+    private long end;
+    private int count;
+    private double min;
+    private double max;
+    private double avg;
+    private double p95;
+
+    /**
+     * Creates a window and aggregates the given values.
+     *
+     * @param start the start timestamp in ms (inclusive)
+     * @param end the end timestamp in ms (exclusive)
+     * @param sorted the values in ascending order, at least {@code count}
+     * @param count the number of values in {@code sorted} to consider, shall be positive
+     */
+    TimeSeriesWindow(long start, long end, double[] sorted, int count) {
+        this.start = start;
+        this.end = end;
+        this.count = count;
+        double sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += sorted[i];
+        }
+        min = sorted[0];
+        max = sorted[count - 1];
+        avg = sum / count;
+        p95 = sorted[Math.max(0, (int) Math.ceil(0.95 * count) - 1)]; // nearest rank
+    }
+
+    /**
+     * Returns the start timestamp.
+     *
+     * @return the start timestamp in ms (inclusive)
+     */
+    public long getStart() {
+        return start;
+    }
+
+    /**
+     * Returns the end timestamp.
+     *
+     * @return the end timestamp in ms (exclusive)
+     */
+    public long getEnd() {
+        return end;
+    }
+
+    /**
+     * Returns the number of values in this window.
+     *
+     * @return the number of values
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the minimum value in this window.
+     *
+     * @return the minimum
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     * Returns the maximum value in this window.
+     *
+     * @return the maximum
+     */
+    public double getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the average value in this window.
+     *
+     * @return the average
+     */
+    public double getAvg() {
+        return avg;
+    }
+
+    /**
+     * Returns the 95th percentile (nearest rank) of the values in this window.
+     *
+     * @return the 95th percentile
+     */
+    public double getP95() {
+        return p95;
+    }
+
+}
@@ -21,6 +21,8 @@ import org.junit.runners.Suite;
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
     AppTest.class,
+    TimeSeriesTest.class,
+    TimeSeriesStoreTest.class,
 })
 public class AllTests {
 }
@@ -0,0 +1,279 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.monitoring;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import de.iip_ecosphere.platform.monitoring.MonitoringAas;
+import de.iip_ecosphere.platform.monitoring.TimeSeries;
+import de.iip_ecosphere.platform.monitoring.TimeSeriesRecorder;
+import de.iip_ecosphere.platform.monitoring.TimeSeriesStore;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstants;
+import de.iip_ecosphere.platform.support.Server;
+import de.iip_ecosphere.platform.support.aas.Aas;
+import de.iip_ecosphere.platform.support.aas.Submodel;
+import de.iip_ecosphere.platform.support.iip_aas.AasPartRegistry;
+import de.iip_ecosphere.platform.support.iip_aas.AasPartRegistry.AasSetup;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonResultWrapper;
+import de.iip_ecosphere.platform.transport.DefaultTransportFactoryDescriptor;
+import de.iip_ecosphere.platform.transport.TransportFactory;
+import de.iip_ecosphere.platform.transport.TransportFactory.ConnectorCreator;
+import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link TimeSeriesStore}, {@link TimeSeriesRecorder} and {@link MonitoringAas}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeriesStoreTest {
+
+    /**
+     * Tests recording individual values.
+     */
+    @Test
+    public void testRecord() {
+        TimeSeriesStore store = new TimeSeriesStore(10, 2);
+        Assert.assertEquals(10, store.getCapacity());
+        Assert.assertEquals(2, store.getMaxSeries());
+        Assert.assertTrue(store.record("dev", "cpu", 1, 0.5));
+        Assert.assertTrue(store.record("dev", "mem", 1, 100));
+        Assert.assertFalse(store.record("dev2", "cpu", 1, 0.5)); // bounded
+        Assert.assertEquals(1, store.getRejectedCount());
+        Assert.assertEquals(2, store.getSeriesCount());
+        Assert.assertTrue(store.getSources().contains("dev"));
+        Assert.assertEquals(2, store.getMetrics("dev").size());
+        Assert.assertEquals(0, store.getMetrics("dev2").size());
+        Assert.assertNull(store.getTimeSeries("dev", "disk"));
+        Assert.assertEquals(1, store.query("dev", "cpu", 0, 10, 10).size());
+        Assert.assertEquals(0, store.query("dev", "disk", 0, 10, 10).size());
+        store.remove("dev");
+        Assert.assertEquals(0, store.getSeriesCount());
+        Assert.assertTrue(store.record("dev2", "cpu", 1, 0.5));
+    }
+
+    /**
+     * Tests expiring series without values in the retention period.
+     */
+    @Test
+    public void testExpiry() {
+        TimeSeriesStore store = new TimeSeriesStore(10, 3, 1000);
+        Assert.assertEquals(1000, store.getRetention());
+        Assert.assertTrue(store.record("dev", "cpu", 0, 0.5));
+        Assert.assertTrue(store.record("dev", "mem", 0, 100));
+        Assert.assertTrue(store.record("dev2", "cpu", 500, 0.5));
+        Assert.assertFalse(store.record("dev3", "cpu", 500, 0.5)); // bounded
+        Assert.assertTrue(store.record("dev", "cpu", 900, 0.6));
+        Assert.assertEquals(0, store.expire(1000));
+        Assert.assertEquals(1, store.expire(1200)); // dev/mem
+        Assert.assertNull(store.getTimeSeries("dev", "mem"));
+        Assert.assertEquals(2, store.getSeriesCount());
+        Assert.assertTrue(store.record("dev3", "cpu", 1200, 0.5));
+        Assert.assertTrue(store.record("dev3", "mem", 2100, 0.5)); // expires dev2 and dev when due
+        Assert.assertFalse(store.getSources().contains("dev"));
+        Assert.assertFalse(store.getSources().contains("dev2"));
+        Assert.assertEquals(2, store.getSeriesCount());
+        assertThrows(() -> new TimeSeriesStore(10, 3, 0));
+
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.addGaugeValue("gauge", 1);
+        provider.increaseCounterBy("counter", 2);
+        Assert.assertTrue(store.record(provider.toSnapshot("svc", false), 3000));
+        provider.addGaugeValue("gauge", 2);
+        Assert.assertTrue(store.record(provider.toSnapshot("svc", true), 3500));
+        Assert.assertEquals(1, store.expire(4200)); // counter unchanged
+        Assert.assertNull(store.getTimeSeries("svc", "counter"));
+        provider.increaseCounterBy("counter", 1);
+        Assert.assertTrue(store.record(provider.toSnapshot("svc", true), 4300)); // series obtained again
+        Assert.assertEquals(3, store.getTimeSeries("svc", "counter").getLatestValue(), 0);
+    }
+
+    /**
+     * Asserts that {@code op} fails with an {@link IllegalArgumentException}.
+     *
+     * @param op the operation
+     */
+    private static void assertThrows(Runnable op) {
+        try {
+            op.run();
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    /**
+     * Tests recording metrics snapshots.
+     */
+    @Test
+    public void testRecordSnapshots() {
+        TimeSeriesStore store = new TimeSeriesStore(10, 100);
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.addGaugeValue("gauge", 1);
+        provider.increaseCounterBy("counter", 2);
+        provider.recordWithTimer("timer", 5, TimeUnit.MILLISECONDS);
+
+        MetricsSnapshot full = provider.toSnapshot("dev", false);
+        provider.addGaugeValue("gauge", 3);
+        MetricsSnapshot delta = provider.toSnapshot("dev", true);
+        Assert.assertFalse(store.record(delta, 1000)); // no dictionary
+        Assert.assertTrue(store.record(full, 1000));
+        Assert.assertTrue(store.record(delta, 2000));
+        Assert.assertFalse(store.record(delta, 3000)); // outdated
+        Assert.assertFalse(store.record(provider.toSnapshot(null, false), 3000));
+
+        TimeSeries gauge = store.getTimeSeries("dev", "gauge");
+        Assert.assertEquals(2, gauge.size());
+        Assert.assertEquals(3, gauge.getLatestValue(), 0);
+        Assert.assertEquals(2, store.getTimeSeries("dev", "counter").getLatestValue(), 0);
+        Assert.assertNotNull(store.getTimeSeries("dev", "timer.count"));
+        Assert.assertNotNull(store.getTimeSeries("dev", "timer.total_time"));
+        Assert.assertEquals(1, store.query("dev", "gauge", 0, 5000, 5000).get(0).getMin(), 0);
+
+        MetricsSnapshot foreign = new MetricsSnapshot("dev", delta.getSequence() + 10, delta.getSequence() + 5);
+        foreign.startMeter(0);
+        foreign.addValue(42);
+        Assert.assertFalse(store.record(foreign, 4000)); // unknown dictionary
+    }
+
+    /**
+     * Tests that the same id on different channels and tagged meters with the same name lead to different series.
+     */
+    @Test
+    public void testSourcesAndTags() {
+        TimeSeriesStore store = new TimeSeriesStore(10, 100);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProvider ecs = new MetricsProvider(registry);
+        registry.gauge("mem", Tags.of("area", "heap"), 10);
+        registry.gauge("mem", Tags.of("area", "nonheap"), 20);
+        MetricsProvider svc = new MetricsProvider(new SimpleMeterRegistry());
+        svc.addGaugeValue("gauge", 1);
+        String ecsChannel = MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL;
+        String svcChannel = MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL;
+        Assert.assertTrue(store.record(ecsChannel, ecs.toSnapshot("dev", false), 1000));
+        Assert.assertTrue(store.record(svcChannel, svc.toSnapshot("dev", false), 1000));
+        ecs.addGaugeValue("gauge", 2);
+        svc.addGaugeValue("gauge", 3);
+        Assert.assertTrue(store.record(ecsChannel, ecs.toSnapshot("dev", true), 2000)); // dictionary not replaced
+        Assert.assertTrue(store.record(svcChannel, svc.toSnapshot("dev", true), 2000));
+
+        String ecsSource = TimeSeriesStore.getSource(ecsChannel, "dev");
+        String svcSource = TimeSeriesStore.getSource(svcChannel, "dev");
+        Assert.assertNotEquals(ecsSource, svcSource);
+        Assert.assertEquals(10, store.getTimeSeries(ecsSource, "mem{area=heap}").getLatestValue(), 0);
+        Assert.assertEquals(20, store.getTimeSeries(ecsSource, "mem{area=nonheap}").getLatestValue(), 0);
+        Assert.assertNull(store.getTimeSeries(ecsSource, "mem"));
+        Assert.assertEquals(2, store.getTimeSeries(ecsSource, "gauge").getLatestValue(), 0);
+        Assert.assertEquals(3, store.getTimeSeries(svcSource, "gauge").getLatestValue(), 0);
+        Assert.assertEquals(2, store.getTimeSeries(svcSource, "gauge").size());
+    }
+
+    /**
+     * Tests {@link TimeSeriesRecorder} via the direct memory transport connector.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testRecorder() throws IOException {
+        ConnectorCreator old = TransportFactory.setMainImplementation(
+            DefaultTransportFactoryDescriptor.DEFAULT_DM_CREATOR);
+        TimeSeriesStore store = new TimeSeriesStore(10, 100);
+        TimeSeriesRecorder recorder = new TimeSeriesRecorder(store);
+        TransportSetup setup = new TransportSetup();
+        setup.setHost("localhost");
+        setup.setPort(1234);
+        recorder.start(setup);
+        TransportConnector sender = TransportFactory.createConnector();
+        sender.connect(setup.createParameter());
+
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.addGaugeValue("gauge", 1);
+        sender.syncSend(MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL, provider.toSnapshot("ecs", false));
+        sender.syncSend(MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL, provider.toSnapshot("svc", false));
+        String ecs = TimeSeriesStore.getSource(MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL, "ecs");
+        String svc = TimeSeriesStore.getSource(MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL, "svc");
+        Assert.assertEquals(1, store.getTimeSeries(ecs, "gauge").getLatestValue(), 0);
+        Assert.assertEquals(1, store.getTimeSeries(svc, "gauge").size());
+
+        recorder.stop();
+        sender.syncSend(MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL, provider.toSnapshot("ecs", false));
+        Assert.assertEquals(1, store.getTimeSeries(ecs, "gauge").size());
+        sender.disconnect();
+        TransportFactory.setMainImplementation(old);
+    }
+
+    /**
+     * Tests {@link MonitoringAas} by creating the platform AAS via the {@link AasPartRegistry}.
+     *
+     * @throws ExecutionException shall not occur
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testAas() throws ExecutionException, IOException {
+        Assert.assertTrue(AasPartRegistry.contributorClasses().contains(MonitoringAas.class));
+        TimeSeriesStore store = new TimeSeriesStore(100, 10);
+        TimeSeriesStore.setInstance(store);
+        for (int i = 0; i < 20; i++) {
+            store.record("dev", "cpu", i * 100, i);
+        }
+        AasSetup oldSetup = AasPartRegistry.setAasSetup(AasSetup.createLocalEphemeralSetup());
+        AasPartRegistry.AasBuildResult res = AasPartRegistry.build();
+        Server implServer = res.getProtocolServerBuilder().build();
+        implServer.start();
+        Server aasServer = AasPartRegistry.deploy(res.getAas());
+        aasServer.start();
+        Aas aas = AasPartRegistry.retrieveIipAas();
+        Submodel sm = aas.getSubmodel(MonitoringAas.NAME_SUBMODEL);
+        Assert.assertNotNull(sm);
+
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode sources = mapper.readTree(JsonResultWrapper.fromJson(
+            sm.getOperation(MonitoringAas.OP_GET_TIME_SERIES_SOURCES).invoke()));
+        Assert.assertEquals("dev", sources.get(0).asText());
+        JsonNode metrics = mapper.readTree(JsonResultWrapper.fromJson(
+            sm.getOperation(MonitoringAas.OP_GET_TIME_SERIES_METRICS).invoke("dev")));
+        Assert.assertEquals("cpu", metrics.get(0).asText());
+        JsonNode windows = mapper.readTree(JsonResultWrapper.fromJson(
+            sm.getOperation(MonitoringAas.OP_QUERY_TIME_SERIES).invoke("dev", "cpu", 0L, 2000L, 1000L)));
+        Assert.assertEquals(2, windows.size());
+        Assert.assertEquals(10, windows.get(0).get("count").asInt());
+        Assert.assertEquals(4.5, windows.get(0).get("avg").asDouble(), 0.0001);
+        Assert.assertEquals(19, windows.get(1).get("max").asDouble(), 0);
+        try {
+            JsonResultWrapper.fromJson(sm.getOperation(MonitoringAas.OP_QUERY_TIME_SERIES).invoke(
+                "dev", "cpu", 0L, 2000L, 0L));
+            Assert.fail("No exception");
+        } catch (ExecutionException e) {
+            // ok, illegal window
+        }
+
+        aasServer.stop(true);
+        implServer.stop(true);
+        AasPartRegistry.setAasSetup(oldSetup);
+        TimeSeriesStore.setInstance(new TimeSeriesStore(TimeSeriesStore.DEFAULT_CAPACITY,
+            TimeSeriesStore.DEFAULT_MAX_SERIES));
+    }
+
+}
@@ -0,0 +1,125 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.monitoring;
+
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.monitoring.TimeSeries;
+import de.iip_ecosphere.platform.monitoring.TimeSeriesWindow;
+
+/**
+ * Tests {@link TimeSeries} and {@link TimeSeriesWindow}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class TimeSeriesTest {
+
+    /**
+     * Tests the ring buffer behavior.
+     */
+    @Test
+    public void testRingBuffer() {
+        TimeSeries ts = new TimeSeries(3);
+        Assert.assertEquals(3, ts.getCapacity());
+        Assert.assertEquals(0, ts.size());
+        Assert.assertEquals(Long.MIN_VALUE, ts.getLatestTimestamp());
+        Assert.assertTrue(Double.isNaN(ts.getLatestValue()));
+        Assert.assertTrue(ts.add(10, 1));
+        Assert.assertTrue(ts.add(20, 2));
+        Assert.assertFalse(ts.add(15, 5)); // outdated
+        Assert.assertTrue(ts.add(20, 3)); // same timestamp is ok
+        Assert.assertEquals(3, ts.size());
+        Assert.assertTrue(ts.add(30, 4)); // overwrites (10, 1)
+        Assert.assertEquals(3, ts.size());
+        Assert.assertEquals(30, ts.getLatestTimestamp());
+        Assert.assertEquals(4, ts.getLatestValue(), 0);
+        List<TimeSeriesWindow> windows = ts.downsample(0, 100, 100);
+        Assert.assertEquals(1, windows.size());
+        Assert.assertEquals(3, windows.get(0).getCount());
+        Assert.assertEquals(2, windows.get(0).getMin(), 0);
+
+        try {
+            new TimeSeries(0);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+    /**
+     * Tests downsampling.
+     */
+    @Test
+    public void testDownsample() {
+        TimeSeries ts = new TimeSeries(500);
+        for (int i = 0; i < 300; i++) { // 300 values, 1 per ms, overflowing the last window of 100
+            ts.add(1000 + i, i % 100);
+        }
+        List<TimeSeriesWindow> windows = ts.downsample(1000, 1250, 100);
+        Assert.assertEquals(3, windows.size());
+        TimeSeriesWindow w = windows.get(0);
+        Assert.assertEquals(1000, w.getStart());
+        Assert.assertEquals(1100, w.getEnd());
+        Assert.assertEquals(100, w.getCount());
+        Assert.assertEquals(0, w.getMin(), 0);
+        Assert.assertEquals(99, w.getMax(), 0);
+        Assert.assertEquals(49.5, w.getAvg(), 0.0001);
+        Assert.assertEquals(94, w.getP95(), 0);
+        w = windows.get(2);
+        Assert.assertEquals(1200, w.getStart());
+        Assert.assertEquals(1250, w.getEnd()); // clipped
+        Assert.assertEquals(50, w.getCount());
+        Assert.assertEquals(49, w.getMax(), 0);
+
+        windows = ts.downsample(500, 1100, 50); // empty windows are skipped
+        Assert.assertEquals(2, windows.size());
+        Assert.assertEquals(1000, windows.get(0).getStart());
+        Assert.assertEquals(1050, windows.get(1).getStart());
+        Assert.assertEquals(0, ts.downsample(2000, 3000, 10).size());
+        Assert.assertEquals(0, new TimeSeries(1).downsample(0, 10, 1).size());
+
+        assertIllegal(ts, 0, 10, 0);
+        assertIllegal(ts, 10, 0, 1);
+        assertIllegal(ts, 0, TimeSeries.MAX_WINDOWS + 1, 1);
+        assertIllegal(ts, Long.MIN_VALUE, Long.MAX_VALUE, Long.MAX_VALUE / 2); // range overflows
+
+        TimeSeries late = new TimeSeries(10);
+        late.add(Long.MAX_VALUE - 5, 1);
+        late.add(Long.MAX_VALUE - 1, 2);
+        windows = late.downsample(Long.MAX_VALUE - 10, Long.MAX_VALUE, 100); // window end overflows
+        Assert.assertEquals(1, windows.size());
+        Assert.assertEquals(Long.MAX_VALUE, windows.get(0).getEnd());
+        Assert.assertEquals(2, windows.get(0).getCount());
+    }
+
+    /**
+     * Asserts that downsampling with the given parameters fails.
+     *
+     * @param ts the time series
+     * @param from the start timestamp
+     * @param to the end timestamp
+     * @param window the window length
+     */
+    private static void assertIllegal(TimeSeries ts, long from, long to, long window) {
+        try {
+            ts.downsample(from, to, window);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+    }
+
+}
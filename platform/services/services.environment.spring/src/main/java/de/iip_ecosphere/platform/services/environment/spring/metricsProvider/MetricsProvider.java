@@ -12,7 +12,10 @@
 
 package de.iip_ecosphere.platform.services.environment.spring.metricsProvider;
 
+import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.annotation.PreDestroy;
 
@@ -25,6 +28,8 @@ import org.springframework.stereotype.Component;
 
 import io.micrometer.core.instrument.MeterRegistry;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.CapacityBaseUnit;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.SystemMetricsSampler;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstants;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstructor;
 import de.iip_ecosphere.platform.support.iip_aas.Id;
@@ -65,6 +70,14 @@ import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
  * metrics</li>
  * <li>diskbaseunit: the base unit we want to use for the disk capacity
  * metrics</li>
+ * <li>deltaepsilon: the minimum change of a meter value to be included into a 
+ * delta-encoded monitoring update</li>
+ * <li>fullsnapshotinterval: the number of monitoring updates after which a full 
+ * snapshot of all meters is sent</li>
+ * <li>memoryinterval: the refresh interval of the physical memory metrics in ms</li>
+ * <li>diskinterval: the refresh interval of the disk capacity metrics in ms</li>
+ * <li>diskroots: comma-separated paths of the disk roots to consider, by default
+ * all file system roots</li>
  * </ul>
  * It is important to note that all previously configurable properties have a
  * default value, so there is no need obligation to set them in the file and
@@ -91,6 +104,26 @@ public class MetricsProvider extends de.iip_ecosphere.platform.services.environm
     /* By default the base unit for disk capacity is kilobytes */
     @Value("${metricsprovider.diskbaseunit:kilobytes}")
     private String diskBaseUnitString;
+
+    /* By default, any change of a meter is sent */
+    @Value("${metricsprovider.deltaepsilon:0}")
+    private double deltaEpsilonValue;
+
+    /* By default, a full snapshot is sent every 30 updates */
+    @Value("${metricsprovider.fullsnapshotinterval:30}")
+    private int fullSnapshotIntervalValue;
+
+    /* By default, the physical memory is sampled every second */
+    @Value("${metricsprovider.memoryinterval:1000}")
+    private long memoryIntervalValue;
+
+    /* By default, the disk capacities are sampled every 30 seconds */
+    @Value("${metricsprovider.diskinterval:30000}")
+    private long diskIntervalValue;
+
+    /* By default, all file system roots are considered */
+    @Value("${metricsprovider.diskroots:}")
+    private String diskRootsString;
     private boolean update = false;
     private TransportConnector connector;
     private boolean connectorFailed;
@@ -121,6 +154,18 @@ public class MetricsProvider extends de.iip_ecosphere.platform.services.environm
     public void registerNonNativeSystemMetrics() {
         setMemoryBaseUnit(CapacityBaseUnit.valueOf(memoryBaseUnitString.toUpperCase()));
         setDiskBaseUnit(CapacityBaseUnit.valueOf(diskBaseUnitString.toUpperCase()));
+        setDeltaEpsilon(deltaEpsilonValue);
+        setFullSnapshotInterval(fullSnapshotIntervalValue);
+        SystemMetricsSampler sampler = getSystemMetricsSampler();
+        sampler.setMemoryInterval(memoryIntervalValue);
+        sampler.setDiskInterval(diskIntervalValue);
+        List<File> roots = new ArrayList<File>();
+        for (String root : diskRootsString.split(",")) {
+            if (root.trim().length() > 0) {
+                roots.add(new File(root.trim()));
+            }
+        }
+        sampler.setRoots(roots);
         super.registerNonNativeSystemMetrics();
     }
 
@@ -137,6 +182,7 @@ public class MetricsProvider extends de.iip_ecosphere.platform.services.environm
         super.calculateNonNativeSystemMetrics();
         final String id = Id.getDeviceId();
         if (null == connector && null != transport) {
+            MetricsSnapshotSerializer.register();
             try {
                 connector = TransportFactory.createConnector();
                 connector.connect(transport.createParameter());
@@ -148,7 +194,8 @@ public class MetricsProvider extends de.iip_ecosphere.platform.services.environm
         }
         if (null != connector && !connectorFailed) {
             try {
-                connector.asyncSend(MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL, toJson(id, update));
+                connector.asyncSend(MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL,
+                    toSnapshot(id, update));
             } catch (IOException e) {
                 LoggerFactory.getLogger(MetricsProvider.class).error(
                     "Cannot sent monitoring message: " + e.getMessage());
@@ -163,6 +210,7 @@ public class MetricsProvider extends de.iip_ecosphere.platform.services.environm
     @PreDestroy
     public void destroy() {
         MetricsAasConstructor.clear();
+        close();
         if (null != connector && !connectorFailed) {
             try {
                 connector.disconnect();
@@ -47,6 +47,8 @@ import io.micrometer.core.instrument.Tag;
  * <li>Increase a custom counter</li>
  * <li>Record time events with a custom timer</li>
  * <li>Delete a custom metric</li>
+ * <li>Update multiple custom metrics of mixed kinds at once</li>
+ * <li>Retrieve multiple meters at once</li>
  * <li>Change the memory base unit for the physical memory metrics</li>
  * <li>Change the disk capacity base unit for the physical memory metrics</li>
  * </ul>
@@ -214,6 +216,39 @@ public class MetricsProviderRestService {
         metricsProvider.removeTimer(name);
     }
 
+    /**
+     * Updates multiple custom meters at once.<br>
+     * The request body is expected to be a JSON array of the bodies accepted by
+     * {@link #putGaugeValue(String)}, {@link #putCounterValue(String)} and
+     * {@link #putTimerValue(String)}, which may be mixed. The kind of an update is
+     * determined by its {@code value}, {@code increment} or {@code recordings}
+     * attribute, see {@link MetricsProvider#applyUpdates(String)}. This allows
+     * services reporting many metrics to do so with a single request per interval.
+     * Either all or, if an update is invalid, no updates are applied.
+     * 
+     * @param body request body containing the JSON array of updates
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @PutMapping("/batch")
+    public void putBatch(@RequestBody String body) {
+        metricsProvider.applyUpdates(body);
+    }
+
+    /**
+     * Retrieves multiple meters at once.<br>
+     * The names of the meters are given as repeated {@code name} query parameters.
+     * For a given name, all meters with that name are returned, e.g., all meters
+     * of a family of tagged meters, unknown meters are skipped.
+     * 
+     * @param names names of the meters
+     * @return a JSON array with the requested meters in JSON format
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping("/batch")
+    public String getBatch(@RequestParam(name = "name", required = false) List<String> names) {
+        return metricsProvider.getMeters(names);
+    }
+
     /**
      * Changes the base unit for the physical memory metrics of the system.<br>
      * The body will contain a single string that has a valid
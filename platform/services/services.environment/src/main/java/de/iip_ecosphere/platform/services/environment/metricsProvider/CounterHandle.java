@@ -0,0 +1,74 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * A pre-resolved handle to a custom counter of a {@link MetricsProvider}. Updating a counter through a handle avoids
+ * the identifier lookup on each update and is safe for concurrent use. A handle is detached if the counter is 
+ * removed from the provider, i.e., further updates are not reflected by the provider anymore.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class CounterHandle {
+
+    private final Counter counter;
+
+    /**
+     * Creates a handle.
+     * 
+     * @param counter the counter to wrap
+     */
+    CounterHandle(Counter counter) {
+        this.counter = counter;
+    }
+
+    /**
+     * Returns the identifier of the counter.
+     * 
+     * @return the identifier
+     */
+    public String getId() {
+        return counter.getId().getName();
+    }
+
+    /**
+     * Increments the counter by 1.
+     */
+    public void increment() {
+        counter.increment();
+    }
+
+    /**
+     * Increments the counter.
+     * 
+     * @param value the value to add
+     * @throws IllegalArgumentException if the value is negative
+     */
+    public void increment(double value) {
+        if (value < 0.0) {
+            throw new IllegalArgumentException(value + MetricsProvider.NON_POSITIVE_ERRMSG);
+        }
+        counter.increment(value);
+    }
+
+    /**
+     * Returns the cumulative count of the counter.
+     * 
+     * @return the count
+     */
+    public double count() {
+        return counter.count();
+    }
+
+}
@@ -0,0 +1,66 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import com.google.common.util.concurrent.AtomicDouble;
+
+/**
+ * A pre-resolved handle to a custom gauge of a {@link MetricsProvider}. Setting a gauge through a handle avoids the 
+ * identifier lookup on each update and is safe for concurrent use. A handle is detached if the gauge is removed 
+ * from the provider, i.e., further updates are not reflected by the provider anymore.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class GaugeHandle {
+
+    private final String id;
+    private final AtomicDouble value;
+
+    /**
+     * Creates a handle.
+     * 
+     * @param id the identifier of the gauge
+     * @param value the value holder of the gauge
+     */
+    GaugeHandle(String id, AtomicDouble value) {
+        this.id = id;
+        this.value = value;
+    }
+
+    /**
+     * Returns the identifier of the gauge.
+     * 
+     * @return the identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Changes the value of the gauge.
+     * 
+     * @param value the new value
+     */
+    public void set(double value) {
+        this.value.set(value);
+    }
+
+    /**
+     * Returns the value of the gauge.
+     * 
+     * @return the value
+     */
+    public double get() {
+        return value.get();
+    }
+
+}
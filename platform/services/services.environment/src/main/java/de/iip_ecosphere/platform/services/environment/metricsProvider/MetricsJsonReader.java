@@ -0,0 +1,365 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.IOException;
+
+/**
+ * Streaming pull reader for the metrics JSON format of {@link MetricsProvider#toJson(String, boolean)}. In contrast
+ * to a JSON DOM, the reader just locates the top-level entries and the individual meters, i.e., it does not
+ * create objects for the inner structure of a meter. Values of meters and lists are returned in their textual
+ * JSON format. The reader can be re-used via {@link #reset(CharSequence)}. Instances are not thread-safe.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsJsonReader {
+
+    /**
+     * The kinds of entries delivered by the reader.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public enum Kind {
+
+        /**
+         * The identifier of the document, a string value.
+         */
+        ID,
+
+        /**
+         * The {@link MetricsProvider#SEQUENCE sequence number}, a number value.
+         */
+        SEQUENCE,
+
+        /**
+         * The {@link MetricsProvider#FULL_SNAPSHOT full snapshot flag}, a boolean value.
+         */
+        FULL,
+
+        /**
+         * A meter within {@link MetricsProvider#METERS}, the name is the meter name, the value a JsonObject.
+         */
+        METER,
+
+        /**
+         * A top-level list, the value is a JsonArray.
+         */
+        LIST,
+
+        /**
+         * Any other top-level entry.
+         */
+        OTHER
+    }
+
+    private CharSequence data;
+    private int pos;
+    private boolean started;
+    private boolean done;
+    private boolean inMeters;
+    private boolean first;
+    private Kind kind;
+    private int nameStart;
+    private int nameEnd;
+    private int valueStart;
+    private int valueEnd;
+
+    /**
+     * Creates a reader without data. Call {@link #reset(CharSequence)} before reading.
+     */
+    public MetricsJsonReader() {
+        reset("{}");
+    }
+
+    /**
+     * Creates a reader for the given data.
+     *
+     * @param data the data
+     */
+    public MetricsJsonReader(CharSequence data) {
+        reset(data);
+    }
+
+    /**
+     * Resets the reader to read {@code data}.
+     *
+     * @param data the data
+     */
+    public void reset(CharSequence data) {
+        this.data = data;
+        pos = 0;
+        started = false;
+        done = false;
+        inMeters = false;
+        first = true;
+        kind = null;
+    }
+
+    /**
+     * Moves to the next entry.
+     *
+     * @return {@code true} if there is an entry, {@code false} if the document ended
+     * @throws IOException if the data is not well-formed
+     */
+    public boolean next() throws IOException {
+        boolean found = false;
+        if (!started) {
+            skipWhitespace();
+            expect('{');
+            started = true;
+        }
+        while (!found && !done) {
+            skipWhitespace();
+            if (charAt(pos) == '}') {
+                pos++;
+                if (inMeters) {
+                    inMeters = false;
+                    first = false;
+                } else {
+                    done = true;
+                }
+            } else {
+                if (!first) {
+                    expect(',');
+                    skipWhitespace();
+                }
+                first = false;
+                readName();
+                skipWhitespace();
+                expect(':');
+                skipWhitespace();
+                if (inMeters) {
+                    kind = Kind.METER;
+                    readValue();
+                    found = true;
+                } else if (isName(MetricsProvider.METERS) && charAt(pos) == '{') {
+                    pos++;
+                    inMeters = true;
+                    first = true;
+                } else {
+                    if (isName("id")) {
+                        kind = Kind.ID;
+                    } else if (isName(MetricsProvider.SEQUENCE)) {
+                        kind = Kind.SEQUENCE;
+                    } else if (isName(MetricsProvider.FULL_SNAPSHOT)) {
+                        kind = Kind.FULL;
+                    } else if (charAt(pos) == '[') {
+                        kind = Kind.LIST;
+                    } else {
+                        kind = Kind.OTHER;
+                    }
+                    readValue();
+                    found = true;
+                }
+            }
+        }
+        if (!found) {
+            kind = null;
+        }
+        return found;
+    }
+
+    /**
+     * Returns the kind of the actual entry.
+     *
+     * @return the kind, <b>null</b> if there is no actual entry
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the actual entry.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return data.subSequence(nameStart, nameEnd).toString();
+    }
+
+    /**
+     * Returns the value of the actual entry. String values are returned without quotes, all other values in their
+     * textual JSON format.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        int start = valueStart;
+        int end = valueEnd;
+        if (data.charAt(start) == '"') {
+            start++;
+            end--;
+        }
+        return data.subSequence(start, end).toString();
+    }
+
+    /**
+     * Returns the value of the actual entry as long. Fraction digits are ignored.
+     *
+     * @return the value
+     * @throws IOException if the value is not a number
+     */
+    public long getLongValue() throws IOException {
+        int p = valueStart;
+        boolean negative = charAt(p) == '-';
+        if (negative) {
+            p++;
+        }
+        long result = 0;
+        int digits = 0;
+        for (; p < valueEnd && Character.isDigit(data.charAt(p)); p++) {
+            result = result * 10 + (data.charAt(p) - '0');
+            digits++;
+        }
+        if (0 == digits) {
+            throw new IOException("Not a number at " + valueStart);
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Returns the value of the actual entry as boolean.
+     *
+     * @return the value, {@code true} if the value is the literal {@code true}, {@code false} else
+     */
+    public boolean getBooleanValue() {
+        return valueEnd - valueStart == 4 && regionMatches(valueStart, "true");
+    }
+
+    /**
+     * Returns whether the name of the actual entry is {@code name}.
+     *
+     * @param name the name to compare with
+     * @return {@code true} for equality, {@code false} else
+     */
+    public boolean isName(String name) {
+        return nameEnd - nameStart == name.length() && regionMatches(nameStart, name);
+    }
+
+    /**
+     * Returns whether {@code text} is contained in the data at {@code start}.
+     *
+     * @param start the start position in the data
+     * @param text the text
+     * @return {@code true} if {@code text} is at {@code start}, {@code false} else
+     */
+    private boolean regionMatches(int start, String text) {
+        boolean matches = start + text.length() <= data.length();
+        for (int i = 0; matches && i < text.length(); i++) {
+            matches = data.charAt(start + i) == text.charAt(i);
+        }
+        return matches;
+    }
+
+    /**
+     * Reads a quoted name and stores its bounds.
+     *
+     * @throws IOException if there is no name
+     */
+    private void readName() throws IOException {
+        expect('"');
+        nameStart = pos;
+        pos = skipString(pos);
+        nameEnd = pos - 1;
+    }
+
+    /**
+     * Reads a value and stores its bounds.
+     *
+     * @throws IOException if there is no value
+     */
+    private void readValue() throws IOException {
+        valueStart = pos;
+        char c = charAt(pos);
+        if (c == '"') {
+            pos = skipString(pos + 1);
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = charAt(pos);
+                if (c == '"') {
+                    pos = skipString(pos + 1);
+                } else {
+                    if (c == '{' || c == '[') {
+                        depth++;
+                    } else if (c == '}' || c == ']') {
+                        depth--;
+                    }
+                    pos++;
+                }
+            } while (depth > 0);
+        } else {
+            while (pos < data.length() && ",}] \t\r\n".indexOf(data.charAt(pos)) < 0) {
+                pos++;
+            }
+            if (pos == valueStart) {
+                throw new IOException("Missing value at " + pos);
+            }
+        }
+        valueEnd = pos;
+    }
+
+    /**
+     * Skips the remainder of a string.
+     *
+     * @param start the first position after the opening quote
+     * @return the position after the closing quote
+     * @throws IOException if the string does not end
+     */
+    private int skipString(int start) throws IOException {
+        int p = start;
+        char c;
+        do {
+            c = charAt(p);
+            p += c == '\\' ? 2 : 1;
+        } while (c != '"');
+        return p;
+    }
+
+    /**
+     * Skips whitespaces.
+     */
+    private void skipWhitespace() {
+        while (pos < data.length() && Character.isWhitespace(data.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    /**
+     * Expects {@code c} at the actual position and moves on.
+     *
+     * @param c the expected character
+     * @throws IOException if {@code c} is not at the actual position
+     */
+    private void expect(char c) throws IOException {
+        if (charAt(pos) != c) {
+            throw new IOException("Expected '" + c + "' at " + pos);
+        }
+        pos++;
+    }
+
+    /**
+     * Returns the character at {@code index}.
+     *
+     * @param index the index
+     * @return the character
+     * @throws IOException if the data ended
+     */
+    private char charAt(int index) throws IOException {
+        if (index >= data.length()) {
+            throw new IOException("Unexpected end of data at " + index);
+        }
+        return data.charAt(index);
+    }
+
+}
@@ -0,0 +1,250 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+
+/**
+ * Streaming writer for the metrics JSON format of {@link MetricsProvider#toJson(String, boolean)}. The writer
+ * re-uses its internal buffer across documents, caches the constant part of each meter (name, description, base
+ * unit) and formats numbers without intermediary objects. Meters that were not written in the last two full
+ * snapshots are dropped from the cache. Instances are not thread-safe.<br>
+ * A document is written by {@link #startDocument(String, long, boolean)}, {@link #startMeters()},
+ * {@link #appendMeter(Meter, Iterable)} per meter, {@link #endMeters()}, optionally
+ * {@link #appendList(String, String)} per list and {@link #endDocument()}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsJsonWriter {
+
+    private static final long FRACTION_SCALE = 1000000;
+    private static final double MAX_FIXED = 9E18; // integer part fits into a long
+
+    private final StringBuilder out = new StringBuilder(4096);
+    private Map<Meter.Id, String> prefixes = new HashMap<Meter.Id, String>();
+    private Map<Meter.Id, String> lastPrefixes = new HashMap<Meter.Id, String>();
+    private boolean firstMeter;
+
+    /**
+     * Starts a new document. Further calls append to the new document.
+     *
+     * @param identifier optional identifier to be added to the structure, no identifier is added if <b>null</b>
+     * @param sequence the sequence number of the document
+     * @param full whether the document is a full snapshot
+     */
+    public void startDocument(String identifier, long sequence, boolean full) {
+        if (full) {
+            Map<Meter.Id, String> tmp = lastPrefixes;
+            lastPrefixes = prefixes;
+            prefixes = tmp;
+            prefixes.clear();
+        }
+        out.setLength(0);
+        out.append('{');
+        if (null != identifier) {
+            out.append("\"id\":\"").append(identifier).append("\",");
+        }
+        out.append('"').append(MetricsProvider.SEQUENCE).append("\":").append(sequence).append(',');
+        out.append('"').append(MetricsProvider.FULL_SNAPSHOT).append("\":").append(full);
+    }
+
+    /**
+     * Starts the meters object.
+     */
+    public void startMeters() {
+        out.append(",\"").append(MetricsProvider.METERS).append("\":{");
+        firstMeter = true;
+    }
+
+    /**
+     * Appends a meter to the meters object.
+     *
+     * @param meter the meter
+     * @param measurements the measurements of {@code meter} to write
+     */
+    public void appendMeter(Meter meter, Iterable<Measurement> measurements) {
+        Meter.Id id = meter.getId();
+        String prefix = prefixes.get(id);
+        if (null == prefix) {
+            prefix = lastPrefixes.remove(id);
+            if (null == prefix) {
+                StringBuilder tmp = new StringBuilder();
+                tmp.append('"').append(id.getName()).append("\":");
+                appendMeterHead(tmp, meter);
+                prefix = tmp.toString();
+            }
+            prefixes.put(id, prefix);
+        }
+        if (!firstMeter) {
+            out.append(',');
+        }
+        out.append(prefix);
+        appendMeasurements(out, measurements);
+        firstMeter = false;
+    }
+
+    /**
+     * Ends the meters object.
+     */
+    public void endMeters() {
+        out.append('}');
+    }
+
+    /**
+     * Appends a list.
+     *
+     * @param name the name of the list
+     * @param list the list in textual JsonArray format
+     */
+    public void appendList(String name, String list) {
+        out.append(",\"").append(name).append("\":").append(list);
+    }
+
+    /**
+     * Ends the document.
+     *
+     * @return the document
+     */
+    public String endDocument() {
+        out.append('}');
+        return out.toString();
+    }
+
+    /**
+     * Appends a meter as JsonObject without caching. In order to maintain a certain uniformity, the resulting JSON
+     * object mimics the structure that Micrometer-API metrics have when exposed by the Spring Boot Actuator. If the
+     * description contains any {@code "} characters, they will be exchanged for {@code ''}.
+     *
+     * @param sb the string builder to append to
+     * @param meter the meter
+     * @param measurements the measurements of {@code meter} to write
+     */
+    public static void appendMeter(StringBuilder sb, Meter meter, Iterable<Measurement> measurements) {
+        appendMeterHead(sb, meter);
+        appendMeasurements(sb, measurements);
+    }
+
+    /**
+     * Appends a meter received via a {@link MetricsSnapshot} as JsonObject in the format of
+     * {@link #appendMeter(StringBuilder, Meter, Iterable)}.
+     *
+     * @param sb the string builder to append to
+     * @param descriptor the meter descriptor
+     * @param values the measurement values in the sequence of the statistics of {@code descriptor}
+     */
+    public static void appendMeter(StringBuilder sb, MetricsSnapshot.MeterDescriptor descriptor, double[] values) {
+        appendMeterHead(sb, descriptor.getName(), descriptor.getDescription(), descriptor.getBaseUnit());
+        int count = Math.min(values.length, descriptor.getStatisticsCount());
+        for (int v = 0; v < count; v++) {
+            appendMeasurement(sb, descriptor.getStatistic(v), values[v], 0 == v);
+        }
+        sb.append("],\"availableTags\":[]}");
+    }
+
+    /**
+     * Appends the constant head of a meter up to the opening bracket of the measurements.
+     *
+     * @param sb the string builder to append to
+     * @param meter the meter
+     */
+    private static void appendMeterHead(StringBuilder sb, Meter meter) {
+        Meter.Id id = meter.getId();
+        appendMeterHead(sb, id.getName(), id.getDescription(), id.getBaseUnit());
+    }
+
+    /**
+     * Appends the constant head of a meter up to the opening bracket of the measurements.
+     *
+     * @param sb the string builder to append to
+     * @param name the name of the meter
+     * @param description the description of the meter, may be <b>null</b>
+     * @param baseUnit the base unit of the meter, may be <b>null</b>
+     */
+    private static void appendMeterHead(StringBuilder sb, String name, String description, String baseUnit) {
+        if (description != null) {
+            description = description.replace("\"", "''");
+        }
+        sb.append("{\"name\":\"").append(name).append("\",");
+        sb.append("\"description\":\"").append(description).append("\",");
+        sb.append("\"baseUnit\":\"").append(baseUnit).append("\",");
+        sb.append("\"measurements\":[");
+    }
+
+    /**
+     * Appends the measurements and closes the meter.
+     *
+     * @param sb the string builder to append to
+     * @param measurements the measurements
+     */
+    private static void appendMeasurements(StringBuilder sb, Iterable<Measurement> measurements) {
+        boolean first = true;
+        for (Measurement m : measurements) {
+            appendMeasurement(sb, m.getStatistic().toString(), m.getValue(), first);
+            first = false;
+        }
+        sb.append("],\"availableTags\":[]}");
+    }
+
+    /**
+     * Appends a measurement.
+     *
+     * @param sb the string builder to append to
+     * @param statistic the name of the statistic
+     * @param value the value
+     * @param first whether this is the first measurement of the meter
+     */
+    private static void appendMeasurement(StringBuilder sb, String statistic, double value, boolean first) {
+        if (!first) {
+            sb.append(',');
+        }
+        sb.append("{\"statistic\":\"").append(statistic).append("\",\"value\":");
+        appendFixed(sb, value);
+        sb.append('}');
+    }
+
+    /**
+     * Appends {@code value} with six fraction digits like {@code String.format(Locale.ROOT, "%f", value)} (up to
+     * rounding of the last digit), but without creating intermediary objects for values below
+     * 9&middot;10<sup>18</sup>.
+     *
+     * @param sb the string builder to append to
+     * @param value the value to append
+     */
+    public static void appendFixed(StringBuilder sb, double value) {
+        if (Double.isNaN(value) || Math.abs(value) >= MAX_FIXED) {
+            sb.append(String.format(Locale.ROOT, "%f", value));
+        } else {
+            if (Double.doubleToRawLongBits(value) < 0) { // also -0.0, as %f
+                sb.append('-');
+            }
+            double abs = Math.abs(value);
+            long integer = (long) abs;
+            long fraction = Math.round((abs - integer) * FRACTION_SCALE); // exact difference, no precision loss
+            if (fraction >= FRACTION_SCALE) {
+                integer++;
+                fraction -= FRACTION_SCALE;
+            }
+            sb.append(integer).append('.');
+            for (long d = FRACTION_SCALE / 10; d > 1 && fraction < d; d /= 10) {
+                sb.append('0');
+            }
+            sb.append(fraction);
+        }
+    }
+
+}
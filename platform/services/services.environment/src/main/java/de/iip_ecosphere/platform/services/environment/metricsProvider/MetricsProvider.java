@@ -12,18 +12,28 @@
 
 package de.iip_ecosphere.platform.services.environment.metricsProvider;
 
-import java.io.File;
-import java.lang.management.ManagementFactory;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonException;
+import javax.json.JsonNumber;
+import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.json.JsonValue;
+
 import com.google.common.util.concurrent.AtomicDouble;
 
 import io.micrometer.core.instrument.Counter;
@@ -31,12 +41,11 @@ import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.Measurement;
 import io.micrometer.core.instrument.Meter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Statistic;
 import io.micrometer.core.instrument.Tag;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.search.MeterNotFoundException;
 
-import com.sun.management.OperatingSystemMXBean;
-
 /**
  * This class represents an interface to manage the Micrometer-API meters.<br>
  * The operations available in this class are:
@@ -54,10 +63,20 @@ import com.sun.management.OperatingSystemMXBean;
  * It is also mentioned that the Timer meter is the most resource consuming
  * meter. It is recommended to use the already existing global timers instead of
  * creating a new one.<br>
+ * The custom meters may be used concurrently. For frequent updates, it is recommended to obtain a
+ * {@link #getCounterHandle(String) counter}, {@link #getTimerHandle(String) timer} or
+ * {@link #getGaugeHandle(String) gauge} handle once and to update the meter through the handle rather than
+ * through its identifier.<br>
+ * For timers on hot data paths, a {@link #addSamplingTimer(String, int, double...) sampling timer} times only each
+ * n-th execution or {@link #addAdaptiveSamplingTimer(String, double, double...) adapts} the sampling rate to an 
+ * overhead budget. Sampling timers are custom timers (base unit seconds), which can optionally publish percentiles 
+ * as custom gauges.<br>
+ * The system metrics not exposed by Micrometer-API are sampled and cached by a {@link SystemMetricsSampler}, i.e.,
+ * {@link #calculateNonNativeSystemMetrics()} does not block on slow sources such as network mounts. On Linux, the
+ * per-core CPU usage, the network throughput and the load average are read from {@link ProcCollector /proc}.<br>
  * 
  * @author Miguel Gomez
  */
-@SuppressWarnings("restriction")
 public class MetricsProvider {
 
     public static final List<Tag> EMPTY_TAGS = Collections.unmodifiableList(new ArrayList<Tag>());
@@ -67,6 +86,18 @@ public class MetricsProvider {
     public static final String TIMER_LIST = "timerlist";
     public static final String TAGGED_METER_LIST = "taggedmeterlist";
     public static final String SIMPLE_METER_LIST = "simplemeterlist";
+    public static final String METERS = "meters";
+    public static final String SEQUENCE = "seq";
+    public static final String FULL_SNAPSHOT = "full";
+
+    // Keys of the custom meter updates, see applyUpdates
+    public static final String UPDATE_NAME = "name";
+    public static final String UPDATE_VALUE = "value";
+    public static final String UPDATE_INCREMENT = "increment";
+    public static final String UPDATE_RECORDINGS = "recordings";
+    
+    // Default number of serializations after which a full snapshot is enforced
+    public static final int DEFAULT_FULL_SNAPSHOT_INTERVAL = 30;
     
     // Some of the system metrics that we want to expose
     public static final String SYS_MEM_TOTAL = "system.memory.total";
@@ -79,6 +110,14 @@ public class MetricsProvider {
     public static final String SYS_DISK_USABLE = "system.disk.usable";
     public static final String SYS_DISK_USED = "system.disk.used";
 
+    public static final String SYS_CPU_CORE_USAGE = "system.cpu.core.usage";
+    public static final String TAG_CORE = "core";
+    public static final String SYS_LOAD_1 = "system.load.1m";
+    public static final String SYS_LOAD_5 = "system.load.5m";
+    public static final String SYS_LOAD_15 = "system.load.15m";
+    public static final String SYS_NET_RECEIVED = "system.network.received";
+    public static final String SYS_NET_SENT = "system.network.sent";
+
     // Error Messages
     protected static final String ID_NOT_FOUND_ERRMSG = ": no item found with this identifier!";
     protected static final String NON_POSITIVE_ERRMSG = ": is not a positive number!";
@@ -86,7 +125,7 @@ public class MetricsProvider {
 
     // Tools
     private final MeterRegistry registry;
-    private final OperatingSystemMXBean osmxb;
+    private final SystemMetricsSampler sampler;
 
     // Flag required for correct initialization of system metrics
     private boolean init;
@@ -101,6 +140,8 @@ public class MetricsProvider {
     private final Map<String, AtomicDouble> gauges;
     private final Map<String, Counter> counters;
     private final Map<String, Timer> timers;
+    private final Map<String, SamplingTimer> samplingTimers;
+    private final Map<String, SamplingTimer> percentileGauges;
 
     // Attributes to simplify gauges
     private double sysMemTotal;
@@ -111,6 +152,17 @@ public class MetricsProvider {
     private double sysDiskFree;
     private double sysDiskUsable;
     private double sysDiskUsed;
+    
+    // Delta encoding and streaming of toJson/toSnapshot
+    private double deltaEpsilon = 0;
+    private int fullSnapshotInterval = DEFAULT_FULL_SNAPSHOT_INTERVAL;
+    private long sequence;
+    private int updatesSinceFull;
+    private final Map<Meter.Id, double[]> lastSent = new HashMap<Meter.Id, double[]>();
+    private final MetricsJsonWriter writer = new MetricsJsonWriter();
+    private final List<Measurement> measurements = new ArrayList<Measurement>();
+    private final Map<Meter.Id, Integer> dictionaryIndex = new HashMap<Meter.Id, Integer>();
+    private long dictionarySequence;
 
     /**
      * Create a new Metrics Provider Instance.<br>
@@ -131,12 +183,14 @@ public class MetricsProvider {
 
         // Obtain references for the tools
         this.registry = registry;
-        osmxb = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        sampler = new SystemMetricsSampler();
 
         // Initiate the containers
-        gauges = new HashMap<String, AtomicDouble>();
-        counters = new HashMap<String, Counter>();
-        timers = new HashMap<String, Timer>();
+        gauges = new ConcurrentHashMap<String, AtomicDouble>();
+        counters = new ConcurrentHashMap<String, Counter>();
+        timers = new ConcurrentHashMap<String, Timer>();
+        samplingTimers = new ConcurrentHashMap<String, SamplingTimer>();
+        percentileGauges = new ConcurrentHashMap<String, SamplingTimer>();
 
         init = true;
     }
@@ -144,13 +198,45 @@ public class MetricsProvider {
     /**
      * Registers the extra system metrics onto the registry.<br>
      * The extra system metrics include the physical memory values and the disk
-     * values, which are metrics not automatically recorded by Micrometer-API.
+     * values, which are metrics not automatically recorded by Micrometer-API. If available, also the Linux
+     * {@link ProcCollector /proc} metrics are registered.
      */
     public void registerNonNativeSystemMetrics() {
         registerMemoryMetrics();
         registerDiskMetrics();
         Gauge.builder(SYS_MEM_USAGE, () -> sysMemUsage).description("Current percentage of physical memory in use")
                 .register(registry);
+        registerProcMetrics();
+    }
+
+    /**
+     * Registers the Linux {@link ProcCollector /proc} metrics, i.e., the per-core CPU usage (tagged by
+     * {@link #TAG_CORE}), the load averages and the network throughput. Does nothing if there is no proc file
+     * system.
+     */
+    private void registerProcMetrics() {
+        ProcCollector proc = sampler.getProcCollector();
+        if (null != proc) {
+            sampler.refresh(); // determine the cores
+            for (int c = 0; c < proc.getCoreCount(); c++) {
+                final int core = c;
+                Gauge.builder(SYS_CPU_CORE_USAGE, () -> proc.getCoreUsage(core))
+                    .description("Current usage of a CPU core").tag(TAG_CORE, String.valueOf(core))
+                    .register(registry);
+            }
+            Gauge.builder(SYS_LOAD_1, () -> proc.getLoadAverage1())
+                .description("System load average over the last minute").register(registry);
+            Gauge.builder(SYS_LOAD_5, () -> proc.getLoadAverage5())
+                .description("System load average over the last 5 minutes").register(registry);
+            Gauge.builder(SYS_LOAD_15, () -> proc.getLoadAverage15())
+                .description("System load average over the last 15 minutes").register(registry);
+            Gauge.builder(SYS_NET_RECEIVED, () -> proc.getNetworkReceivedRate())
+                .description("Bytes received per second over all network interfaces except loopback")
+                .baseUnit("bytes/s").register(registry);
+            Gauge.builder(SYS_NET_SENT, () -> proc.getNetworkSentRate())
+                .description("Bytes sent per second over all network interfaces except loopback")
+                .baseUnit("bytes/s").register(registry);
+        }
     }
 
     /**
@@ -238,7 +324,7 @@ public class MetricsProvider {
      * @return number of custom timers currently registered
      */
     public int getNumberOfCustomTimers() {
-        return timers.size();
+        return timers.size() + samplingTimers.size();
     }
 
     /**
@@ -252,15 +338,34 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if the identifier is null
      */
     public void addGaugeValue(String gaugeId, double value) {
+        obtainGauge(gaugeId, value).set(value);
+    }
+
+    /**
+     * Returns a custom gauge, creates and registers it if it does not exist.
+     * 
+     * @param gaugeId identifier for the gauge
+     * @param value the initial value if the gauge is created
+     * @return the gauge value holder
+     * @throws IllegalArgumentException if the identifier is null
+     */
+    private AtomicDouble obtainGauge(String gaugeId, double value) {
         if (gaugeId == null) {
             throw new IllegalArgumentException("gaugeId" + NULL_ARG);
         }
-        if (gauges.containsKey(gaugeId)) {
-            gauges.get(gaugeId).set(value);
-        } else {
-            AtomicDouble gauge = registry.gauge(gaugeId, new AtomicDouble(value));
-            gauges.put(gaugeId, gauge);
-        }
+        return gauges.computeIfAbsent(gaugeId, id -> registry.gauge(id, new AtomicDouble(value)));
+    }
+
+    /**
+     * Returns a handle to a custom gauge. If the identifier does not correspond to an existing gauge, a new gauge 
+     * with value {@code 0} will be created and registered.
+     * 
+     * @param gaugeId identifier for the gauge
+     * @return the handle
+     * @throws IllegalArgumentException if the identifier is null
+     */
+    public GaugeHandle getGaugeHandle(String gaugeId) {
+        return new GaugeHandle(gaugeId, obtainGauge(gaugeId, 0));
     }
 
     /**
@@ -270,10 +375,9 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if there is no gauge with that identifier
      */
     public void removeGauge(String gaugeId) {
-        if (!gauges.containsKey(gaugeId)) {
+        if (null == remove(gauges, gaugeId)) {
             throw new IllegalArgumentException(gaugeId + ID_NOT_FOUND_ERRMSG);
         }
-        gauges.remove(gaugeId);
         registry.remove(registry.get(gaugeId).meter());
     }
 
@@ -286,11 +390,16 @@ public class MetricsProvider {
      *         with the requested identifier
      */
     public double getGaugeValue(String gaugeId) {
-        if (gauges.containsKey(gaugeId)) {
-            return gauges.get(gaugeId).doubleValue();
+        AtomicDouble gauge = lookup(gauges, gaugeId);
+        double result = 0.0;
+        if (null != gauge) {
+            result = gauge.doubleValue();
         } else {
-            return 0.0;
+            if (null != lookup(percentileGauges, gaugeId)) {
+                result = registry.get(gaugeId).gauge().value();
+            }
         }
+        return result;
     }
     
     /**
@@ -311,13 +420,29 @@ public class MetricsProvider {
     }
 
     /**
-     * Creates a new counter and registers it in the MeterRegistry.
+     * Returns a custom counter, creates and registers it if it does not exist.
      * 
      * @param counterId identifier of the counter
+     * @return the counter
+     * @throws IllegalArgumentException if the identifier is null
+     */
+    private Counter obtainCounter(String counterId) {
+        if (counterId == null) {
+            throw new IllegalArgumentException("counterId" + NULL_ARG);
+        }
+        return counters.computeIfAbsent(counterId, id -> registry.counter(id));
+    }
+
+    /**
+     * Returns a handle to a custom counter. If the identifier does not correspond to an existing counter, a new 
+     * counter will be created and registered.
+     * 
+     * @param counterId identifier of the counter
+     * @return the handle
+     * @throws IllegalArgumentException if the identifier is null
      */
-    private void addCounter(String counterId) {
-        Counter counter = registry.counter(counterId);
-        counters.put(counterId, counter);
+    public CounterHandle getCounterHandle(String counterId) {
+        return new CounterHandle(obtainCounter(counterId));
     }
 
     /**
@@ -338,10 +463,7 @@ public class MetricsProvider {
         if (value < 0.0) {
             throw new IllegalArgumentException(value + NON_POSITIVE_ERRMSG);
         }
-        if (!counters.containsKey(counterId)) {
-            addCounter(counterId);
-        }
-        counters.get(counterId).increment(value);
+        obtainCounter(counterId).increment(value);
     }
 
     /**
@@ -365,11 +487,9 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if there is no counter with that identifier
      */
     public void removeCounter(String counterId) {
-        if (!counters.containsKey(counterId)) {
+        if (null == remove(counters, counterId)) {
             throw new IllegalArgumentException(counterId + ID_NOT_FOUND_ERRMSG);
         }
-
-        counters.remove(counterId);
         registry.remove(registry.get(counterId).meter());
     }
 
@@ -382,11 +502,8 @@ public class MetricsProvider {
      *         counter with the requested identifier
      */
     public double getCounterValue(String counterId) {
-        if (counters.containsKey(counterId)) {
-            return counters.get(counterId).count();
-        } else {
-            return 0.0;
-        }
+        Counter counter = lookup(counters, counterId);
+        return null == counter ? 0.0 : counter.count();
     }
 
     /**
@@ -413,11 +530,33 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if the identifier is null
      */
     protected void addTimer(String timerId) {
+        obtainTimer(timerId);
+    }
+
+    /**
+     * Returns a custom timer, creates and registers it if it does not exist.
+     * 
+     * @param timerId identifier of the custom timer
+     * @return the timer
+     * @throws IllegalArgumentException if the identifier is null
+     */
+    private Timer obtainTimer(String timerId) {
         if (timerId == null) {
             throw new IllegalArgumentException("timerId" + NULL_ARG);
         }
-        Timer timer = registry.timer(timerId);
-        timers.put(timerId, timer);
+        return timers.computeIfAbsent(timerId, id -> registry.timer(id));
+    }
+
+    /**
+     * Returns a handle to a custom timer. If the identifier does not correspond to an existing timer, a new 
+     * timer will be created and registered.
+     * 
+     * @param timerId identifier of the custom timer
+     * @return the handle
+     * @throws IllegalArgumentException if the identifier is null
+     */
+    public TimerHandle getTimerHandle(String timerId) {
+        return new TimerHandle(obtainTimer(timerId));
     }
 
     /**
@@ -427,12 +566,98 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if there is no timer with that identifier
      */
     public void removeTimer(String timerId) {
-        if (!timers.containsKey(timerId)) {
+        if (!removeTimerMeters(timerId)) {
             throw new IllegalArgumentException(timerId + ID_NOT_FOUND_ERRMSG);
         }
+    }
+
+    /**
+     * Removes a custom timer or sampling timer including its percentile gauges.
+     * 
+     * @param timerId identifier of the custom timer, may be <b>null</b>
+     * @return {@code true} if a timer was removed, {@code false} else
+     */
+    private boolean removeTimerMeters(String timerId) {
+        boolean removed = null != remove(timers, timerId);
+        if (removed) {
+            registry.remove(registry.get(timerId).meter());
+        } else {
+            SamplingTimer timer = remove(samplingTimers, timerId);
+            removed = null != timer;
+            if (removed) {
+                registry.remove(registry.get(timerId).meter());
+                for (double p : timer.getPercentiles()) {
+                    String name = timer.getPercentileName(p);
+                    percentileGauges.remove(name);
+                    registry.remove(registry.get(name).meter());
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Adds a sampling timer timing each {@code rate}-th execution. Recordings via the {@code recordWithTimer} 
+     * methods use the sampling timer, while the other timer methods of this class treat it like a custom timer. An
+     * existing custom timer with the same identifier is replaced.
+     * 
+     * @param timerId identifier of the timer
+     * @param rate the sampling rate, {@code 1} for timing all executions
+     * @param percentiles the percentiles in (0; 1] to publish as custom gauges, see 
+     *     {@link SamplingTimer#getPercentileName(double)}
+     * @return the sampling timer
+     * @throws IllegalArgumentException if the identifier is null or {@code rate} or a percentile is invalid
+     */
+    public SamplingTimer addSamplingTimer(String timerId, int rate, double... percentiles) {
+        if (timerId == null) {
+            throw new IllegalArgumentException("timerId" + NULL_ARG);
+        }
+        return registerSamplingTimer(new SamplingTimer(timerId, rate, 0, registry.config().clock(), percentiles));
+    }
+
+    /**
+     * Adds a sampling timer adapting its sampling rate so that the timing overhead stays within {@code budget}. 
+     * Recordings via the {@code recordWithTimer} methods use the sampling timer, while the other timer methods of 
+     * this class treat it like a custom timer. An existing custom timer with the same identifier is replaced.
+     * 
+     * @param timerId identifier of the timer
+     * @param budget the overhead budget as fraction of the execution time in (0; 1], e.g., {@code 0.01} for 1%
+     * @param percentiles the percentiles in (0; 1] to publish as custom gauges, see 
+     *     {@link SamplingTimer#getPercentileName(double)}
+     * @return the sampling timer
+     * @throws IllegalArgumentException if the identifier is null or {@code budget} or a percentile is invalid
+     */
+    public SamplingTimer addAdaptiveSamplingTimer(String timerId, double budget, double... percentiles) {
+        if (timerId == null) {
+            throw new IllegalArgumentException("timerId" + NULL_ARG);
+        }
+        if (!(budget > 0)) {
+            throw new IllegalArgumentException(budget + NON_POSITIVE_ERRMSG);
+        }
+        return registerSamplingTimer(new SamplingTimer(timerId, 1, budget, registry.config().clock(), percentiles));
+    }
 
-        timers.remove(timerId);
-        registry.remove(registry.get(timerId).meter());
+    /**
+     * Registers a sampling timer and its percentile gauges, replaces an existing timer with the same identifier.
+     * 
+     * @param timer the timer
+     * @return {@code timer}
+     */
+    private synchronized SamplingTimer registerSamplingTimer(SamplingTimer timer) {
+        String timerId = timer.getId();
+        removeTimerMeters(timerId);
+        Meter.builder(timerId, Meter.Type.TIMER, Arrays.asList(
+            new Measurement(() -> (double) timer.count(), Statistic.COUNT),
+            new Measurement(() -> timer.totalTime(TimeUnit.SECONDS), Statistic.TOTAL_TIME),
+            new Measurement(() -> timer.max(TimeUnit.SECONDS), Statistic.MAX)))
+            .baseUnit("seconds").register(registry);
+        for (double p : timer.getPercentiles()) {
+            String name = timer.getPercentileName(p);
+            Gauge.builder(name, timer, t -> t.percentile(p, TimeUnit.SECONDS)).baseUnit("seconds").register(registry);
+            percentileGauges.put(name, timer);
+        }
+        samplingTimers.put(timerId, timer);
+        return timer;
     }
 
     /**
@@ -446,11 +671,12 @@ public class MetricsProvider {
         if (runnable == null) {
             throw new IllegalArgumentException("runnable" + NULL_ARG);
         }
-        if (!timers.containsKey(timerId)) {
-            addTimer(timerId);
+        SamplingTimer sampling = lookup(samplingTimers, timerId);
+        if (null != sampling) {
+            sampling.record(runnable);
+        } else {
+            obtainTimer(timerId).record(runnable);
         }
-
-        timers.get(timerId).record(runnable);
     }
 
     /**
@@ -466,11 +692,8 @@ public class MetricsProvider {
         if (supplier == null) {
             throw new IllegalArgumentException("supplier" + NULL_ARG);
         }
-        if (!timers.containsKey(timerId)) {
-            addTimer(timerId);
-        }
-
-        return timers.get(timerId).record(supplier);
+        SamplingTimer sampling = lookup(samplingTimers, timerId);
+        return null != sampling ? sampling.record(supplier) : obtainTimer(timerId).record(supplier);
     }
 
     /**
@@ -489,11 +712,12 @@ public class MetricsProvider {
         if (unit == null) {
             throw new IllegalArgumentException("unit" + NULL_ARG);
         }
-        if (!timers.containsKey(timerId)) {
-            addTimer(timerId);
+        SamplingTimer sampling = lookup(samplingTimers, timerId);
+        if (null != sampling) {
+            sampling.record(time, unit);
+        } else {
+            obtainTimer(timerId).record(time, unit);
         }
-
-        timers.get(timerId).record(time, unit);
     }
 
     /**
@@ -506,12 +730,15 @@ public class MetricsProvider {
      *         with that identifier
      */
     public double getTotalTimeFromTimer(String timerId) {
-        if (timers.containsKey(timerId)) {
-            Timer t = timers.get(timerId);
-            return t.totalTime(t.baseTimeUnit());
+        Timer t = lookup(timers, timerId);
+        double result = 0.0;
+        if (null != t) {
+            result = t.totalTime(t.baseTimeUnit());
         } else {
-            return 0.0;
+            SamplingTimer sampling = lookup(samplingTimers, timerId);
+            result = null == sampling ? 0.0 : sampling.totalTime(TimeUnit.SECONDS);
         }
+        return result;
     }
 
     /**
@@ -524,12 +751,15 @@ public class MetricsProvider {
      *         found with that identifier
      */
     public double getMaxTimeFromTimer(String timerId) {
-        if (timers.containsKey(timerId)) {
-            Timer t = timers.get(timerId);
-            return t.max(t.baseTimeUnit());
+        Timer t = lookup(timers, timerId);
+        double result = 0.0;
+        if (null != t) {
+            result = t.max(t.baseTimeUnit());
         } else {
-            return 0.0;
+            SamplingTimer sampling = lookup(samplingTimers, timerId);
+            result = null == sampling ? 0.0 : sampling.max(TimeUnit.SECONDS);
         }
+        return result;
     }
 
     /**
@@ -541,11 +771,15 @@ public class MetricsProvider {
      *         found with that identifier
      */
     public long getTimerCount(String timerId) {
-        if (timers.containsKey(timerId)) {
-            return timers.get(timerId).count();
+        Timer t = lookup(timers, timerId);
+        long result = 0;
+        if (null != t) {
+            result = t.count();
         } else {
-            return 0;
+            SamplingTimer sampling = lookup(samplingTimers, timerId);
+            result = null == sampling ? 0 : sampling.count();
         }
+        return result;
     }
     
     /**
@@ -571,7 +805,8 @@ public class MetricsProvider {
      * Even though this sacrifices the real time values of these metrics, we gain
      * speed when requesting the metrics as we no longer have to calculate the
      * values upon request. The {@code SHEDULE_RATE} indicates the time in between
-     * calculations.
+     * calculations. The raw values are taken from the {@link #getSystemMetricsSampler() system metrics sampler},
+     * which refreshes stale values in the background.
      */
     public void calculateNonNativeSystemMetrics() {
         if (init) {
@@ -580,27 +815,34 @@ public class MetricsProvider {
             init = false;
         }
 
-        sysMemTotal = osmxb.getTotalPhysicalMemorySize() / memoryBaseUnit.byteValue();
-        sysMemFree = osmxb.getFreePhysicalMemorySize() / memoryBaseUnit.byteValue();
+        sampler.refresh();
+        sysMemTotal = sampler.getMemoryTotal() / memoryBaseUnit.byteValue();
+        sysMemFree = sampler.getMemoryFree() / memoryBaseUnit.byteValue();
         sysMemUsed = sysMemTotal - sysMemFree;
         sysMemUsage = sysMemUsed / sysMemTotal;
 
-        File[] dirs = File.listRoots();
-        sysDiskTotal = 0.0;
-        sysDiskFree = 0.0;
-        sysDiskUsable = 0.0;
+        sysDiskTotal = sampler.getDiskTotal() / diskBaseUnit.byteValue();
+        sysDiskFree = sampler.getDiskFree() / diskBaseUnit.byteValue();
+        sysDiskUsable = sampler.getDiskUsable() / diskBaseUnit.byteValue();
 
-        for (File dir : dirs) {
-            sysDiskTotal += dir.getTotalSpace();
-            sysDiskFree += dir.getFreeSpace();
-            sysDiskUsable += dir.getUsableSpace();
-        }
+        sysDiskUsed = sysDiskTotal - sysDiskFree;
+    }
 
-        sysDiskTotal /= diskBaseUnit.byteValue();
-        sysDiskFree /= diskBaseUnit.byteValue();
-        sysDiskUsable /= diskBaseUnit.byteValue();
+    /**
+     * Returns the sampler for the system metrics, e.g., to change the refresh intervals or the disk roots.
+     * 
+     * @return the sampler
+     */
+    public SystemMetricsSampler getSystemMetricsSampler() {
+        return sampler;
+    }
 
-        sysDiskUsed = sysDiskTotal - sysDiskFree;
+    /**
+     * Releases the resources of this provider, i.e., stops sampling the system metrics and closes the /proc files.
+     * Shall be called when the provider is not used anymore. The registered meters remain in the registry.
+     */
+    public void close() {
+        sampler.close();
     }
 
     /**
@@ -647,6 +889,52 @@ public class MetricsProvider {
         return diskBaseUnit;
     }
 
+    /**
+     * Changes the minimum absolute difference of a measurement value against its last sent value so that
+     * {@link #toJson(String, boolean)} includes the meter into an update.
+     * 
+     * @param deltaEpsilon the epsilon, 0 for any change
+     * @throws IllegalArgumentException if {@code deltaEpsilon} is negative
+     */
+    public void setDeltaEpsilon(double deltaEpsilon) {
+        if (deltaEpsilon < 0) {
+            throw new IllegalArgumentException(deltaEpsilon + NON_POSITIVE_ERRMSG);
+        }
+        this.deltaEpsilon = deltaEpsilon;
+    }
+
+    /**
+     * Consults the minimum absolute difference for meters to be included into an update.
+     * 
+     * @return the epsilon
+     */
+    public double getDeltaEpsilon() {
+        return deltaEpsilon;
+    }
+
+    /**
+     * Changes the number of serializations via {@link #toJson(String, boolean)} after which a full snapshot is 
+     * sent even for updates, e.g., to inform late joining receivers.
+     * 
+     * @param fullSnapshotInterval the interval, 1 for full snapshots only
+     * @throws IllegalArgumentException if {@code fullSnapshotInterval} is not positive
+     */
+    public void setFullSnapshotInterval(int fullSnapshotInterval) {
+        if (fullSnapshotInterval < 1) {
+            throw new IllegalArgumentException(fullSnapshotInterval + NON_POSITIVE_ERRMSG);
+        }
+        this.fullSnapshotInterval = fullSnapshotInterval;
+    }
+
+    /**
+     * Consults the number of serializations after which a full snapshot is sent.
+     * 
+     * @return the interval
+     */
+    public int getFullSnapshotInterval() {
+        return fullSnapshotInterval;
+    }
+
     /**
      * Retrieves a meter as a JSON object.<br>
      * The requested meter is located and parsed as a JsonObject to be sent via
@@ -665,56 +953,320 @@ public class MetricsProvider {
             throw new IllegalArgumentException(mnfe.getMessage());
         }
     }
+
+    /**
+     * Retrieves multiple meters at once as a JSON array of the JSON objects delivered by
+     * {@link #getMeter(String, Iterable)}. For a name of a family of tagged meters, all meters of the family are
+     * returned. Unknown meters are skipped.
+     * 
+     * @param names the names of the meters to retrieve, may be <b>null</b>
+     * @return the JSON array of the found meters in the sequence of {@code names}
+     */
+    public String getMeters(Iterable<String> names) {
+        StringBuilder sb = new StringBuilder("[");
+        if (null != names) {
+            for (String name : names) {
+                if (null != name) {
+                    for (Meter meter : registry.find(name).meters()) {
+                        if (sb.length() > 1) {
+                            sb.append(",");
+                        }
+                        MetricsJsonWriter.appendMeter(sb, meter, meter.measure());
+                    }
+                }
+            }
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Applies multiple custom meter updates at once. {@code json} is a JSON array of the updater objects of the
+     * meter representations, i.e., objects with a {@code name} and a {@code value} for a gauge (see
+     * {@link #addGaugeValue(String, double)}), an {@code increment} for a counter (see 
+     * {@link #increaseCounterBy(String, double)}) or {@code recordings} in nanoseconds for a timer (see 
+     * {@link #recordWithTimer(String, long, TimeUnit)}). Updates of different kinds can be mixed. All updates are
+     * validated before the first one is applied, i.e., either all or no updates are applied. An update is invalid if
+     * its name is used by a meter of another kind in the registry or by an update of another kind in {@code json}.
+     * 
+     * @param json the updates as JSON array
+     * @return the number of applied updates
+     * @throws IllegalArgumentException if {@code json} is not a JSON array or an update is invalid
+     */
+    public int applyUpdates(String json) {
+        JsonArray updates;
+        try {
+            updates = Json.createReader(new StringReader(null == json ? "" : json)).readArray();
+        } catch (JsonException | IllegalStateException e) {
+            throw new IllegalArgumentException("Updates are not a JSON array: " + e.getMessage());
+        }
+        Map<String, Meter.Type> types = new HashMap<>();
+        for (int u = 0; u < updates.size(); u++) {
+            Meter.Type type = checkUpdate(updates.get(u), u);
+            String name = updates.getJsonObject(u).getString(UPDATE_NAME);
+            Meter.Type known = types.putIfAbsent(name, type);
+            if ((null != known && known != type) || !isOfType(name, type)) {
+                throw new IllegalArgumentException("Invalid update at index " + u + ": " + name 
+                    + " is already used by a meter of another type");
+            }
+        }
+        for (int u = 0; u < updates.size(); u++) {
+            JsonObject update = updates.getJsonObject(u);
+            String name = update.getString(UPDATE_NAME);
+            if (update.containsKey(UPDATE_VALUE)) {
+                addGaugeValue(name, update.getJsonNumber(UPDATE_VALUE).doubleValue());
+            } else if (update.containsKey(UPDATE_INCREMENT)) {
+                increaseCounterBy(name, update.getJsonNumber(UPDATE_INCREMENT).doubleValue());
+            } else {
+                JsonArray recordings = update.getJsonArray(UPDATE_RECORDINGS);
+                for (int r = 0; r < recordings.size(); r++) {
+                    recordWithTimer(name, recordings.getJsonNumber(r).longValue(), TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        return updates.size();
+    }
+
+    /**
+     * Checks a single update for {@link #applyUpdates(String)}.
+     * 
+     * @param value the update
+     * @param index the index of the update
+     * @return the type of the meter to update
+     * @throws IllegalArgumentException if the update is invalid
+     */
+    private static Meter.Type checkUpdate(JsonValue value, int index) {
+        Meter.Type type = null;
+        boolean valid = value instanceof JsonObject;
+        if (valid) {
+            JsonObject update = (JsonObject) value;
+            valid = update.get(UPDATE_NAME) instanceof JsonString;
+            if (update.containsKey(UPDATE_VALUE)) {
+                valid &= update.get(UPDATE_VALUE) instanceof JsonNumber;
+                type = Meter.Type.GAUGE;
+            } else if (update.containsKey(UPDATE_INCREMENT)) {
+                valid &= update.get(UPDATE_INCREMENT) instanceof JsonNumber
+                    && update.getJsonNumber(UPDATE_INCREMENT).doubleValue() >= 0;
+                type = Meter.Type.COUNTER;
+            } else if (update.get(UPDATE_RECORDINGS) instanceof JsonArray) {
+                for (JsonValue recording : update.getJsonArray(UPDATE_RECORDINGS)) {
+                    valid &= recording instanceof JsonNumber && ((JsonNumber) recording).longValue() >= 0;
+                }
+                type = Meter.Type.TIMER;
+            } else {
+                valid = false;
+            }
+        }
+        if (!valid) {
+            throw new IllegalArgumentException("Invalid update at index " + index + ": " + value);
+        }
+        return type;
+    }
+
+    /**
+     * Returns whether the untagged meter {@code name}, i.e., a custom meter, is either not registered or of
+     * {@code type}.
+     * 
+     * @param name the name of the meter
+     * @param type the expected type
+     * @return {@code true} if the meter can be updated as {@code type}, {@code false} else
+     */
+    private boolean isOfType(String name, Meter.Type type) {
+        boolean result = true;
+        for (Meter meter : registry.find(name).meters()) {
+            if (meter.getId().getTags().isEmpty() && meter.getId().getType() != type) {
+                result = false;
+            }
+        }
+        return result;
+    }
     
     /**
-     * Returns the full provider in Json.
+     * Returns the provider in Json. Initial serializations and every {@link #getFullSnapshotInterval() n-th} 
+     * serialization result in a full snapshot ({@link #FULL_SNAPSHOT} is {@code true}) containing all meters and 
+     * all lists. Updates are delta-encoded, i.e., contain only meters with a measurement that changed by more than 
+     * {@link #getDeltaEpsilon() epsilon} since it was last sent and no lists. If meters were added or removed, 
+     * an update becomes a full snapshot. Each result carries an increasing {@link #SEQUENCE sequence number} so that
+     * receivers can drop outdated updates. The result is written through a re-used {@link MetricsJsonWriter} and 
+     * can be read by {@link MetricsJsonReader}.
      * 
      * @param identifier optional identifier to be added to the structure, no identifier is added if <b>null</b>
      * @param update is this an update or an initial serialization to Json
-     * @return all meters and their values/structures, all lists
+     * @return the (changed) meters and their values/structures, for full snapshots all lists
      */
-    public String toJson(String identifier, boolean update) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        if (null != identifier) {
-            sb.append("\"id\":\"" + identifier + "\",");
-        }
-        sb.append("\"meters\":{");
-        boolean first = true;
-        for (Meter meter: registry.getMeters()) {
-            
-            if (!first) {
-                sb.append(",");
+    public synchronized String toJson(String identifier, boolean update) {
+        List<Meter> meters = registry.getMeters();
+        boolean full = startSerialization(meters, update, false);
+        writer.startDocument(identifier, sequence, full);
+        writer.startMeters();
+        for (Meter meter: meters) {
+            if (collect(meter, full)) {
+                writer.appendMeter(meter, measurements);
             }
-            sb.append("\"" + meter.getId().getName() + "\":");
-            sb.append(jsonParser(meter));
-            first = false;
-        }
-        sb.append("},");
-        appendNameValue(sb, GAUGE_LIST, getCustomGaugeList(), true);
-        appendNameValue(sb, COUNTER_LIST, getCustomCounterList(), true);
-        appendNameValue(sb, TIMER_LIST, getCustomTimerList(), true);
-        appendNameValue(sb, TAGGED_METER_LIST, getTaggedMeterList(), true);
-        appendNameValue(sb, SIMPLE_METER_LIST, getSimpleMeterList(), false);
-        sb.append("}");
-        return sb.toString();
+        }
+        measurements.clear();
+        writer.endMeters();
+        if (full) {
+            writer.appendList(GAUGE_LIST, getCustomGaugeList());
+            writer.appendList(COUNTER_LIST, getCustomCounterList());
+            writer.appendList(TIMER_LIST, getCustomTimerList());
+            writer.appendList(TAGGED_METER_LIST, getTaggedMeterList());
+            writer.appendList(SIMPLE_METER_LIST, getSimpleMeterList());
+        }
+        return writer.endDocument();
     }
-    
+
     /**
-     * Appends a name-value pair, value unquoted.
+     * Returns the provider as binary snapshot, the counterpart of {@link #toJson(String, boolean)} for 
+     * {@link MetricsSnapshotSerializer}. Full snapshots contain a dictionary of all meters including their tags, the 
+     * values of all meters and all lists. Updates contain only the values of the changed meters by their dictionary 
+     * index. Full snapshots are created as for {@link #toJson(String, boolean)}. Both methods share the delta state, 
+     * i.e., a provider shall publish either via this method or via {@link #toJson(String, boolean)}.
      * 
-     * @param sb the string builder to append to
-     * @param name the name of the value
-     * @param value the value (unquoted)
-     * @param separator add a separator or not
+     * @param identifier optional identifier to be added to the snapshot, may be <b>null</b>
+     * @param update is this an update or an initial serialization
+     * @return the snapshot
      */
-    private void appendNameValue(StringBuilder sb, String name, String value, boolean separator) {
-        sb.append("\"" + name + "\":" + value);
-        if (separator) {
-            sb.append(",");
+    public synchronized MetricsSnapshot toSnapshot(String identifier, boolean update) {
+        List<Meter> meters = registry.getMeters();
+        boolean full = startSerialization(meters, update, !isSameMeters(dictionaryIndex, meters));
+        MetricsSnapshot result;
+        if (full) {
+            dictionaryIndex.clear();
+            dictionarySequence = sequence;
+            result = new MetricsSnapshot(identifier, sequence);
+        } else {
+            result = new MetricsSnapshot(identifier, sequence, dictionarySequence);
+        }
+        for (Meter meter: meters) {
+            boolean include = collect(meter, full);
+            if (full) {
+                String[] statistics = new String[measurements.size()];
+                for (int m = 0; m < statistics.length; m++) {
+                    statistics[m] = measurements.get(m).getStatistic().toString();
+                }
+                Meter.Id id = meter.getId();
+                List<Tag> tags = id.getTags(); // sorted by key
+                String[] tagPairs = new String[2 * tags.size()];
+                for (int t = 0; t < tags.size(); t++) {
+                    tagPairs[2 * t] = tags.get(t).getKey();
+                    tagPairs[2 * t + 1] = tags.get(t).getValue();
+                }
+                dictionaryIndex.put(id, dictionaryIndex.size());
+                result.addDescriptor(new MetricsSnapshot.MeterDescriptor(id.getName(), id.getDescription(), 
+                    id.getBaseUnit(), statistics, tagPairs));
+            }
+            if (include) {
+                result.startMeter(dictionaryIndex.get(meter.getId()));
+                for (int m = 0; m < measurements.size(); m++) {
+                    result.addValue(measurements.get(m).getValue());
+                }
+            }
+        }
+        measurements.clear();
+        if (full) {
+            result.addList(GAUGE_LIST, getCustomGaugeList());
+            result.addList(COUNTER_LIST, getCustomCounterList());
+            result.addList(TIMER_LIST, getCustomTimerList());
+            result.addList(TAGGED_METER_LIST, getTaggedMeterList());
+            result.addList(SIMPLE_METER_LIST, getSimpleMeterList());
+        }
+        return result;
+    }
+
+    /**
+     * Writes all meters of the provider including the custom meters in OpenMetrics text format, see 
+     * {@link OpenMetricsWriter}. Unlike {@link #toJson(String, boolean)}, the meters are written directly and do not
+     * affect the delta state.
+     * 
+     * @param out the writer to write to, shall be buffered
+     * @throws IOException if writing fails
+     */
+    public void writeOpenMetrics(Writer out) throws IOException {
+        OpenMetricsWriter.write(registry.getMeters(), out);
+    }
+
+    /**
+     * Starts a serialization, i.e., determines whether a full snapshot is needed and increases the sequence number.
+     * 
+     * @param meters the actual meters
+     * @param update is this an update or an initial serialization
+     * @param forceFull whether a full snapshot is required anyway
+     * @return {@code true} for a full snapshot, {@code false} for a delta
+     */
+    private boolean startSerialization(List<Meter> meters, boolean update, boolean forceFull) {
+        boolean full = forceFull || !update || updatesSinceFull + 1 >= fullSnapshotInterval 
+            || !isSameMeters(lastSent, meters);
+        if (full) {
+            lastSent.clear();
+            updatesSinceFull = 0;
+        } else {
+            updatesSinceFull++;
+        }
+        sequence++;
+        return full;
+    }
+
+    /**
+     * Collects the measurements of {@code meter} into {@link #measurements} and records their values as sent if 
+     * they changed.
+     * 
+     * @param meter the meter
+     * @param full whether a full snapshot is being created
+     * @return {@code true} if the meter shall be serialized, {@code false} else
+     */
+    private boolean collect(Meter meter, boolean full) {
+        measurements.clear();
+        for (Measurement m : meter.measure()) {
+            measurements.add(m);
+        }
+        boolean changed = isChanged(meter.getId(), measurements); // records values in any case
+        return full || changed;
+    }
+
+    /**
+     * Returns whether {@code meters} are the meters in {@code known}, e.g., the meters sent last by 
+     * {@link #toJson(String, boolean)} or {@link #toSnapshot(String, boolean)} or the meters in the dictionary.
+     * 
+     * @param known the known meters
+     * @param meters the meters to compare
+     * @return {@code true} for the same meters, {@code false} if meters were added or removed
+     */
+    private static boolean isSameMeters(Map<Meter.Id, ?> known, List<Meter> meters) {
+        boolean same = meters.size() == known.size();
+        for (int m = 0; same && m < meters.size(); m++) {
+            same = known.containsKey(meters.get(m).getId());
         }
+        return same;
     }
 
+    /**
+     * Returns whether measurement values changed by more than the {@link #getDeltaEpsilon() epsilon} since they 
+     * were sent last. If so, records the values as sent.
+     * 
+     * @param id the meter id
+     * @param measurements the actual measurements
+     * @return {@code true} if the values changed, {@code false} else
+     */
+    private boolean isChanged(Meter.Id id, List<Measurement> measurements) {
+        double[] last = lastSent.get(id);
+        boolean changed = null == last || last.length != measurements.size();
+        for (int v = 0; !changed && v < last.length; v++) {
+            double value = measurements.get(v).getValue();
+            changed = Math.abs(value - last[v]) > deltaEpsilon || Double.isNaN(value) != Double.isNaN(last[v]);
+        }
+        if (changed) {
+            if (null == last || last.length != measurements.size()) {
+                last = new double[measurements.size()];
+                lastSent.put(id, last);
+            }
+            for (int v = 0; v < last.length; v++) {
+                last[v] = measurements.get(v).getValue();
+            }
+        }
+        return changed;
+    }
+    
     /**
      * Retrieves a custom gauge as a JSON object.<br>
      * The requested gauge is located within the map and parsed as a JsonObject to
@@ -725,7 +1277,7 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if no custom gauge is found with that name
      */
     public String getGauge(String name) {
-        if (!gauges.containsKey(name)) {
+        if (null == lookup(gauges, name) && null == lookup(percentileGauges, name)) {
             throw new IllegalArgumentException(name + ID_NOT_FOUND_ERRMSG);
         } else {
             return jsonParser(registry.get(name).gauge());
@@ -742,7 +1294,7 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if no custom counter is found with that name
      */
     public String getCounter(String name) {
-        if (!counters.containsKey(name)) {
+        if (null == lookup(counters, name)) {
             throw new IllegalArgumentException(name + ID_NOT_FOUND_ERRMSG);
         } else {
             return jsonParser(registry.get(name).counter());
@@ -759,18 +1311,44 @@ public class MetricsProvider {
      * @throws IllegalArgumentException if no custom timer is found with that name
      */
     public String getTimer(String name) {
-        if (!timers.containsKey(name)) {
+        if (null == lookup(timers, name) && null == lookup(samplingTimers, name)) {
             throw new IllegalArgumentException(name + ID_NOT_FOUND_ERRMSG);
         } else {
-            return jsonParser(registry.get(name).timer());
+            return jsonParser(registry.get(name).meter());
         }
     }
 
+    /**
+     * Returns a custom meter from {@code map}. Unlike {@link Map#get(Object)} on the concurrent meter maps, 
+     * accepts <b>null</b> identifiers.
+     * 
+     * @param <T> the type of the meter
+     * @param map the map to look up
+     * @param id the identifier, may be <b>null</b>
+     * @return the meter or <b>null</b> if there is none
+     */
+    private static <T> T lookup(Map<String, T> map, String id) {
+        return null == id ? null : map.get(id);
+    }
+
+    /**
+     * Removes a custom meter from {@code map}. Unlike {@link Map#remove(Object)} on the concurrent meter maps, 
+     * accepts <b>null</b> identifiers.
+     * 
+     * @param <T> the type of the meter
+     * @param map the map to remove from
+     * @param id the identifier, may be <b>null</b>
+     * @return the removed meter or <b>null</b> if there is none
+     */
+    private static <T> T remove(Map<String, T> map, String id) {
+        return null == id ? null : map.remove(id);
+    }
+
     /**
      * Parses a meter into a JsonObject to be sent via HTTP.<br>
      * Due to the current limitations with inserting the actual
-     * {@link javax.json.Json} libraries inside this component, this method acts
-     * like a crude substitute that creates a String that can later be parsed into a
+     * {@link javax.json.Json} libraries inside this component, this method relies
+     * on {@link MetricsJsonWriter} that creates a String that can later be parsed into a
      * valid JsonObject.<br>
      * In order to maintain a certain uniformity, the resulting JSON object mimics
      * the structure that Micrometer-API metrics have when exposed by the Spring
@@ -783,27 +1361,8 @@ public class MetricsProvider {
      * @return meter parsed as a String compatible with a JsonObject
      */
     private String jsonParser(Meter meter) {
-        String description = meter.getId().getDescription();
-        if (description != null) {
-            description = description.replaceAll("\"", "''");
-        }
         StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        sb.append("\"name\":\"").append(meter.getId().getName()).append("\",");
-        sb.append("\"description\":\"").append(description).append("\",");
-        sb.append("\"baseUnit\":\"").append(meter.getId().getBaseUnit()).append("\",");
-        sb.append("\"measurements\":[");
-
-        for (Measurement m : meter.measure()) {
-            sb.append("{");
-            sb.append("\"statistic\":\"").append(m.getStatistic().toString()).append("\",");
-            sb.append("\"value\":").append(String.format(Locale.ROOT, "%f", m.getValue()));
-            sb.append("},");
-        }
-
-        sb.deleteCharAt(sb.length() - 1);
-        sb.append("],\"availableTags\":[]}");
-
+        MetricsJsonWriter.appendMeter(sb, meter, meter.measure());
         return sb.toString();
     }
 
@@ -814,7 +1373,7 @@ public class MetricsProvider {
      * @return JsonArray with the list of names of all the registered custom gauges
      */
     public String getCustomGaugeList() {
-        return mapJsonParser(gauges);
+        return mapJsonParser(gauges, percentileGauges);
     }
 
     /**
@@ -835,7 +1394,7 @@ public class MetricsProvider {
      * @return JsonArray with the list of names of all the registered custom timers
      */
     public String getCustomTimerList() {
-        return mapJsonParser(timers);
+        return mapJsonParser(timers, samplingTimers);
     }
 
     /**
@@ -900,20 +1459,23 @@ public class MetricsProvider {
     }
 
     /**
-     * Parses one of the custom meter maps into a JsonArray containing the
+     * Parses custom meter maps into a JsonArray containing the
      * names.<br>
      * This method is to be used by {@link MetricsProvider#getCustomCounterList()},
      * {@link MetricsProvider#getCustomGaugeList()} and @link
      * MetricsProvider#getCustomTimerList()}.
      * 
-     * @param map custom meter map
-     * @return JsonArray of the names of the custom meters from that map
+     * @param maps custom meter maps
+     * @return JsonArray of the names of the custom meters from the maps
      */
-    private String mapJsonParser(Map<String, ?> map) {
+    @SafeVarargs
+    private final String mapJsonParser(Map<String, ?>... maps) {
         StringBuilder sb = new StringBuilder();
         sb.append("[");
-        for (Entry<String, ?> entry : map.entrySet()) {
-            sb.append("\"").append(entry.getKey()).append("\",");
+        for (Map<String, ?> map : maps) {
+            for (Entry<String, ?> entry : map.entrySet()) {
+                sb.append("\"").append(entry.getKey()).append("\",");
+            }
         }
         if (sb.length() > 1) { // for empty list, we otherwise cut off the lead in 
             sb.deleteCharAt(sb.length() - 1);
@@ -0,0 +1,435 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Binary counterpart of {@link MetricsProvider#toJson(String, boolean)} as created by
+ * {@link MetricsProvider#toSnapshot(String, boolean)} and transferred by {@link MetricsSnapshotSerializer}. A full
+ * snapshot defines a dictionary of {@link MeterDescriptor meter descriptors}, i.e., the constant information of
+ * each meter, and the values of all meters. A delta just contains the values of the changed meters by their index
+ * into the dictionary defined by the full snapshot with {@link #getDictionarySequence() dictionary sequence number}.
+ * Receivers shall ignore deltas referring to a dictionary they did not receive.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsSnapshot {
+
+    private String id;
+    private long sequence;
+    private long dictionarySequence;
+    private List<MeterDescriptor> dictionary = new ArrayList<>();
+    private Map<String, String> lists = new LinkedHashMap<>();
+    private int meterCount;
+    private int[] indices = new int[16];
+    private int[] offsets = new int[17];
+    private double[] values = new double[32];
+
+    /**
+     * The constant information about a meter. Meters with the same name are distinguished by their tags, i.e., the
+     * {@link #getKey() key} of a descriptor identifies a meter within a snapshot.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public static class MeterDescriptor {
+
+        private static final String[] NO_TAGS = new String[0];
+
+        private String name;
+        private String description;
+        private String baseUnit;
+        private String[] statistics;
+        private String[] tags;
+        private String key;
+        private String[] metricNames;
+
+        /**
+         * Creates a meter descriptor without tags.
+         *
+         * @param name the name of the meter
+         * @param description the description of the meter, may be <b>null</b>
+         * @param baseUnit the base unit of the meter, may be <b>null</b>
+         * @param statistics the names of the statistics in the sequence of the measurements of the meter
+         */
+        public MeterDescriptor(String name, String description, String baseUnit, String[] statistics) {
+            this(name, description, baseUnit, statistics, null);
+        }
+
+        /**
+         * Creates a meter descriptor.
+         *
+         * @param name the name of the meter
+         * @param description the description of the meter, may be <b>null</b>
+         * @param baseUnit the base unit of the meter, may be <b>null</b>
+         * @param statistics the names of the statistics in the sequence of the measurements of the meter
+         * @param tags the tags of the meter as alternating keys and values, ideally sorted by key as done by 
+         *     Micrometer, may be <b>null</b> for none
+         * @throws IllegalArgumentException if {@code tags} does not consist of key-value pairs
+         */
+        public MeterDescriptor(String name, String description, String baseUnit, String[] statistics, 
+            String[] tags) {
+            if (null != tags && tags.length % 2 != 0) {
+                throw new IllegalArgumentException("Tags must be given as key-value pairs");
+            }
+            this.name = name;
+            this.description = description;
+            this.baseUnit = baseUnit;
+            this.statistics = statistics;
+            this.tags = null == tags ? NO_TAGS : tags;
+            String tagSuffix = getTagSuffix();
+            this.key = name + tagSuffix;
+            this.metricNames = new String[statistics.length];
+            for (int s = 0; s < metricNames.length; s++) {
+                metricNames[s] = 1 == statistics.length ? key 
+                    : name + "." + statistics[s].toLowerCase(Locale.ROOT) + tagSuffix;
+            }
+        }
+
+        /**
+         * Returns the name of the meter.
+         *
+         * @return the name
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the description of the meter.
+         *
+         * @return the description, may be <b>null</b>
+         */
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Returns the base unit of the meter.
+         *
+         * @return the base unit, may be <b>null</b>
+         */
+        public String getBaseUnit() {
+            return baseUnit;
+        }
+
+        /**
+         * Returns the number of statistics/measurements of the meter.
+         *
+         * @return the number of statistics
+         */
+        public int getStatisticsCount() {
+            return statistics.length;
+        }
+
+        /**
+         * Returns the name of a statistic.
+         *
+         * @param index the 0-based index of the statistic
+         * @return the name of the statistic
+         * @throws IndexOutOfBoundsException if {@code index} is not valid
+         */
+        public String getStatistic(int index) {
+            return statistics[index];
+        }
+
+        /**
+         * Returns the number of tags of the meter.
+         *
+         * @return the number of tags
+         */
+        public int getTagCount() {
+            return tags.length / 2;
+        }
+
+        /**
+         * Returns the key of a tag.
+         *
+         * @param index the 0-based index of the tag
+         * @return the key of the tag
+         * @throws IndexOutOfBoundsException if {@code index} is not valid
+         */
+        public String getTagKey(int index) {
+            return tags[checkTag(index)];
+        }
+
+        /**
+         * Returns the value of a tag.
+         *
+         * @param index the 0-based index of the tag
+         * @return the value of the tag
+         * @throws IndexOutOfBoundsException if {@code index} is not valid
+         */
+        public String getTagValue(int index) {
+            return tags[checkTag(index) + 1];
+        }
+
+        /**
+         * Checks a tag index.
+         *
+         * @param index the 0-based index of the tag
+         * @return the position of the key of the tag
+         * @throws IndexOutOfBoundsException if {@code index} is not valid
+         */
+        private int checkTag(int index) {
+            if (index < 0 || index >= getTagCount()) {
+                throw new IndexOutOfBoundsException("Tag " + index);
+            }
+            return 2 * index;
+        }
+
+        /**
+         * Returns the key identifying the meter, i.e., the meter name followed by the tags in curly brackets if 
+         * there are tags, e.g., {@code jvm.memory.used{area=heap,id=G1 Eden Space}}.
+         *
+         * @return the key
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Returns the name of the metric represented by a statistic, i.e., the meter name if the meter has only one 
+         * statistic, else the meter name and the statistic in lower case separated by a dot, e.g., 
+         * {@code myTimer.total_time}. Tags are appended as for {@link #getKey()}. Metric names are determined once 
+         * when creating the descriptor.
+         *
+         * @param index the 0-based index of the statistic
+         * @return the metric name
+         * @throws IndexOutOfBoundsException if {@code index} is not valid
+         */
+        public String getMetricName(int index) {
+            return metricNames[index];
+        }
+
+        /**
+         * Returns the tags in curly brackets as appended to {@link #getKey()}.
+         *
+         * @return the tags, empty if there are no tags
+         */
+        private String getTagSuffix() {
+            String result;
+            if (0 == tags.length) {
+                result = "";
+            } else {
+                StringBuilder sb = new StringBuilder("{");
+                for (int t = 0; t < tags.length; t += 2) {
+                    if (t > 0) {
+                        sb.append(',');
+                    }
+                    sb.append(tags[t]).append('=').append(tags[t + 1]);
+                }
+                result = sb.append('}').toString();
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Creates a full snapshot.
+     *
+     * @param id optional identifier of the sender, may be <b>null</b>
+     * @param sequence the sequence number, also the dictionary sequence number
+     */
+    public MetricsSnapshot(String id, long sequence) {
+        this(id, sequence, sequence);
+    }
+
+    /**
+     * Creates a snapshot.
+     *
+     * @param id optional identifier of the sender, may be <b>null</b>
+     * @param sequence the sequence number
+     * @param dictionarySequence the sequence number of the full snapshot defining the dictionary, same as
+     *     {@code sequence} for a full snapshot
+     */
+    public MetricsSnapshot(String id, long sequence, long dictionarySequence) {
+        this.id = id;
+        this.sequence = sequence;
+        this.dictionarySequence = dictionarySequence;
+    }
+
+    /**
+     * Returns the identifier of the sender.
+     *
+     * @return the identifier, may be <b>null</b>
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the sequence number.
+     *
+     * @return the sequence number
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the sequence number of the full snapshot defining the dictionary.
+     *
+     * @return the dictionary sequence number
+     */
+    public long getDictionarySequence() {
+        return dictionarySequence;
+    }
+
+    /**
+     * Returns whether this snapshot is a full snapshot.
+     *
+     * @return {@code true} for a full snapshot, {@code false} for a delta
+     */
+    public boolean isFull() {
+        return sequence == dictionarySequence;
+    }
+
+    /**
+     * Adds a descriptor to the dictionary of a full snapshot. Descriptors are indexed in the sequence of adding.
+     *
+     * @param descriptor the descriptor
+     */
+    public void addDescriptor(MeterDescriptor descriptor) {
+        dictionary.add(descriptor);
+    }
+
+    /**
+     * Returns the dictionary.
+     *
+     * @return the dictionary, empty for a delta
+     */
+    public List<MeterDescriptor> getDictionary() {
+        return Collections.unmodifiableList(dictionary);
+    }
+
+    /**
+     * Adds a meter list, usually to a full snapshot.
+     *
+     * @param name the name of the list, see {@link MetricsProvider}
+     * @param list the list in textual JsonArray format
+     */
+    public void addList(String name, String list) {
+        lists.put(name, list);
+    }
+
+    /**
+     * Returns the meter lists.
+     *
+     * @return the lists by their names
+     */
+    public Map<String, String> getLists() {
+        return Collections.unmodifiableMap(lists);
+    }
+
+    /**
+     * Starts the values of a meter. Subsequent {@link #addValue(double)} calls add values to this meter.
+     *
+     * @param index the index of the meter in the dictionary
+     */
+    public void startMeter(int index) {
+        if (meterCount + 1 >= indices.length) {
+            indices = Arrays.copyOf(indices, indices.length * 2);
+            offsets = Arrays.copyOf(offsets, indices.length + 1);
+        }
+        indices[meterCount] = index;
+        offsets[meterCount + 1] = offsets[meterCount];
+        meterCount++;
+    }
+
+    /**
+     * Adds a value to the meter started last.
+     *
+     * @param value the value
+     * @throws IllegalStateException if no meter was started
+     */
+    public void addValue(double value) {
+        if (0 == meterCount) {
+            throw new IllegalStateException("No meter started");
+        }
+        int pos = offsets[meterCount];
+        if (pos >= values.length) {
+            values = Arrays.copyOf(values, values.length * 2);
+        }
+        values[pos] = value;
+        offsets[meterCount]++;
+    }
+
+    /**
+     * Returns the number of meters with values.
+     *
+     * @return the number of meters
+     */
+    public int getMeterCount() {
+        return meterCount;
+    }
+
+    /**
+     * Returns the dictionary index of a meter with values.
+     *
+     * @param meter the 0-based meter position
+     * @return the dictionary index
+     * @throws IndexOutOfBoundsException if {@code meter} is not valid
+     */
+    public int getMeterIndex(int meter) {
+        checkMeter(meter);
+        return indices[meter];
+    }
+
+    /**
+     * Returns the number of values of a meter.
+     *
+     * @param meter the 0-based meter position
+     * @return the number of values
+     * @throws IndexOutOfBoundsException if {@code meter} is not valid
+     */
+    public int getValueCount(int meter) {
+        checkMeter(meter);
+        return offsets[meter + 1] - offsets[meter];
+    }
+
+    /**
+     * Returns a value of a meter.
+     *
+     * @param meter the 0-based meter position
+     * @param index the 0-based value index
+     * @return the value
+     * @throws IndexOutOfBoundsException if {@code meter} or {@code index} is not valid
+     */
+    public double getValue(int meter, int index) {
+        if (index < 0 || index >= getValueCount(meter)) {
+            throw new IndexOutOfBoundsException("Value index " + index);
+        }
+        return values[offsets[meter] + index];
+    }
+
+    /**
+     * Checks a meter position.
+     *
+     * @param meter the 0-based meter position
+     * @throws IndexOutOfBoundsException if {@code meter} is not valid
+     */
+    private void checkMeter(int meter) {
+        if (meter < 0 || meter >= meterCount) {
+            throw new IndexOutOfBoundsException("Meter " + meter);
+        }
+    }
+
+}
@@ -0,0 +1,325 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import de.iip_ecosphere.platform.transport.serialization.BufferPool;
+import de.iip_ecosphere.platform.transport.serialization.BufferSerializer;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
+
+/**
+ * Binary serializer for {@link MetricsSnapshot}. Numbers are written as (zig-zag) varints, strings as UTF-8 with
+ * varint length. The dictionary including the meter tags and the lists are only written for full snapshots. The 
+ * values of a meter are packed as varints if all are integral, as floats if all are exactly representable as floats,
+ * else as doubles.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsSnapshotSerializer implements BufferSerializer<MetricsSnapshot> {
+
+    private static final byte VERSION = 1;
+    private static final byte FLAG_FULL = 1;
+    private static final byte FLAG_ID = 2;
+    private static final byte PACK_LONG = 0;
+    private static final byte PACK_FLOAT = 1;
+    private static final byte PACK_DOUBLE = 2;
+    private static final double MAX_LONG = 1L << 53; // exact integral doubles
+
+    /**
+     * Registers this serializer with the {@link SerializerRegistry}.
+     */
+    public static void register() {
+        SerializerRegistry.registerSerializer(new MetricsSnapshotSerializer());
+    }
+
+    @Override
+    public byte[] to(MetricsSnapshot source) throws IOException {
+        return BufferPool.serialize(this, source);
+    }
+
+    @Override
+    public ByteBuffer to(MetricsSnapshot source, ByteBuffer target) throws IOException {
+        ByteBuffer out = target;
+        out.clear();
+        boolean full = source.isFull();
+        out = ensure(out, 2 + 20);
+        out.put(VERSION);
+        out.put((byte) ((full ? FLAG_FULL : 0) | (null != source.getId() ? FLAG_ID : 0)));
+        out = writeVarLong(out, source.getSequence());
+        if (!full) {
+            out = writeVarLong(out, source.getDictionarySequence());
+        }
+        if (null != source.getId()) {
+            out = writeString(out, source.getId());
+        }
+        if (full) {
+            out = writeVarLong(out, source.getDictionary().size());
+            for (MetricsSnapshot.MeterDescriptor desc : source.getDictionary()) {
+                out = writeString(out, desc.getName());
+                out = writeString(out, desc.getDescription());
+                out = writeString(out, desc.getBaseUnit());
+                out = writeVarLong(out, desc.getStatisticsCount());
+                for (int s = 0; s < desc.getStatisticsCount(); s++) {
+                    out = writeString(out, desc.getStatistic(s));
+                }
+                out = writeVarLong(out, desc.getTagCount());
+                for (int t = 0; t < desc.getTagCount(); t++) {
+                    out = writeString(out, desc.getTagKey(t));
+                    out = writeString(out, desc.getTagValue(t));
+                }
+            }
+            out = writeVarLong(out, source.getLists().size());
+            for (Map.Entry<String, String> ent : source.getLists().entrySet()) {
+                out = writeString(out, ent.getKey());
+                out = writeString(out, ent.getValue());
+            }
+        }
+        out = writeVarLong(out, source.getMeterCount());
+        for (int m = 0; m < source.getMeterCount(); m++) {
+            out = writeMeter(out, source, m);
+        }
+        out.flip();
+        return out;
+    }
+
+    /**
+     * Writes the values of a meter.
+     *
+     * @param out the buffer to write to
+     * @param source the snapshot
+     * @param meter the meter position
+     * @return {@code out} or a larger buffer
+     */
+    private static ByteBuffer writeMeter(ByteBuffer out, MetricsSnapshot source, int meter) {
+        int count = source.getValueCount(meter);
+        byte pack = PACK_LONG;
+        for (int v = 0; v < count; v++) {
+            double value = source.getValue(meter, v);
+            if (pack == PACK_LONG && !(value == Math.rint(value) && Math.abs(value) < MAX_LONG)) {
+                pack = PACK_FLOAT;
+            }
+            if (pack == PACK_FLOAT && !(value == (float) value || Double.isNaN(value))) {
+                pack = PACK_DOUBLE;
+            }
+        }
+        out = writeVarLong(out, source.getMeterIndex(meter));
+        out = ensure(out, 1);
+        out.put(pack);
+        out = writeVarLong(out, count);
+        for (int v = 0; v < count; v++) {
+            double value = source.getValue(meter, v);
+            if (PACK_LONG == pack) {
+                out = writeVarLong(out, (long) value);
+            } else if (PACK_FLOAT == pack) {
+                out = ensure(out, 4);
+                out.putFloat((float) value);
+            } else {
+                out = ensure(out, 8);
+                out.putDouble(value);
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public MetricsSnapshot from(byte[] data) throws IOException {
+        return from(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public MetricsSnapshot from(ByteBuffer data) throws IOException {
+        try {
+            if (data.get() != VERSION) {
+                throw new IOException("Unsupported metrics snapshot version");
+            }
+            byte flags = data.get();
+            long sequence = readVarLong(data);
+            long dictionarySequence = (flags & FLAG_FULL) != 0 ? sequence : readVarLong(data);
+            String id = (flags & FLAG_ID) != 0 ? readString(data) : null;
+            MetricsSnapshot result = new MetricsSnapshot(id, sequence, dictionarySequence);
+            if (result.isFull()) {
+                int size = readLength(data);
+                for (int d = 0; d < size; d++) {
+                    String name = readString(data);
+                    String description = readString(data);
+                    String baseUnit = readString(data);
+                    String[] statistics = new String[readLength(data)];
+                    for (int s = 0; s < statistics.length; s++) {
+                        statistics[s] = readString(data);
+                    }
+                    String[] tags = new String[2 * readLength(data)];
+                    for (int t = 0; t < tags.length; t++) {
+                        tags[t] = readString(data);
+                    }
+                    result.addDescriptor(new MetricsSnapshot.MeterDescriptor(name, description, baseUnit,
+                        statistics, tags));
+                }
+                size = readLength(data);
+                for (int l = 0; l < size; l++) {
+                    result.addList(readString(data), readString(data));
+                }
+            }
+            int meters = readLength(data);
+            for (int m = 0; m < meters; m++) {
+                long index = readVarLong(data);
+                if (index < 0 || index > Integer.MAX_VALUE) {
+                    throw new IOException("Illegal meter index " + index);
+                }
+                result.startMeter((int) index);
+                byte pack = data.get();
+                if (pack != PACK_LONG && pack != PACK_FLOAT && pack != PACK_DOUBLE) {
+                    throw new IOException("Illegal value packing " + pack);
+                }
+                int count = readLength(data);
+                for (int v = 0; v < count; v++) {
+                    if (PACK_LONG == pack) {
+                        result.addValue(readVarLong(data));
+                    } else if (PACK_FLOAT == pack) {
+                        result.addValue(data.getFloat());
+                    } else {
+                        result.addValue(data.getDouble());
+                    }
+                }
+            }
+            return result;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Metrics snapshot data too short");
+        }
+    }
+
+    @Override
+    public MetricsSnapshot clone(MetricsSnapshot origin) throws IOException {
+        return from(to(origin));
+    }
+
+    @Override
+    public Class<MetricsSnapshot> getType() {
+        return MetricsSnapshot.class;
+    }
+
+    /**
+     * Ensures that {@code out} has at least {@code bytes} remaining, else returns a larger copy.
+     *
+     * @param out the buffer
+     * @param bytes the number of bytes
+     * @return {@code out} or a larger buffer
+     */
+    private static ByteBuffer ensure(ByteBuffer out, int bytes) {
+        ByteBuffer result = out;
+        if (out.remaining() < bytes) {
+            result = ByteBuffer.allocate(Math.max(out.capacity() * 2, out.position() + bytes));
+            out.flip();
+            result.put(out);
+        }
+        return result;
+    }
+
+    /**
+     * Writes a zig-zag varint.
+     *
+     * @param out the buffer to write to
+     * @param value the value
+     * @return {@code out} or a larger buffer
+     */
+    private static ByteBuffer writeVarLong(ByteBuffer out, long value) {
+        ByteBuffer result = ensure(out, 10);
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            result.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        result.put((byte) v);
+        return result;
+    }
+
+    /**
+     * Writes a string, <b>null</b> as length 0, else length + 1 followed by the UTF-8 bytes.
+     *
+     * @param out the buffer to write to
+     * @param value the value, may be <b>null</b>
+     * @return {@code out} or a larger buffer
+     */
+    private static ByteBuffer writeString(ByteBuffer out, String value) {
+        ByteBuffer result;
+        if (null == value) {
+            result = writeVarLong(out, 0);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            result = writeVarLong(out, bytes.length + 1);
+            result = ensure(result, bytes.length);
+            result.put(bytes);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a zig-zag varint.
+     *
+     * @param in the buffer to read from
+     * @return the value
+     * @throws IOException if the varint is malformed
+     */
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed varint");
+            }
+            b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Reads a non-negative length.
+     *
+     * @param in the buffer to read from
+     * @return the length
+     * @throws IOException if the length is malformed or exceeds the remaining data
+     */
+    private static int readLength(ByteBuffer in) throws IOException {
+        long len = readVarLong(in);
+        if (len < 0 || len > in.remaining() + 1) {
+            throw new IOException("Illegal length " + len);
+        }
+        return (int) len;
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in the buffer to read from
+     * @return the string, may be <b>null</b>
+     * @throws IOException if the string is malformed
+     */
+    private static String readString(ByteBuffer in) throws IOException {
+        int len = readLength(in);
+        String result = null;
+        if (len > 0) {
+            byte[] bytes = new byte[len - 1];
+            in.get(bytes);
+            result = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+}
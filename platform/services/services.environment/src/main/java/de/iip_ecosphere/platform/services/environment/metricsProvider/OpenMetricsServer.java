@@ -0,0 +1,106 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.iip_ecosphere.platform.support.Server;
+
+/**
+ * An embedded HTTP server exposing the meters of a {@link MetricsProvider} in the OpenMetrics text format on 
+ * {@link #PATH} for scraping, e.g., by Prometheus. Responses are streamed via {@link OpenMetricsWriter} directly from
+ * the meter registry of the provider. Relies only on the HTTP server of the JDK.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+@SuppressWarnings("restriction")
+public class OpenMetricsServer implements Server {
+
+    public static final String PATH = "/metrics";
+
+    private final MetricsProvider provider;
+    private final HttpServer server;
+
+    /**
+     * Creates a server instance.
+     * 
+     * @param provider the metrics provider to expose
+     * @param port the port to listen on, {@code 0} for an ephemeral port
+     * @throws IOException if the server cannot be created, e.g., as the port is in use
+     */
+    public OpenMetricsServer(MetricsProvider provider, int port) throws IOException {
+        this.provider = provider;
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext(PATH, ex -> handle(ex));
+    }
+
+    /**
+     * Handles a request.
+     * 
+     * @param exchange the exchange representing request and response
+     * @throws IOException if reading or writing fails
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            if ("GET".equals(method)) {
+                exchange.getResponseHeaders().set("Content-Type", OpenMetricsWriter.CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, 0); // chunked
+                Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), 
+                    StandardCharsets.UTF_8));
+                provider.writeOpenMetrics(out);
+                out.flush();
+            } else if ("HEAD".equals(method)) {
+                exchange.getResponseHeaders().set("Content-Type", OpenMetricsWriter.CONTENT_TYPE);
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+            }
+        } catch (IOException e) {
+            LoggerFactory.getLogger(OpenMetricsServer.class).error("Cannot serve metrics: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the port the server is listening on.
+     * 
+     * @return the port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public Server start() {
+        server.start();
+        return this;
+    }
+
+    @Override
+    public void stop(boolean dispose) {
+        server.stop(0);
+    }
+
+}
@@ -0,0 +1,277 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import io.micrometer.core.instrument.Measurement;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.Statistic;
+import io.micrometer.core.instrument.Tag;
+
+/**
+ * Writes meters in the OpenMetrics text format directly to a writer, i.e., without intermediary JSON. Metric 
+ * names are the meter names with characters not allowed by OpenMetrics replaced by underscores. Meters with the same
+ * name, e.g., tagged meters, form a metric family. Gauges become gauges, counters become counters, timers and 
+ * distribution summaries become summaries (count and sum) accompanied by a gauge family {@code <name>_max}. All 
+ * other meters become metrics of unknown type, one per statistic (named {@code <name>_<statistic>} except for 
+ * {@link Statistic#VALUE}).
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class OpenMetricsWriter {
+
+    public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+    private static final Comparator<Meter> BY_NAME = (m1, m2) -> m1.getId().getName().compareTo(m2.getId().getName());
+
+    /**
+     * Prevents external creation.
+     */
+    private OpenMetricsWriter() {
+    }
+
+    /**
+     * Writes {@code meters} including the final {@code # EOF} line.
+     * 
+     * @param meters the meters to write
+     * @param out the writer to write to, shall be buffered
+     * @throws IOException if writing fails
+     */
+    public static void write(Iterable<Meter> meters, Writer out) throws IOException {
+        List<Meter> sorted = new ArrayList<Meter>();
+        for (Meter m : meters) {
+            sorted.add(m);
+        }
+        sorted.sort(BY_NAME);
+        int start = 0;
+        while (start < sorted.size()) {
+            int end = start + 1;
+            String name = sorted.get(start).getId().getName();
+            while (end < sorted.size() && sorted.get(end).getId().getName().equals(name)) {
+                end++;
+            }
+            writeFamily(sorted.subList(start, end), out);
+            start = end;
+        }
+        out.write("# EOF\n");
+    }
+
+    /**
+     * Writes a metric family, i.e., meters of the same name.
+     * 
+     * @param family the meters of the family
+     * @param out the writer to write to
+     * @throws IOException if writing fails
+     */
+    private static void writeFamily(List<Meter> family, Writer out) throws IOException {
+        Meter.Id id = family.get(0).getId();
+        String name = sanitize(id.getName());
+        switch (id.getType()) {
+        case GAUGE:
+            writeHeader(out, name, "gauge", id);
+            for (Meter m : family) {
+                writeStatistic(out, name, m, Statistic.VALUE);
+            }
+            break;
+        case COUNTER:
+            if (name.endsWith("_total")) {
+                name = name.substring(0, name.length() - 6);
+            }
+            writeHeader(out, name, "counter", id);
+            for (Meter m : family) {
+                writeStatistic(out, name + "_total", m, Statistic.COUNT);
+            }
+            break;
+        case TIMER:
+        case DISTRIBUTION_SUMMARY:
+            writeHeader(out, name, "summary", id);
+            for (Meter m : family) {
+                writeStatistic(out, name + "_count", m, Statistic.COUNT);
+                writeStatistic(out, name + "_sum", m, 
+                    Meter.Type.TIMER == id.getType() ? Statistic.TOTAL_TIME : Statistic.TOTAL);
+            }
+            writeHeader(out, name + "_max", "gauge", id);
+            for (Meter m : family) {
+                writeStatistic(out, name + "_max", m, Statistic.MAX);
+            }
+            break;
+        default:
+            writeUnknown(family, out, name);
+            break;
+        }
+    }
+
+    /**
+     * Writes a family of meters of unknown type, one metric per statistic.
+     * 
+     * @param family the meters of the family
+     * @param out the writer to write to
+     * @param name the sanitized family name
+     * @throws IOException if writing fails
+     */
+    private static void writeUnknown(List<Meter> family, Writer out, String name) throws IOException {
+        Meter.Id id = family.get(0).getId();
+        List<Statistic> statistics = new ArrayList<Statistic>();
+        for (Meter m : family) {
+            for (Measurement ms : m.measure()) {
+                if (!statistics.contains(ms.getStatistic())) {
+                    statistics.add(ms.getStatistic());
+                }
+            }
+        }
+        for (Statistic s : statistics) {
+            String metric = Statistic.VALUE == s ? name : name + "_" + s.getTagValueRepresentation();
+            writeHeader(out, metric, "unknown", id);
+            for (Meter m : family) {
+                writeStatistic(out, metric, m, s);
+            }
+        }
+    }
+
+    /**
+     * Writes the type and help lines of a metric family.
+     * 
+     * @param out the writer to write to
+     * @param name the sanitized metric name
+     * @param type the OpenMetrics type
+     * @param id the id of the first meter of the family
+     * @throws IOException if writing fails
+     */
+    private static void writeHeader(Writer out, String name, String type, Meter.Id id) throws IOException {
+        out.write("# TYPE ");
+        out.write(name);
+        out.write(' ');
+        out.write(type);
+        out.write('\n');
+        String description = id.getDescription();
+        if (null != description && description.length() > 0) {
+            out.write("# HELP ");
+            out.write(name);
+            out.write(' ');
+            writeEscaped(out, description, false);
+            out.write('\n');
+        }
+    }
+
+    /**
+     * Writes the sample of a statistic of {@code meter}, writes nothing if the meter does not provide the statistic.
+     * 
+     * @param out the writer to write to
+     * @param name the sanitized sample name
+     * @param meter the meter
+     * @param statistic the statistic to write
+     * @throws IOException if writing fails
+     */
+    private static void writeStatistic(Writer out, String name, Meter meter, Statistic statistic) throws IOException {
+        for (Measurement m : meter.measure()) {
+            if (m.getStatistic() == statistic) {
+                out.write(name);
+                writeLabels(out, meter.getId().getTagsAsIterable());
+                out.write(' ');
+                writeValue(out, m.getValue());
+                out.write('\n');
+                break;
+            }
+        }
+    }
+
+    /**
+     * Writes the tags of a meter as labels.
+     * 
+     * @param out the writer to write to
+     * @param tags the tags
+     * @throws IOException if writing fails
+     */
+    private static void writeLabels(Writer out, Iterable<Tag> tags) throws IOException {
+        boolean first = true;
+        for (Tag t : tags) {
+            out.write(first ? '{' : ',');
+            out.write(sanitize(t.getKey()));
+            out.write("=\"");
+            writeEscaped(out, t.getValue(), true);
+            out.write('"');
+            first = false;
+        }
+        if (!first) {
+            out.write('}');
+        }
+    }
+
+    /**
+     * Writes a sample value.
+     * 
+     * @param out the writer to write to
+     * @param value the value
+     * @throws IOException if writing fails
+     */
+    private static void writeValue(Writer out, double value) throws IOException {
+        if (Double.isNaN(value)) {
+            out.write("NaN");
+        } else if (Double.isInfinite(value)) {
+            out.write(value > 0 ? "+Inf" : "-Inf");
+        } else if (value == Math.rint(value) && Math.abs(value) < 1E15) {
+            out.write(Long.toString((long) value));
+        } else {
+            out.write(Double.toString(value));
+        }
+    }
+
+    /**
+     * Writes a text escaping backslashes, line feeds and, for label values, double quotes.
+     * 
+     * @param out the writer to write to
+     * @param text the text
+     * @param quotes whether double quotes shall be escaped
+     * @throws IOException if writing fails
+     */
+    private static void writeEscaped(Writer out, String text, boolean quotes) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ('\\' == c) {
+                out.write("\\\\");
+            } else if ('\n' == c) {
+                out.write("\\n");
+            } else if ('"' == c && quotes) {
+                out.write("\\\"");
+            } else {
+                out.write(c);
+            }
+        }
+    }
+
+    /**
+     * Turns a meter or tag name into a valid OpenMetrics name by replacing invalid characters by underscores.
+     * 
+     * @param name the name
+     * @return the sanitized name
+     */
+    static String sanitize(String name) {
+        StringBuilder result = new StringBuilder(name.length() + 1);
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            boolean valid = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == ':' 
+                || (i > 0 && c >= '0' && c <= '9');
+            if (0 == i && c >= '0' && c <= '9') {
+                result.append('_');
+                valid = true;
+            }
+            result.append(valid ? c : '_');
+        }
+        return result.toString();
+    }
+
+}
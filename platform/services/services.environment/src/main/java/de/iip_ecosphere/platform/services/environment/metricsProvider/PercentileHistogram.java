@@ -0,0 +1,130 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A lock-free histogram of non-negative long values with log-linear buckets in the style of an HDR histogram. Values 
+ * below {@code 64} are counted exactly, larger values in 32 linear sub-buckets per power of two, i.e., percentiles 
+ * have a relative error of at most about 1.6% over the full long range at constant memory (about 15 KBytes).
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class PercentileHistogram {
+
+    private static final int EXACT = 64;
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = EXACT + (Long.SIZE - 1 - SUB_BUCKET_BITS - 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /**
+     * Records a value.
+     * 
+     * @param value the value, negative values are recorded as {@code 0}
+     */
+    public void record(long value) {
+        counts.incrementAndGet(indexOf(Math.max(0, value)));
+    }
+
+    /**
+     * Returns the number of recorded values.
+     * 
+     * @return the number of values
+     */
+    public long getCount() {
+        long result = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            result += counts.get(i);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the value at the given percentile (nearest rank). The result is the mid of the bucket the value was
+     * counted in.
+     * 
+     * @param percentile the percentile in (0; 1]
+     * @return the value, {@code 0} if no values were recorded
+     * @throws IllegalArgumentException if {@code percentile} is not in (0; 1]
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (!(percentile > 0 && percentile <= 1)) {
+            throw new IllegalArgumentException("percentile " + percentile + " not in (0; 1]");
+        }
+        long[] snapshot = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            snapshot[i] = counts.get(i);
+            total += snapshot[i];
+        }
+        long result = 0;
+        if (total > 0) {
+            long rank = Math.max(1, (long) Math.ceil(percentile * total));
+            long seen = 0;
+            int i = 0;
+            while (i < BUCKETS && seen + snapshot[i] < rank) {
+                seen += snapshot[i];
+                i++;
+            }
+            result = midOf(Math.min(i, BUCKETS - 1));
+        }
+        return result;
+    }
+
+    /**
+     * Clears all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+    }
+
+    /**
+     * Returns the bucket index of a value.
+     * 
+     * @param value the non-negative value
+     * @return the bucket index
+     */
+    static int indexOf(long value) {
+        int result;
+        if (value < EXACT) {
+            result = (int) value;
+        } else {
+            int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+            result = EXACT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the mid value of a bucket.
+     * 
+     * @param index the bucket index
+     * @return the mid value
+     */
+    static long midOf(int index) {
+        long result;
+        if (index < EXACT) {
+            result = index;
+        } else {
+            int shift = (index - EXACT) / SUB_BUCKETS + 1;
+            long lower = (long) ((index - EXACT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+            result = lower + ((1L << shift) - 1) / 2;
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,479 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+/**
+ * Collects Linux system metrics directly from the {@code /proc} file system, i.e., the usage of the individual CPU
+ * cores ({@code /proc/stat}), the network throughput over all interfaces except for the loopback interface
+ * ({@code /proc/net/dev}) and the system load average ({@code /proc/loadavg}). The files are kept open and are
+ * re-read into reusable buffers and parsed in place, i.e., a collection does not allocate memory in steady state.
+ * Usages and rates are determined from the difference to the previous collection. Collections must not run
+ * concurrently, but the collected values are published safely, i.e., the getters may be called from other threads.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class ProcCollector {
+
+    public static final File PROC = new File("/proc");
+
+    private static final int STAT_FIELDS = 8; // user nice system idle iowait irq softirq steal
+    private static final int NET_TX_FIELD = 8; // after 8 receive fields
+    private static final byte[] CPU = {'c', 'p', 'u'};
+    private static final byte[] LOOPBACK = {'l', 'o', ':'};
+
+    private final ProcFile stat;
+    private final ProcFile netDev;
+    private final ProcFile loadAvg;
+
+    private volatile double cpuUsage;
+    private long cpuTotal;
+    private long cpuIdle;
+    private volatile int coreCount; // written after the core usages, i.e., read first to see actual usages
+    private volatile double[] coreUsage = new double[0];
+    private long[] coreTotal = new long[0];
+    private long[] coreIdle = new long[0];
+    private final long[] fields = new long[STAT_FIELDS];
+
+    private volatile double loadAverage1;
+    private volatile double loadAverage5;
+    private volatile double loadAverage15;
+
+    private long netTimestamp = -1;
+    private volatile long netReceived;
+    private volatile long netSent;
+    private volatile double netReceivedRate;
+    private volatile double netSentRate;
+
+    /**
+     * A {@code /proc} file, which is kept open and re-read into a reusable buffer. Provides allocation-free parsing
+     * operations on the actual position in the buffer.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class ProcFile {
+
+        private final File file;
+        private RandomAccessFile access;
+        private byte[] buf;
+        private int len;
+        private int pos;
+
+        /**
+         * Creates a file instance.
+         *
+         * @param file the file
+         * @param size the initial buffer size
+         */
+        private ProcFile(File file, int size) {
+            this.file = file;
+            this.buf = new byte[size];
+        }
+
+        /**
+         * Reads the entire file into the buffer, grows the buffer if required, and resets the position.
+         *
+         * @throws IOException if reading fails
+         */
+        private void read() throws IOException {
+            if (null == access) {
+                access = new RandomAccessFile(file, "r");
+            }
+            access.seek(0);
+            len = 0;
+            int read;
+            while ((read = access.read(buf, len, buf.length - len)) > 0) {
+                len += read;
+                if (len == buf.length) {
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                }
+            }
+            pos = 0;
+        }
+
+        /**
+         * Returns whether the end of the buffer is reached.
+         *
+         * @return {@code true} for end, {@code false} else
+         */
+        private boolean atEnd() {
+            return pos >= len;
+        }
+
+        /**
+         * Returns whether the buffer contains {@code prefix} at the actual position.
+         *
+         * @param prefix the prefix
+         * @return {@code true} for prefix, {@code false} else
+         */
+        private boolean startsWith(byte[] prefix) {
+            boolean result = pos + prefix.length <= len;
+            for (int i = 0; result && i < prefix.length; i++) {
+                result = buf[pos + i] == prefix[i];
+            }
+            return result;
+        }
+
+        /**
+         * Returns the character at the actual position.
+         *
+         * @return the character, {@code 0} at the end of the buffer
+         */
+        private int peek() {
+            return pos < len ? buf[pos] : 0;
+        }
+
+        /**
+         * Moves the position behind the next line end.
+         */
+        private void nextLine() {
+            while (pos < len && buf[pos] != '\n') {
+                pos++;
+            }
+            pos++;
+        }
+
+        /**
+         * Moves the position by {@code count} characters.
+         *
+         * @param count the number of characters
+         */
+        private void skip(int count) {
+            pos += count;
+        }
+
+        /**
+         * Skips spaces and tabs.
+         */
+        private void skipBlanks() {
+            while (pos < len && (buf[pos] == ' ' || buf[pos] == '\t')) {
+                pos++;
+            }
+        }
+
+        /**
+         * Moves the position behind the next occurrence of {@code ch} in the actual line.
+         *
+         * @param ch the character to search for
+         * @return {@code true} if found, {@code false} if not
+         */
+        private boolean skipTo(char ch) {
+            while (pos < len && buf[pos] != '\n' && buf[pos] != ch) {
+                pos++;
+            }
+            boolean found = pos < len && buf[pos] == ch;
+            if (found) {
+                pos++;
+            }
+            return found;
+        }
+
+        /**
+         * Parses a non-negative long after optional blanks.
+         *
+         * @return the value, {@code 0} if there is no number at the actual position
+         */
+        private long parseLong() {
+            skipBlanks();
+            long result = 0;
+            while (pos < len && buf[pos] >= '0' && buf[pos] <= '9') {
+                result = result * 10 + (buf[pos++] - '0');
+            }
+            return result;
+        }
+
+        /**
+         * Parses a non-negative decimal number after optional blanks.
+         *
+         * @return the value, {@code 0} if there is no number at the actual position
+         */
+        private double parseDouble() {
+            double result = parseLong();
+            if (pos < len && buf[pos] == '.') {
+                pos++;
+                double scale = 0.1;
+                while (pos < len && buf[pos] >= '0' && buf[pos] <= '9') {
+                    result += (buf[pos++] - '0') * scale;
+                    scale /= 10;
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Closes the file.
+         */
+        private void close() {
+            if (null != access) {
+                try {
+                    access.close();
+                } catch (IOException e) {
+                    // ignore, read-only
+                }
+                access = null;
+            }
+        }
+
+    }
+
+    /**
+     * Creates a collector on {@link #PROC}.
+     */
+    public ProcCollector() {
+        this(PROC);
+    }
+
+    /**
+     * Creates a collector.
+     *
+     * @param procRoot the root of the proc file system, usually {@link #PROC}
+     */
+    public ProcCollector(File procRoot) {
+        stat = new ProcFile(new File(procRoot, "stat"), 4096);
+        netDev = new ProcFile(new File(new File(procRoot, "net"), "dev"), 2048);
+        loadAvg = new ProcFile(new File(procRoot, "loadavg"), 128);
+    }
+
+    /**
+     * Returns whether a proc file system is available.
+     *
+     * @param procRoot the root of the proc file system, usually {@link #PROC}
+     * @return {@code true} for available, {@code false} else
+     */
+    public static boolean isAvailable(File procRoot) {
+        return new File(procRoot, "stat").canRead() && new File(procRoot, "loadavg").canRead();
+    }
+
+    /**
+     * Collects the metrics.
+     *
+     * @param timestamp the timestamp of the collection in ms, used to determine rates
+     * @throws IOException if reading the {@code /proc} files fails
+     */
+    public void collect(long timestamp) throws IOException {
+        collectCpu();
+        collectLoadAverage();
+        if (netDev.file.canRead()) {
+            collectNetwork(timestamp);
+        }
+    }
+
+    /**
+     * Collects the CPU usages from {@code /proc/stat}.
+     *
+     * @throws IOException if reading fails
+     */
+    private void collectCpu() throws IOException {
+        int cores = coreCount;
+        stat.read();
+        while (!stat.atEnd() && stat.startsWith(CPU)) {
+            stat.skip(CPU.length);
+            int core = stat.peek() == ' ' ? -1 : (int) stat.parseLong();
+            long total = 0;
+            for (int f = 0; f < STAT_FIELDS; f++) {
+                fields[f] = stat.parseLong();
+                total += fields[f];
+            }
+            long idle = fields[3] + fields[4];
+            if (core < 0) {
+                cpuUsage = usage(total - cpuTotal, idle - cpuIdle, cpuUsage);
+                cpuTotal = total;
+                cpuIdle = idle;
+            } else {
+                ensureCores(core + 1);
+                coreUsage[core] = usage(total - coreTotal[core], idle - coreIdle[core], coreUsage[core]);
+                coreTotal[core] = total;
+                coreIdle[core] = idle;
+                cores = Math.max(cores, core + 1);
+            }
+            stat.nextLine();
+        }
+        coreCount = cores; // publishes the core usages
+    }
+
+    /**
+     * Ensures the capacity of the per-core arrays. Allocates only if cores are added.
+     *
+     * @param count the required number of cores
+     */
+    private void ensureCores(int count) {
+        if (count > coreUsage.length) {
+            coreUsage = Arrays.copyOf(coreUsage, count);
+            coreTotal = Arrays.copyOf(coreTotal, count);
+            coreIdle = Arrays.copyOf(coreIdle, count);
+        }
+    }
+
+    /**
+     * Calculates a usage from differences of jiffies.
+     *
+     * @param total the total jiffies since the last collection
+     * @param idle the idle jiffies since the last collection
+     * @param last the last usage, returned if there is no difference
+     * @return the usage in [0;1]
+     */
+    private static double usage(long total, long idle, double last) {
+        return total > 0 ? Math.max(0, Math.min(1, 1 - (double) idle / total)) : last;
+    }
+
+    /**
+     * Collects the load average from {@code /proc/loadavg}.
+     *
+     * @throws IOException if reading fails
+     */
+    private void collectLoadAverage() throws IOException {
+        loadAvg.read();
+        loadAverage1 = loadAvg.parseDouble();
+        loadAverage5 = loadAvg.parseDouble();
+        loadAverage15 = loadAvg.parseDouble();
+    }
+
+    /**
+     * Collects the network throughput from {@code /proc/net/dev}.
+     *
+     * @param timestamp the timestamp of the collection in ms
+     * @throws IOException if reading fails
+     */
+    private void collectNetwork(long timestamp) throws IOException {
+        netDev.read();
+        netDev.nextLine(); // two header lines
+        netDev.nextLine();
+        long received = 0;
+        long sent = 0;
+        while (!netDev.atEnd()) {
+            netDev.skipBlanks();
+            boolean loopback = netDev.startsWith(LOOPBACK);
+            if (netDev.skipTo(':') && !loopback) {
+                received += netDev.parseLong();
+                for (int f = 1; f < NET_TX_FIELD; f++) {
+                    netDev.parseLong();
+                }
+                sent += netDev.parseLong();
+            }
+            netDev.nextLine();
+        }
+        if (netTimestamp >= 0 && timestamp > netTimestamp) {
+            double seconds = (timestamp - netTimestamp) / 1000.0;
+            netReceivedRate = Math.max(0, received - netReceived) / seconds;
+            netSentRate = Math.max(0, sent - netSent) / seconds;
+        }
+        netTimestamp = timestamp;
+        netReceived = received;
+        netSent = sent;
+    }
+
+    /**
+     * Returns the overall CPU usage.
+     *
+     * @return the usage in [0;1]
+     */
+    public double getCpuUsage() {
+        return cpuUsage;
+    }
+
+    /**
+     * Returns the number of CPU cores.
+     *
+     * @return the number of cores, {@code 0} before the first collection
+     */
+    public int getCoreCount() {
+        return coreCount;
+    }
+
+    /**
+     * Returns the usage of a CPU core.
+     *
+     * @param core the core index
+     * @return the usage in [0;1], {@code 0} for an unknown core
+     */
+    public double getCoreUsage(int core) {
+        int count = coreCount; // read before the usages
+        return core >= 0 && core < count ? coreUsage[core] : 0;
+    }
+
+    /**
+     * Returns the system load average over the last minute.
+     *
+     * @return the load average
+     */
+    public double getLoadAverage1() {
+        return loadAverage1;
+    }
+
+    /**
+     * Returns the system load average over the last 5 minutes.
+     *
+     * @return the load average
+     */
+    public double getLoadAverage5() {
+        return loadAverage5;
+    }
+
+    /**
+     * Returns the system load average over the last 15 minutes.
+     *
+     * @return the load average
+     */
+    public double getLoadAverage15() {
+        return loadAverage15;
+    }
+
+    /**
+     * Returns the number of bytes received since system start.
+     *
+     * @return the number of bytes
+     */
+    public long getNetworkReceived() {
+        return netReceived;
+    }
+
+    /**
+     * Returns the number of bytes sent since system start.
+     *
+     * @return the number of bytes
+     */
+    public long getNetworkSent() {
+        return netSent;
+    }
+
+    /**
+     * Returns the receive rate between the last two collections.
+     *
+     * @return the rate in bytes per second
+     */
+    public double getNetworkReceivedRate() {
+        return netReceivedRate;
+    }
+
+    /**
+     * Returns the send rate between the last two collections.
+     *
+     * @return the rate in bytes per second
+     */
+    public double getNetworkSentRate() {
+        return netSentRate;
+    }
+
+    /**
+     * Closes the underlying files.
+     */
+    public void close() {
+        stat.close();
+        netDev.close();
+        loadAvg.close();
+    }
+
+}
@@ -0,0 +1,311 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.distribution.DistributionStatisticConfig;
+import io.micrometer.core.instrument.distribution.TimeWindowMax;
+
+/**
+ * A low-overhead timer for hot data paths that times only a sample of the executions. Either each n-th execution is
+ * timed (fixed rate) or the rate is adapted so that the timing overhead stays within a budget, i.e., a fraction of
+ * the (sampled) execution time. Sampling applies only to executions timed by this timer, durations measured 
+ * externally and passed to {@link #record(long, TimeUnit)} are always recorded. The number of executions is counted 
+ * exactly, the total time of the executions timed by this timer is extrapolated from the sampled executions, the 
+ * maximum and the percentiles are the ones of the recorded durations. As for Micrometer timers, the maximum decays, 
+ * i.e., it is taken over a rotating time window. Percentiles are determined by a {@link PercentileHistogram} over 
+ * all recorded durations. The overhead of not timed executions, i.e., counting and deciding on sampling, cannot be 
+ * reduced by the budget. Instances are created and registered by
+ * {@link MetricsProvider#addSamplingTimer(String, int, double...)} and 
+ * {@link MetricsProvider#addAdaptiveSamplingTimer(String, double, double...)}.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class SamplingTimer {
+
+    public static final int MAX_RATE = 1 << 16;
+    private static final double EWMA_WEIGHT = 0.1;
+
+    private final String id;
+    private final double budget;
+    private final double[] percentiles;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong samples = new AtomicLong();
+    private final AtomicLong sampledNanos = new AtomicLong();
+    private final AtomicLong measured = new AtomicLong();
+    private final AtomicLong measuredNanos = new AtomicLong();
+    private final TimeWindowMax max;
+    private final PercentileHistogram histogram = new PercentileHistogram();
+    private volatile int rate;
+    private double avgDuration;
+    private double avgOverhead;
+
+    /**
+     * Creates a sampling timer.
+     * 
+     * @param id the identifier of the timer
+     * @param rate the (initial) sampling rate, i.e., each {@code rate}-th execution is timed
+     * @param budget the overhead budget as fraction of the execution time in (0; 1] for adaptive sampling, 
+     *     {@code 0} for sampling at fixed {@code rate}
+     * @param clock the clock driving the time window of the maximum, usually the one of the meter registry
+     * @param percentiles the percentiles to publish, each in (0; 1]
+     * @throws IllegalArgumentException if {@code rate}, {@code budget} or a percentile is invalid
+     */
+    SamplingTimer(String id, int rate, double budget, Clock clock, double... percentiles) {
+        if (rate < 1 || rate > MAX_RATE) {
+            throw new IllegalArgumentException(rate + ": rate is not in [1; " + MAX_RATE + "]");
+        }
+        if (!(budget >= 0 && budget <= 1)) {
+            throw new IllegalArgumentException(budget + ": budget is not in [0; 1]");
+        }
+        for (double p : percentiles) {
+            if (!(p > 0 && p <= 1)) {
+                throw new IllegalArgumentException(p + ": percentile is not in (0; 1]");
+            }
+        }
+        this.id = id;
+        this.rate = rate;
+        this.budget = budget;
+        this.percentiles = percentiles.clone();
+        this.max = new TimeWindowMax(clock, DistributionStatisticConfig.DEFAULT);
+    }
+
+    /**
+     * Returns the identifier of the timer.
+     * 
+     * @return the identifier
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Returns the actual sampling rate.
+     * 
+     * @return the sampling rate, i.e., each {@code rate}-th execution is timed
+     */
+    public int getRate() {
+        return rate;
+    }
+
+    /**
+     * Returns the overhead budget.
+     * 
+     * @return the budget as fraction of the execution time, {@code 0} for fixed rate sampling
+     */
+    public double getBudget() {
+        return budget;
+    }
+
+    /**
+     * Returns the percentiles published by this timer.
+     * 
+     * @return the percentiles
+     */
+    public List<Double> getPercentiles() {
+        List<Double> result = new ArrayList<Double>();
+        for (double p : percentiles) {
+            result.add(p);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    /**
+     * Returns the name of the gauge publishing a percentile, i.e., the timer identifier followed by {@code .p} and
+     * the percentile in percent, e.g., {@code myTimer.p95} or {@code myTimer.p99.9}.
+     * 
+     * @param percentile the percentile
+     * @return the gauge name
+     */
+    public String getPercentileName(double percentile) {
+        return id + ".p" + BigDecimal.valueOf(percentile).movePointRight(2).stripTrailingZeros().toPlainString();
+    }
+
+    /**
+     * Returns whether the next execution shall be timed.
+     * 
+     * @return {@code true} for timing, {@code false} else
+     */
+    private boolean sample() {
+        return calls.incrementAndGet() % rate == 0;
+    }
+
+    /**
+     * Executes and, if sampled, times a runnable.
+     * 
+     * @param runnable the runnable
+     */
+    public void record(Runnable runnable) {
+        if (sample()) {
+            long start = System.nanoTime();
+            runnable.run();
+            recordSample(start);
+        } else {
+            runnable.run();
+        }
+    }
+
+    /**
+     * Executes and, if sampled, times a supplier.
+     * 
+     * @param <T> the type of the result
+     * @param supplier the supplier
+     * @return the result of {@code supplier}
+     */
+    public <T> T record(Supplier<T> supplier) {
+        T result;
+        if (sample()) {
+            long start = System.nanoTime();
+            result = supplier.get();
+            recordSample(start);
+        } else {
+            result = supplier.get();
+        }
+        return result;
+    }
+
+    /**
+     * Counts an execution and records its externally measured duration. As there is no timing overhead, such 
+     * durations are not sampled.
+     * 
+     * @param time the duration
+     * @param unit the unit of {@code time}
+     */
+    public void record(long time, TimeUnit unit) {
+        long nanos = unit.toNanos(time);
+        measured.incrementAndGet();
+        measuredNanos.addAndGet(nanos);
+        recordDuration(nanos);
+    }
+
+    /**
+     * Records a sampled execution that started at {@code start} and adapts the rate if there is a budget.
+     * 
+     * @param start the start of the execution as {@link System#nanoTime()}
+     */
+    private void recordSample(long start) {
+        long end = System.nanoTime();
+        long duration = end - start;
+        record(duration);
+        if (budget > 0) {
+            adapt(duration, System.nanoTime() - end);
+        }
+    }
+
+    /**
+     * Records the duration of a sampled execution.
+     * 
+     * @param nanos the duration in nanoseconds
+     */
+    private void record(long nanos) {
+        samples.incrementAndGet();
+        sampledNanos.addAndGet(nanos);
+        recordDuration(nanos);
+    }
+
+    /**
+     * Records a duration in the maximum and the percentiles.
+     * 
+     * @param nanos the duration in nanoseconds
+     */
+    private void recordDuration(long nanos) {
+        histogram.record(nanos);
+        max.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Adapts the sampling rate so that the average timing overhead per execution stays within the budget.
+     * 
+     * @param duration the duration of the sampled execution in nanoseconds
+     * @param overhead the overhead of recording the sample in nanoseconds
+     */
+    private synchronized void adapt(long duration, long overhead) {
+        if (0 == avgDuration) {
+            avgDuration = duration;
+            avgOverhead = overhead;
+        } else {
+            avgDuration += EWMA_WEIGHT * (duration - avgDuration);
+            avgOverhead += EWMA_WEIGHT * (overhead - avgOverhead);
+        }
+        double required = Math.ceil(avgOverhead / (budget * Math.max(1, avgDuration)));
+        rate = (int) Math.max(1, Math.min(MAX_RATE, required));
+    }
+
+    /**
+     * Returns the number of executions.
+     * 
+     * @return the number of executions
+     */
+    public long count() {
+        return calls.get() + measured.get();
+    }
+
+    /**
+     * Returns the number of timed executions, i.e., sampled executions and externally measured durations.
+     * 
+     * @return the number of timed executions
+     */
+    public long getSampleCount() {
+        return samples.get() + measured.get();
+    }
+
+    /**
+     * Returns the total time of all executions. Externally measured durations are summed up, the time of the 
+     * executions timed by this timer is extrapolated from the timed executions.
+     * 
+     * @param unit the result time unit
+     * @return the total time
+     */
+    public double totalTime(TimeUnit unit) {
+        long measuredCount = measured.get();
+        long measuredTime = measuredNanos.get();
+        long timed = samples.get() + measuredCount;
+        double nanos = measuredTime;
+        if (timed > 0) { // prefer sampled durations, fall back to measured ones
+            long sampled = samples.get();
+            double avg = sampled > 0 ? (double) sampledNanos.get() / sampled : (double) measuredTime / measuredCount;
+            nanos += avg * calls.get();
+        }
+        return nanos / unit.toNanos(1);
+    }
+
+    /**
+     * Returns the maximum recorded duration within the rotating time window.
+     * 
+     * @param unit the result time unit
+     * @return the maximum duration
+     */
+    public double max(TimeUnit unit) {
+        return max.poll(unit);
+    }
+
+    /**
+     * Returns a percentile of the durations of the timed executions.
+     * 
+     * @param percentile the percentile in (0; 1]
+     * @param unit the result time unit
+     * @return the duration at {@code percentile}, {@code 0} if nothing was timed so far
+     * @throws IllegalArgumentException if {@code percentile} is not in (0; 1]
+     */
+    public double percentile(double percentile, TimeUnit unit) {
+        return (double) histogram.getValueAtPercentile(percentile) / unit.toNanos(1);
+    }
+
+}
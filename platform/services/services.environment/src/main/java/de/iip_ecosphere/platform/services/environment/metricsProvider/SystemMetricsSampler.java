@@ -0,0 +1,411 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+
+import org.slf4j.LoggerFactory;
+
+import com.sun.management.OperatingSystemMXBean;
+
+/**
+ * Samples the system metrics that are not provided by Micrometer-API in the background and caches them. There are
+ * individual refresh intervals per source, i.e., the disk capacities (one file system request per root, potentially
+ * slow on network mounts) are by default sampled less often than the physical memory and the Linux
+ * {@link ProcCollector /proc metrics}. {@link #refresh()} is intended to be called on each tick of the caller's
+ * schedule: The first call samples the (local and fast) memory and /proc sources directly so that initial values
+ * are available, the disks and all subsequent samples are handed over to a background thread per source and the
+ * call returns immediately, i.e., a slow source neither stalls the caller nor the other sources. The getters just
+ * return the cached values (read-through), i.e., the disk values are 0 until the first disk sample is completed.
+ * The disk roots can be {@link #setRoots(List) given explicitly} and/or {@link #setRootFilter(Predicate)
+ * filtered}. {@link #close()} stops sampling and releases the /proc files.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+@SuppressWarnings("restriction")
+public class SystemMetricsSampler {
+
+    public static final long DEFAULT_MEMORY_INTERVAL = 1000;
+    public static final long DEFAULT_DISK_INTERVAL = 30000;
+    public static final long DEFAULT_PROC_INTERVAL = 1000;
+
+    private final OperatingSystemMXBean osmxb;
+    private final Source memory;
+    private final Source disk;
+    private final Source proc;
+    private final ProcCollector procCollector;
+
+    private volatile List<File> roots;
+    private volatile Predicate<File> rootFilter = f -> true;
+    private boolean asynchronous = true;
+    private volatile boolean closed;
+
+    private volatile long memTotal;
+    private volatile long memFree;
+    private volatile long diskTotal;
+    private volatile long diskFree;
+    private volatile long diskUsable;
+
+    /**
+     * A cached source with own refresh interval and own background thread.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private abstract static class Source implements Runnable {
+
+        private final String name;
+        private final boolean directFirst;
+        private volatile long interval;
+        private volatile long lastSample = -1;
+        private final AtomicBoolean pending = new AtomicBoolean();
+        private ExecutorService executor;
+        private boolean shutdown;
+
+        /**
+         * Creates a source.
+         *
+         * @param name the name of the source, used for the background thread
+         * @param interval the refresh interval in ms
+         * @param directFirst whether the first sample shall be taken directly rather than in the background
+         */
+        private Source(String name, long interval, boolean directFirst) {
+            this.name = name;
+            this.interval = interval;
+            this.directFirst = directFirst;
+        }
+
+        /**
+         * Returns whether this source shall be sampled.
+         *
+         * @param now the actual time in ms
+         * @return {@code true} for stale, {@code false} else
+         */
+        private boolean isStale(long now) {
+            return lastSample < 0 || now - lastSample >= interval;
+        }
+
+        @Override
+        public void run() {
+            try {
+                sample();
+            } catch (RuntimeException e) {
+                LoggerFactory.getLogger(SystemMetricsSampler.class).error(
+                    "Cannot sample system metrics: " + e.getMessage());
+            } finally {
+                lastSample = System.currentTimeMillis();
+                pending.set(false);
+            }
+        }
+
+        /**
+         * Samples the values of this source.
+         */
+        protected abstract void sample();
+
+        /**
+         * Samples this source on its background thread, creates the thread if required. Does not sample if this
+         * source is shut down.
+         */
+        private synchronized void execute() {
+            boolean executed = false;
+            if (!shutdown) {
+                if (null == executor) {
+                    executor = Executors.newSingleThreadExecutor(r -> {
+                        Thread result = new Thread(r, "SystemMetricsSampler-" + name);
+                        result.setDaemon(true);
+                        return result;
+                    });
+                }
+                try {
+                    executor.execute(this);
+                    executed = true;
+                } catch (RejectedExecutionException e) {
+                    // shut down in the meantime, executed = false
+                }
+            }
+            if (!executed) {
+                pending.set(false);
+            }
+        }
+
+        /**
+         * Shuts down the background thread of this source. A running sample is completed.
+         */
+        private synchronized void shutdown() {
+            shutdown = true;
+            if (null != executor) {
+                executor.shutdown();
+                executor = null;
+            }
+        }
+
+    }
+
+    /**
+     * Creates a sampler on the local {@link ProcCollector#PROC /proc} file system, if available.
+     */
+    public SystemMetricsSampler() {
+        this(ProcCollector.PROC);
+    }
+
+    /**
+     * Creates a sampler.
+     *
+     * @param procRoot the root of the proc file system, usually {@link ProcCollector#PROC}; if not available or
+     *   <b>null</b>, no proc metrics are collected
+     */
+    public SystemMetricsSampler(File procRoot) {
+        osmxb = (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+        memory = new Source("memory", DEFAULT_MEMORY_INTERVAL, true) {
+
+            @Override
+            protected void sample() {
+                memTotal = osmxb.getTotalPhysicalMemorySize();
+                memFree = osmxb.getFreePhysicalMemorySize();
+            }
+
+        };
+        disk = new Source("disk", DEFAULT_DISK_INTERVAL, false) {
+
+            @Override
+            protected void sample() {
+                sampleDisks();
+            }
+
+        };
+        procCollector = null != procRoot && ProcCollector.isAvailable(procRoot) ? new ProcCollector(procRoot) : null;
+        proc = new Source("proc", DEFAULT_PROC_INTERVAL, true) {
+
+            @Override
+            protected void sample() {
+                if (null != procCollector) {
+                    synchronized (procCollector) { // close() may happen in parallel
+                        if (!closed) {
+                            try {
+                                procCollector.collect(System.currentTimeMillis());
+                            } catch (IOException e) {
+                                LoggerFactory.getLogger(SystemMetricsSampler.class).error(
+                                    "Cannot read /proc metrics: " + e.getMessage());
+                            }
+                        }
+                    }
+                }
+            }
+
+        };
+    }
+
+    /**
+     * Samples the disk capacities of the (filtered) roots.
+     */
+    private void sampleDisks() {
+        List<File> dirs = roots;
+        Predicate<File> filter = rootFilter;
+        long total = 0;
+        long free = 0;
+        long usable = 0;
+        for (File dir : null == dirs ? Arrays.asList(File.listRoots()) : dirs) {
+            if (filter.test(dir)) {
+                total += dir.getTotalSpace();
+                free += dir.getFreeSpace();
+                usable += dir.getUsableSpace();
+            }
+        }
+        diskTotal = total;
+        diskFree = free;
+        diskUsable = usable;
+    }
+
+    /**
+     * Refreshes the stale sources. The first call samples memory and /proc directly, the disks and all subsequent
+     * calls in the background unless {@link #setAsynchronous(boolean) disabled}. Does nothing if this sampler is
+     * {@link #close() closed}.
+     */
+    public void refresh() {
+        if (!closed) {
+            long now = System.currentTimeMillis();
+            refresh(memory, now);
+            refresh(disk, now);
+            refresh(proc, now);
+        }
+    }
+
+    /**
+     * Refreshes {@code source} if stale and no refresh is pending.
+     *
+     * @param source the source
+     * @param now the actual time in ms
+     */
+    private void refresh(Source source, long now) {
+        if (source.isStale(now) && source.pending.compareAndSet(false, true)) {
+            if ((source.lastSample < 0 && source.directFirst) || !asynchronous) {
+                source.run();
+            } else {
+                source.execute();
+            }
+        }
+    }
+
+    /**
+     * Closes this sampler, i.e., stops the background threads and closes the /proc files. The cached values remain
+     * available, but are not refreshed anymore.
+     */
+    public void close() {
+        closed = true;
+        memory.shutdown();
+        disk.shutdown();
+        proc.shutdown();
+        if (null != procCollector) {
+            synchronized (procCollector) {
+                procCollector.close();
+            }
+        }
+    }
+
+    /**
+     * Defines whether stale sources shall be sampled in the background.
+     *
+     * @param asynchronous {@code true} for background sampling (default), {@code false} for sampling within
+     *   {@link #refresh()}
+     */
+    public void setAsynchronous(boolean asynchronous) {
+        this.asynchronous = asynchronous;
+    }
+
+    /**
+     * Changes the refresh interval of the physical memory values.
+     *
+     * @param interval the interval in ms, {@code 0} for refreshing on every {@link #refresh()}
+     * @throws IllegalArgumentException if {@code interval} is negative
+     */
+    public void setMemoryInterval(long interval) {
+        memory.interval = checkInterval(interval);
+    }
+
+    /**
+     * Changes the refresh interval of the disk capacities.
+     *
+     * @param interval the interval in ms, {@code 0} for refreshing on every {@link #refresh()}
+     * @throws IllegalArgumentException if {@code interval} is negative
+     */
+    public void setDiskInterval(long interval) {
+        disk.interval = checkInterval(interval);
+    }
+
+    /**
+     * Changes the refresh interval of the /proc metrics.
+     *
+     * @param interval the interval in ms, {@code 0} for refreshing on every {@link #refresh()}
+     * @throws IllegalArgumentException if {@code interval} is negative
+     */
+    public void setProcInterval(long interval) {
+        proc.interval = checkInterval(interval);
+    }
+
+    /**
+     * Checks an interval.
+     *
+     * @param interval the interval
+     * @return {@code interval}
+     * @throws IllegalArgumentException if {@code interval} is negative
+     */
+    private static long checkInterval(long interval) {
+        if (interval < 0) {
+            throw new IllegalArgumentException("interval must not be negative");
+        }
+        return interval;
+    }
+
+    /**
+     * Defines the disk roots to sample.
+     *
+     * @param roots the roots, <b>null</b> or empty for all {@link File#listRoots() file system roots} (default)
+     */
+    public void setRoots(List<File> roots) {
+        this.roots = null == roots || roots.isEmpty() ? null : new ArrayList<File>(roots);
+    }
+
+    /**
+     * Defines a filter on the disk roots, e.g., to exclude network mounts.
+     *
+     * @param filter the filter, <b>null</b> for accepting all roots (default)
+     */
+    public void setRootFilter(Predicate<File> filter) {
+        this.rootFilter = null == filter ? f -> true : filter;
+    }
+
+    /**
+     * Returns the total physical memory.
+     *
+     * @return the total memory in bytes
+     */
+    public long getMemoryTotal() {
+        return memTotal;
+    }
+
+    /**
+     * Returns the free physical memory.
+     *
+     * @return the free memory in bytes
+     */
+    public long getMemoryFree() {
+        return memFree;
+    }
+
+    /**
+     * Returns the total disk capacity of the (filtered) roots.
+     *
+     * @return the total capacity in bytes
+     */
+    public long getDiskTotal() {
+        return diskTotal;
+    }
+
+    /**
+     * Returns the free disk capacity of the (filtered) roots.
+     *
+     * @return the free capacity in bytes
+     */
+    public long getDiskFree() {
+        return diskFree;
+    }
+
+    /**
+     * Returns the usable disk capacity of the (filtered) roots.
+     *
+     * @return the usable capacity in bytes
+     */
+    public long getDiskUsable() {
+        return diskUsable;
+    }
+
+    /**
+     * Returns the /proc collector.
+     *
+     * @return the collector, <b>null</b> if there is no proc file system. Values shall only be read as sampling
+     *   happens in the background.
+     */
+    public ProcCollector getProcCollector() {
+        return procCollector;
+    }
+
+}
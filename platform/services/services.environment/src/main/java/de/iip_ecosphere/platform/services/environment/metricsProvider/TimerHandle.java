@@ -0,0 +1,111 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * A pre-resolved handle to a custom timer of a {@link MetricsProvider}. Recording through a handle avoids the 
+ * identifier lookup on each recording and is safe for concurrent use. A handle is detached if the timer is 
+ * removed from the provider, i.e., further recordings are not reflected by the provider anymore.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class TimerHandle {
+
+    private final Timer timer;
+
+    /**
+     * Creates a handle.
+     * 
+     * @param timer the timer to wrap
+     */
+    TimerHandle(Timer timer) {
+        this.timer = timer;
+    }
+
+    /**
+     * Returns the identifier of the timer.
+     * 
+     * @return the identifier
+     */
+    public String getId() {
+        return timer.getId().getName();
+    }
+
+    /**
+     * Records a duration.
+     * 
+     * @param time the duration
+     * @param unit the unit of {@code time}
+     * @throws IllegalArgumentException if {@code time} is negative or {@code unit} is null
+     */
+    public void record(long time, TimeUnit unit) {
+        if (time < 0) {
+            throw new IllegalArgumentException("cannot record negative time!");
+        }
+        if (unit == null) {
+            throw new IllegalArgumentException("unit" + MetricsProvider.NULL_ARG);
+        }
+        timer.record(time, unit);
+    }
+
+    /**
+     * Runs and records the execution time of a runnable.
+     * 
+     * @param runnable the runnable to be timed
+     * @throws IllegalArgumentException if {@code runnable} is null
+     */
+    public void record(Runnable runnable) {
+        if (runnable == null) {
+            throw new IllegalArgumentException("runnable" + MetricsProvider.NULL_ARG);
+        }
+        timer.record(runnable);
+    }
+
+    /**
+     * Runs and records the execution time of a supplier.
+     * 
+     * @param <T> the type of the result
+     * @param supplier the supplier to be timed
+     * @return the result of {@code supplier}
+     * @throws IllegalArgumentException if {@code supplier} is null
+     */
+    public <T> T record(Supplier<T> supplier) {
+        if (supplier == null) {
+            throw new IllegalArgumentException("supplier" + MetricsProvider.NULL_ARG);
+        }
+        return timer.record(supplier);
+    }
+
+    /**
+     * Returns the number of recordings.
+     * 
+     * @return the number of recordings
+     */
+    public long count() {
+        return timer.count();
+    }
+
+    /**
+     * Returns the total time of all recordings.
+     * 
+     * @return the total time in the base time unit of the timer
+     */
+    public double totalTime() {
+        return timer.totalTime(timer.baseTimeUnit());
+    }
+
+}
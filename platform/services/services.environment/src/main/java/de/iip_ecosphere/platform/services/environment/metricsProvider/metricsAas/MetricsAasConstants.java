@@ -24,6 +24,7 @@ package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAa
 public class MetricsAasConstants {
     
     public static final String TRANSPORT_SERVICE_METRICS_CHANNEL = "ServiceMetrics";
+    public static final String TRANSPORT_ECS_METRICS_CHANNEL = "EcsMetrics";
 
     /* Java Virtual Machine (JVM) Buffer Metrics */
     public static final String JVM_BUFFER_COUNT = "jvmbuffercount";
@@ -96,4 +97,8 @@ public class MetricsAasConstants {
     public static final String TAGGED_METER_LIST = "taggedmeterlist";
     public static final String SIMPLE_METER_LIST = "simplemeterlist";
 
+    /* Default rollup groups */
+    public static final String ROLLUP_GROUP_DEVICES = "devices";
+    public static final String ROLLUP_GROUP_SERVICES = "services";
+
 }
@@ -13,6 +13,8 @@
 package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
 
 import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
 import de.iip_ecosphere.platform.support.aas.InvocablesCreator;
 import de.iip_ecosphere.platform.support.aas.ProtocolServerBuilder;
 import de.iip_ecosphere.platform.support.aas.SubmodelElementCollection;
@@ -27,18 +29,12 @@ import static de.iip_ecosphere.platform.services.environment.metricsProvider.met
 
 import java.io.IOException;
 import java.io.Serializable;
-import java.io.StringReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.stream.JsonParsingException;
-
 import org.slf4j.LoggerFactory;
 
 /**
@@ -59,13 +55,18 @@ import org.slf4j.LoggerFactory;
  * it re-creates network connections per each request. Also caching the connectors did not 
  * solve the problem. Ultimately, in parallel access cases the AAS even blocked the 
  * entire operations of the program. Thus, we turned the approach around and rely now on
- * attached local functors that access a {@link JsonObjectHolder shared object}. The shared object is 
+ * attached local functors that access a {@link ReceivedMetrics shared object}. The shared object is 
  * attached through a {@link MetricsReceptionCallback transport layer callback} to a transport layer 
  * connector, which is cached/created on demand upon execution of the functors. The functors are serializable, 
  * and carry all information required to create a transport connector. Updates to the
- * metric values happen in background to the {@link JsonObjectHolder shared object}, while the AAS just
+ * metric values happen in background to the {@link ReceivedMetrics shared object}, while the AAS just
  * accesses the values in its own pace (returning nothing if no metrics data was received so far). Shared 
- * objects shall be {@link #clear() released} when the program shuts down.
+ * objects shall be {@link #clear() released} when the program shuts down. Metrics are expected to be sent as
+ * {@link MetricsSnapshot} via {@link MetricsProvider#toSnapshot(String, boolean)}, the respective
+ * {@link MetricsSnapshotSerializer serializer} is registered when the first transport connector is created.
+ * Only snapshots of ids with an accessed AAS getter are held here, rolling up the snapshots of all sources is done
+ * independently by a {@link MetricsRollupRecorder}. As ECS runtimes and services may send with the same id, received 
+ * metrics and rollup sources are distinguished by {@link #getRollupSource(String, String) channel and id}.
  * 
  * @author Miguel Gomez
  * @author Holger Eichelberger, SSE
@@ -73,7 +74,7 @@ import org.slf4j.LoggerFactory;
 public class MetricsAasConstructor {
 
     private static Map<String, TransportConnector> conns = new HashMap<>();
-    private static Map<String, JsonObjectHolder> holders = new HashMap<>();
+    private static Map<String, ReceivedMetrics> holders = new HashMap<>();
 
     /**
      * Adds all the Metric Provider's meters as submodel properties and provides
@@ -186,10 +187,11 @@ public class MetricsAasConstructor {
     private static TransportConnector getTransportConnector(String channel, TransportSetup setup) {
         TransportConnector conn = conns.get(channel);
         if (null == conn && !conns.containsKey(channel)) {
+            MetricsSnapshotSerializer.register();
             conn = TransportFactory.createConnector();
             try {
                 conn.connect(setup.createParameter());
-                conn.setReceptionCallback(channel, new MetricsReceptionCallback());
+                conn.setReceptionCallback(channel, new MetricsReceptionCallback(channel));
             } catch (IOException e) {
                 LoggerFactory.getLogger(MetricsAasConstructor.class).error(
                     "Cannot create connector: " + e.getMessage());
@@ -199,93 +201,42 @@ public class MetricsAasConstructor {
         return conn;
     }
 
-    /**
-     * Holds a received JSON object.
-     * 
-     * @author Holger Eichelberger, SSE
-     */
-    private static class JsonObjectHolder {
-        
-        private JsonObject obj;
-        
-       /**
-         * Returns a list value.
-         * 
-         * @param name the name of the list, see {@link MetricsProvider}
-         * @return the list value or <b>null</b>
-         */
-        public String getList(String name) {
-            String result = "";
-            if (null != obj) {
-                JsonArray array = obj.getJsonArray(name);
-                if (null != array) {
-                    result = array.toString();
-                }
-            }
-            return result;
-        }
-
-        /**
-         * Returns a meter value.
-         * 
-         * @param name the name of the registered meter, see, e.g., {@link MetricsProvider}
-         * @return the meter value or <b>null</b>
-         */
-        public String getMeter(String name) {
-            String result = "";
-            if (null != obj) {
-                JsonObject meters = obj.getJsonObject("meters");
-                if (null != meters) {
-                    JsonObject meter = meters.getJsonObject(name);
-                    if (null != meter) {
-                        result = meter.toString();
-                    }
-                }
-            }
-            return result;
-        }
-    }
-    
     // put information into map (metrics provider would be better)
     /**
      * Receives monitoring information via the transport layer.
      * 
      * @author Holger Eichelberger, SSE
      */
-    private static class MetricsReceptionCallback implements ReceptionCallback<String> {
+    private static class MetricsReceptionCallback implements ReceptionCallback<MetricsSnapshot> {
+
+        private String channel;
 
         /**
          * Creates a callback.
+         * 
+         * @param channel the channel the callback is registered for
          */
-        public MetricsReceptionCallback() {
+        public MetricsReceptionCallback(String channel) {
+            this.channel = channel;
         }
         
         @Override
-        public void received(String data) {
-            try {
-                JsonObject obj = Json.createReader(new StringReader(data)).readObject();
-                String id = obj.getString("id");
-                if (null != id) {
-                    JsonObjectHolder holder = holders.get(id);
-                    if (null != holder) {
-                        holder.obj = obj;
-                    }
-                }
-            } catch (JsonParsingException e) {
-                LoggerFactory.getLogger(MetricsAasConstructor.class).error("Cannot parse JSON: " 
-                    + e.getMessage() + " " + data);
+        public void received(MetricsSnapshot data) {
+            ReceivedMetrics holder = null == data.getId() ? null : holders.get(getRollupSource(channel, data.getId()));
+            if (null != holder) {
+                holder.update(data);
             }
         }
 
         @Override
-        public Class<String> getType() {
-            return String.class;
+        public Class<MetricsSnapshot> getType() {
+            return MetricsSnapshot.class;
         }
 
     }
     
     /**
-     * Implements a list getter based on {@link JsonObjectHolder}.
+     * Implements a list getter based on {@link ReceivedMetrics}.
      * 
      * @author Holger Eichelberger, SSE
      */
@@ -320,7 +271,7 @@ public class MetricsAasConstructor {
     }
 
     /**
-     * Implements a meter getter based on {@link JsonObjectHolder}.
+     * Implements a meter getter based on {@link ReceivedMetrics}.
      * 
      * @author Holger Eichelberger, SSE
      */
@@ -355,19 +306,50 @@ public class MetricsAasConstructor {
     }
     
     /**
-     * Returns a JSON object holder associated to a transport connector through {@link MetricsReceptionCallback}.
+     * Returns a received metrics holder associated to a transport connector through {@link MetricsReceptionCallback}.
      * 
      * @param channel the transport channel
      * @param id the id to react on
      * @param setup the transport setup
      * @return the (shared) object holder instance
      */
-    private static JsonObjectHolder getHolder(String id, String channel, TransportSetup setup) {
+    private static ReceivedMetrics getHolder(String id, String channel, TransportSetup setup) {
         getTransportConnector(channel, setup);
-        JsonObjectHolder result = holders.get(id);
+        String source = getRollupSource(channel, id);
+        ReceivedMetrics result = holders.get(source);
         if (null == result) {
-            result = new JsonObjectHolder();
-            holders.put(id, result);
+            result = new ReceivedMetrics();
+            holders.put(source, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the source name of metrics received on {@code channel} from {@code id}, e.g., to define a more 
+     * specific {@link MetricsRollup#setGroup(String, String) rollup group} such as the device or service type.
+     * 
+     * @param channel the transport channel
+     * @param id the id of the sender
+     * @return the source name, channel and id separated by a slash
+     */
+    public static String getRollupSource(String channel, String id) {
+        return channel + "/" + id;
+    }
+
+    /**
+     * Returns the default rollup group for metrics received on {@code channel}.
+     * 
+     * @param channel the transport channel
+     * @return the rollup group
+     */
+    static String getRollupGroup(String channel) {
+        String result;
+        if (TRANSPORT_ECS_METRICS_CHANNEL.equals(channel)) {
+            result = ROLLUP_GROUP_DEVICES;
+        } else if (TRANSPORT_SERVICE_METRICS_CHANNEL.equals(channel)) {
+            result = ROLLUP_GROUP_SERVICES;
+        } else {
+            result = channel;
         }
         return result;
     }
@@ -12,15 +12,20 @@
 
 package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
 
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
 import javax.ws.rs.ProcessingException;
+import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.client.Invocation;
 import javax.ws.rs.client.WebTarget;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.CounterRepresentation;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.GaugeRepresentation;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.MeterRepresentation;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.TimerRepresentation;
 
 /**
@@ -34,7 +39,15 @@ import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepre
  * be used to retrieve the values instead of using another REST client.<br>
  * The methods that follow the IIP-Ecosphere AAS signature do not check the
  * validity of their arguments. Part of this is checked by the IIP-Ecosphere
- * framework and the other part by the Metrics Provider REST Service.
+ * framework and the other part by the Metrics Provider REST Service.<br>
+ * Services reporting many metrics shall use the batch methods
+ * {@link #updateMeters(Object[])} and {@link #getMeters(String...)}, which
+ * transfer multiple meters in a single request. All instances share one
+ * client and responses are consumed completely, i.e., the underlying HTTP
+ * connections are kept alive and re-used from the connection pool of the JDK.
+ * The shared client shall be {@link #close() closed} when no instance is used
+ * anymore. Responses with an error status are not taken as results, i.e.,
+ * getters return <b>null</b> and updates and deletions throw an exception.
  * 
  * @author Miguel Gomez
  */
@@ -47,6 +60,7 @@ public class MetricsExtractorRestClient {
     private static final String COUNTERS_ENDPOINT = "counters";
     private static final String GAUGES_ENDPOINT = "gauges";
     private static final String TIMERS_ENDPOINT = "timers";
+    private static final String BATCH_ENDPOINT = "batch";
 
     private static final String CONFIG_MEMORY_BASE_UNIT = "config/memory-base-unit";
     private static final String CONFIG_DISK_BASE_UNIT = "config/disk-base-unit";
@@ -88,8 +102,12 @@ public class MetricsExtractorRestClient {
     private static final String ACTION_MAJOR = "action:end of major GC";
     private static final String ACTION_MINOR = "action:end of minor GC";
 
+    /* Shared client, thread-safe, keeps connections alive */
+    private static Client client;
+
     /* Web Target */
     private WebTarget webTarget;
+    private WebTarget batchTarget;
 
     /**
      * Initializes a new Metrics Extractor REST Client.<br>
@@ -110,7 +128,65 @@ public class MetricsExtractorRestClient {
             throw new IllegalArgumentException("Port cannot be a negative number!");
         }
         String uri = PROTOCOL + hostAddr + ":" + portNo;
-        webTarget = ClientBuilder.newClient().target(uri);
+        webTarget = getClient().target(uri);
+        batchTarget = webTarget.path(BATCH_ENDPOINT);
+    }
+
+    /**
+     * Returns the shared client, creates it if required.
+     * 
+     * @return the client
+     */
+    private static synchronized Client getClient() {
+        if (null == client) {
+            client = ClientBuilder.newClient();
+        }
+        return client;
+    }
+
+    /**
+     * Closes the shared client and its connections. Instances created before must
+     * not be used anymore, instances created afterwards use a new shared client.
+     */
+    public static synchronized void close() {
+        if (null != client) {
+            client.close();
+            client = null;
+        }
+    }
+
+    /**
+     * Reads the body of a successful response and consumes the response so that 
+     * the connection can be re-used.
+     * 
+     * @param response the response
+     * @return the response body, <b>null</b> if the response indicates an error
+     */
+    private static String readEntity(Response response) {
+        String result = null;
+        try {
+            if (Response.Status.Family.SUCCESSFUL == response.getStatusInfo().getFamily()) {
+                result = response.readEntity(String.class);
+            }
+        } finally {
+            response.close();
+        }
+        return result;
+    }
+
+    /**
+     * Consumes a response and returns its error, if any.
+     * 
+     * @param response the response
+     * @return the error status and reason, <b>null</b> if the response was successful
+     */
+    private static String getError(Response response) {
+        String result = null;
+        if (Response.Status.Family.SUCCESSFUL != response.getStatusInfo().getFamily()) {
+            result = response.getStatus() + " " + response.getStatusInfo().getReasonPhrase();
+        }
+        response.close();
+        return result;
     }
 
     /**
@@ -121,13 +197,13 @@ public class MetricsExtractorRestClient {
      * @param endpoint endpoint where the resource is
      * @param resource resource we want to retrieve
      * @param tags     tags that the resource has (if any)
-     * @return response body of the GET request
+     * @return response body of the GET request, <b>null</b> if the request failed
      */
     private String sendGetRequest(String endpoint, String resource, String... tags) {
         WebTarget request = webTarget.path(endpoint).path(resource).queryParam("tag", (Object[]) tags);
         Invocation.Builder invocationBuilder = request.request(MediaType.APPLICATION_JSON);
         try {
-            return invocationBuilder.get().readEntity(String.class);
+            return readEntity(invocationBuilder.get());
         } catch (ProcessingException e) {
             // That resource was not found, so null is returned
             return null;
@@ -145,11 +221,28 @@ public class MetricsExtractorRestClient {
      *                                  server
      */
     private void sendPutRequest(String endpoint, String body) {
-        Invocation.Builder invocationBuilder = webTarget.path(endpoint).request(MediaType.APPLICATION_JSON);
+        sendPutRequest(webTarget.path(endpoint), body);
+    }
+
+    /**
+     * Sends an HTTP PUT request to the REST service and consumes the response so 
+     * that the connection can be re-used.
+     * 
+     * @param target the target to send the request to
+     * @param body   request body
+     * @throws IllegalArgumentException if the request body causes an error in the
+     *                                  server
+     */
+    private static void sendPutRequest(WebTarget target, String body) {
+        Invocation.Builder invocationBuilder = target.request(MediaType.APPLICATION_JSON);
+        String error;
         try {
-            invocationBuilder.put(Entity.json(body));
+            error = getError(invocationBuilder.put(Entity.json(body)));
         } catch (ProcessingException e) {
-            throw new IllegalArgumentException("Error code from the server:  " + e.getMessage());
+            error = e.getMessage();
+        }
+        if (null != error) {
+            throw new IllegalArgumentException("Error code from the server:  " + error);
         }
     }
 
@@ -167,10 +260,14 @@ public class MetricsExtractorRestClient {
     private void sendDeleteRequest(String endpoint, String resource) {
         Invocation.Builder invocationBuilder = webTarget.path(endpoint).path(resource).request(
             MediaType.APPLICATION_JSON);
+        String error;
         try {
-            invocationBuilder.delete();
+            error = getError(invocationBuilder.delete());
         } catch (ProcessingException e) {
-            throw new IllegalStateException("Error code from the server:  " + e.getMessage());
+            error = e.getMessage();
+        }
+        if (null != error) {
+            throw new IllegalStateException("Error code from the server:  " + error);
         }
     }
 
@@ -722,6 +819,62 @@ public class MetricsExtractorRestClient {
         return null;
     }
 
+    /**
+     * Updates multiple custom meters with a single request using the REST 
+     * service.<br>
+     * This method is "forced" to follow the AAS signature, so there are some
+     * constraints. This method expects a single argument of type {@link String}
+     * that will represent the body of the HTTP PUT request. Said body is a 
+     * JsonArray of the JsonObjects provided by the updaters of the meter
+     * representations, which may be mixed, see {@link #composeUpdates(MeterRepresentation...)}.
+     * Either all or no updates are applied by the server.
+     * 
+     * @param args object array containing the body of the PUT request
+     * @return NULL, nothing is returned
+     * @throws IllegalArgumentException if the server rejects the updates
+     */
+    public Object updateMeters(Object[] args) {
+        String body = String.valueOf(args[0]);
+        sendPutRequest(batchTarget, body);
+
+        // Nothing is returned
+        return null;
+    }
+
+    /**
+     * Composes the body for {@link #updateMeters(Object[])} from the updaters of 
+     * the given meter representations.
+     * 
+     * @param meters the meter representations
+     * @return the JsonArray of updates
+     */
+    public static String composeUpdates(MeterRepresentation... meters) {
+        JsonArrayBuilder jab = Json.createArrayBuilder();
+        for (MeterRepresentation meter : meters) {
+            jab.add(meter.getUpdater());
+        }
+        return jab.build().toString();
+    }
+
+    /**
+     * Retrieves multiple meters with a single request from the REST service.<br>
+     * For each name, all meters with that name are returned, e.g., all meters
+     * of a family of tagged meters. Unknown meters are skipped.
+     * 
+     * @param names the names of the meters
+     * @return a JsonArray of the JsonObjects representing the meters, <b>null</b>
+     *         if the request failed
+     */
+    public String getMeters(String... names) {
+        Invocation.Builder invocationBuilder = batchTarget.queryParam("name", (Object[]) names)
+            .request(MediaType.APPLICATION_JSON);
+        try {
+            return readEntity(invocationBuilder.get());
+        } catch (ProcessingException e) {
+            return null;
+        }
+    }
+
     /**
      * Retrieves a memory metric from the REST service.<br>
      * The memory metrics exposed by Micrometer use the same tags, so this method is
@@ -0,0 +1,317 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+
+/**
+ * Incrementally maintains rollups (count, sum, average, maximum) of the latest values of a metric over all sources,
+ * e.g., devices or services, of a group. Updating a value only adjusts the affected rollup, i.e., the costs of an 
+ * update do not depend on the number of sources unless the maximum decreases. Metrics are named by 
+ * {@link MetricsSnapshot.MeterDescriptor#getMetricName(int)} including the meter tags. Non-finite values are not 
+ * rolled up. Sources are grouped by their default group, e.g., devices or services as given by the receiving channel,
+ * unless a {@link #setGroup(String, String) group is defined} for them, e.g., the device or service type. The 
+ * default instance is fed by {@link MetricsRollupRecorder} and published by {@link MetricsRollupAas}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsRollup {
+
+    private static MetricsRollup instance = new MetricsRollup();
+
+    private final Map<String, Map<String, Rollup>> rollups = new HashMap<>();
+    private final Map<String, String> groups = new HashMap<>();
+    private final Map<String, String> sourceGroups = new HashMap<>();
+
+    /**
+     * The rollup of a metric within a group.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Rollup {
+
+        private final Map<String, Double> values = new HashMap<>();
+        private double sum;
+        private double max = Double.NEGATIVE_INFINITY;
+        private String maxSource;
+
+        /**
+         * Sets the value of a source. Non-finite values, e.g., a CPU usage that is not yet known, remove the value of
+         * the source as they would spoil the sum for all subsequent updates.
+         *
+         * @param source the source
+         * @param value the new value
+         */
+        private void set(String source, double value) {
+            if (!Double.isFinite(value)) {
+                remove(source);
+            } else {
+                Double old = values.put(source, value);
+                sum += value - (null == old ? 0 : old);
+                if (value >= max) {
+                    max = value;
+                    maxSource = source;
+                } else if (source.equals(maxSource)) {
+                    updateMax();
+                }
+            }
+        }
+
+        /**
+         * Removes the value of a source.
+         *
+         * @param source the source
+         */
+        private void remove(String source) {
+            Double old = values.remove(source);
+            if (null != old) {
+                sum -= old;
+                if (source.equals(maxSource)) {
+                    updateMax();
+                }
+            }
+        }
+
+        /**
+         * Determines the maximum over all values.
+         */
+        private void updateMax() {
+            max = Double.NEGATIVE_INFINITY;
+            maxSource = null;
+            for (Map.Entry<String, Double> ent : values.entrySet()) {
+                if (ent.getValue() >= max) {
+                    max = ent.getValue();
+                    maxSource = ent.getKey();
+                }
+            }
+            if (values.isEmpty()) {
+                sum = 0; // avoid accumulated rounding errors
+            }
+        }
+
+    }
+
+    /**
+     * The published state of a rollup.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public static class RollupValue {
+
+        private int count;
+        private double sum;
+        private double avg;
+        private double max;
+
+        /**
+         * Creates a rollup value.
+         *
+         * @param rollup the rollup to take the values from
+         */
+        private RollupValue(Rollup rollup) {
+            count = rollup.values.size();
+            sum = rollup.sum;
+            avg = 0 == count ? 0 : sum / count;
+            max = 0 == count ? 0 : rollup.max;
+        }
+
+        /**
+         * Returns the number of sources.
+         *
+         * @return the number of sources
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the sum of the values of all sources.
+         *
+         * @return the sum
+         */
+        public double getSum() {
+            return sum;
+        }
+
+        /**
+         * Returns the average of the values of all sources.
+         *
+         * @return the average, {@code 0} if there are no sources
+         */
+        public double getAvg() {
+            return avg;
+        }
+
+        /**
+         * Returns the maximum of the values of all sources.
+         *
+         * @return the maximum, {@code 0} if there are no sources
+         */
+        public double getMax() {
+            return max;
+        }
+
+    }
+
+    /**
+     * Returns the default instance.
+     *
+     * @return the default instance
+     */
+    public static MetricsRollup getInstance() {
+        return instance;
+    }
+
+    /**
+     * Defines the group of a source, overriding its default group. Values already received for {@code source} are
+     * moved to {@code group}.
+     *
+     * @param source the source, e.g., the device or service id
+     * @param group the group, e.g., the device or service type, <b>null</b> to use the default group with the next 
+     *     update of {@code source}
+     */
+    public synchronized void setGroup(String source, String group) {
+        if (null == group) {
+            groups.remove(source);
+        } else {
+            groups.put(source, group);
+            String oldGroup = sourceGroups.get(source);
+            Map<String, Rollup> from = null == oldGroup ? null : rollups.get(oldGroup);
+            if (null != from && !oldGroup.equals(group)) {
+                Map<String, Rollup> to = rollups.computeIfAbsent(group, g -> new HashMap<>());
+                for (Map.Entry<String, Rollup> ent : from.entrySet()) {
+                    Double value = ent.getValue().values.get(source);
+                    if (null != value) {
+                        to.computeIfAbsent(ent.getKey(), m -> new Rollup()).set(source, value);
+                    }
+                }
+                remove(oldGroup, source);
+                sourceGroups.put(source, group);
+            }
+        }
+    }
+
+    /**
+     * Takes over the values of a meter of a source.
+     *
+     * @param source the source, e.g., the device or service id
+     * @param defaultGroup the group of {@code source} if no group is {@link #setGroup(String, String) defined}
+     * @param descriptor the meter descriptor
+     * @param values the meter values in the sequence of the statistics of {@code descriptor}
+     */
+    public synchronized void update(String source, String defaultGroup, MetricsSnapshot.MeterDescriptor descriptor, 
+        double[] values) {
+        String group = groups.getOrDefault(source, defaultGroup);
+        String oldGroup = sourceGroups.put(source, group);
+        if (null != oldGroup && !oldGroup.equals(group)) {
+            remove(oldGroup, source);
+        }
+        Map<String, Rollup> groupRollups = rollups.computeIfAbsent(group, g -> new HashMap<>());
+        int count = Math.min(values.length, descriptor.getStatisticsCount());
+        for (int v = 0; v < count; v++) {
+            groupRollups.computeIfAbsent(descriptor.getMetricName(v), m -> new Rollup()).set(source, values[v]);
+        }
+    }
+
+    /**
+     * Removes all values of a source, e.g., if a device or service was removed or before a full update.
+     *
+     * @param source the source
+     */
+    public synchronized void remove(String source) {
+        String group = sourceGroups.remove(source);
+        if (null != group) {
+            remove(group, source);
+        }
+    }
+
+    /**
+     * Removes all values of a source from the rollups of a group.
+     *
+     * @param group the group
+     * @param source the source
+     */
+    private void remove(String group, String source) {
+        Map<String, Rollup> groupRollups = rollups.get(group);
+        if (null != groupRollups) {
+            Iterator<Rollup> iter = groupRollups.values().iterator();
+            while (iter.hasNext()) {
+                Rollup rollup = iter.next();
+                rollup.remove(source);
+                if (rollup.values.isEmpty()) {
+                    iter.remove();
+                }
+            }
+            if (groupRollups.isEmpty()) {
+                rollups.remove(group);
+            }
+        }
+    }
+
+    /**
+     * Returns the rollup of a metric.
+     *
+     * @param group the group
+     * @param metric the metric name
+     * @return the rollup, <b>null</b> if there is none
+     */
+    public synchronized RollupValue getRollup(String group, String metric) {
+        Map<String, Rollup> groupRollups = rollups.get(group);
+        Rollup rollup = null == groupRollups ? null : groupRollups.get(metric);
+        return null == rollup ? null : new RollupValue(rollup);
+    }
+
+    /**
+     * Returns the rollups of a group.
+     *
+     * @param group the group
+     * @return the rollups by metric name in ascending order, empty if the group is unknown
+     */
+    public synchronized Map<String, RollupValue> getRollups(String group) {
+        Map<String, RollupValue> result = new TreeMap<>();
+        Map<String, Rollup> groupRollups = rollups.get(group);
+        if (null != groupRollups) {
+            for (Map.Entry<String, Rollup> ent : groupRollups.entrySet()) {
+                result.put(ent.getKey(), new RollupValue(ent.getValue()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns all rollups.
+     *
+     * @return the rollups by group and metric name in ascending order
+     */
+    public synchronized Map<String, Map<String, RollupValue>> getRollups() {
+        Map<String, Map<String, RollupValue>> result = new TreeMap<>();
+        for (String group : rollups.keySet()) {
+            result.put(group, getRollups(group));
+        }
+        return result;
+    }
+
+    /**
+     * Clears all rollups and group definitions.
+     */
+    public synchronized void clear() {
+        rollups.clear();
+        sourceGroups.clear();
+        groups.clear();
+    }
+
+}
@@ -0,0 +1,88 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
+
+import static de.iip_ecosphere.platform.support.iip_aas.AasUtils.*;
+
+import de.iip_ecosphere.platform.support.aas.Aas;
+import de.iip_ecosphere.platform.support.aas.Aas.AasBuilder;
+import de.iip_ecosphere.platform.support.aas.InvocablesCreator;
+import de.iip_ecosphere.platform.support.aas.ProtocolServerBuilder;
+import de.iip_ecosphere.platform.support.aas.Submodel.SubmodelBuilder;
+import de.iip_ecosphere.platform.support.aas.Type;
+import de.iip_ecosphere.platform.support.iip_aas.AasContributor;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonResultWrapper;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonUtils;
+
+/**
+ * Builds an active AAS submodel publishing the {@link MetricsRollup#getInstance() default metrics rollup}, i.e., 
+ * one remote call instead of one per device or service. The {@link #NAME_PROP_ROLLUPS rollups property} contains 
+ * all rollups by group and metric, the {@link #OP_GET_GROUP_ROLLUPS operation} the rollups of a single group, 
+ * wrapped by {@link JsonResultWrapper}. Values are in JSON, each rollup with count, sum, avg and max. Not registered
+ * here as contributor, shall be contributed only by the component running the {@link MetricsRollupRecorder} for the
+ * default rollup, e.g., the central monitoring.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsRollupAas implements AasContributor {
+
+    public static final String NAME_SUBMODEL = "metricsRollup";
+    public static final String NAME_PROP_ROLLUPS = "rollups";
+    public static final String OP_GET_GROUP_ROLLUPS = "getGroupRollups";
+
+    @Override
+    public Aas contributeTo(AasBuilder aasBuilder, InvocablesCreator iCreator) {
+        SubmodelBuilder smB = aasBuilder.createSubmodelBuilder(NAME_SUBMODEL, null);
+        if (smB.isNew()) { // incremental remote deployment, avoid double creation
+            smB.createPropertyBuilder(NAME_PROP_ROLLUPS)
+                .setType(Type.STRING)
+                .bind(iCreator.createGetter(getQName(NAME_PROP_ROLLUPS)), InvocablesCreator.READ_ONLY)
+                .build();
+            smB.createOperationBuilder(OP_GET_GROUP_ROLLUPS)
+                .addInputVariable("group", Type.STRING)
+                .addOutputVariable("result", Type.STRING)
+                .setInvocable(iCreator.createInvocable(getQName(OP_GET_GROUP_ROLLUPS)))
+                .build();
+            smB.build();
+        }
+        return null;
+    }
+
+    @Override
+    public void contributeTo(ProtocolServerBuilder sBuilder) {
+        sBuilder.defineProperty(getQName(NAME_PROP_ROLLUPS), 
+            () -> JsonUtils.toJson(MetricsRollup.getInstance().getRollups()), null);
+        sBuilder.defineOperation(getQName(OP_GET_GROUP_ROLLUPS), 
+            new JsonResultWrapper(p -> JsonUtils.toJson(MetricsRollup.getInstance().getRollups(readString(p, 0)))));
+    }
+
+    /**
+     * Returns the qualified name for an operation/property implementation.
+     * 
+     * @param elementName the element name
+     * @return the qualified name
+     */
+    public static String getQName(String elementName) {
+        return NAME_SUBMODEL + "_" + elementName;
+    }
+
+    @Override
+    public Kind getKind() {
+        return Kind.ACTIVE;
+    }
+
+    @Override
+    public boolean isValid() {
+        return true;
+    }
+
+}
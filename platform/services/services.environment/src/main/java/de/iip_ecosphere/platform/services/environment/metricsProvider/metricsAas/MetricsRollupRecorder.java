@@ -0,0 +1,154 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
+import de.iip_ecosphere.platform.transport.TransportFactory;
+import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
+import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.TransportSetup;
+
+/**
+ * Feeds a {@link MetricsRollup} with the {@link MetricsSnapshot metrics snapshots} sent by the ECS runtimes and the
+ * services on the metrics transport channels. Each sender is rolled up as soon as its first snapshot is received,
+ * i.e., independent of AAS getters accessing its metrics. Sources are named by
+ * {@link MetricsAasConstructor#getRollupSource(String, String) channel and id}, their default groups are
+ * {@link MetricsAasConstants#ROLLUP_GROUP_DEVICES} (ECS metrics channel),
+ * {@link MetricsAasConstants#ROLLUP_GROUP_SERVICES} (service metrics channel) or the channel name. There shall be
+ * only one recorder per rollup, typically for the {@link MetricsRollup#getInstance() default rollup} in the
+ * component that also contributes the {@link MetricsRollupAas}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsRollupRecorder {
+
+    private static final String[] CHANNELS = {MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL,
+        MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL};
+
+    private MetricsRollup rollup;
+    private Map<String, ReceivedMetrics> holders = new ConcurrentHashMap<>();
+    private TransportConnector connector;
+
+    /**
+     * Creates a recorder.
+     *
+     * @param rollup the rollup to feed
+     */
+    public MetricsRollupRecorder(MetricsRollup rollup) {
+        this.rollup = rollup;
+    }
+
+    /**
+     * Starts recording. Does nothing if the recorder is already started.
+     *
+     * @param setup the transport setup
+     * @throws IOException if connecting to the transport layer fails
+     */
+    public void start(TransportSetup setup) throws IOException {
+        if (null == connector) {
+            MetricsSnapshotSerializer.register();
+            TransportConnector conn = TransportFactory.createConnector();
+            conn.connect(setup.createParameter());
+            for (String channel : CHANNELS) {
+                conn.setReceptionCallback(channel, new RollupReceptionCallback(channel));
+            }
+            connector = conn;
+        }
+    }
+
+    /**
+     * Stops recording and removes the recorded sources from the rollup. Does nothing if the recorder is not started.
+     *
+     * @throws IOException if disconnecting from the transport layer fails
+     */
+    public void stop() throws IOException {
+        if (null != connector) {
+            TransportConnector conn = connector;
+            connector = null;
+            try {
+                conn.disconnect();
+            } finally {
+                for (String source : holders.keySet()) {
+                    rollup.remove(source);
+                }
+                holders.clear();
+            }
+        }
+    }
+
+    /**
+     * Records a snapshot received on {@code channel}.
+     *
+     * @param channel the channel
+     * @param snapshot the snapshot
+     * @return {@code true} if the snapshot was taken over, {@code false} if it was ignored, e.g., as it has no id or
+     *     is outdated
+     */
+    public boolean record(String channel, MetricsSnapshot snapshot) {
+        boolean result = false;
+        if (null != snapshot.getId()) {
+            ReceivedMetrics holder = holders.computeIfAbsent(
+                MetricsAasConstructor.getRollupSource(channel, snapshot.getId()), s -> createHolder(channel, s));
+            result = holder.update(snapshot);
+        }
+        return result;
+    }
+
+    /**
+     * Creates a holder passing the received values of {@code source} on to the rollup.
+     *
+     * @param channel the channel
+     * @param source the source name
+     * @return the holder
+     */
+    private ReceivedMetrics createHolder(String channel, String source) {
+        ReceivedMetrics result = new ReceivedMetrics();
+        result.setRollup(rollup, source, MetricsAasConstructor.getRollupGroup(channel));
+        return result;
+    }
+
+    /**
+     * Records snapshots received on a channel.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private class RollupReceptionCallback implements ReceptionCallback<MetricsSnapshot> {
+
+        private String channel;
+
+        /**
+         * Creates a callback.
+         *
+         * @param channel the channel the callback is registered for
+         */
+        private RollupReceptionCallback(String channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void received(MetricsSnapshot data) {
+            record(channel, data);
+        }
+
+        @Override
+        public Class<MetricsSnapshot> getType() {
+            return MetricsSnapshot.class;
+        }
+
+    }
+
+}
@@ -0,0 +1,279 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonReader;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonWriter;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+
+/**
+ * Holds the metrics received from {@link MetricsProvider#toJson(String, boolean)} in terms of the textual JSON
+ * values of the individual meters and lists or from {@link MetricsProvider#toSnapshot(String, boolean)} in terms of
+ * the meter dictionary and the meter values. Full snapshots (or received data without
+ * {@link MetricsProvider#FULL_SNAPSHOT} information) replace all values unless they are older than the held values.
+ * Deltas just replace the contained meters in place if they are more recent than the held values, outdated deltas,
+ * deltas without prior full snapshot and binary deltas referring to an unknown dictionary are ignored. Values can be
+ * read concurrently to updates. Values received in binary form are turned into JSON only when they are requested
+ * and, if {@link #setRollup(MetricsRollup, String, String) requested}, are passed on to a {@link MetricsRollup}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class ReceivedMetrics {
+
+    private static final SnapshotMeter[] NO_DICTIONARY = new SnapshotMeter[0];
+
+    private volatile Map<String, Object> meters = new ConcurrentHashMap<>(); // String or SnapshotMeter
+    private volatile Map<String, String> lists = new ConcurrentHashMap<>();
+    private SnapshotMeter[] dictionary = NO_DICTIONARY;
+    private long dictionarySequence = -1;
+    private long sequence;
+    private boolean initialized;
+    private MetricsRollup rollup;
+    private String rollupSource;
+    private String rollupGroup;
+
+    /**
+     * A meter received via a {@link MetricsSnapshot}.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class SnapshotMeter {
+
+        private MetricsSnapshot.MeterDescriptor descriptor;
+        private double[] values;
+
+        /**
+         * Creates a snapshot meter.
+         *
+         * @param descriptor the meter descriptor
+         */
+        private SnapshotMeter(MetricsSnapshot.MeterDescriptor descriptor) {
+            this.descriptor = descriptor;
+            this.values = new double[descriptor.getStatisticsCount()];
+        }
+
+        /**
+         * Takes over the values of a meter in place.
+         *
+         * @param snapshot the snapshot
+         * @param meter the meter position in {@code snapshot}
+         */
+        private synchronized void set(MetricsSnapshot snapshot, int meter) {
+            int count = Math.min(values.length, snapshot.getValueCount(meter));
+            for (int v = 0; v < count; v++) {
+                values[v] = snapshot.getValue(meter, v);
+            }
+        }
+
+        /**
+         * Turns the meter into JSON.
+         *
+         * @return the JSON representation
+         */
+        private synchronized String toJson() {
+            StringBuilder sb = new StringBuilder();
+            MetricsJsonWriter.appendMeter(sb, descriptor, values);
+            return sb.toString();
+        }
+
+    }
+
+    /**
+     * Defines the rollup to pass values received via {@link #update(MetricsSnapshot)} on to.
+     *
+     * @param rollup the rollup, may be <b>null</b> for none
+     * @param source the source to pass the values for
+     * @param group the default group of {@code source}
+     */
+    public synchronized void setRollup(MetricsRollup rollup, String source, String group) {
+        this.rollup = rollup;
+        this.rollupSource = source;
+        this.rollupGroup = group;
+    }
+
+    /**
+     * Updates the held values from {@code reader}. Reads until the end of the document. Header entries, i.e.,
+     * {@link MetricsProvider#SEQUENCE} and {@link MetricsProvider#FULL_SNAPSHOT} are expected before the first
+     * meter or list as written by {@link MetricsProvider#toJson(String, boolean)}.
+     *
+     * @param reader the reader, may already be positioned after the identifier
+     * @return {@code true} if the data was taken over, {@code false} if it was ignored
+     * @throws IOException if the data cannot be read
+     */
+    public synchronized boolean update(MetricsJsonReader reader) throws IOException {
+        long seq = 0;
+        boolean full = true;
+        Boolean accept = null;
+        Map<String, Object> newMeters = meters;
+        Map<String, String> newLists = lists;
+        while (reader.next()) {
+            MetricsJsonReader.Kind kind = reader.getKind();
+            if (MetricsJsonReader.Kind.SEQUENCE == kind) {
+                seq = reader.getLongValue();
+            } else if (MetricsJsonReader.Kind.FULL == kind) {
+                full = reader.getBooleanValue();
+            } else if (MetricsJsonReader.Kind.METER == kind || MetricsJsonReader.Kind.LIST == kind) {
+                if (null == accept) {
+                    accept = accept(seq, full);
+                    if (full) {
+                        newMeters = new ConcurrentHashMap<>();
+                        newLists = new ConcurrentHashMap<>();
+                    }
+                }
+                if (accept) {
+                    if (MetricsJsonReader.Kind.METER == kind) {
+                        newMeters.put(reader.getName(), reader.getValue());
+                    } else {
+                        newLists.put(reader.getName(), reader.getValue());
+                    }
+                }
+            }
+        }
+        if (null == accept) { // no meters at all
+            accept = accept(seq, full);
+            if (full) {
+                newMeters = new ConcurrentHashMap<>();
+                newLists = new ConcurrentHashMap<>();
+            }
+        }
+        if (accept) {
+            meters = newMeters;
+            lists = newLists;
+            if (full) {
+                dictionary = NO_DICTIONARY;
+                dictionarySequence = -1;
+            }
+            sequence = seq;
+            initialized = true;
+        }
+        return accept;
+    }
+
+    /**
+     * Updates the held values from {@code snapshot}. Values of deltas are taken over in place.
+     *
+     * @param snapshot the snapshot
+     * @return {@code true} if the data was taken over, {@code false} if it was ignored
+     */
+    public synchronized boolean update(MetricsSnapshot snapshot) {
+        boolean accept;
+        if (!accept(snapshot.getSequence(), snapshot.isFull())) {
+            accept = false;
+        } else if (snapshot.isFull()) {
+            List<MetricsSnapshot.MeterDescriptor> descriptors = snapshot.getDictionary();
+            SnapshotMeter[] dict = new SnapshotMeter[descriptors.size()];
+            Map<String, Object> newMeters = new ConcurrentHashMap<>();
+            for (int d = 0; d < dict.length; d++) {
+                MetricsSnapshot.MeterDescriptor desc = descriptors.get(d);
+                dict[d] = new SnapshotMeter(desc);
+                newMeters.put(desc.getKey(), dict[d]);
+                newMeters.putIfAbsent(desc.getName(), dict[d]); // first tagged meter also by plain name
+            }
+            if (null != rollup) {
+                rollup.remove(rollupSource);
+            }
+            setValues(dict, snapshot);
+            meters = newMeters;
+            lists = new ConcurrentHashMap<>(snapshot.getLists());
+            dictionary = dict;
+            dictionarySequence = snapshot.getSequence();
+            accept = true;
+        } else {
+            accept = snapshot.getDictionarySequence() == dictionarySequence;
+            if (accept) {
+                setValues(dictionary, snapshot);
+            }
+        }
+        if (accept) {
+            sequence = snapshot.getSequence();
+            initialized = true;
+        }
+        return accept;
+    }
+
+    /**
+     * Takes over the values in {@code snapshot} into the meters of {@code dict} and passes them on to the rollup.
+     *
+     * @param dict the dictionary
+     * @param snapshot the snapshot
+     */
+    private void setValues(SnapshotMeter[] dict, MetricsSnapshot snapshot) {
+        for (int m = 0; m < snapshot.getMeterCount(); m++) {
+            int index = snapshot.getMeterIndex(m);
+            if (index < dict.length) {
+                SnapshotMeter meter = dict[index];
+                meter.set(snapshot, m);
+                if (null != rollup) {
+                    rollup.update(rollupSource, rollupGroup, meter.descriptor, meter.values);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns whether data with the given header shall be taken over. Full snapshots are taken over unless they 
+     * are older than the held values, deltas only if they are more recent than the held values.
+     *
+     * @param seq the sequence number of the data
+     * @param full whether the data is a full snapshot
+     * @return {@code true} for take over, {@code false} for ignore
+     */
+    private boolean accept(long seq, boolean full) {
+        return full ? !initialized || seq >= sequence : initialized && seq > sequence;
+    }
+
+    /**
+     * Returns the sequence number of the last data taken over.
+     *
+     * @return the sequence number, 0 if none was received so far or the data had no sequence number
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns a list value.
+     *
+     * @param name the name of the list, see {@link MetricsProvider}
+     * @return the list value or an empty string
+     */
+    public String getList(String name) {
+        String result = lists.get(name);
+        return null == result ? "" : result;
+    }
+
+    /**
+     * Returns a meter value. Tagged meters received via {@link #update(MetricsSnapshot)} are available by their
+     * {@link MetricsSnapshot.MeterDescriptor#getKey() key}, the first of them also by its plain name.
+     *
+     * @param name the name of the registered meter, see, e.g., {@link MetricsProvider}, or the key of a tagged meter
+     * @return the meter value or an empty string
+     */
+    public String getMeter(String name) {
+        Object meter = meters.get(name);
+        String result;
+        if (meter instanceof SnapshotMeter) {
+            result = ((SnapshotMeter) meter).toJson();
+        } else {
+            result = null == meter ? "" : meter.toString();
+        }
+        return result;
+    }
+
+}
@@ -0,0 +1,132 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.CounterHandle;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.GaugeHandle;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.TimerHandle;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests the meter handles and the concurrent use of the custom meters of {@link MetricsProvider}. The timing test is
+ * a coarse micro benchmark comparing updates via identifiers and via handles, it only asserts the results.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MeterHandleTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS = 50000;
+
+    /**
+     * Tests the handles.
+     */
+    @Test
+    public void testHandles() {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        CounterHandle counter = provider.getCounterHandle("counter");
+        assertEquals("counter", counter.getId());
+        counter.increment();
+        counter.increment(2);
+        assertEquals(3, counter.count(), 0);
+        assertEquals(3, provider.getCounterValue("counter"), 0);
+        assertThrows(IllegalArgumentException.class, () -> counter.increment(-1));
+
+        TimerHandle timer = provider.getTimerHandle("timer");
+        assertEquals("timer", timer.getId());
+        timer.record(5, TimeUnit.MILLISECONDS);
+        timer.record(() -> { });
+        assertEquals(Integer.valueOf(1), timer.record(() -> 1));
+        assertEquals(3, timer.count());
+        assertEquals(3, provider.getTimerCount("timer"));
+        assertTrue(timer.totalTime() > 0);
+        assertThrows(IllegalArgumentException.class, () -> timer.record(-1, TimeUnit.MILLISECONDS));
+        assertThrows(IllegalArgumentException.class, () -> timer.record(1, null));
+
+        GaugeHandle gauge = provider.getGaugeHandle("gauge");
+        assertEquals("gauge", gauge.getId());
+        assertEquals(0, gauge.get(), 0);
+        gauge.set(4);
+        assertEquals(4, provider.getGaugeValue("gauge"), 0);
+        provider.addGaugeValue("gauge", 5);
+        assertEquals(5, gauge.get(), 0);
+
+        assertThrows(IllegalArgumentException.class, () -> provider.getCounterHandle(null));
+        assertThrows(IllegalArgumentException.class, () -> provider.getTimerHandle(null));
+        assertThrows(IllegalArgumentException.class, () -> provider.getGaugeHandle(null));
+
+        provider.removeCounter("counter");
+        counter.increment(); // detached
+        assertEquals(0, provider.getCounterValue("counter"), 0);
+        assertEquals(0, provider.getCounterHandle("counter").count(), 0);
+    }
+
+    /**
+     * Tests concurrent counter increments via identifiers and via handles.
+     *
+     * @throws InterruptedException shall not occur
+     */
+    @Test
+    public void testConcurrentIncrements() throws InterruptedException {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        long idTime = runConcurrently(t -> provider.increaseCounter("byId" + (t % 2)));
+        assertEquals(THREADS * INCREMENTS / 2, provider.getCounterValue("byId0"), 0);
+        assertEquals(THREADS * INCREMENTS / 2, provider.getCounterValue("byId1"), 0);
+
+        CounterHandle[] handles = {provider.getCounterHandle("byHandle0"), provider.getCounterHandle("byHandle1")};
+        long handleTime = runConcurrently(t -> handles[t % 2].increment());
+        assertEquals(THREADS * INCREMENTS / 2, provider.getCounterValue("byHandle0"), 0);
+        assertEquals(THREADS * INCREMENTS / 2, provider.getCounterValue("byHandle1"), 0);
+
+        TimerHandle timer = provider.getTimerHandle("timer");
+        runConcurrently(t -> timer.record(1, TimeUnit.MICROSECONDS));
+        assertEquals(THREADS * INCREMENTS, provider.getTimerCount("timer"));
+        System.out.println("Concurrent increments (" + THREADS + " threads x " + INCREMENTS + "): by id "
+            + idTime + " ms, by handle " + handleTime + " ms");
+    }
+
+    /**
+     * Runs {@code action} {@link #INCREMENTS} times in each of {@link #THREADS} threads.
+     *
+     * @param action the action, receives the thread number
+     * @return the time taken in ms
+     * @throws InterruptedException if waiting for a thread is interrupted
+     */
+    private static long runConcurrently(IntConsumer action) throws InterruptedException {
+        Thread[] threads = new Thread[THREADS];
+        for (int t = 0; t < THREADS; t++) {
+            final int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < INCREMENTS; i++) {
+                    action.accept(thread);
+                }
+            });
+        }
+        long start = System.currentTimeMillis();
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+}
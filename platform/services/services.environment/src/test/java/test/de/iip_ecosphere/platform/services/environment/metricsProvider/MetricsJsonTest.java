@@ -0,0 +1,196 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Locale;
+import java.util.Random;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonReader;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonWriter;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.ReceivedMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link MetricsJsonWriter}, {@link MetricsJsonReader} and {@link ReceivedMetrics}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsJsonTest {
+
+    private static final int METERS = 200;
+    private static final int ROUNDS = 500;
+
+    /**
+     * Tests {@link MetricsJsonWriter#appendFixed(StringBuilder, double)} against {@link String#format(String,
+     * Object...)}.
+     */
+    @Test
+    public void testAppendFixed() {
+        double[] exact = {0, -0.0, 1, -1, 0.5, 0.000001, -0.000001, 123.456, 1E-9, -1E-9, 42.1234565,
+            1234567.25, 8.9E12, 1E15, -1E15, 1E19, Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (double v : exact) {
+            assertEquals(String.format(Locale.ROOT, "%f", v), fixed(v));
+        }
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            double v = (random.nextDouble() - 0.5) * Math.pow(10, random.nextInt(18));
+            assertEquals(v, Double.parseDouble(fixed(v)), 0.0000011); // at most the last digit differs
+        }
+    }
+
+    /**
+     * Formats {@code value} via {@link MetricsJsonWriter#appendFixed(StringBuilder, double)}.
+     *
+     * @param value the value
+     * @return the formatted value
+     */
+    private static String fixed(double value) {
+        StringBuilder sb = new StringBuilder();
+        MetricsJsonWriter.appendFixed(sb, value);
+        return sb.toString();
+    }
+
+    /**
+     * Tests {@link MetricsJsonReader}.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testReader() throws IOException {
+        MetricsJsonReader reader = new MetricsJsonReader(" { \"id\" : \"dev\\\"1\", \"seq\":-12,\"full\": false, "
+            + "\"meters\":{\"a\":{\"d\":\"}]\",\"m\":[{\"v\":1}]}, \"b\":{}}, \"x\":null, \"l\":[\"a\",\"b\"]} ");
+        assertNull(reader.getKind());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.ID, reader.getKind());
+        assertEquals("dev\\\"1", reader.getValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.SEQUENCE, reader.getKind());
+        assertEquals(-12, reader.getLongValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.FULL, reader.getKind());
+        assertFalse(reader.getBooleanValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.METER, reader.getKind());
+        assertEquals("a", reader.getName());
+        assertEquals("{\"d\":\"}]\",\"m\":[{\"v\":1}]}", reader.getValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.METER, reader.getKind());
+        assertTrue(reader.isName("b"));
+        assertEquals("{}", reader.getValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.OTHER, reader.getKind());
+        assertEquals("null", reader.getValue());
+        assertTrue(reader.next());
+        assertEquals(MetricsJsonReader.Kind.LIST, reader.getKind());
+        assertEquals("[\"a\",\"b\"]", reader.getValue());
+        assertFalse(reader.next());
+        assertNull(reader.getKind());
+        assertFalse(reader.next());
+
+        reader.reset("{\"meters\":{}}");
+        assertFalse(reader.next());
+        assertIllegal(reader, "[]");
+        assertIllegal(reader, "{\"id\":\"dev\"");
+        assertIllegal(reader, "{\"id\" \"dev\"}");
+        assertIllegal(reader, "{\"meters\":{\"a\":{\"b\":[}}");
+        assertIllegal(reader, "{\"seq\":,}");
+        reader.reset("{\"seq\":true}");
+        assertTrue(reader.next());
+        try {
+            reader.getLongValue();
+            fail("No exception");
+        } catch (IOException e) {
+            // ok
+        }
+    }
+
+    /**
+     * Asserts that reading {@code data} fails.
+     *
+     * @param reader the reader to use
+     * @param data the data
+     */
+    private static void assertIllegal(MetricsJsonReader reader, String data) {
+        reader.reset(data);
+        try {
+            while (reader.next()) {
+                // read all
+            }
+            fail("No exception");
+        } catch (IOException e) {
+            // ok
+        }
+    }
+
+    /**
+     * Compares writing and receiving metrics of a registry with 200 meters via {@link MetricsJsonWriter} and
+     * {@link MetricsJsonReader}/{@link ReceivedMetrics} against a JSON DOM. This is a coarse benchmark rather
+     * than a test, timings are just logged.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testBenchmark() throws IOException {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        for (int m = 0; m < METERS; m++) {
+            provider.addGaugeValue("bench.gauge." + m, m);
+        }
+        provider.setFullSnapshotInterval(ROUNDS * 2);
+        String fullJson = provider.toJson("bench", false);
+        JsonObject full = Json.createReader(new StringReader(fullJson)).readObject();
+        assertEquals(METERS, full.getJsonObject(MetricsProvider.METERS).size());
+
+        ReceivedMetrics received = new ReceivedMetrics();
+        MetricsJsonReader reader = new MetricsJsonReader();
+        long writeTime = 0;
+        long readTime = 0;
+        long domTime = 0;
+        for (int r = 0; r < ROUNDS; r++) {
+            for (int m = 0; m < METERS; m += 10) { // 10% of the meters change per round
+                provider.addGaugeValue("bench.gauge." + ((m + r) % METERS), METERS + r); // new value
+            }
+            long start = System.nanoTime();
+            String json = provider.toJson("bench", r > 0);
+            writeTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            reader.reset(json);
+            assertTrue(reader.next());
+            assertEquals(MetricsJsonReader.Kind.ID, reader.getKind());
+            assertTrue(received.update(reader));
+            readTime += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            JsonObject dom = Json.createReader(new StringReader(json)).readObject();
+            domTime += System.nanoTime() - start;
+            assertEquals(r > 0 ? METERS / 10 : METERS, dom.getJsonObject(MetricsProvider.METERS).size());
+        }
+        for (int m = 0; m < METERS; m++) {
+            JsonObject meter = Json.createReader(new StringReader(received.getMeter("bench.gauge." + m)))
+                .readObject();
+            assertEquals(provider.getGaugeValue("bench.gauge." + m),
+                meter.getJsonArray("measurements").getJsonObject(0).getJsonNumber("value").doubleValue(), 0.000001);
+        }
+        System.out.printf("Metrics JSON, %d meters, %d rounds: write %d ms, read in place %d ms, read DOM %d ms%n",
+            METERS, ROUNDS, writeTime / 1000000, readTime / 1000000, domTime / 1000000);
+    }
+
+}
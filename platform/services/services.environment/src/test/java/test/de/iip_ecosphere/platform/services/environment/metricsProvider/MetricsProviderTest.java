@@ -2,18 +2,28 @@ package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
 
 import static org.junit.Assert.*;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import javax.json.Json;
+import javax.json.JsonArray;
+import javax.json.JsonObject;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import de.iip_ecosphere.platform.services.environment.metricsProvider.CapacityBaseUnit;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonReader;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.ReceivedMetrics;
 import test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils;
 import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
 
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
@@ -290,6 +300,122 @@ public class MetricsProviderTest {
         assertList(provider.getSimpleMeterList(), false);
     }
     
+    /**
+     * Tests the delta encoding of {@link MetricsProvider#toJson(String, boolean)} and merging the results via 
+     * {@link ReceivedMetrics}.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testJsonDelta() throws IOException {
+        assertThrows(IllegalArgumentException.class, () -> provider.setDeltaEpsilon(-1));
+        assertThrows(IllegalArgumentException.class, () -> provider.setFullSnapshotInterval(0));
+        provider.setDeltaEpsilon(0.5);
+        assertEquals(0.5, provider.getDeltaEpsilon(), 0.001);
+        provider.setFullSnapshotInterval(4);
+        assertEquals(4, provider.getFullSnapshotInterval());
+        provider.addGaugeValue(ID_OK, 1.0);
+        provider.addGaugeValue(ID_GOOD, 2.0);
+
+        String fullJson = provider.toJson("dev", false);
+        JsonObject full = readJson(fullJson);
+        assertTrue(full.getBoolean(MetricsProvider.FULL_SNAPSHOT));
+        assertEquals(1, full.getInt(MetricsProvider.SEQUENCE));
+        assertEquals(2, full.getJsonObject(MetricsProvider.METERS).size());
+        assertNotNull(full.getJsonArray(MetricsProvider.GAUGE_LIST));
+        ReceivedMetrics received = new ReceivedMetrics();
+        assertTrue(received.update(new MetricsJsonReader(fullJson)));
+        assertEquals(1, received.getSequence());
+        assertEquals(full.getJsonObject(MetricsProvider.METERS).get(ID_OK), readJson(received.getMeter(ID_OK)));
+        assertTrue(received.getList(MetricsProvider.GAUGE_LIST).contains(ID_GOOD));
+
+        provider.addGaugeValue(ID_OK, 1.2); // below epsilon
+        provider.addGaugeValue(ID_GOOD, 3.0);
+        String deltaJson = provider.toJson("dev", true);
+        JsonObject delta = readJson(deltaJson);
+        assertFalse(delta.getBoolean(MetricsProvider.FULL_SNAPSHOT));
+        assertEquals(2, delta.getInt(MetricsProvider.SEQUENCE));
+        assertNull(delta.getJsonArray(MetricsProvider.GAUGE_LIST));
+        JsonObject meters = delta.getJsonObject(MetricsProvider.METERS);
+        assertEquals(1, meters.size());
+        assertTrue(meters.containsKey(ID_GOOD));
+        assertFalse(new ReceivedMetrics().update(new MetricsJsonReader(deltaJson))); // no full snapshot so far
+        String okMeter = received.getMeter(ID_OK);
+        assertTrue(received.update(new MetricsJsonReader(deltaJson)));
+        assertEquals(2, received.getSequence());
+        assertEquals(meters.get(ID_GOOD), readJson(received.getMeter(ID_GOOD)));
+        assertSame(okMeter, received.getMeter(ID_OK)); // untouched
+        assertTrue(received.getList(MetricsProvider.GAUGE_LIST).length() > 2);
+        assertFalse(received.update(new MetricsJsonReader(deltaJson))); // outdated
+
+        provider.addGaugeValue(ID_OK, 1.6); // accumulated change above epsilon
+        meters = readJson(provider.toJson("dev", true)).getJsonObject(MetricsProvider.METERS);
+        assertEquals(1, meters.size());
+        assertTrue(meters.containsKey(ID_OK));
+        assertEquals(0, readJson(provider.toJson("dev", true)).getJsonObject(MetricsProvider.METERS).size());
+        JsonObject periodic = readJson(provider.toJson("dev", true)); // 4th serialization
+        assertTrue(periodic.getBoolean(MetricsProvider.FULL_SNAPSHOT));
+        assertEquals(2, periodic.getJsonObject(MetricsProvider.METERS).size());
+
+        provider.addGaugeValue(ID_PASSABLE, 0);
+        assertTrue(readJson(provider.toJson("dev", true)).getBoolean(MetricsProvider.FULL_SNAPSHOT)); // new meter
+    }
+
+    /**
+     * Tests {@link MetricsProvider#applyUpdates(String)} and {@link MetricsProvider#getMeters(Iterable)}.
+     */
+    @Test
+    public void testBatch() {
+        assertEquals(3, provider.applyUpdates("[{\"name\":\"" + ID_GOOD + "\",\"value\":2.5},"
+            + "{\"name\":\"" + ID_OK + "\",\"increment\":3},"
+            + "{\"name\":\"" + ID_PASSABLE + "\",\"recordings\":[1000000,3000000]}]"));
+        assertEquals(2.5, provider.getGaugeValue(ID_GOOD), 0);
+        assertEquals(3, provider.getCounterValue(ID_OK), 0);
+        assertEquals(2, provider.getTimerCount(ID_PASSABLE));
+        assertEquals(0, provider.applyUpdates("[]"));
+
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates(null));
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates("{}"));
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates("[{\"name\":\"x\"}]"));
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates("[{\"value\":1}]"));
+        // validated before applied
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates(
+            "[{\"name\":\"" + ID_GOOD + "\",\"value\":7},{\"name\":\"x\",\"increment\":-1}]"));
+        assertEquals(2.5, provider.getGaugeValue(ID_GOOD), 0);
+        // name of existing counter used for a gauge, also within a batch
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates(
+            "[{\"name\":\"" + ID_GOOD + "\",\"value\":7},{\"name\":\"" + ID_OK + "\",\"value\":1}]"));
+        assertThrows(IllegalArgumentException.class, () -> provider.applyUpdates(
+            "[{\"name\":\"" + ID_GOOD + "\",\"value\":7},{\"name\":\"y\",\"value\":1},"
+            + "{\"name\":\"y\",\"increment\":1}]"));
+        assertEquals(2.5, provider.getGaugeValue(ID_GOOD), 0);
+        assertEquals(3, provider.getCounterValue(ID_OK), 0);
+
+        String meters = provider.getMeters(Arrays.asList(ID_GOOD, ID_BAD, ID_PASSABLE));
+        JsonArray array = Json.createReader(new StringReader(meters)).readArray();
+        assertEquals(2, array.size());
+        assertEquals(ID_GOOD, array.getJsonObject(0).getString("name"));
+        assertEquals(ID_PASSABLE, array.getJsonObject(1).getString("name"));
+        assertEquals("[]", provider.getMeters(null));
+
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProvider tagged = createProvider(registry);
+        registry.gauge("family", Tags.of("area", "heap"), 1);
+        registry.gauge("family", Tags.of("area", "nonheap"), 2);
+        array = Json.createReader(new StringReader(tagged.getMeters(Arrays.asList("family")))).readArray();
+        assertEquals(2, array.size()); // all tagged meters
+    }
+
+    /**
+     * Reads a JSON object.
+     * 
+     * @param json the textual JSON
+     * @return the JSON object
+     */
+    private static JsonObject readJson(String json) {
+        return Json.createReader(new StringReader(json)).readObject();
+    }
+
     /**
      * Asserts a List in JsonArray format.
      * 
@@ -19,6 +19,7 @@ import test.de.iip_ecosphere.platform.services.environment.metricsProvider.meter
 import test.de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentations.TimerRepresentationTest;
 import test.de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstructionBundleTest;
 import test.de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsExtractorRestClientTest;
+import test.de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollupTest;
 
 /**
  * Defines the tests to be executed for the metrics provider.
@@ -35,9 +36,16 @@ import test.de.iip_ecosphere.platform.services.environment.metricsProvider.metri
     TimerRepresentationTest.class, 
     
     MetricsProviderTest.class,
+    MetricsJsonTest.class,
+    MetricsSnapshotTest.class,
+    MeterHandleTest.class,
+    SamplingTimerTest.class,
+    OpenMetricsTest.class,
+    SystemMetricsSamplerTest.class,
     
     MetricsExtractorRestClientTest.class,
-    MetricsAasConstructionBundleTest.class
+    MetricsAasConstructionBundleTest.class,
+    MetricsRollupTest.class
 })
 public class MetricsProviderTests {
 }
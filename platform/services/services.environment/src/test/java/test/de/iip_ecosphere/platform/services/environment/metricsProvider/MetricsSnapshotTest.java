@@ -0,0 +1,281 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsJsonReader;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshotSerializer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.ReceivedMetrics;
+import de.iip_ecosphere.platform.transport.serialization.Serializer;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link MetricsSnapshot}, {@link MetricsSnapshotSerializer} and receiving snapshots via
+ * {@link ReceivedMetrics}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsSnapshotTest {
+
+    private static final int METERS = 200;
+
+    /**
+     * Tests serializing and deserializing snapshots.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSerializer() throws IOException {
+        MetricsSnapshotSerializer.register();
+        Serializer<MetricsSnapshot> serializer = SerializerRegistry.getSerializer(MetricsSnapshot.class);
+        assertNotNull(serializer);
+
+        MetricsSnapshot full = new MetricsSnapshot("dev\u00e4", 5);
+        full.addDescriptor(new MetricsSnapshot.MeterDescriptor("a", "desc", null, new String[] {"VALUE"}));
+        full.addDescriptor(new MetricsSnapshot.MeterDescriptor("b", null, "ms", new String[] {"COUNT", "TOTAL",
+            "MAX"}, new String[] {"area", "heap", "id", "eden"}));
+        full.addList(MetricsProvider.GAUGE_LIST, "[\"a\"]");
+        full.startMeter(0);
+        full.addValue(-42);
+        full.startMeter(1);
+        full.addValue(1.5);
+        full.addValue(Double.NaN);
+        full.addValue(0.1);
+        MetricsSnapshot result = serializer.from(serializer.to(full));
+        assertTrue(result.isFull());
+        assertEquals("dev\u00e4", result.getId());
+        assertEquals(5, result.getSequence());
+        assertEquals(2, result.getDictionary().size());
+        MetricsSnapshot.MeterDescriptor desc = result.getDictionary().get(0);
+        assertEquals("a", desc.getName());
+        assertEquals("desc", desc.getDescription());
+        assertNull(desc.getBaseUnit());
+        desc = result.getDictionary().get(1);
+        assertNull(desc.getDescription());
+        assertEquals("ms", desc.getBaseUnit());
+        assertEquals(3, desc.getStatisticsCount());
+        assertEquals("MAX", desc.getStatistic(2));
+        assertEquals(2, desc.getTagCount());
+        assertEquals("id", desc.getTagKey(1));
+        assertEquals("heap", desc.getTagValue(0));
+        assertEquals("b{area=heap,id=eden}", desc.getKey());
+        assertEquals("b.total{area=heap,id=eden}", desc.getMetricName(1));
+        assertEquals("a", result.getDictionary().get(0).getKey());
+        assertEquals(0, result.getDictionary().get(0).getTagCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getDictionary().get(0).getTagKey(0));
+        assertThrows(IllegalArgumentException.class, () -> new MetricsSnapshot.MeterDescriptor("c", null, null, 
+            new String[] {"VALUE"}, new String[] {"area"}));
+        assertEquals("[\"a\"]", result.getLists().get(MetricsProvider.GAUGE_LIST));
+        assertEquals(2, result.getMeterCount());
+        assertEquals(1, result.getValueCount(0));
+        assertEquals(-42, result.getValue(0, 0), 0);
+        assertEquals(1, result.getMeterIndex(1));
+        assertEquals(3, result.getValueCount(1));
+        assertEquals(1.5, result.getValue(1, 0), 0);
+        assertTrue(Double.isNaN(result.getValue(1, 1)));
+        assertEquals(0.1, result.getValue(1, 2), 0); // not a float, exact double
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getValue(0, 1));
+        assertThrows(IndexOutOfBoundsException.class, () -> result.getMeterIndex(2));
+
+        MetricsSnapshot delta = new MetricsSnapshot(null, 7, 5);
+        delta.startMeter(1);
+        delta.addValue(Long.MAX_VALUE);
+        delta.startMeter(0);
+        MetricsSnapshot deltaResult = serializer.clone(delta);
+        assertFalse(deltaResult.isFull());
+        assertNull(deltaResult.getId());
+        assertEquals(7, deltaResult.getSequence());
+        assertEquals(5, deltaResult.getDictionarySequence());
+        assertEquals(0, deltaResult.getDictionary().size());
+        assertEquals(2, deltaResult.getMeterCount());
+        assertEquals(Long.MAX_VALUE, deltaResult.getValue(0, 0), 0);
+        assertEquals(0, deltaResult.getValueCount(1));
+        assertThrows(IllegalStateException.class, () -> new MetricsSnapshot(null, 1).addValue(1));
+
+        assertThrows(IOException.class, () -> serializer.from(new byte[0]));
+        assertThrows(IOException.class, () -> serializer.from(new byte[] {99}));
+        byte[] data = serializer.to(full);
+        byte[] truncated = new byte[data.length - 3];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+        assertThrows(IOException.class, () -> serializer.from(truncated));
+        MetricsSnapshot empty = new MetricsSnapshot(null, 8, 5);
+        empty.startMeter(0);
+        byte[] illegal = serializer.to(empty); // ends with meter index, packing and value count
+        illegal[illegal.length - 2] = 42;
+        assertThrows(IOException.class, () -> serializer.from(illegal));
+    }
+
+    /**
+     * Tests {@link MetricsProvider#toSnapshot(String, boolean)} and receiving the snapshots via
+     * {@link ReceivedMetrics}.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testProviderSnapshots() throws IOException {
+        MetricsSnapshotSerializer serializer = new MetricsSnapshotSerializer();
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.setFullSnapshotInterval(10);
+        provider.addGaugeValue("g1", 1.0);
+        provider.addGaugeValue("g2", 2.25);
+        provider.increaseCounterBy("c1", 3);
+
+        MetricsSnapshot full = serializer.clone(provider.toSnapshot("dev", false));
+        assertTrue(full.isFull());
+        assertEquals(3, full.getDictionary().size());
+        assertEquals(3, full.getMeterCount());
+        ReceivedMetrics received = new ReceivedMetrics();
+        assertFalse(received.update(serializer.clone(provider.toSnapshot("dev", true)))); // delta, no dictionary
+        provider.addGaugeValue("g2", 2.5);
+        MetricsSnapshot delta = serializer.clone(provider.toSnapshot("dev", true));
+        assertFalse(delta.isFull());
+        assertEquals(1, delta.getMeterCount());
+        assertEquals(full.getSequence(), delta.getDictionarySequence());
+
+        assertTrue(received.update(full));
+        assertEquals(full.getSequence(), received.getSequence());
+        assertTrue(received.update(delta));
+        assertFalse(received.update(delta)); // outdated
+        assertEquals(2.5, meterValue(received, "g2"), 0.000001);
+        assertEquals(1.0, meterValue(received, "g1"), 0.000001);
+        assertEquals(3, meterValue(received, "c1"), 0.000001);
+        assertTrue(received.getList(MetricsProvider.GAUGE_LIST).contains("g2"));
+        assertEquals(readJson(provider.getGauge("g2")), readJson(received.getMeter("g2")));
+        assertEquals("", received.getMeter("unknown"));
+
+        MetricsSnapshot foreign = new MetricsSnapshot("dev", delta.getSequence() + 1, delta.getSequence());
+        foreign.startMeter(0);
+        foreign.addValue(100);
+        assertFalse(received.update(foreign)); // unknown dictionary
+
+        provider.addGaugeValue("g3", 3); // new meter, enforces new dictionary
+        MetricsSnapshot full2 = provider.toSnapshot("dev", true);
+        assertTrue(full2.isFull());
+        assertTrue(received.update(full2));
+        assertEquals(3, meterValue(received, "g3"), 0.000001);
+        assertFalse(received.update(full)); // outdated full snapshot
+        assertEquals(full2.getSequence(), received.getSequence());
+        assertEquals(3, meterValue(received, "g3"), 0.000001);
+
+        String json = provider.toJson("dev", false); // JSON resets the binary dictionary in the receiver
+        MetricsJsonReader reader = new MetricsJsonReader(json);
+        assertTrue(received.update(reader));
+        provider.addGaugeValue("g3", 4);
+        assertFalse(received.update(provider.toSnapshot("dev", true)));
+    }
+
+    /**
+     * Tests that meters with the same name but different tags are distinguished in snapshots and on reception.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testTaggedMeters() throws IOException {
+        MetricsSnapshotSerializer serializer = new MetricsSnapshotSerializer();
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProvider provider = new MetricsProvider(registry);
+        registry.gauge("mem", Tags.of("area", "heap"), 10);
+        registry.gauge("mem", Tags.of("area", "nonheap"), 20);
+        MetricsSnapshot full = serializer.clone(provider.toSnapshot("dev", false));
+        int found = 0;
+        for (MetricsSnapshot.MeterDescriptor desc : full.getDictionary()) {
+            if ("mem".equals(desc.getName())) {
+                assertEquals(1, desc.getTagCount());
+                assertEquals("mem{area=" + desc.getTagValue(0) + "}", desc.getKey());
+                found++;
+            }
+        }
+        assertEquals(2, found);
+        ReceivedMetrics received = new ReceivedMetrics();
+        assertTrue(received.update(full));
+        assertEquals(10, meterValue(received, "mem{area=heap}"), 0.000001);
+        assertEquals(20, meterValue(received, "mem{area=nonheap}"), 0.000001);
+        assertNotEquals("", received.getMeter("mem"));
+    }
+
+    /**
+     * Compares the size of the binary and the JSON format on a registry with 200 meters. Uses one provider per 
+     * format as both share the delta state.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSize() throws IOException {
+        MetricsSnapshotSerializer serializer = new MetricsSnapshotSerializer();
+        MetricsProvider jsonProvider = createSizeProvider();
+        MetricsProvider binaryProvider = createSizeProvider();
+        int jsonFull = jsonProvider.toJson("size", false).getBytes(StandardCharsets.UTF_8).length;
+        int binaryFull = serializer.to(binaryProvider.toSnapshot("size", false)).length;
+        for (int m = 0; m < METERS; m += 10) {
+            jsonProvider.addGaugeValue("size.gauge." + m, -m - 1);
+            binaryProvider.addGaugeValue("size.gauge." + m, -m - 1);
+        }
+        int jsonDelta = jsonProvider.toJson("size", true).getBytes(StandardCharsets.UTF_8).length;
+        MetricsSnapshot delta = binaryProvider.toSnapshot("size", true);
+        assertEquals(METERS / 10, delta.getMeterCount());
+        int binaryDelta = serializer.to(delta).length;
+        assertTrue(binaryFull < jsonFull);
+        assertTrue(binaryDelta < jsonDelta);
+        System.out.printf("Metrics, %d meters: JSON full %d bytes, delta %d bytes; binary full %d bytes, "
+            + "delta %d bytes%n", METERS, jsonFull, jsonDelta, binaryFull, binaryDelta);
+    }
+
+    /**
+     * Creates a provider with 200 gauges for {@link #testSize()}.
+     *
+     * @return the provider
+     */
+    private static MetricsProvider createSizeProvider() {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        for (int m = 0; m < METERS; m++) {
+            provider.addGaugeValue("size.gauge." + m, m * 1.5);
+        }
+        return provider;
+    }
+
+    /**
+     * Returns the first measurement value of a received meter.
+     *
+     * @param received the received metrics
+     * @param name the meter name
+     * @return the value
+     */
+    private static double meterValue(ReceivedMetrics received, String name) {
+        return readJson(received.getMeter(name)).getJsonArray("measurements").getJsonObject(0)
+            .getJsonNumber("value").doubleValue();
+    }
+
+    /**
+     * Reads a JSON object.
+     *
+     * @param json the textual JSON
+     * @return the JSON object
+     */
+    private static JsonObject readJson(String json) {
+        return Json.createReader(new StringReader(json)).readObject();
+    }
+
+}
@@ -0,0 +1,113 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.OpenMetricsServer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.OpenMetricsWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link OpenMetricsWriter} and {@link OpenMetricsServer}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class OpenMetricsTest {
+
+    /**
+     * Tests writing meters.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testWriter() throws IOException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProvider provider = new MetricsProvider(registry);
+        provider.addGaugeValue("my.gauge", 1.5);
+        provider.increaseCounterBy("items", 3);
+        provider.recordWithTimer("process", 2, TimeUnit.SECONDS);
+        registry.counter("requests", "path", "/a\"b").increment();
+        registry.counter("requests", "path", "/c").increment(2);
+        registry.gauge("1st", 7);
+
+        StringWriter out = new StringWriter();
+        provider.writeOpenMetrics(out);
+        String text = out.toString();
+        assertTrue(text.contains("# TYPE my_gauge gauge\nmy_gauge 1.5\n"));
+        assertTrue(text.contains("# TYPE items counter\nitems_total 3\n"));
+        assertTrue(text.contains("# TYPE process summary\nprocess_count 1\nprocess_sum 2\n"));
+        assertTrue(text.contains("# TYPE process_max gauge\nprocess_max 2\n"));
+        assertTrue(text.contains("# TYPE requests counter\n")); // once per family
+        assertEquals(text.indexOf("# TYPE requests counter"), text.lastIndexOf("# TYPE requests counter"));
+        assertTrue(text.contains("requests_total{path=\"/a\\\"b\"} 1\n"));
+        assertTrue(text.contains("requests_total{path=\"/c\"} 2\n"));
+        assertTrue(text.contains("_1st 7\n"));
+        assertTrue(text.endsWith("# EOF\n"));
+    }
+
+    /**
+     * Tests the scrape endpoint.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testServer() throws IOException {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.increaseCounterBy("items", 5);
+        OpenMetricsServer server = new OpenMetricsServer(provider, 0);
+        server.start();
+        URL url = new URL("http://localhost:" + server.getPort() + OpenMetricsServer.PATH);
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        assertEquals(200, conn.getResponseCode());
+        assertEquals(OpenMetricsWriter.CONTENT_TYPE, conn.getContentType());
+        String text = read(conn.getInputStream());
+        assertTrue(text.contains("items_total 5\n"));
+        assertTrue(text.endsWith("# EOF\n"));
+
+        conn = (HttpURLConnection) url.openConnection();
+        conn.setRequestMethod("POST");
+        assertEquals(405, conn.getResponseCode());
+        server.stop(true);
+    }
+
+    /**
+     * Reads an input stream completely.
+     *
+     * @param in the input stream, closed afterwards
+     * @return the contents as UTF-8 text
+     * @throws IOException if reading fails
+     */
+    private static String read(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buf = new byte[1024];
+        int read;
+        while ((read = in.read(buf)) > 0) {
+            out.write(buf, 0, read);
+        }
+        in.close();
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,164 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import javax.json.Json;
+import javax.json.JsonObject;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.PercentileHistogram;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.SamplingTimer;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.TimerRepresentation;
+import io.micrometer.core.instrument.MockClock;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link SamplingTimer}, {@link PercentileHistogram} and the sampling timers of {@link MetricsProvider}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class SamplingTimerTest {
+
+    /**
+     * Tests the histogram.
+     */
+    @Test
+    public void testHistogram() {
+        PercentileHistogram histogram = new PercentileHistogram();
+        assertEquals(0, histogram.getValueAtPercentile(0.5));
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i * 1000L);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500000, histogram.getValueAtPercentile(0.5), 500000 * 0.016);
+        assertEquals(990000, histogram.getValueAtPercentile(0.99), 990000 * 0.016);
+        assertEquals(1000000, histogram.getValueAtPercentile(1), 1000000 * 0.016);
+        histogram.record(5);
+        histogram.record(-1);
+        assertEquals(0, histogram.getValueAtPercentile(0.0005));
+        histogram.record(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(1), Long.MAX_VALUE * 0.016);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(0));
+        assertThrows(IllegalArgumentException.class, () -> histogram.getValueAtPercentile(1.5));
+    }
+
+    /**
+     * Tests fixed rate sampling.
+     */
+    @Test
+    public void testFixedRate() {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        provider.recordWithTimer("timer", 1, TimeUnit.MILLISECONDS); // replaced
+        SamplingTimer timer = provider.addSamplingTimer("timer", 10, 0.5, 0.95, 0.999);
+        assertEquals(10, timer.getRate());
+        assertEquals(0, timer.getBudget(), 0);
+        assertEquals("timer.p95", timer.getPercentileName(0.95));
+        assertEquals("timer.p99.9", timer.getPercentileName(0.999));
+        assertEquals(0, provider.getTimerCount("timer"));
+        for (int i = 0; i < 1000; i++) {
+            provider.recordWithTimer("timer", 2, TimeUnit.MILLISECONDS);
+        }
+        assertEquals(Integer.valueOf(1), provider.recordWithTimer("timer", () -> 1));
+        provider.recordWithTimer("timer", () -> { });
+        assertEquals(1002, timer.count());
+        assertEquals(1000, timer.getSampleCount()); // measured durations are not sampled
+        assertEquals(1002, provider.getTimerCount("timer"));
+        assertEquals(1002 * 0.002, provider.getTotalTimeFromTimer("timer"), 0.0001);
+        assertEquals(0.002, provider.getMaxTimeFromTimer("timer"), 0.0001);
+        assertEquals(0.002, provider.getGaugeValue("timer.p95"), 0.002 * 0.016);
+        assertEquals(1, provider.getNumberOfCustomTimers());
+        assertTrue(provider.getCustomTimerList().contains("\"timer\""));
+        assertTrue(provider.getCustomGaugeList().contains("\"timer.p99.9\""));
+
+        String json = provider.toJson("id", false);
+        assertTrue(json.contains("\"timer\""));
+        assertTrue(json.contains("\"timer.p50\""));
+        Timer rep = TimerRepresentation.parseTimer(parse(provider.getTimer("timer")));
+        assertEquals(1002, rep.count());
+        assertNotNull(parse(provider.getGauge("timer.p50")));
+
+        provider.removeTimer("timer");
+        assertEquals(0, provider.getNumberOfCustomTimers());
+        assertEquals("[]", provider.getCustomGaugeList());
+        assertFalse(provider.toJson("id", false).contains("\"timer.p50\""));
+        assertThrows(IllegalArgumentException.class, () -> provider.removeTimer("timer"));
+        assertThrows(IllegalArgumentException.class, () -> provider.addSamplingTimer(null, 1));
+        assertThrows(IllegalArgumentException.class, () -> provider.addSamplingTimer("t", 0));
+        assertThrows(IllegalArgumentException.class, () -> provider.addSamplingTimer("t", 1, 0));
+        assertThrows(IllegalArgumentException.class, () -> provider.addAdaptiveSamplingTimer("t", 0));
+    }
+
+    /**
+     * Tests adaptive sampling, i.e., that a tiny budget for short executions increases the sampling rate.
+     */
+    @Test
+    public void testAdaptive() {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        SamplingTimer timer = provider.addAdaptiveSamplingTimer("timer", 0.0001);
+        assertEquals(1, timer.getRate());
+        for (int i = 0; i < 100000; i++) {
+            provider.recordWithTimer("timer", () -> { });
+        }
+        assertEquals(100000, provider.getTimerCount("timer"));
+        assertTrue(timer.getRate() > 1);
+        assertTrue(timer.getSampleCount() < 100000);
+        assertTrue(provider.getTotalTimeFromTimer("timer") > 0);
+        System.out.println("Adaptive sampling, 100000 executions: rate " + timer.getRate() + ", samples " 
+            + timer.getSampleCount());
+    }
+
+    /**
+     * Tests that only executions timed by the timer are sampled and that the maximum decays.
+     */
+    @Test
+    public void testSamplingAndMaxDecay() {
+        MockClock clock = new MockClock();
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry(SimpleConfig.DEFAULT, clock));
+        SamplingTimer timer = provider.addSamplingTimer("timer", 10);
+        for (int i = 0; i < 100; i++) {
+            provider.recordWithTimer("timer", () -> { });
+        }
+        assertEquals(10, timer.getSampleCount());
+        provider.recordWithTimer("timer", 5, TimeUnit.SECONDS);
+        assertEquals(11, timer.getSampleCount());
+        assertEquals(101, timer.count());
+        assertEquals(5, timer.max(TimeUnit.SECONDS), 0.001);
+        clock.add(2, TimeUnit.MINUTES); // one rotation of the default window, 3 rotations of 2 minutes
+        assertEquals(5, timer.max(TimeUnit.SECONDS), 0.001);
+        clock.add(5, TimeUnit.MINUTES);
+        assertEquals(0, timer.max(TimeUnit.SECONDS), 0);
+        assertEquals(0, provider.getMaxTimeFromTimer("timer"), 0);
+        assertEquals(101, provider.getTimerCount("timer"));
+    }
+
+    /**
+     * Parses a JSON object.
+     * 
+     * @param json the JSON text
+     * @return the JSON object
+     */
+    private static JsonObject parse(String json) {
+        return Json.createReader(new StringReader(json)).readObject();
+    }
+
+}
@@ -0,0 +1,234 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider;
+
+import static org.junit.Assert.*;
+import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.ProcCollector;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.SystemMetricsSampler;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link SystemMetricsSampler} and {@link ProcCollector}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class SystemMetricsSamplerTest {
+
+    /**
+     * Tests the {@link ProcCollector} on a fake proc file system.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testProcCollector() throws IOException {
+        File proc = Files.createTempDirectory("proc").toFile();
+        assertFalse(ProcCollector.isAvailable(proc));
+        writeProc(proc, 100, 1000, 5000);
+        assertTrue(ProcCollector.isAvailable(proc));
+
+        ProcCollector collector = new ProcCollector(proc);
+        collector.collect(1000);
+        assertEquals(2, collector.getCoreCount());
+        assertEquals(0.52, collector.getLoadAverage1(), 0.0001);
+        assertEquals(0.58, collector.getLoadAverage5(), 0.0001);
+        assertEquals(1.5, collector.getLoadAverage15(), 0.0001);
+        assertEquals(1000, collector.getNetworkReceived()); // loopback excluded
+        assertEquals(5000, collector.getNetworkSent());
+        assertEquals(0, collector.getNetworkReceivedRate(), 0);
+
+        writeProc(proc, 150, 3000, 6000); // 50 more busy jiffies of 100 on core 0, 2000 bytes more in 2 s
+        collector.collect(3000);
+        assertEquals(0.5, collector.getCoreUsage(0), 0.0001);
+        assertEquals(0, collector.getCoreUsage(1), 0.0001);
+        assertEquals(0, collector.getCoreUsage(5), 0);
+        assertEquals(0.25, collector.getCpuUsage(), 0.0001);
+        assertEquals(1000, collector.getNetworkReceivedRate(), 0.0001);
+        assertEquals(500, collector.getNetworkSentRate(), 0.0001);
+        collector.close();
+    }
+
+    /**
+     * Writes the fake proc files.
+     *
+     * @param proc the fake proc folder
+     * @param busy the busy jiffies of the first core
+     * @param received the bytes received on the non-loopback interface
+     * @param sent the bytes sent on the non-loopback interface
+     * @throws IOException if writing fails
+     */
+    private static void writeProc(File proc, long busy, long received, long sent) throws IOException {
+        long idle0 = 1000 + (busy - 100); // each sample advances both cores by 100 jiffies
+        long idle1 = 1000 + 2 * (busy - 100);
+        write(new File(proc, "stat"), "cpu  " + busy + " 0 0 " + (idle0 + idle1) + " 0 0 0 0 0 0\n"
+            + "cpu0 " + busy + " 0 0 " + idle0 + " 0 0 0 0 0 0\n"
+            + "cpu1 0 0 0 " + idle1 + " 0 0 0 0 0 0\n"
+            + "intr 1 2 3\nctxt 42\n");
+        new File(proc, "net").mkdirs();
+        write(new File(proc, "net/dev"), "Inter-|   Receive |  Transmit\n"
+            + " face |bytes    packets errs drop fifo frame compressed multicast|bytes packets\n"
+            + "    lo: 99999 1 0 0 0 0 0 0 99999 1 0 0 0 0 0 0\n"
+            + "  eth0: " + received + " 10 0 0 0 0 0 0 " + sent + " 10 0 0 0 0 0 0\n");
+        write(new File(proc, "loadavg"), "0.52 0.58 1.50 2/72 25592\n");
+    }
+
+    /**
+     * Writes a text file.
+     *
+     * @param file the file
+     * @param text the text
+     * @throws IOException if writing fails
+     */
+    private static void write(File file, String text) throws IOException {
+        Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Tests the sampler.
+     *
+     * @throws IOException shall not occur
+     * @throws InterruptedException shall not occur
+     */
+    @Test
+    public void testSampler() throws IOException, InterruptedException {
+        SystemMetricsSampler sampler = new SystemMetricsSampler(null);
+        assertNull(sampler.getProcCollector());
+        assertEquals(0, sampler.getMemoryTotal());
+        sampler.refresh(); // memory is sampled directly, disks in background
+        assertTrue(sampler.getMemoryTotal() > 0);
+        waitFor(() -> sampler.getDiskTotal() > 0);
+        assertTrue(sampler.getDiskTotal() > 0);
+
+        File root = Files.createTempDirectory("root").toFile();
+        sampler.setAsynchronous(false);
+        sampler.setDiskInterval(0);
+        sampler.setRoots(Arrays.asList(root, root));
+        sampler.refresh();
+        long twice = sampler.getDiskTotal();
+        assertTrue(twice > 0);
+        sampler.setRootFilter(f -> false);
+        sampler.refresh();
+        assertEquals(0, sampler.getDiskTotal());
+        sampler.setRootFilter(null);
+        sampler.setRoots(Arrays.asList(root));
+        sampler.refresh();
+        assertEquals(twice / 2, sampler.getDiskTotal());
+
+        sampler.setAsynchronous(true);
+        sampler.setRootFilter(f -> false);
+        sampler.refresh(); // in background
+        waitFor(() -> sampler.getDiskTotal() == 0);
+        assertEquals(0, sampler.getDiskTotal());
+        assertThrows(IllegalArgumentException.class, () -> sampler.setMemoryInterval(-1));
+        assertThrows(IllegalArgumentException.class, () -> sampler.setProcInterval(-1));
+        sampler.close();
+    }
+
+    /**
+     * Tests that a slow disk neither blocks the first refresh nor the samples of the other sources and that a
+     * closed sampler does not sample anymore.
+     *
+     * @throws IOException shall not occur
+     * @throws InterruptedException shall not occur
+     */
+    @Test
+    public void testSlowDisk() throws IOException, InterruptedException {
+        File proc = Files.createTempDirectory("proc").toFile();
+        writeProc(proc, 100, 1000, 5000);
+        SystemMetricsSampler sampler = new SystemMetricsSampler(proc);
+        ProcCollector collector = sampler.getProcCollector();
+        assertNotNull(collector);
+        CountDownLatch release = new CountDownLatch(1);
+        sampler.setRootFilter(f -> {
+            try {
+                release.await(5, TimeUnit.SECONDS); // simulate a slow network mount
+            } catch (InterruptedException e) {
+            }
+            return true;
+        });
+        sampler.setProcInterval(0);
+        sampler.setDiskInterval(0);
+        sampler.refresh(); // returns although disk is blocked
+        assertEquals(0, sampler.getDiskTotal());
+        assertTrue(sampler.getMemoryTotal() > 0);
+        assertEquals(2, collector.getCoreCount()); // proc is sampled directly
+
+        writeProc(proc, 150, 3000, 6000);
+        sampler.refresh(); // proc in background while disk is still blocked
+        waitFor(() -> Math.abs(collector.getCoreUsage(0) - 0.5) < 0.0001);
+        assertEquals(0.5, collector.getCoreUsage(0), 0.0001);
+        assertEquals(0, sampler.getDiskTotal());
+
+        release.countDown();
+        waitFor(() -> sampler.getDiskTotal() > 0);
+        assertTrue(sampler.getDiskTotal() > 0);
+
+        sampler.close();
+        sampler.setRootFilter(f -> false);
+        writeProc(proc, 250, 3000, 6000);
+        sampler.refresh(); // closed, no sampling anymore
+        Thread.sleep(200);
+        assertTrue(sampler.getDiskTotal() > 0);
+        assertEquals(0.5, collector.getCoreUsage(0), 0.0001);
+    }
+
+    /**
+     * Waits for at most 2 seconds until {@code condition} holds.
+     *
+     * @param condition the condition
+     * @throws InterruptedException if waiting is interrupted
+     */
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + 2000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Tests the system metrics in {@link MetricsProvider}.
+     *
+     * @throws InterruptedException shall not occur
+     */
+    @Test
+    public void testProvider() throws InterruptedException {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        MetricsProvider provider = new MetricsProvider(registry);
+        provider.calculateNonNativeSystemMetrics();
+        assertTrue(provider.getRegisteredGaugeValue(MetricsProvider.SYS_MEM_TOTAL) > 0);
+        waitFor(() -> provider.getSystemMetricsSampler().getDiskTotal() > 0); // disks are sampled in background
+        provider.calculateNonNativeSystemMetrics();
+        assertTrue(provider.getRegisteredGaugeValue(MetricsProvider.SYS_DISK_TOTAL) > 0);
+        if (ProcCollector.isAvailable(ProcCollector.PROC)) {
+            assertNotNull(provider.getSystemMetricsSampler().getProcCollector());
+            assertNotNull(registry.find(MetricsProvider.SYS_LOAD_1).gauge());
+            assertNotNull(registry.find(MetricsProvider.SYS_NET_RECEIVED).gauge());
+            assertNotNull(registry.find(MetricsProvider.SYS_CPU_CORE_USAGE).tag(MetricsProvider.TAG_CORE, "0")
+                .gauge());
+        }
+        provider.close();
+    }
+
+}
@@ -12,18 +12,41 @@
 
 package test.de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static test.de.iip_ecosphere.platform.services.environment.metricsProvider.utils.TestUtils.assertThrows;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.json.Json;
+import javax.json.JsonArray;
+
 import org.junit.Test;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.CounterRepresentation;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.meterRepresentation.GaugeRepresentation;
 import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsExtractorRestClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 /**
  * Tests creating a metrics extractor client.
  * 
  * @author Miguel Gomez
  */
+@SuppressWarnings("restriction")
 public class MetricsExtractorRestClientTest {
 
     /**
@@ -58,4 +81,84 @@ public class MetricsExtractorRestClientTest {
     public void testInitHostPortIsNegative() {
         assertThrows(IllegalArgumentException.class, () -> new MetricsExtractorRestClient("localhost", -8080));
     }
+
+    /**
+     * Tests the batch methods against a simple server mimicking the batch endpoint of the metrics provider REST
+     * service.
+     * 
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testBatch() throws IOException {
+        MetricsProvider provider = new MetricsProvider(new SimpleMeterRegistry());
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/batch", ex -> handleBatch(provider, ex));
+        server.start();
+        MetricsExtractorRestClient client = new MetricsExtractorRestClient("localhost", 
+            server.getAddress().getPort());
+
+        GaugeRepresentation gauge = (GaugeRepresentation) GaugeRepresentation.createNewGauge("g");
+        gauge.setValue(4);
+        CounterRepresentation counter = (CounterRepresentation) CounterRepresentation.createNewCounter("c");
+        counter.increment(2);
+        for (int i = 0; i < 3; i++) { // re-uses the connection
+            client.updateMeters(new Object[] {MetricsExtractorRestClient.composeUpdates(gauge, counter)});
+        }
+        assertEquals(4, provider.getGaugeValue("g"), 0);
+        assertEquals(6, provider.getCounterValue("c"), 0);
+
+        JsonArray meters = Json.createReader(new StringReader(client.getMeters("g", "x", "c"))).readArray();
+        assertEquals(2, meters.size());
+        assertEquals("c", meters.getJsonObject(1).getString("name"));
+
+        // gauge named as existing counter, rejected by server, nothing applied
+        GaugeRepresentation clash = (GaugeRepresentation) GaugeRepresentation.createNewGauge("c");
+        clash.setValue(1);
+        assertThrows(IllegalArgumentException.class, () -> client.updateMeters(
+            new Object[] {MetricsExtractorRestClient.composeUpdates(gauge, counter, clash)}));
+        assertEquals(6, provider.getCounterValue("c"), 0);
+        server.stop(0);
+        MetricsExtractorRestClient.close();
+    }
+
+    /**
+     * Handles a batch request.
+     * 
+     * @param provider the provider to apply the request to
+     * @param exchange the HTTP exchange
+     * @throws IOException if reading or writing fails
+     */
+    private static void handleBatch(MetricsProvider provider, HttpExchange exchange) throws IOException {
+        String response = "";
+        int status = 200;
+        if ("PUT".equals(exchange.getRequestMethod())) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            InputStream in = exchange.getRequestBody();
+            byte[] buf = new byte[1024];
+            int read;
+            while ((read = in.read(buf)) > 0) {
+                body.write(buf, 0, read);
+            }
+            try {
+                provider.applyUpdates(new String(body.toByteArray(), StandardCharsets.UTF_8));
+            } catch (IllegalArgumentException e) {
+                status = 400;
+            }
+        } else {
+            List<String> names = new ArrayList<>();
+            String query = exchange.getRequestURI().getRawQuery();
+            for (String param : null == query ? new String[0] : query.split("&")) {
+                if (param.startsWith("name=")) {
+                    names.add(URLDecoder.decode(param.substring(5), "UTF-8"));
+                }
+            }
+            response = provider.getMeters(names);
+        }
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(status, bytes.length > 0 ? bytes.length : -1);
+        OutputStream out = exchange.getResponseBody();
+        out.write(bytes);
+        out.close();
+    }
+
 }
@@ -0,0 +1,170 @@
+/**
+ * ******************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0 which is available 
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas;
+
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsProvider;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.MetricsSnapshot;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsAasConstants;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollup;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollup.RollupValue;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.MetricsRollupRecorder;
+import de.iip_ecosphere.platform.services.environment.metricsProvider.metricsAas.ReceivedMetrics;
+import de.iip_ecosphere.platform.support.iip_aas.json.JsonUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link MetricsRollup} and feeding it via {@link ReceivedMetrics} and {@link MetricsRollupRecorder}.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class MetricsRollupTest {
+
+    private static final String DEVICES = MetricsAasConstants.ROLLUP_GROUP_DEVICES;
+    private static final MetricsSnapshot.MeterDescriptor GAUGE = new MetricsSnapshot.MeterDescriptor("cpu", null, 
+        null, new String[] {"VALUE"});
+
+    /**
+     * Tests the incremental rollups.
+     */
+    @Test
+    public void testRollup() {
+        MetricsRollup rollup = new MetricsRollup();
+        assertNull(rollup.getRollup(DEVICES, "cpu"));
+        rollup.update("dev1", DEVICES, GAUGE, new double[] {0.5});
+        rollup.update("dev2", DEVICES, GAUGE, new double[] {0.7});
+        rollup.update("dev3", DEVICES, GAUGE, new double[] {0.3});
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 3, 1.5, 0.7);
+        rollup.update("dev2", DEVICES, GAUGE, new double[] {0.1}); // max decreases
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 3, 0.9, 0.5);
+        rollup.remove("dev1");
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 2, 0.4, 0.3);
+
+        rollup.setGroup("dev3", "edge");
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 1, 0.1, 0.1);
+        assertRollup(rollup.getRollup("edge", "cpu"), 1, 0.3, 0.3);
+        rollup.update("dev3", DEVICES, GAUGE, new double[] {0.4}); // group is defined
+        assertRollup(rollup.getRollup("edge", "cpu"), 1, 0.4, 0.4);
+        rollup.setGroup("dev3", null);
+        rollup.update("dev3", DEVICES, GAUGE, new double[] {0.2}); // back to default group
+        assertNull(rollup.getRollup("edge", "cpu"));
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 2, 0.3, 0.2);
+
+        MetricsSnapshot.MeterDescriptor timer = new MetricsSnapshot.MeterDescriptor("t", null, "seconds", 
+            new String[] {"COUNT", "TOTAL_TIME", "MAX"});
+        rollup.update("dev1", DEVICES, timer, new double[] {2, 4, 3});
+        assertRollup(rollup.getRollup(DEVICES, "t.total_time"), 1, 4, 4);
+        assertEquals(2, rollup.getRollups(DEVICES).get("cpu").getCount());
+        assertEquals(0, rollup.getRollups("unknown").size());
+        assertTrue(JsonUtils.toJson(rollup.getRollups()).contains("\"t.count\""));
+
+        rollup.update("dev4", DEVICES, GAUGE, new double[] {Double.NaN}); // not yet known, not rolled up
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 2, 0.3, 0.2);
+        rollup.update("dev4", DEVICES, GAUGE, new double[] {0.5});
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 3, 0.8, 0.5);
+        rollup.update("dev4", DEVICES, GAUGE, new double[] {Double.POSITIVE_INFINITY}); // drops value of dev4
+        assertRollup(rollup.getRollup(DEVICES, "cpu"), 2, 0.3, 0.2);
+
+        MetricsSnapshot.MeterDescriptor heap = new MetricsSnapshot.MeterDescriptor("mem", null, null, 
+            new String[] {"VALUE"}, new String[] {"area", "heap"});
+        MetricsSnapshot.MeterDescriptor nonHeap = new MetricsSnapshot.MeterDescriptor("mem", null, null, 
+            new String[] {"VALUE"}, new String[] {"area", "nonheap"});
+        rollup.update("dev1", DEVICES, heap, new double[] {10});
+        rollup.update("dev1", DEVICES, nonHeap, new double[] {20}); // same name, not overwritten
+        assertRollup(rollup.getRollup(DEVICES, "mem{area=heap}"), 1, 10, 10);
+        assertRollup(rollup.getRollup(DEVICES, "mem{area=nonheap}"), 1, 20, 20);
+        rollup.clear();
+        assertEquals(0, rollup.getRollups().size());
+    }
+
+    /**
+     * Tests feeding the rollups from {@link ReceivedMetrics}.
+     */
+    @Test
+    public void testReceivedMetrics() {
+        MetricsRollup rollup = new MetricsRollup();
+        ReceivedMetrics[] holders = new ReceivedMetrics[3];
+        MetricsProvider[] providers = new MetricsProvider[holders.length];
+        for (int h = 0; h < holders.length; h++) {
+            holders[h] = new ReceivedMetrics();
+            holders[h].setRollup(rollup, "dev" + h, DEVICES);
+            providers[h] = new MetricsProvider(new SimpleMeterRegistry());
+            providers[h].addGaugeValue("items", h);
+            providers[h].recordWithTimer("process", 1, TimeUnit.SECONDS);
+            assertTrue(holders[h].update(providers[h].toSnapshot("dev" + h, false)));
+        }
+        assertRollup(rollup.getRollup(DEVICES, "items"), 3, 3, 2);
+        assertRollup(rollup.getRollup(DEVICES, "process.count"), 3, 3, 1);
+
+        providers[0].addGaugeValue("items", 10);
+        assertTrue(holders[0].update(providers[0].toSnapshot("dev0", true))); // delta
+        assertRollup(rollup.getRollup(DEVICES, "items"), 3, 13, 10);
+
+        providers[1].removeGauge("items");
+        assertTrue(holders[1].update(providers[1].toSnapshot("dev1", true))); // becomes full
+        assertRollup(rollup.getRollup(DEVICES, "items"), 2, 12, 10);
+        Map<String, RollupValue> rollups = rollup.getRollups(DEVICES);
+        assertEquals(6.0, rollups.get("items").getAvg(), 0.0001);
+    }
+
+    /**
+     * Tests feeding the rollups from {@link MetricsRollupRecorder} for sources without accessed AAS getters.
+     */
+    @Test
+    public void testRecorder() {
+        MetricsRollup rollup = new MetricsRollup();
+        MetricsRollupRecorder recorder = new MetricsRollupRecorder(rollup);
+        String ecs = MetricsAasConstants.TRANSPORT_ECS_METRICS_CHANNEL;
+        MetricsProvider dev1 = new MetricsProvider(new SimpleMeterRegistry());
+        dev1.addGaugeValue("items", 1);
+        MetricsProvider dev2 = new MetricsProvider(new SimpleMeterRegistry());
+        dev2.addGaugeValue("items", 2);
+        assertTrue(recorder.record(ecs, dev1.toSnapshot("dev1", false)));
+        assertTrue(recorder.record(ecs, dev2.toSnapshot("dev2", false)));
+        assertRollup(rollup.getRollup(DEVICES, "items"), 2, 3, 2);
+
+        dev2.addGaugeValue("items", 5);
+        assertTrue(recorder.record(ecs, dev2.toSnapshot("dev2", true))); // delta
+        assertRollup(rollup.getRollup(DEVICES, "items"), 2, 6, 5);
+        assertFalse(recorder.record(ecs, dev1.toSnapshot(null, false))); // no id, no source
+
+        // same id on the service channel is a different source in a different group
+        assertTrue(recorder.record(MetricsAasConstants.TRANSPORT_SERVICE_METRICS_CHANNEL, 
+            dev1.toSnapshot("dev1", false)));
+        assertRollup(rollup.getRollup(MetricsAasConstants.ROLLUP_GROUP_SERVICES, "items"), 1, 1, 1);
+        assertRollup(rollup.getRollup(DEVICES, "items"), 2, 6, 5);
+    }
+
+    /**
+     * Asserts a rollup.
+     * 
+     * @param rollup the rollup
+     * @param count the expected count
+     * @param sum the expected sum
+     * @param max the expected maximum
+     */
+    private static void assertRollup(RollupValue rollup, int count, double sum, double max) {
+        assertNotNull(rollup);
+        assertEquals(count, rollup.getCount());
+        assertEquals(sum, rollup.getSum(), 0.0001);
+        assertEquals(sum / count, rollup.getAvg(), 0.0001);
+        assertEquals(max, rollup.getMax(), 0.0001);
+    }
+
+}
@@ -96,6 +96,27 @@ public class AasUtils {
         return result;
     }
 
+    /**
+     * Reads the {@code index} argument from {@code} args as long.
+     * 
+     * @param args the array to take the value from 
+     * @param index the 0-based index into {@code} args
+     * @param dflt default value if the {@code index} is wrong, there is no value/null, the value is no long...
+     * @return the value
+     */
+    public static long readLong(Object[] args, int index, long dflt) {
+        Object param = index >= 0 && index < args.length ? args[index] : null;
+        long result = dflt;
+        if (null != param) {
+            try {
+                result = Long.parseLong(param.toString());
+            } catch (NumberFormatException e) {
+                // handled by result = deflt
+            }
+        }
+        return result;
+    }
+
     /**
      * Reads the {@code index} argument from {@code} args as URI.
      * 
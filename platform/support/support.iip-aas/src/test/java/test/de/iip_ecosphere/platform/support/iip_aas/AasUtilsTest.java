@@ -60,6 +60,21 @@ public class AasUtilsTest {
         Assert.assertEquals(5, AasUtils.readInt(args, 1, 0));
     }
 
+    /**
+     * Tests {@link AasUtils#readLong(Object[], int, long)}.
+     */
+    @Test
+    public void testLong() {
+        Object[] noArgs = new Object[0];
+        Object[] args = new Object[2];
+        args[0] = "abba";
+        args[1] = Long.MAX_VALUE;
+        
+        Assert.assertEquals(-1, AasUtils.readLong(noArgs, 1, -1));
+        Assert.assertEquals(-1, AasUtils.readLong(args, 0, -1));
+        Assert.assertEquals(Long.MAX_VALUE, AasUtils.readLong(args, 1, 0));
+    }
+
     /**
      * Tests {@link AasUtils#readUri(Object[], int, URI)}.
      */
@@ -11,9 +11,25 @@
 package de.iip_ecosphere.platform.transport.connectors.rabbitmq;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import com.rabbitmq.client.DeliverCallback;
@@ -21,57 +37,396 @@ import com.rabbitmq.client.DeliverCallback;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
 import de.iip_ecosphere.platform.transport.connectors.impl.AbstractTransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.impl.BatchSendException;
 
 /**
- * Implements an AMQP transport connector based on RabbitMQ.
+ * Implements an AMQP transport connector based on RabbitMQ. As RabbitMQ channels shall not be shared among threads,
+ * a sending thread checks out a channel in publisher confirm mode from a bounded pool (at most 
+ * {@link #getMaxPublishChannels()}) and returns it after publishing. Synchronous sends wait for the confirm of the 
+ * broker on the checked out channel, asynchronous sends are confirmed in the background. Each receiver uses an own 
+ * channel with the {@link TransportParameter#getPrefetch() prefetch} and acknowledges the received messages. Messages 
+ * that cannot be handled by the reception callback are rejected without requeuing.
+ * 
+ * If an {@link TransportParameter#getExchange() exchange} is configured, data is sent to that topic exchange with the
+ * stream name as routing key and each receiver binds an exclusive queue, i.e., all receivers of a stream get the 
+ * data. Otherwise, data is sent via the default exchange to one queue per stream, i.e., receivers compete.
  * 
  * @author Holger Eichelberger, SSE
  */
 public class RabbitMqAmqpTransportConnector extends AbstractTransportConnector {
 
     public static final String NAME = "AMQP";
+    public static final int DEFAULT_MAX_PUBLISH_CHANNELS = 8;
     
     private Connection connection;
-    private Channel channel;
+    private String exchange = "";
+    private int prefetch;
+    private BlockingQueue<PublishChannel> idleChannels = new LinkedBlockingQueue<>();
+    private Semaphore channelPermits = new Semaphore(DEFAULT_MAX_PUBLISH_CHANNELS);
+    private AtomicInteger channelCount = new AtomicInteger();
+    private Map<String, Consumer> consumers = new ConcurrentHashMap<>();
+    private AtomicLong nacked = new AtomicLong();
+
+    /**
+     * A channel for publishing, tracks outstanding asynchronous confirms.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private class PublishChannel implements ConfirmListener {
+
+        private Channel channel;
+        private ConcurrentNavigableMap<Long, String> outstanding = new ConcurrentSkipListMap<>();
+
+        /**
+         * Creates a publish channel.
+         * 
+         * @param channel the channel in confirm mode
+         */
+        private PublishChannel(Channel channel) {
+            this.channel = channel;
+            channel.addConfirmListener(this);
+        }
+
+        /**
+         * Publishes {@code payload} to {@code stream}.
+         * 
+         * @param stream the stream
+         * @param payload the payload
+         * @param track whether the confirm shall be tracked asynchronously
+         * @throws IOException if publishing fails
+         */
+        private void publish(String stream, byte[] payload, boolean track) throws IOException {
+            if (track) {
+                outstanding.put(channel.getNextPublishSeqNo(), stream);
+            }
+            if (exchange.isEmpty()) {
+                declareStream(channel, stream);
+                channel.basicPublish("", stream, null, payload);
+            } else {
+                channel.basicPublish(exchange, stream, null, payload);
+            }
+        }
+
+        /**
+         * Waits for all outstanding publisher confirms of this channel.
+         * 
+         * @throws IOException in case that the broker did not confirm all messages in time
+         */
+        private void waitForConfirms() throws IOException {
+            try {
+                channel.waitForConfirmsOrDie(getActionTimeout());
+            } catch (InterruptedException e) {
+                throw new IOException(e.getMessage(), e);
+            } catch (TimeoutException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Removes the outstanding confirms up to {@code deliveryTag}.
+         * 
+         * @param deliveryTag the delivery tag
+         * @param multiple whether all confirms up to {@code deliveryTag} are meant
+         * @return the affected streams
+         */
+        private Map<Long, String> confirmed(long deliveryTag, boolean multiple) {
+            Map<Long, String> result;
+            if (multiple) {
+                result = outstanding.headMap(deliveryTag, true);
+            } else {
+                result = outstanding.subMap(deliveryTag, true, deliveryTag, true);
+            }
+            return result;
+        }
+
+        @Override
+        public void handleAck(long deliveryTag, boolean multiple) throws IOException {
+            confirmed(deliveryTag, multiple).clear();
+        }
+
+        @Override
+        public void handleNack(long deliveryTag, boolean multiple) throws IOException {
+            Map<Long, String> failed = confirmed(deliveryTag, multiple);
+            nacked.addAndGet(failed.size());
+            for (String stream : failed.values()) {
+                LoggerFactory.getLogger(RabbitMqAmqpTransportConnector.class).error(
+                    "Broker did not accept data sent to " + stream);
+            }
+            failed.clear();
+        }
+
+    }
+
+    /**
+     * A receiver with own channel.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Consumer {
+
+        private Channel channel;
+        private String tag;
+
+        /**
+         * Creates a consumer.
+         * 
+         * @param channel the channel
+         * @param tag the consumer tag
+         */
+        private Consumer(Channel channel, String tag) {
+            this.channel = channel;
+            this.tag = tag;
+        }
+
+        /**
+         * Cancels the consumer and closes the channel.
+         * 
+         * @throws IOException if cancelling fails
+         */
+        private void cancel() throws IOException {
+            try {
+                channel.basicCancel(tag);
+                channel.close();
+            } catch (TimeoutException e) {
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+
+    }
 
     @Override
     public void syncSend(String stream, Object data) throws IOException {
-        send(stream, data, true);
+        byte[] payload = serialize(stream, data);
+        PublishChannel ch = checkoutChannel();
+        try {
+            ch.publish(stream, payload, false);
+            ch.waitForConfirms();
+        } finally {
+            releaseChannel(ch);
+        }
     }
 
     @Override
     public void asyncSend(String stream, Object data) throws IOException {
-        send(stream, data, false);
+        byte[] payload = serialize(stream, data);
+        PublishChannel ch = checkoutChannel();
+        try {
+            ch.publish(stream, payload, true);
+        } finally {
+            releaseChannel(ch);
+        }
     }
-    
+
     /**
-     * Sends data to {@code stream}.
+     * Returns the maximum number of channels used for publishing. Sending threads wait at most the action timeout
+     * for a free channel.
      * 
-     * @param stream the stream to send to
-     * @param data the data to send to {@code stream}
-     * @param block shall this be a blocking call (ignored)
-     * @throws IOException in cases that sending fails
+     * @return the maximum number of channels, by default {@link #DEFAULT_MAX_PUBLISH_CHANNELS}
+     */
+    protected int getMaxPublishChannels() {
+        return DEFAULT_MAX_PUBLISH_CHANNELS;
+    }
+
+    /**
+     * Checks out a publish channel for exclusive use by the calling thread. Reuses an idle open channel or creates a 
+     * new one. Must be {@link #releaseChannel(PublishChannel) released} after use.
+     * 
+     * @return the channel
+     * @throws IOException if no channel becomes available within the action timeout or the channel cannot be created
+     */
+    private PublishChannel checkoutChannel() throws IOException {
+        boolean acquired = false;
+        try {
+            acquired = channelPermits.tryAcquire(getActionTimeout(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // acquired is false
+        }
+        if (!acquired) {
+            throw new IOException("No AMQP publish channel available within " + getActionTimeout() + " ms");
+        }
+        PublishChannel result = idleChannels.poll();
+        while (null != result && !result.channel.isOpen()) {
+            close(result);
+            result = idleChannels.poll();
+        }
+        if (null == result) {
+            try {
+                Channel channel = connection.createChannel();
+                channel.confirmSelect();
+                result = new PublishChannel(channel);
+                channelCount.incrementAndGet();
+            } catch (IOException e) {
+                channelPermits.release();
+                throw e;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a checked out publish channel to the pool. Closed channels are discarded.
+     * 
+     * @param channel the channel
+     */
+    private void releaseChannel(PublishChannel channel) {
+        if (channel.channel.isOpen()) {
+            idleChannels.offer(channel);
+        } else {
+            close(channel);
+        }
+        channelPermits.release();
+    }
+
+    /**
+     * Closes a publish channel and removes it from the channel count.
+     * 
+     * @param channel the channel
+     */
+    private void close(PublishChannel channel) {
+        channelCount.decrementAndGet();
+        try {
+            if (channel.channel.isOpen()) {
+                channel.channel.close();
+            }
+        } catch (IOException | TimeoutException e) {
+            LoggerFactory.getLogger(RabbitMqAmqpTransportConnector.class).warn("Closing channel: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the number of channels currently used for publishing.
+     * 
+     * @return the number of channels
+     */
+    public int getPublishChannelCount() {
+        return channelCount.get();
+    }
+
+    /**
+     * Returns the number of asynchronously sent data items that were not accepted by the broker.
+     * 
+     * @return the number of not accepted items
+     */
+    public long getNackCount() {
+        return nacked.get();
+    }
+
+    /**
+     * Declares the queue for {@code stream} if not already known.
+     * 
+     * @param channel the channel to use
+     * @param stream the stream to declare
+     * @throws IOException in case that declaring fails
      */
-    private void send(String stream, Object data, boolean block) throws IOException {
+    private void declareStream(Channel channel, String stream) throws IOException {
         if (!isStreamKnown(stream)) {
             channel.queueDeclare(stream, false, false, true, null);
             registerStream(stream);
         }
-        // if not known
-        byte[] payload = serialize(stream, data);
-        channel.basicPublish("", stream, null, payload);
+    }
+
+    /**
+     * Publishes all items of the batch and waits for the publisher confirms of the broker in bulk. If an item cannot 
+     * be serialized, the preceding items are sent and reported via a {@link BatchSendException}. As confirms are 
+     * not determined per item, a failing publish or confirm fails the entire batch.
+     * 
+     * @param stream the stream to send to
+     * @param data the data items to send
+     * @throws IOException in case that sending fails or the broker does not confirm all items in time
+     */
+    @Override
+    protected void sendBatchImpl(String stream, List<?> data) throws IOException {
+        List<byte[]> payloads = new ArrayList<>(data.size());
+        IOException failure = null;
+        for (int i = 0; null == failure && i < data.size(); i++) {
+            try {
+                payloads.add(serialize(stream, data.get(i)));
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        PublishChannel ch = checkoutChannel();
+        try {
+            for (byte[] p : payloads) {
+                ch.publish(stream, p, false);
+            }
+            ch.waitForConfirms();
+        } finally {
+            releaseChannel(ch);
+        }
+        if (null != failure) {
+            throw new BatchSendException(failure.getMessage(), payloads.size(), failure);
+        }
+    }
+
+    /**
+     * Waits for the outstanding confirms of asynchronous sends. Only idle channels are checked out and waited for, 
+     * i.e., channels currently used by other threads are not touched.
+     * 
+     * @throws IOException if the broker does not confirm in time
+     */
+    @Override
+    protected void flushImpl() throws IOException {
+        List<PublishChannel> channels = new ArrayList<>();
+        try {
+            for (int i = idleChannels.size(); i > 0 && channelPermits.tryAcquire(); i--) {
+                PublishChannel ch = idleChannels.poll();
+                if (null == ch) {
+                    channelPermits.release();
+                    break;
+                }
+                channels.add(ch);
+                if (ch.channel.isOpen()) {
+                    ch.waitForConfirms();
+                }
+            }
+        } finally {
+            for (PublishChannel ch : channels) {
+                releaseChannel(ch);
+            }
+        }
     }
 
     @Override
     public void setReceptionCallback(String stream, ReceptionCallback<?> callback) throws IOException {
-        if (!isStreamKnown(stream)) {
-            channel.queueDeclare(stream, false, false, true, null);
+        Consumer old = consumers.remove(stream);
+        if (null != old) {
+            old.cancel();
         }
         super.setReceptionCallback(stream, callback);
-        DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-            notifyCallback(delivery.getEnvelope().getRoutingKey(), delivery.getBody());            
-        };
-        channel.basicConsume(stream, true, deliverCallback, consumerTag -> { });
+        if (null != callback) {
+            Channel channel = connection.createChannel();
+            String queue;
+            if (exchange.isEmpty()) {
+                queue = stream;
+                channel.queueDeclare(stream, false, false, true, null);
+            } else {
+                queue = channel.queueDeclare().getQueue();
+                channel.queueBind(queue, exchange, stream);
+            }
+            if (prefetch > 0) {
+                channel.basicQos(prefetch);
+            }
+            DeliverCallback deliverCallback = (consumerTag, delivery) -> {
+                long deliveryTag = delivery.getEnvelope().getDeliveryTag();
+                boolean handled = false;
+                try {
+                    notifyCallback(delivery.getEnvelope().getRoutingKey(), delivery.getBody());
+                    handled = true;
+                } catch (IOException | RuntimeException e) {
+                    LoggerFactory.getLogger(RabbitMqAmqpTransportConnector.class).error(
+                        "Rejecting data received on " + stream + ": " + e.getMessage());
+                } finally {
+                    if (handled) {
+                        channel.basicAck(deliveryTag, false);
+                    } else {
+                        channel.basicNack(deliveryTag, false, false); // do not requeue, avoid poison loop
+                    }
+                }
+            };
+            String tag = channel.basicConsume(queue, false, deliverCallback, consumerTag -> { });
+            consumers.put(stream, new Consumer(channel, tag));
+        }
     }
 
     @Override
@@ -89,6 +444,7 @@ public class RabbitMqAmqpTransportConnector extends AbstractTransportConnector {
 
     @Override
     public void connect(TransportParameter params) throws IOException {
+        super.connect(params);
         ConnectionFactory factory = new ConnectionFactory();
         factory.setHost(params.getHost());
         factory.setPort(params.getPort());
@@ -98,9 +454,16 @@ public class RabbitMqAmqpTransportConnector extends AbstractTransportConnector {
             factory.setPassword(params.getPassword());
         }
         configureFactory(factory);
+        exchange = params.getExchange();
+        prefetch = params.getPrefetch();
+        channelPermits = new Semaphore(Math.max(1, getMaxPublishChannels()));
         try {
             connection = factory.newConnection();
-            channel = connection.createChannel();
+            if (!exchange.isEmpty()) {
+                Channel channel = connection.createChannel();
+                channel.exchangeDeclare(exchange, BuiltinExchangeType.TOPIC);
+                channel.close();
+            }
         } catch (TimeoutException e) {
             throw new IOException(e.getMessage(), e);
         }
@@ -116,12 +479,14 @@ public class RabbitMqAmqpTransportConnector extends AbstractTransportConnector {
 
     @Override
     public void disconnect() throws IOException {
-        try {
-            channel.close();
-        } catch (TimeoutException e) {
-            // nothing for now
+        super.disconnect();
+        for (Consumer c : consumers.values()) {
+            c.cancel();
         }
-        connection.close();
+        consumers.clear();
+        idleChannels.clear();
+        channelCount.set(0);
+        connection.close(); // closes the channels
     }
 
     @Override
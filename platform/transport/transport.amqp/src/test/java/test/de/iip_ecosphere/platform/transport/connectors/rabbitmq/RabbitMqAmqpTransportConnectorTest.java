@@ -11,6 +11,9 @@
 package test.de.iip_ecosphere.platform.transport.connectors.rabbitmq;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -19,11 +22,17 @@ import com.rabbitmq.client.ConnectionFactory;
 
 import de.iip_ecosphere.platform.support.Schema;
 import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.support.TimeUtils;
 import de.iip_ecosphere.platform.transport.TransportFactory;
 import de.iip_ecosphere.platform.transport.TransportFactory.ConnectorCreator;
+import de.iip_ecosphere.platform.transport.connectors.AbstractReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
 import de.iip_ecosphere.platform.transport.connectors.rabbitmq.RabbitMqAmqpTransportConnector;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 import test.de.iip_ecosphere.platform.transport.AbstractTransportConnectorTest;
+import test.de.iip_ecosphere.platform.transport.Product;
 import test.de.iip_ecosphere.platform.transport.ProductJsonSerializer;
 import test.de.iip_ecosphere.platform.transport.ProductProtobufSerializer;
 import test.de.iip_ecosphere.platform.test.amqp.qpid.TestQpidServer;
@@ -48,6 +57,11 @@ public class RabbitMqAmqpTransportConnectorTest {
             factory.setPassword("pwd");
         }
 
+        @Override
+        protected int getMaxPublishChannels() {
+            return 2;
+        }
+
     }
     
     /**
@@ -82,5 +96,161 @@ public class RabbitMqAmqpTransportConnectorTest {
         server.stop(true);
         TransportFactory.setMainImplementation(old);        
     }
-    
+
+    /**
+     * Collects received products.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Collector extends AbstractReceptionCallback<Product> {
+
+        private List<Product> received = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Creates a collector.
+         */
+        private Collector() {
+            super(Product.class);
+        }
+
+        @Override
+        public void received(Product data) {
+            received.add(data);
+        }
+
+    }
+
+    /**
+     * A collector failing on the first received item.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class FailingCollector extends Collector {
+
+        private boolean failed;
+
+        @Override
+        public void received(Product data) {
+            if (!failed) {
+                failed = true;
+                throw new IllegalStateException("Simulated failure");
+            }
+            super.received(data);
+        }
+
+    }
+
+    /**
+     * Waits until {@code collector} received {@code count} items and asserts the number.
+     * 
+     * @param collector the collector
+     * @param count the expected number of items
+     */
+    private static void assertReceived(Collector collector, int count) {
+        int wait = 0;
+        while (collector.received.size() < count && wait < 30) {
+            TimeUtils.sleep(100);
+            wait++;
+        }
+        Assert.assertEquals(count, collector.received.size());
+    }
+
+    /**
+     * Tests fan-out via a topic exchange, i.e., all receivers of a stream get the data, as well as asynchronous 
+     * sending with publisher confirms and prefetch.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test
+    public void testExchangeFanOut() throws IOException {
+        ServerAddress addr = new ServerAddress(Schema.IGNORE); // ephemeral, localhost
+        TestQpidServer server = new TestQpidServer(addr);
+        server.start();
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        TransportParameter param = TransportParameterBuilder.newBuilder(addr).setExchange("iip").setPrefetch(2)
+            .build();
+        FakeAuthConnector sender = new FakeAuthConnector();
+        sender.connect(param);
+        FakeAuthConnector rcv1 = new FakeAuthConnector();
+        rcv1.connect(param);
+        FakeAuthConnector rcv2 = new FakeAuthConnector();
+        rcv2.connect(param);
+        Collector col1 = new Collector();
+        Collector col2 = new Collector();
+        rcv1.setReceptionCallback("fanout", col1);
+        rcv2.setReceptionCallback("fanout", col2);
+
+        sender.syncSend("fanout", new Product("prod1", 10.2));
+        for (int i = 0; i < 5; i++) {
+            sender.asyncSend("fanout", new Product("prod" + i, i));
+        }
+        sender.flush();
+        assertReceived(col1, 6);
+        assertReceived(col2, 6);
+        Assert.assertEquals(0, sender.getNackCount());
+
+        rcv2.setReceptionCallback("fanout", null); // detached, no further data
+        sender.syncSend("fanout", new Product("prod2", 5.1));
+        assertReceived(col1, 7);
+        TimeUtils.sleep(300);
+        Assert.assertEquals(6, col2.received.size());
+
+        sender.disconnect();
+        rcv1.disconnect();
+        rcv2.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+        server.stop(true);
+    }
+
+    /**
+     * Tests that many (short-living) sending threads share a bounded number of publish channels and that a failing
+     * reception callback does not stall the consumer.
+     * 
+     * @throws IOException in case that connection/communication fails
+     * @throws InterruptedException if waiting for the sending threads is interrupted
+     */
+    @Test
+    public void testChannelPoolAndFailingCallback() throws IOException, InterruptedException {
+        ServerAddress addr = new ServerAddress(Schema.IGNORE); // ephemeral, localhost
+        TestQpidServer server = new TestQpidServer(addr);
+        server.start();
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        TransportParameter param = TransportParameterBuilder.newBuilder(addr).setPrefetch(1).build();
+        FakeAuthConnector sender = new FakeAuthConnector();
+        sender.connect(param);
+        FakeAuthConnector rcv = new FakeAuthConnector();
+        rcv.connect(param);
+        FailingCollector col = new FailingCollector();
+        rcv.setReceptionCallback("pool", col);
+
+        List<Thread> threads = new ArrayList<>();
+        List<IOException> failures = Collections.synchronizedList(new ArrayList<>());
+        for (int i = 0; i < 10; i++) {
+            final int nr = i;
+            Thread t = new Thread(() -> {
+                try {
+                    sender.syncSend("pool", new Product("prod" + nr, nr));
+                    sender.asyncSend("pool", new Product("prod" + nr, nr));
+                } catch (IOException e) {
+                    failures.add(e);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        sender.flush();
+        Assert.assertTrue(failures.isEmpty());
+        Assert.assertTrue(sender.getPublishChannelCount() <= 2);
+        assertReceived(col, 19); // first one failed and was rejected, prefetch 1 does not stall
+        Assert.assertEquals(0, sender.getNackCount());
+
+        sender.disconnect();
+        rcv.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+        server.stop(true);
+    }
+
 }
@@ -11,6 +11,9 @@
 package de.iip_ecosphere.platform.transport.mqttv3;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 
 import org.eclipse.paho.client.mqttv3.IMqttDeliveryToken;
 import org.eclipse.paho.client.mqttv3.IMqttToken;
@@ -24,10 +27,12 @@ import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
 import de.iip_ecosphere.platform.transport.connectors.basics.AbstractMqttTransportConnector;
-import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttPublishOptions;
+import de.iip_ecosphere.platform.transport.connectors.impl.BatchSendException;
 
 /**
- * A MQTT v3 connector based on Eclipse Paho. Requires {@link TransportParameter#getApplicationId()}.
+ * A MQTT v3 connector based on Eclipse Paho. Requires {@link TransportParameter#getApplicationId()}. Considers
+ * quality of service and retain flag from {@link TransportParameter}.
  * 
  * This implementation is potentially not thread-safe, i.e., it may require a sending queue.
  * 
@@ -38,6 +43,7 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
     public static final String NAME = "MQTT v3"; 
     
     private MqttAsyncClient client;
+    private int maxInflight = DEFAULT_MAX_INFLIGHT;
 
     /**
      * Creates a connector instance.
@@ -80,6 +86,10 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
             connOpts.setCleanSession(false);
             connOpts.setKeepAliveInterval(params.getKeepAlive());
             connOpts.setAutomaticReconnect(true);
+            // Paho default, also used if an MQTT v5 broker grants no receive maximum; sendBatchImpl bounds its 
+            // pipeline to this window, so larger batches do not require a larger window
+            maxInflight = DEFAULT_MAX_INFLIGHT;
+            connOpts.setMaxInflight(maxInflight);
             waitForCompletion(client.connect(connOpts));
         } catch (MqttException e) {
             throw new IOException(e);
@@ -90,7 +100,7 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
     public void setReceptionCallback(String stream, ReceptionCallback<?> callback) throws IOException {
         super.setReceptionCallback(stream, callback);
         try {
-            waitForCompletion(client.subscribe(stream, MqttQoS.AT_LEAST_ONCE.value()));
+            waitForCompletion(client.subscribe(stream, getTransportParameter().getQoS(stream).value()));
         } catch (MqttException e) {
             throw new IOException(e);
         }
@@ -98,6 +108,7 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
 
     @Override
     public void disconnect() throws IOException {
+        super.disconnect();
         try {
             waitForCompletion(client.disconnect());
             client.close();
@@ -107,13 +118,13 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
     }
 
     @Override
-    public void asyncSend(String stream, Object data) throws IOException {
-        send(stream, data, false);
+    public void asyncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        send(stream, data, options, false);
     }
 
     @Override
-    public void syncSend(String stream, Object data) throws IOException {
-        send(stream, data, true);
+    public void syncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        send(stream, data, options, true);
     }
 
     /**
@@ -121,16 +132,82 @@ public class PahoMqttV3TransportConnector extends AbstractMqttTransportConnector
      * 
      * @param stream the stream to send to
      * @param data   the data to send
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
      * @param block  shall this be a blocking or a non-blocking send operation
      * @throws IOException in case that sending fails for some reason
      */
-    private void send(String stream, Object data, boolean block) throws IOException {
+    private void send(String stream, Object data, MqttPublishOptions options, boolean block) throws IOException {
+        try {
+            IMqttDeliveryToken token = publish(stream, data, options);
+            if (block) {
+                waitForCompletion(token);
+            }
+        } catch (MqttException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Publishes {@code data} to {@code stream} without waiting for completion.
+     * 
+     * @param stream the stream to send to
+     * @param data   the data to send
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
+     * @return the token representing the publish operation
+     * @throws IOException in case that serialization fails
+     * @throws MqttException in case that publishing fails
+     */
+    private IMqttDeliveryToken publish(String stream, Object data, MqttPublishOptions options) 
+        throws IOException, MqttException {
         byte[] payload = serialize(stream, data);
         MqttMessage message = new MqttMessage(payload);
-        message.setQos(MqttQoS.AT_LEAST_ONCE.value());
+        message.setQos(getQoS(stream, options).value());
+        message.setRetained(getRetain(stream, options));
+        return client.publish(stream, message);
+    }
+
+    /**
+     * Sends a batch by keeping up to the configured in-flight window open and waits only if the window is 
+     * exhausted or the batch is completed. Items preceding a failing item are completed. As tokens
+     * complete in sequence, the number of completed tokens is reported as sent items.
+     * 
+     * @param stream the stream to send to
+     * @param data the data items to send
+     * @throws IOException in case that sending fails, a {@link BatchSendException} with the number of sent items
+     */
+    @Override
+    protected void sendBatchImpl(String stream, List<?> data) throws IOException {
+        Deque<IMqttToken> inFlight = new ArrayDeque<>();
+        int sent = 0;
         try {
-            IMqttDeliveryToken token = client.publish(stream, message);
-            if (block) {
+            IOException failure = null;
+            for (int i = 0; null == failure && i < data.size(); i++) {
+                if (inFlight.size() >= maxInflight) {
+                    waitForCompletion(inFlight.poll());
+                    sent++;
+                }
+                try {
+                    inFlight.add(publish(stream, data.get(i), null));
+                } catch (IOException e) {
+                    failure = e; // serialization failed, complete the preceding items
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                waitForCompletion(inFlight.poll());
+                sent++;
+            }
+            if (null != failure) {
+                throw new BatchSendException(failure.getMessage(), sent, failure);
+            }
+        } catch (MqttException e) {
+            throw new BatchSendException(e.getMessage(), sent, e);
+        }
+    }
+
+    @Override
+    protected void flushImpl() throws IOException {
+        try {
+            for (IMqttToken token : client.getPendingDeliveryTokens()) {
                 waitForCompletion(token);
             }
         } catch (MqttException e) {
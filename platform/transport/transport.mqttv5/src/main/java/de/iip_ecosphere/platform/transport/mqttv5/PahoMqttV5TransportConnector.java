@@ -11,6 +11,9 @@
 package de.iip_ecosphere.platform.transport.mqttv5;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 
 import org.eclipse.paho.mqttv5.client.IMqttToken;
 import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
@@ -25,10 +28,13 @@ import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
 import de.iip_ecosphere.platform.transport.connectors.basics.AbstractMqttTransportConnector;
-import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttPublishOptions;
+import de.iip_ecosphere.platform.transport.connectors.impl.BatchSendException;
 
 /**
- * A MQTT v5 connector based on Eclipse Paho. Requires {@link TransportParameter#getApplicationId()}.
+ * A MQTT v5 connector based on Eclipse Paho. Requires {@link TransportParameter#getApplicationId()}. Considers
+ * quality of service, retain flag, message expiry and topic alias maximum from {@link TransportParameter}. Topic 
+ * aliases for sending are assigned by the client as granted by the broker.
  * 
  * This implementation is potentially not thread-safe, i.e., it may require a sending queue.
  * 
@@ -38,6 +44,8 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
 
     public static final String NAME = "MQTT v5";
     private MqttAsyncClient client;
+    private int maxInflight = DEFAULT_MAX_INFLIGHT;
+    private int topicAliasMaximum;
 
     /**
      * Creates a connector instance.
@@ -95,7 +103,20 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
             connOpts.setCleanStart(false);
             connOpts.setKeepAliveInterval(params.getKeepAlive());
             connOpts.setAutomaticReconnect(true);
-            waitForCompletion(client.connect(connOpts));
+            if (params.getTopicAliasMaximum() > 0) {
+                connOpts.setTopicAliasMaximum(params.getTopicAliasMaximum());
+            }
+            IMqttToken token = client.connect(connOpts);
+            waitForCompletion(token);
+            maxInflight = DEFAULT_MAX_INFLIGHT;
+            topicAliasMaximum = 0;
+            MqttProperties granted = token.getResponseProperties();
+            if (null != granted && null != granted.getReceiveMaximum()) {
+                maxInflight = granted.getReceiveMaximum(); // as granted by broker
+            }
+            if (null != granted && null != granted.getTopicAliasMaximum()) {
+                topicAliasMaximum = granted.getTopicAliasMaximum(); // used by Paho for sending
+            }
         } catch (MqttException e) {
             throw new IOException(e.getMessage(), e);
         }
@@ -105,7 +126,7 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
     public void setReceptionCallback(String stream, ReceptionCallback<?> callback) throws IOException {
         super.setReceptionCallback(stream, callback);
         try {
-            waitForCompletion(client.subscribe(stream, MqttQoS.AT_LEAST_ONCE.value()));
+            waitForCompletion(client.subscribe(stream, getTransportParameter().getQoS(stream).value()));
         } catch (MqttException e) {
             throw new IOException(e.getMessage(), e);
         }
@@ -113,6 +134,7 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
 
     @Override
     public void disconnect() throws IOException {
+        super.disconnect();
         try {
             waitForCompletion(client.disconnect());
             client.close();
@@ -122,13 +144,13 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
     }
 
     @Override
-    public void asyncSend(String stream, Object data) throws IOException {
-        send(stream, data, false);
+    public void asyncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        send(stream, data, options, false);
     }
 
     @Override
-    public void syncSend(String stream, Object data) throws IOException {
-        send(stream, data, true);
+    public void syncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        send(stream, data, options, true);
     }
 
     /**
@@ -136,16 +158,88 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
      * 
      * @param stream the stream to send to
      * @param data   the data to send
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
      * @param block  shall this be a blocking or a non-blocking send operation
      * @throws IOException in case that sending fails for some reason
      */
-    private void send(String stream, Object data, boolean block) throws IOException {
+    private void send(String stream, Object data, MqttPublishOptions options, boolean block) throws IOException {
+        try {
+            IMqttToken token = publish(stream, data, options);
+            if (block) {
+                waitForCompletion(token);
+            }
+        } catch (MqttException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Publishes {@code data} to {@code stream} without waiting for completion.
+     * 
+     * @param stream the stream to send to
+     * @param data   the data to send
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
+     * @return the token representing the publish operation
+     * @throws IOException in case that serialization fails
+     * @throws MqttException in case that publishing fails
+     */
+    private IMqttToken publish(String stream, Object data, MqttPublishOptions options) 
+        throws IOException, MqttException {
         byte[] payload = serialize(stream, data);
         MqttMessage message = new MqttMessage(payload);
-        message.setQos(MqttQoS.AT_LEAST_ONCE.value());
+        message.setQos(getQoS(stream, options).value());
+        message.setRetained(getRetain(stream, options));
+        long expiry = getMessageExpiry(options);
+        if (expiry > 0) {
+            MqttProperties properties = new MqttProperties();
+            properties.setMessageExpiryInterval(expiry);
+            message.setProperties(properties);
+        }
+        return client.publish(stream, message);
+    }
+
+    /**
+     * Sends a batch by keeping up to the in-flight window granted by the broker open and waits only if the window
+     * is exhausted or the batch is completed. Items preceding a failing item are completed. As tokens
+     * complete in sequence, the number of completed tokens is reported as sent items.
+     * 
+     * @param stream the stream to send to
+     * @param data the data items to send
+     * @throws IOException in case that sending fails, a {@link BatchSendException} with the number of sent items
+     */
+    @Override
+    protected void sendBatchImpl(String stream, List<?> data) throws IOException {
+        Deque<IMqttToken> inFlight = new ArrayDeque<>();
+        int sent = 0;
         try {
-            IMqttToken token = client.publish(stream, message);
-            if (block) {
+            IOException failure = null;
+            for (int i = 0; null == failure && i < data.size(); i++) {
+                if (inFlight.size() >= maxInflight) {
+                    waitForCompletion(inFlight.poll());
+                    sent++;
+                }
+                try {
+                    inFlight.add(publish(stream, data.get(i), null));
+                } catch (IOException e) {
+                    failure = e; // serialization failed, complete the preceding items
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                waitForCompletion(inFlight.poll());
+                sent++;
+            }
+            if (null != failure) {
+                throw new BatchSendException(failure.getMessage(), sent, failure);
+            }
+        } catch (MqttException e) {
+            throw new BatchSendException(e.getMessage(), sent, e);
+        }
+    }
+
+    @Override
+    protected void flushImpl() throws IOException {
+        try {
+            for (IMqttToken token : client.getPendingTokens()) {
                 waitForCompletion(token);
             }
         } catch (MqttException e) {
@@ -163,6 +257,16 @@ public class PahoMqttV5TransportConnector extends AbstractMqttTransportConnector
         token.waitForCompletion(getActionTimeout());
     }
     
+    /**
+     * Returns the number of topic aliases granted by the broker for sending, i.e., the client replaces the topic 
+     * names of up to this number of streams by aliases.
+     * 
+     * @return the number of topic aliases, 0 if the broker does not accept topic aliases
+     */
+    public int getTopicAliasMaximum() {
+        return topicAliasMaximum;
+    }
+
     @Override
     public String getName() {
         return NAME;
@@ -11,15 +11,38 @@
 package test.de.iip_ecosphere.platform.transport.mqttv5;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
+import org.eclipse.paho.mqttv5.client.MqttCallback;
+import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
+import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
+import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
+import org.eclipse.paho.mqttv5.common.MqttException;
+import org.eclipse.paho.mqttv5.common.MqttMessage;
+import org.eclipse.paho.mqttv5.common.MqttSubscription;
+import org.eclipse.paho.mqttv5.common.packet.MqttProperties;
+import org.junit.AfterClass;
 import org.junit.Assert;
+import org.junit.BeforeClass;
 import org.junit.Test;
 
 import de.iip_ecosphere.platform.support.Schema;
 import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.support.TimeUtils;
 import de.iip_ecosphere.platform.transport.TransportFactory;
+import de.iip_ecosphere.platform.transport.connectors.AbstractReceptionCallback;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttPublishOptions;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
 import de.iip_ecosphere.platform.transport.mqttv5.PahoMqttV5TransportConnector;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 import test.de.iip_ecosphere.platform.transport.AbstractTransportConnectorTest;
+import test.de.iip_ecosphere.platform.transport.Product;
 import test.de.iip_ecosphere.platform.transport.ProductJsonSerializer;
 import test.de.iip_ecosphere.platform.transport.ProductProtobufSerializer;
 import test.de.iip_ecosphere.platform.test.mqtt.hivemq.TestHiveMqServer;
@@ -31,9 +54,29 @@ import test.de.iip_ecosphere.platform.test.mqtt.hivemq.TestHiveMqServer;
  */
 public class PahoMqttV5TransportConnectorTest {
 
+    private static final ServerAddress ADDR = new ServerAddress(Schema.IGNORE); // localhost, ephemeral port
+    private static TestHiveMqServer server;
+
+    /**
+     * Starts the server. Embedded HiveMQ cannot be restarted reliably within the same JVM.
+     */
+    @BeforeClass
+    public static void init() {
+        server = new TestHiveMqServer(ADDR);
+        server.start();
+    }
+
+    /**
+     * Stops the server.
+     */
+    @AfterClass
+    public static void shutdown() {
+        server.stop(true);
+    }
+
     /**
      * Tests the connector through explicitly setting/resetting the factory
-     * implementation. Builds up a {@link TestHiveMqServer} so that the test is
+     * implementation. Relies on a {@link TestHiveMqServer} so that the test is
      * self-contained.
      * 
      * @throws IOException in case that connection/communication fails
@@ -41,12 +84,274 @@ public class PahoMqttV5TransportConnectorTest {
     @Test(timeout = 180 * 1000)
     public void testPahoConnector() throws IOException {
         Assert.assertEquals(PahoMqttV5TransportConnector.NAME, TransportFactory.getConnectorName());
-        ServerAddress addr = new ServerAddress(Schema.IGNORE); // localhost, ephemeral port
-        TestHiveMqServer server = new TestHiveMqServer(addr);
-        server.start();
-        AbstractTransportConnectorTest.doTest(addr, ProductJsonSerializer.class);
-        AbstractTransportConnectorTest.doTest(addr, ProductProtobufSerializer.class);
-        server.stop(true);
+        AbstractTransportConnectorTest.doTest(ADDR, ProductJsonSerializer.class);
+        AbstractTransportConnectorTest.doTest(ADDR, ProductProtobufSerializer.class);
+    }
+
+    /**
+     * Collects received products.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Collector extends AbstractReceptionCallback<Product> {
+
+        private List<Product> received = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Creates a collector.
+         */
+        private Collector() {
+            super(Product.class);
+        }
+
+        @Override
+        public void received(Product data) {
+            received.add(data);
+        }
+
+    }
+
+    /**
+     * A plain MQTT v5 client to observe the messages as delivered by the broker.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class RawReceiver implements MqttCallback {
+
+        private MqttAsyncClient client;
+        private List<String> topics = Collections.synchronizedList(new ArrayList<>());
+        private List<MqttMessage> received = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Creates a receiver and subscribes with QoS 2 and retain as published, i.e., messages are delivered with the 
+         * QoS and the retain flag they were sent.
+         * 
+         * @param clientId the client id
+         * @param topicFilter the topic filter to subscribe to
+         * @throws MqttException if connecting or subscribing fails
+         */
+        private RawReceiver(String clientId, String topicFilter) throws MqttException {
+            client = new MqttAsyncClient("tcp://" + ADDR.getHost() + ":" + ADDR.getPort(), clientId, 
+                new MemoryPersistence());
+            client.setCallback(this);
+            client.connect(new MqttConnectionOptions()).waitForCompletion(5000);
+            MqttSubscription subscription = new MqttSubscription(topicFilter, MqttQoS.EXACTLY_ONCE.value());
+            subscription.setRetainAsPublished(true);
+            client.subscribe(subscription).waitForCompletion(5000);
+        }
+
+        @Override
+        public void messageArrived(String topic, MqttMessage message) throws Exception {
+            topics.add(topic);
+            received.add(message);
+        }
+
+        @Override
+        public void disconnected(MqttDisconnectResponse disconnectResponse) {
+        }
+
+        @Override
+        public void mqttErrorOccurred(MqttException exception) {
+        }
+
+        @Override
+        public void deliveryComplete(IMqttToken token) {
+        }
+
+        @Override
+        public void connectComplete(boolean reconnect, String serverURI) {
+        }
+
+        @Override
+        public void authPacketArrived(int reasonCode, MqttProperties properties) {
+        }
+
+        /**
+         * Waits until {@code count} messages are received and asserts the number.
+         * 
+         * @param count the expected number of messages
+         */
+        private void assertReceived(int count) {
+            int wait = 0;
+            while (received.size() < count && wait < 30) {
+                TimeUtils.sleep(100);
+                wait++;
+            }
+            Assert.assertEquals(count, received.size());
+        }
+
+        /**
+         * Returns the description of the product received as {@code index}-th message.
+         * 
+         * @param index the 0-based index of the message
+         * @return the description
+         * @throws IOException if deserialization fails
+         */
+        private String getDescription(int index) throws IOException {
+            return new ProductJsonSerializer().from(received.get(index).getPayload()).getDescription();
+        }
+
+        /**
+         * Returns the quality of service of the message carrying the product with the given description. The broker 
+         * does not necessarily keep the order of messages with different quality of service.
+         * 
+         * @param description the description
+         * @return the quality of service, -1 if not found
+         * @throws IOException if deserialization fails
+         */
+        private int getQos(String description) throws IOException {
+            int result = -1;
+            for (int i = 0; i < received.size(); i++) {
+                if (description.equals(getDescription(i))) {
+                    result = received.get(i).getQos();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Returns whether the message carrying the product with the given description was sent as retained message.
+         * 
+         * @param description the description
+         * @return {@code true} for retained, {@code false} else or if not found
+         * @throws IOException if deserialization fails
+         */
+        private boolean isRetained(String description) throws IOException {
+            boolean result = false;
+            for (int i = 0; i < received.size(); i++) {
+                if (description.equals(getDescription(i))) {
+                    result = received.get(i).isRetained();
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Disconnects the client.
+         * 
+         * @throws MqttException if disconnecting fails
+         */
+        private void close() throws MqttException {
+            client.disconnect().waitForCompletion(5000);
+            client.close();
+        }
+
+    }
+
+    /**
+     * Waits until {@code collector} received {@code count} items and asserts the number.
+     * 
+     * @param collector the collector
+     * @param count the expected number of items
+     */
+    private static void assertReceived(Collector collector, int count) {
+        int wait = 0;
+        while (collector.received.size() < count && wait < 30) {
+            TimeUtils.sleep(100);
+            wait++;
+        }
+        Assert.assertEquals(count, collector.received.size());
+    }
+
+    /**
+     * Tests per-stream quality of service, retained data, message expiry and topic aliases as well as overriding 
+     * them per send operation.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test(timeout = 180 * 1000)
+    public void testPublishOptions() throws IOException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        TransportParameter param = TransportParameterBuilder.newBuilder(ADDR).setApplicationId("opts")
+            .setQoS("telemetry", MqttQoS.AT_MOST_ONCE).setRetain("status", true).setMessageExpiry(60)
+            .setTopicAliasMaximum(10).setActionTimeout(5000).build();
+        PahoMqttV5TransportConnector sender = new PahoMqttV5TransportConnector();
+        sender.connect(param);
+        PahoMqttV5TransportConnector receiver = new PahoMqttV5TransportConnector();
+        receiver.connect(param);
+        Collector telemetry = new Collector();
+        Collector status = new Collector();
+        receiver.setReceptionCallback("telemetry", telemetry); // QoS 0 subscription
+        receiver.setReceptionCallback("status", status);
+        for (int i = 0; i < 5; i++) {
+            sender.asyncSend("telemetry", new Product("prod" + i, i));
+        }
+        sender.syncSend("status", new Product("running", 1)); // retained with expiry
+        sender.flush();
+        assertReceived(telemetry, 5);
+        assertReceived(status, 1);
+
+        sender.syncSend("telemetry", new Product("ack", 2), new MqttPublishOptions(MqttQoS.AT_LEAST_ONCE, false));
+        sender.asyncSend("status", new Product("stopped", 3), new MqttPublishOptions(null, false, 0));
+        sender.flush();
+        assertReceived(telemetry, 6);
+        assertReceived(status, 2);
+        Assert.assertEquals("stopped", status.received.get(1).getDescription());
+        try {
+            new MqttPublishOptions(MqttQoS.FAILURE, false);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+
+        sender.disconnect();
+        receiver.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+    }
+
+    /**
+     * Tests that quality of service, retain flag and topic aliases take effect on the broker, in particular that
+     * overriding the quality of service per send operation does not reset the retain flag of the stream.
+     * 
+     * @throws IOException in case that connection/communication fails
+     * @throws MqttException if the observing clients fail
+     */
+    @Test(timeout = 180 * 1000)
+    public void testPublishOptionsOnBroker() throws IOException, MqttException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        TransportParameter param = TransportParameterBuilder.newBuilder(ADDR).setApplicationId("brk")
+            .setQoS("qos", MqttQoS.AT_MOST_ONCE).setRetain("retained/running", true)
+            .setRetain("retained/ack", true).setRetain("retained/volatile", true).setActionTimeout(5000).build();
+        PahoMqttV5TransportConnector sender = new PahoMqttV5TransportConnector();
+        sender.connect(param);
+
+        RawReceiver qos = new RawReceiver("rawQos", "qos");
+        sender.syncSend("qos", new Product("stream", 1));
+        sender.syncSend("qos", new Product("override", 2), new MqttPublishOptions(MqttQoS.EXACTLY_ONCE));
+        qos.assertReceived(2);
+        Assert.assertEquals(MqttQoS.AT_MOST_ONCE.value(), qos.getQos("stream"));
+        Assert.assertEquals(MqttQoS.EXACTLY_ONCE.value(), qos.getQos("override"));
+        qos.close();
+
+        int aliases = sender.getTopicAliasMaximum();
+        Assert.assertTrue("Broker did not grant topic aliases", aliases > 0);
+        RawReceiver aliased = new RawReceiver("rawAlias", "alias/#");
+        int streams = aliases + 2; // more streams than aliases, topic names must still be resolved correctly
+        for (int r = 0; r < 2; r++) {
+            for (int s = 0; s < streams; s++) {
+                sender.syncSend("alias/" + s, new Product("alias" + s, r));
+            }
+        }
+        aliased.assertReceived(2 * streams);
+        for (int i = 0; i < aliased.received.size(); i++) {
+            Assert.assertEquals("alias/" + (i % streams), aliased.topics.get(i));
+            Assert.assertEquals("alias" + (i % streams), aliased.getDescription(i));
+        }
+        aliased.close();
+
+        // one message per retained stream as the embedded broker may stall when replacing retained messages
+        RawReceiver retained = new RawReceiver("rawRetain", "retained/#");
+        sender.syncSend("retained/running", new Product("running", 1));
+        sender.syncSend("retained/ack", new Product("ack", 2), new MqttPublishOptions(MqttQoS.AT_LEAST_ONCE));
+        sender.syncSend("retained/volatile", new Product("volatile", 3), new MqttPublishOptions(null, false));
+        retained.assertReceived(3);
+        Assert.assertTrue(retained.isRetained("running"));
+        Assert.assertTrue(retained.isRetained("ack")); // QoS override keeps retain flag of stream
+        Assert.assertFalse(retained.isRetained("volatile"));
+        retained.close();
+
+        sender.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
     }
 
 }
@@ -12,24 +12,39 @@
 package de.iip_ecosphere.platform.transport.spring.binder.amqp;
 
 import java.io.IOException;
-import java.util.Collections;
-import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
 import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
 
 /**
  * A central AMQP client for all binders to reduce resource usage. Typically, different binders subscribe to different
  * topics. The implementation uses queuing/a consumer pattern to cope with threading problems.
  * 
- * Partially public for testing. Initial implementation, not optimized.
+ * If no {@link AmqpConfiguration#getExchange() exchange} is configured, messages are sent via the default exchange
+ * to one queue per topic, i.e., all consumers of a topic compete for the messages. Otherwise, messages are sent to 
+ * the given topic exchange with the topic as routing key. Consumers in a group share a durable queue per topic and 
+ * group, anonymous consumers receive all messages on an exclusive queue. Partitions are mapped to the routing key 
+ * {@code topic.partition}. Each consumer has an own channel with the configured prefetch and acknowledges received 
+ * messages manually in batches. Incomplete batches are acknowledged in the configured 
+ * {@link AmqpConfiguration#getAckInterval() interval}. Messages that cannot be processed by the receiving callback 
+ * are negatively acknowledged, i.e., requeued or rejected as {@link AmqpConfiguration#isRequeueFailed() configured}. 
+ * There is at most one subscription per topic, group and partition.
+ * 
+ * Partially public for testing.
  * 
  * @author Holger Eichelberger, SSE
  */
@@ -39,7 +54,9 @@ public class AmqpClient {
     private static Connection connection;
     private static Channel channel;
     private static AmqpConfiguration configuration;
-    private static Set<String> topics = Collections.synchronizedSet(new HashSet<>());
+    private static Set<String> topics = ConcurrentHashMap.newKeySet();
+    private static Map<String, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService ackTimer;
     
     /**
      * Called when a message for a topic arrives.
@@ -57,9 +74,97 @@ public class AmqpClient {
         public void messageArrived(String topic, byte[] payload);
 
     }
-    
+
+    /**
+     * Represents a subscription with own channel and batched acknowledgements.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Subscription implements DeliverCallback {
+
+        private String topic;
+        private Channel channel;
+        private ArrivedCallback callback;
+        private String consumerTag;
+        private int ackBatchSize;
+        private boolean requeueFailed;
+        private int unacked;
+        private long lastDeliveryTag;
+
+        /**
+         * Creates a subscription.
+         * 
+         * @param topic the topic
+         * @param channel the channel exclusively used by this subscription
+         * @param callback the callback to notify
+         */
+        private Subscription(String topic, Channel channel, ArrivedCallback callback) {
+            this.topic = topic;
+            this.channel = channel;
+            this.callback = callback;
+            this.ackBatchSize = configuration.getAckBatchSize();
+            this.requeueFailed = configuration.isRequeueFailed();
+            if (configuration.getPrefetch() > 0) { // else we may wait forever for the batch to complete
+                ackBatchSize = Math.min(ackBatchSize, configuration.getPrefetch());
+            }
+        }
+
+        @Override
+        public void handle(String consumerTag, Delivery delivery) throws IOException {
+            long deliveryTag = delivery.getEnvelope().getDeliveryTag();
+            boolean processed;
+            try {
+                callback.messageArrived(topic, delivery.getBody());
+                processed = true;
+            } catch (RuntimeException e) {
+                LOGGER.error("Processing AMQP message of " + topic + ": " + e.getMessage(), e);
+                processed = false;
+            }
+            synchronized (this) {
+                if (processed) {
+                    lastDeliveryTag = deliveryTag;
+                    unacked++;
+                    if (unacked >= ackBatchSize) {
+                        ack();
+                    }
+                } else {
+                    ack(); // settle the preceding messages, multiple acks shall not cover the failed one
+                    channel.basicNack(deliveryTag, false, requeueFailed);
+                }
+            }
+        }
+
+        /**
+         * Acknowledges all received messages.
+         * 
+         * @throws IOException if acknowledging fails
+         */
+        private synchronized void ack() throws IOException {
+            if (unacked > 0) {
+                channel.basicAck(lastDeliveryTag, true);
+                unacked = 0;
+            }
+        }
+
+        /**
+         * Acknowledges the remaining messages, cancels the consumer and closes the channel.
+         * 
+         * @throws IOException if cancelling fails
+         */
+        private void cancel() throws IOException {
+            ack();
+            channel.basicCancel(consumerTag);
+            try {
+                channel.close();
+            } catch (TimeoutException e) {
+                throw new IOException(e);
+            }
+        }
+
+    }
+
     /**
-     * Ensures the existence of a queue for the given {@code topic}.
+     * Ensures the existence of a queue for the given {@code topic} if no exchange is configured.
      * 
      * @param topic the topic
      * @throws IOException if registering the queue fails
@@ -70,13 +175,46 @@ public class AmqpClient {
             topics.add(topic);
         }
     }
+
+    /**
+     * Returns the routing key for {@code topic} and {@code partition}.
+     * 
+     * @param topic the topic
+     * @param partition the partition, negative for none
+     * @return the routing key
+     */
+    static String getRoutingKey(String topic, int partition) {
+        return partition < 0 ? topic : topic + "." + partition;
+    }
+
+    /**
+     * Returns whether {@code group} denotes a consumer group.
+     * 
+     * @param group the group, may be <b>null</b>
+     * @return {@code true} for a consumer group, {@code false} for an anonymous consumer
+     */
+    private static boolean isGroup(String group) {
+        return null != group && group.trim().length() > 0;
+    }
+
+    /**
+     * Returns the key of a subscription.
+     * 
+     * @param topic the topic
+     * @param group the consumer group, may be <b>null</b> or empty for an anonymous consumer
+     * @param partition the partition, negative for none
+     * @return the key
+     */
+    private static String getSubscriptionKey(String topic, String group, int partition) {
+        return getRoutingKey(topic, partition) + (isGroup(group) ? "/" + group.trim() : "");
+    }
     
     /**
-     * Creates the client based on a given AMQP client configuration.
+     * Creates the client based on a given AMQP client configuration. [public for testing]
      * 
      * @param config the AMQP configuration to take the connection information from
      */
-    static synchronized void createClient(AmqpConfiguration config) {
+    public static synchronized void createClient(AmqpConfiguration config) {
         if (null == channel) {
             try {
                 configuration = config;
@@ -89,17 +227,65 @@ public class AmqpClient {
                 factory.setPassword(config.getPassword());
                 connection = factory.newConnection();
                 channel = connection.createChannel();
+                if (config.hasExchange()) {
+                    channel.exchangeDeclare(config.getExchange(), BuiltinExchangeType.TOPIC);
+                }
+                if (config.getAckBatchSize() > 1) {
+                    ackTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "AMQP-ack");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                    ackTimer.scheduleWithFixedDelay(AmqpClient::ackAll, config.getAckInterval(), 
+                        config.getAckInterval(), TimeUnit.MILLISECONDS);
+                }
             } catch (IOException | TimeoutException e) {
                 LOGGER.error("Creating AMQP client: " + e.getMessage(), e);
             }                
         }
     }
     
+    /**
+     * Acknowledges the received messages of incomplete batches of all subscriptions.
+     */
+    private static void ackAll() {
+        for (Subscription s : subscriptions.values()) {
+            try {
+                s.ack();
+            } catch (IOException e) {
+                LOGGER.error("Acknowledging AMQP messages of " + s.topic + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Returns the number of received but not yet acknowledged messages of all subscriptions. [public for testing]
+     * 
+     * @return the number of unacknowledged messages
+     */
+    public static int getUnackedCount() {
+        int result = 0;
+        for (Subscription s : subscriptions.values()) {
+            synchronized (s) {
+                result += s.unacked;
+            }
+        }
+        return result;
+    }
+
     /**
      * Stops the client.
      */
-    public static void stopClient() {
+    public static synchronized void stopClient() {
+        if (null != ackTimer) {
+            ackTimer.shutdownNow();
+            ackTimer = null;
+        }
         try {
+            for (Subscription s : subscriptions.values()) {
+                s.cancel();
+            }
+            subscriptions.clear();
             channel.close();
             topics.clear();
             channel = null;
@@ -119,18 +305,55 @@ public class AmqpClient {
      * @return {@code true} if done/successful, {@code false} else
      */
     static boolean subscribeTo(String topic, ArrivedCallback arrivedCallback) {
+        return subscribeTo(topic, null, -1, arrivedCallback);
+    }
+
+    /**
+     * Subscribes to {@code topic} if {@code topic} is not blacklisted by 
+     * {@link AmqpConfiguration#isFilteredTopic(String)}. A further subscription to the same {@code topic}, 
+     * {@code group} and {@code partition} is rejected. [public for testing]
+     * 
+     * @param topic the topic to unsubscribe from
+     * @param group the consumer group, may be <b>null</b> or empty for an anonymous consumer
+     * @param partition the partition to consume, negative for none
+     * @param arrivedCallback the callback to be called when a message arrived
+     * @return {@code true} if done/successful, {@code false} else
+     */
+    public static synchronized boolean subscribeTo(String topic, String group, int partition, 
+        ArrivedCallback arrivedCallback) {
         boolean done = false;
-        if (!configuration.isFilteredTopic(topic) && null != channel) {
+        String subscriptionKey = getSubscriptionKey(topic, group, partition);
+        if (subscriptions.containsKey(subscriptionKey)) {
+            LOGGER.error("Already subscribed to " + subscriptionKey + ", rejecting further subscription");
+        } else if (!configuration.isFilteredTopic(topic) && null != channel) {
+            String key = getRoutingKey(topic, partition);
+            Channel ch = null;
             try {
-                ensureTopicQueue(topic);
-                DeliverCallback deliverCallback = (consumerTag, delivery) -> {
-                    arrivedCallback.messageArrived(delivery.getEnvelope().getRoutingKey(), delivery.getBody());
-                };
-                channel.basicConsume(topic, true, deliverCallback, consumerTag -> { });
-                LOGGER.info("Subscribed to " + topic);
+                ch = connection.createChannel();
+                String queue;
+                if (configuration.hasExchange()) {
+                    if (isGroup(group)) {
+                        queue = key + "." + group.trim();
+                        ch.queueDeclare(queue, true, false, false, null);
+                    } else {
+                        queue = ch.queueDeclare().getQueue();
+                    }
+                    ch.queueBind(queue, configuration.getExchange(), key);
+                } else {
+                    queue = key;
+                    ch.queueDeclare(queue, false, false, true, null);
+                }
+                if (configuration.getPrefetch() > 0) {
+                    ch.basicQos(configuration.getPrefetch());
+                }
+                Subscription subscription = new Subscription(topic, ch, arrivedCallback);
+                subscription.consumerTag = ch.basicConsume(queue, false, subscription, consumerTag -> { });
+                subscriptions.put(subscriptionKey, subscription);
+                LOGGER.info("Subscribed to " + topic + " via queue " + queue);
                 done = true;
             } catch (IOException e) {
                 LOGGER.error("Subscribing to AMQP broker: " + e.getMessage(), e);
+                closeQuietly(ch);
             }
         }
         return done;
@@ -144,12 +367,29 @@ public class AmqpClient {
      * @return {@code true} if done/successful, {@code false} else
      */
     static boolean unsubscribeFrom(String topic) {
+        return unsubscribeFrom(topic, null, -1);
+    }
+
+    /**
+     * Unsubscribes from {@code topic} if {@code topic} is not blacklisted by 
+     * {@link AmqpConfiguration#isFilteredTopic(String)}. Messages for a consumer group are retained by the broker. 
+     * [public for testing]
+     * 
+     * @param topic the topic to unsubscribe from
+     * @param group the consumer group, may be <b>null</b> or empty for an anonymous consumer
+     * @param partition the partition, negative for none
+     * @return {@code true} if done/successful, {@code false} else
+     */
+    public static synchronized boolean unsubscribeFrom(String topic, String group, int partition) {
         boolean done = false;
         if (!configuration.isFilteredTopic(topic) && null != channel) {
-            if (!topics.contains(topic)) {
+            Subscription subscription = subscriptions.remove(getSubscriptionKey(topic, group, partition));
+            if (null != subscription) {
                 try {
-                    topics.remove(topic);
-                    channel.basicCancel(topic);
+                    subscription.cancel();
+                    if (!configuration.hasExchange()) { // auto-deleted with the last consumer, re-declare on send
+                        topics.remove(getRoutingKey(topic, partition));
+                    }
                     LOGGER.info("Unsubscribed from " + topic);
                     done = true;
                 } catch (IOException e) {
@@ -160,6 +400,21 @@ public class AmqpClient {
         return done;
     }
     
+    /**
+     * Closes {@code channel} and logs failures.
+     * 
+     * @param channel the channel, may be <b>null</b>
+     */
+    private static void closeQuietly(Channel channel) {
+        if (null != channel) {
+            try {
+                channel.close();
+            } catch (IOException | TimeoutException e) {
+                LOGGER.error("Closing AMQP channel: " + e.getMessage());
+            }
+        }
+    }
+
     /**
      * Sends {@code payload} to {@code topic}.
      * 
@@ -167,10 +422,29 @@ public class AmqpClient {
      * @param payload the payload to send
      */
     static void send(String topic, byte[] payload) {
-        if (null != channel) {
+        send(topic, -1, payload);
+    }
+
+    /**
+     * Sends {@code payload} to {@code topic} and {@code partition}. [public for testing]
+     * 
+     * @param topic the topic to send to
+     * @param partition the partition to send to, negative for none
+     * @param payload the payload to send
+     */
+    public static void send(String topic, int partition, byte[] payload) {
+        Channel ch = channel;
+        if (null != ch) {
+            String key = getRoutingKey(topic, partition);
             try {
-                ensureTopicQueue(topic);
-                channel.basicPublish("", topic, null, payload);
+                synchronized (ch) { // channels shall not be shared among publishing threads
+                    if (configuration.hasExchange()) {
+                        ch.basicPublish(configuration.getExchange(), key, null, payload);
+                    } else {
+                        ensureTopicQueue(key);
+                        ch.basicPublish("", key, null, payload);
+                    }
+                }
             } catch (IOException e) {
                 LOGGER.error("Sending AMQP broker: " + e.getMessage(), e);
             }
@@ -34,6 +34,11 @@ public class AmqpConfiguration {
     private List<String> filteredTopics = new ArrayList<String>();
     private String user = "";
     private String password = "";
+    private String exchange = "";
+    private int prefetch = 0;
+    private int ackBatchSize = 1;
+    private int ackInterval = 1000;
+    private boolean requeueFailed = false;
     
     /**
      * Returns whether {@code topic} is a filtered topic, i.e., we shall not subscribe to this topic.
@@ -91,6 +96,62 @@ public class AmqpConfiguration {
         return password;
     }
 
+    /**
+     * Returns the name of the topic exchange to send to.
+     * 
+     * @return the name of the exchange, empty for the default exchange (default)
+     */
+    public String getExchange() {
+        return exchange;
+    }
+
+    /**
+     * Returns whether a topic exchange is configured.
+     * 
+     * @return {@code true} for a topic exchange, {@code false} for the default exchange
+     */
+    public boolean hasExchange() {
+        return null != exchange && exchange.length() > 0;
+    }
+
+    /**
+     * Returns the maximum number of unacknowledged messages per consumer.
+     * 
+     * @return the prefetch count, {@code 0} for unlimited (default)
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Returns the number of received messages to be acknowledged at once.
+     * 
+     * @return the number of messages (default 1)
+     */
+    public int getAckBatchSize() {
+        return ackBatchSize;
+    }
+
+    /**
+     * Returns the interval in which received messages are acknowledged if the 
+     * {@link #getAckBatchSize() acknowledgement batch} is not complete.
+     * 
+     * @return the interval in ms (default 1000)
+     */
+    public int getAckInterval() {
+        return ackInterval;
+    }
+
+    /**
+     * Returns whether received messages that cannot be processed by the receiving binding shall be requeued. If not, 
+     * such messages are rejected and, depending on the broker setup, dropped or dead-lettered.
+     * 
+     * @return {@code true} for requeuing, {@code false} for rejecting (default)
+     */
+    public boolean isRequeueFailed() {
+        return requeueFailed;
+    }
+
     // setters required for @ConfigurationProperties
 
     /**
@@ -139,6 +200,53 @@ public class AmqpConfiguration {
         this.filteredTopics = filteredTopics;
     }
 
+    /**
+     * Changes the name of the topic exchange to send to. [required by Spring]
+     * 
+     * @param exchange the name of the exchange, empty for the default exchange
+     */
+    public void setExchange(String exchange) {
+        this.exchange = null == exchange ? "" : exchange.trim();
+    }
+
+    /**
+     * Changes the maximum number of unacknowledged messages per consumer. [required by Spring]
+     * 
+     * @param prefetch the prefetch count, {@code 0} for unlimited
+     */
+    public void setPrefetch(int prefetch) {
+        this.prefetch = Math.max(0, prefetch);
+    }
+
+    /**
+     * Changes the number of received messages to be acknowledged at once. [required by Spring]
+     * 
+     * @param ackBatchSize the number of messages, at least 1
+     */
+    public void setAckBatchSize(int ackBatchSize) {
+        this.ackBatchSize = Math.max(1, ackBatchSize);
+    }
+
+    /**
+     * Changes the interval in which received messages are acknowledged if the acknowledgement batch is not 
+     * complete. [required by Spring]
+     * 
+     * @param ackInterval the interval in ms, at least 1
+     */
+    public void setAckInterval(int ackInterval) {
+        this.ackInterval = Math.max(1, ackInterval);
+    }
+
+    /**
+     * Changes whether received messages that cannot be processed by the receiving binding shall be requeued. 
+     * [required by Spring]
+     * 
+     * @param requeueFailed {@code true} for requeuing, {@code false} for rejecting
+     */
+    public void setRequeueFailed(boolean requeueFailed) {
+        this.requeueFailed = requeueFailed;
+    }
+
     // converter
     
     /**
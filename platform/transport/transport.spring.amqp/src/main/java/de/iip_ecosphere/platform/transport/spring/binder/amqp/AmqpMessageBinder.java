@@ -11,12 +11,16 @@
 
 package de.iip_ecosphere.platform.transport.spring.binder.amqp;
 
+import java.util.Arrays;
+
 import org.springframework.cloud.stream.binder.AbstractMessageChannelBinder;
+import org.springframework.cloud.stream.binder.BinderHeaders;
 import org.springframework.cloud.stream.binder.ConsumerProperties;
 import org.springframework.cloud.stream.binder.ProducerProperties;
 import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.integration.core.MessageProducer;
+import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
 import org.springframework.messaging.MessageHandler;
 
@@ -41,15 +45,64 @@ public class AmqpMessageBinder extends AbstractMessageChannelBinder<ConsumerProp
     @Override
     protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
             ProducerProperties producerProperties, MessageChannel errorChannel) throws Exception {
+        final int partitions = producerProperties.isPartitioned() 
+            ? Math.max(1, producerProperties.getPartitionCount()) : 0;
         return message -> {
-            AmqpClient.send(destination.getName(), (byte[]) message.getPayload());
+            AmqpClient.send(destination.getName(), getPartition(message, partitions), (byte[]) message.getPayload());
         };
     }
 
+    /**
+     * Returns the partition to send {@code message} to. Uses the partition determined by Spring if given and valid, 
+     * else maps the payload hash by {@link #jumpConsistentHash(long, int) consistent hashing}, so that changing the 
+     * number of partitions moves only a minimal share of the keys. As consumers of a partitioned binding always 
+     * subscribe to their partition, a partitioned producer always sends to a partition, also if there is only one. 
+     * [public for testing]
+     * 
+     * @param message the message
+     * @param partitions the number of partitions, {@code 0} if the producer is not partitioned
+     * @return the partition, negative for none
+     */
+    public static int getPartition(Message<?> message, int partitions) {
+        int result = -1;
+        if (partitions > 0) {
+            Object partition = message.getHeaders().get(BinderHeaders.PARTITION_HEADER);
+            if (partition instanceof Integer) {
+                int p = (Integer) partition;
+                result = p >= 0 && p < partitions ? p : jumpConsistentHash(p, partitions);
+            } else {
+                result = jumpConsistentHash(Arrays.hashCode((byte[]) message.getPayload()), partitions);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Maps {@code key} to one of {@code buckets} by jump consistent hashing (Lamping, Veach). When increasing the 
+     * number of buckets from n to n + 1, only about 1/(n + 1) of the keys move, all of them to the new bucket. 
+     * [public for testing]
+     * 
+     * @param key the key to map
+     * @param buckets the number of buckets, at least 1
+     * @return the bucket in [0; buckets)
+     */
+    public static int jumpConsistentHash(long key, int buckets) {
+        long k = key;
+        long b = -1;
+        long j = 0;
+        while (j < buckets) {
+            b = j;
+            k = k * 2862933555777941757L + 1;
+            j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((k >>> 33) + 1)));
+        }
+        return (int) b;
+    }
+
     @Override
     protected MessageProducer createConsumerEndpoint(ConsumerDestination destination, String group,
             ConsumerProperties properties) throws Exception {
-        return new AmqpMessageProducer(destination);
+        return new AmqpMessageProducer(destination, group, properties.isPartitioned() 
+            ? Math.max(0, properties.getInstanceIndex()) : -1);
     }
 
 }
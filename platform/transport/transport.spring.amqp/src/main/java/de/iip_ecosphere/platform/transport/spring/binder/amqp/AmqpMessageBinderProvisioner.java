@@ -70,7 +70,7 @@ public class AmqpMessageBinderProvisioner implements ProvisioningProvider<Consum
 
         @Override
         public String getNameForPartition(int partition) {
-            throw new UnsupportedOperationException("Partitioning is not implemented.");
+            return AmqpClient.getRoutingKey(getName(), partition);
         }
 
     }
@@ -24,6 +24,8 @@ import org.springframework.messaging.Message;
 public class AmqpMessageProducer extends MessageProducerSupport {
 
     private final ConsumerDestination destination;
+    private final String group;
+    private final int partition;
     
     /**
      * Creates a message producer instance.
@@ -31,7 +33,20 @@ public class AmqpMessageProducer extends MessageProducerSupport {
      * @param destination the consumer destination
      */
     public AmqpMessageProducer(ConsumerDestination destination) {
+        this(destination, null, -1);
+    }
+
+    /**
+     * Creates a message producer instance for a consumer group and a partition.
+     * 
+     * @param destination the consumer destination
+     * @param group the consumer group, may be <b>null</b> or empty for an anonymous consumer
+     * @param partition the partition to consume, negative for none
+     */
+    public AmqpMessageProducer(ConsumerDestination destination, String group, int partition) {
         this.destination = destination;
+        this.group = group;
+        this.partition = partition;
     }
     
     /**
@@ -51,12 +66,12 @@ public class AmqpMessageProducer extends MessageProducerSupport {
 
     @Override
     public void doStart() {
-        AmqpClient.subscribeTo(destination.getName(), new Callback());
+        AmqpClient.subscribeTo(destination.getName(), group, partition, new Callback());
     }
 
     @Override
     protected void doStop() {
-        AmqpClient.unsubscribeFrom(destination.getName());
+        AmqpClient.unsubscribeFrom(destination.getName(), group, partition);
     }
 
 }
@@ -0,0 +1,259 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.transport.spring.binder.amqp;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.cloud.stream.binder.BinderHeaders;
+import org.springframework.integration.support.MessageBuilder;
+import org.springframework.messaging.Message;
+
+import de.iip_ecosphere.platform.support.Schema;
+import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.support.TimeUtils;
+import de.iip_ecosphere.platform.transport.spring.binder.amqp.AmqpClient;
+import de.iip_ecosphere.platform.transport.spring.binder.amqp.AmqpConfiguration;
+import de.iip_ecosphere.platform.transport.spring.binder.amqp.AmqpMessageBinder;
+import test.de.iip_ecosphere.platform.test.amqp.qpid.TestQpidServer;
+
+/**
+ * Tests consumer groups, partitions and batched acknowledgements of {@link AmqpClient} on a topic exchange.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class AmqpClientTest {
+
+    private static final ServerAddress ADDR = new ServerAddress(Schema.IGNORE); // localhost, ephemeral port
+    private static TestQpidServer server;
+
+    /**
+     * Collects received payloads.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Callback implements AmqpClient.ArrivedCallback {
+
+        private List<String> received = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void messageArrived(String topic, byte[] payload) {
+            received.add(new String(payload));
+        }
+
+    }
+
+    /**
+     * Starts the server and the client.
+     */
+    @BeforeClass
+    public static void init() {
+        server = new TestQpidServer(ADDR);
+        server.start();
+        TimeUtils.sleep(1000);
+        AmqpConfiguration config = new AmqpConfiguration();
+        config.setHost(ADDR.getHost());
+        config.setPort(ADDR.getPort());
+        config.setUser("user");
+        config.setPassword("pwd");
+        config.setExchange("iip");
+        config.setPrefetch(2);
+        config.setAckBatchSize(2);
+        config.setAckInterval(300);
+        Assert.assertTrue(config.hasExchange());
+        AmqpClient.createClient(config);
+    }
+
+    /**
+     * Stops the client and the server.
+     */
+    @AfterClass
+    public static void shutdown() {
+        AmqpClient.stopClient();
+        server.stop(true);
+    }
+
+    /**
+     * Sends {@code count} messages to {@code topic}.
+     *
+     * @param topic the topic
+     * @param partition the partition, negative for none
+     * @param count the number of messages
+     */
+    private static void send(String topic, int partition, int count) {
+        for (int i = 0; i < count; i++) {
+            AmqpClient.send(topic, partition, String.valueOf(i).getBytes());
+        }
+    }
+
+    /**
+     * Waits until {@code callback} has received {@code count} messages.
+     *
+     * @param callback the callback
+     * @param count the expected number of messages
+     */
+    private static void waitFor(Callback callback, int count) {
+        int wait = 0;
+        while (callback.received.size() < count && wait < 30) {
+            TimeUtils.sleep(100);
+            wait++;
+        }
+        TimeUtils.sleep(200); // no further messages
+        Assert.assertEquals(count, callback.received.size());
+    }
+
+    /**
+     * Tests anonymous consumers and consumer groups.
+     */
+    @Test
+    public void testGroups() {
+        Callback anonymous = new Callback();
+        Callback grouped = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("t", null, -1, anonymous));
+        Assert.assertTrue(AmqpClient.subscribeTo("t", "g", -1, grouped));
+        send("t", -1, 5);
+        waitFor(anonymous, 5); // both get all messages, batched acks with prefetch
+        waitFor(grouped, 5);
+
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("t", "g", -1));
+        send("t", -1, 3);
+        waitFor(anonymous, 8);
+        Callback regrouped = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("t", "g", -1, regrouped));
+        waitFor(regrouped, 3); // retained in the group queue
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("t", "g", -1));
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("t", null, -1));
+    }
+
+    /**
+     * Tests partitioned consumers.
+     */
+    @Test
+    public void testPartitions() {
+        Callback part0 = new Callback();
+        Callback part1 = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("p", "g", 0, part0));
+        Assert.assertTrue(AmqpClient.subscribeTo("p", "g", 1, part1));
+        send("p", 0, 2);
+        send("p", 1, 3);
+        waitFor(part0, 2);
+        waitFor(part1, 3);
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("p", "g", 0));
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("p", "g", 1));
+    }
+
+    /**
+     * Tests that a partitioned producer with a single partition reaches the consumer of partition 0.
+     */
+    @Test
+    public void testSinglePartition() {
+        Message<byte[]> msg = MessageBuilder.withPayload("x".getBytes()).build();
+        Assert.assertEquals(-1, AmqpMessageBinder.getPartition(msg, 0)); // not partitioned
+        Assert.assertEquals(0, AmqpMessageBinder.getPartition(msg, 1));
+        Message<byte[]> msg1 = MessageBuilder.withPayload("x".getBytes())
+            .setHeader(BinderHeaders.PARTITION_HEADER, 1).build();
+        Assert.assertEquals(1, AmqpMessageBinder.getPartition(msg1, 3));
+        Message<byte[]> msg5 = MessageBuilder.withPayload("x".getBytes())
+            .setHeader(BinderHeaders.PARTITION_HEADER, 5).build();
+        Assert.assertEquals(AmqpMessageBinder.jumpConsistentHash(5, 3), AmqpMessageBinder.getPartition(msg5, 3));
+
+        Callback part0 = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("s", "g", 0, part0));
+        AmqpClient.send("s", AmqpMessageBinder.getPartition(msg, 1), msg.getPayload());
+        waitFor(part0, 1);
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("s", "g", 0));
+    }
+
+    /**
+     * Tests that adding a partition moves only about 1/n of the keys, all of them to the new partition.
+     */
+    @Test
+    public void testConsistentPartitioning() {
+        final int keys = 10000;
+        for (int partitions = 1; partitions < 16; partitions++) {
+            int moved = 0;
+            for (int k = 0; k < keys; k++) {
+                int before = AmqpMessageBinder.jumpConsistentHash(k, partitions);
+                int after = AmqpMessageBinder.jumpConsistentHash(k, partitions + 1);
+                Assert.assertTrue(before >= 0 && before < partitions);
+                if (before != after) {
+                    Assert.assertEquals(partitions, after);
+                    moved++;
+                }
+            }
+            double expected = keys / (double) (partitions + 1);
+            Assert.assertTrue("Moved " + moved + " of " + keys + " keys for " + (partitions + 1) + " partitions", 
+                Math.abs(moved - expected) < expected * 0.2);
+        }
+    }
+
+    /**
+     * Tests that a callback failing on a message does not stop the consumer and that the failed message is 
+     * settled, i.e., rejected in the default configuration.
+     */
+    @Test
+    public void testFailingCallback() {
+        Callback callback = new Callback() {
+
+            @Override
+            public void messageArrived(String topic, byte[] payload) {
+                if ("1".equals(new String(payload))) {
+                    throw new IllegalStateException("Cannot process 1");
+                }
+                super.messageArrived(topic, payload);
+            }
+            
+        };
+        Assert.assertTrue(AmqpClient.subscribeTo("f", "g", -1, callback));
+        send("f", -1, 4);
+        waitFor(callback, 3);
+        TimeUtils.sleep(700);
+        Assert.assertEquals(0, AmqpClient.getUnackedCount());
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("f", "g", -1));
+    }
+
+    /**
+     * Tests that incomplete acknowledgement batches are acknowledged after the acknowledgement interval.
+     */
+    @Test
+    public void testAckInterval() {
+        Callback callback = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("a", "g", -1, callback));
+        send("a", -1, 3); // batch size 2, one remains
+        waitFor(callback, 3);
+        TimeUtils.sleep(700);
+        Assert.assertEquals(0, AmqpClient.getUnackedCount());
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("a", "g", -1));
+    }
+
+    /**
+     * Tests that duplicate subscriptions are rejected rather than replacing (and leaking) the existing one.
+     */
+    @Test
+    public void testDuplicateSubscription() {
+        Callback callback = new Callback();
+        Callback duplicate = new Callback();
+        Assert.assertTrue(AmqpClient.subscribeTo("d", "g", -1, callback));
+        Assert.assertFalse(AmqpClient.subscribeTo("d", "g", -1, duplicate));
+        send("d", -1, 2);
+        waitFor(callback, 2);
+        Assert.assertEquals(0, duplicate.received.size());
+        Assert.assertTrue(AmqpClient.unsubscribeFrom("d", "g", -1));
+        Assert.assertFalse(AmqpClient.unsubscribeFrom("d", "g", -1));
+    }
+
+}
@@ -18,6 +18,7 @@ import org.springframework.cloud.stream.provisioning.ConsumerDestination;
 import org.springframework.cloud.stream.provisioning.ProducerDestination;
 import org.springframework.integration.core.MessageProducer;
 import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
 import org.springframework.messaging.MessageHandler;
 
 /**
@@ -42,7 +43,10 @@ public class MqttV3MessageBinder extends AbstractMessageChannelBinder<ConsumerPr
     protected MessageHandler createProducerMessageHandler(ProducerDestination destination,
             ProducerProperties producerProperties, MessageChannel errorChannel) throws Exception {
         return message -> {
-            MqttClient.send(destination.getName(), (byte[]) message.getPayload());
+            if (!MqttClient.send(destination.getName(), (byte[]) message.getPayload())) {
+                throw new MessageDeliveryException(message, "MQTT message to " + destination.getName() 
+                    + " was rejected, see log");
+            }
         };
     }
 
@@ -21,7 +21,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-    MqttV3MessageBinderTest.class
+    MqttV3MessageBinderTest.class,
+    MqttClientTest.class
 })
 public class AllTests {
 }
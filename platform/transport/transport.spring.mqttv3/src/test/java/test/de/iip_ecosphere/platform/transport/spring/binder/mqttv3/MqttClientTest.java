@@ -0,0 +1,92 @@
+/********************************************************************************
+ * Copyright (c) {2020} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made 
+ * available under the terms of the Eclipse Public License 2.0 which is available 
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package test.de.iip_ecosphere.platform.transport.spring.binder.mqttv3;
+
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.support.Schema;
+import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.support.TimeUtils;
+import de.iip_ecosphere.platform.transport.spring.binder.mqttv3.MqttClient;
+import de.iip_ecosphere.platform.transport.spring.binder.mqttv3.MqttConfiguration;
+import test.de.iip_ecosphere.platform.test.mqtt.moquette.TestMoquetteServer;
+
+/**
+ * Tests the MQTT client pool without Spring, in particular rejecting messages if the in-flight capacity is 
+ * exhausted. Shall run after the binder tests as it replaces the client pool.
+ * 
+ * @author Holger Eichelberger, SSE
+ */
+public class MqttClientTest {
+
+    private static final ServerAddress ADDR = new ServerAddress(Schema.IGNORE); // localhost, ephemeral port
+    private static TestMoquetteServer server;
+
+    /**
+     * Starts an embedded MQTT server.
+     */
+    @BeforeClass
+    public static void init() {
+        server = new TestMoquetteServer(ADDR);
+        server.start();
+        TimeUtils.sleep(1000);
+    }
+
+    /**
+     * Shuts down client and test server.
+     */
+    @AfterClass
+    public static void shutdown() {
+        MqttClient.stopClient();
+        server.stop(true);
+    }
+
+    /**
+     * Saturates the in-flight capacity of a single client and asserts that messages are rejected rather than 
+     * dropped silently.
+     */
+    @Test(timeout = 60 * 1000)
+    public void testInflightSaturation() {
+        MqttClient.stopClient(); // pool of the binder tests, if any
+        MqttConfiguration config = new MqttConfiguration();
+        config.setHost(ADDR.getHost());
+        config.setPort(ADDR.getPort());
+        config.setClientId("saturation");
+        config.setQos("EXACTLY_ONCE"); // two round trips until the in-flight slot is free again
+        config.setClients(1);
+        config.setMaxInflight(1);
+        config.setInflightTimeout(0);
+        MqttClient.createClient(config);
+        Assert.assertEquals(1, MqttClient.getClientCount());
+
+        long rejectedBefore = MqttClient.getRejectedCount();
+        int rejected = 0;
+        for (int i = 0; i < 50; i++) {
+            if (!MqttClient.send("saturation", new byte[] {(byte) i})) {
+                rejected++;
+            }
+        }
+        Assert.assertTrue("No message was rejected", rejected > 0);
+        Assert.assertTrue(MqttClient.getRejectedCount() - rejectedBefore >= rejected);
+
+        boolean sent = false; // slot becomes free when the broker completes the in-flight message
+        for (int i = 0; !sent && i < 100; i++) {
+            TimeUtils.sleep(50);
+            sent = MqttClient.send("saturation", new byte[] {1});
+        }
+        Assert.assertTrue("Slot was not freed", sent);
+    }
+
+}
@@ -146,6 +146,8 @@ public class MqttV3MessageBinderTest {
         Assert.assertEquals("localhost", params.getHost());
         Assert.assertEquals(ADDR.getPort(), params.getPort());
         Assert.assertEquals("test", params.getApplicationId());
+        Assert.assertEquals(2, MqttClient.getClientCount());
+        Assert.assertEquals(0, MqttClient.getFailedCount());
     }
     
     /**
@@ -11,13 +11,19 @@
 
 package de.iip_ecosphere.platform.transport.spring.binder.mqttv5;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.eclipse.paho.mqttv5.client.IMqttToken;
+import org.eclipse.paho.mqttv5.client.MqttActionListener;
 import org.eclipse.paho.mqttv5.client.MqttAsyncClient;
 import org.eclipse.paho.mqttv5.client.MqttCallback;
+import org.eclipse.paho.mqttv5.client.MqttClientException;
 import org.eclipse.paho.mqttv5.client.MqttConnectionOptions;
 import org.eclipse.paho.mqttv5.client.MqttDisconnectResponse;
 import org.eclipse.paho.mqttv5.client.persist.MemoryPersistence;
@@ -31,19 +37,26 @@ import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
 import de.iip_ecosphere.platform.transport.connectors.impl.AbstractTransportConnector;
 
 /**
- * A central MQTT client for all binders to reduce resource usage. Typically, different binders subscribe to different
- * topics. 
+ * A central pool of MQTT clients for all binders to reduce resource usage. Typically, different binders subscribe to 
+ * different topics. Topics are assigned to the {@link MqttConfiguration#getClients() clients} by their hash. Each 
+ * client publishes asynchronously with at most {@link MqttConfiguration#getMaxInflight()} unacknowledged messages. 
+ * Messages that do not get a free in-flight slot within {@link MqttConfiguration#getInflightTimeout()} are rejected, 
+ * i.e., {@link #send(String, byte[])} returns {@code false} and {@link #getRejectedCount()} is incremented.
+ * Subscriptions for a consumer group are turned into MQTT v5 shared subscriptions.
  * 
- * Partially public for testing. Initial implementation, not optimized.
+ * Partially public for testing.
  * 
  * @author Holger Eichelberger, SSE
  */
 public class MqttClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MqttV5MessageBinder.class); // map all to binder
-    private static MqttAsyncClient client;
+    private static final AtomicLong FAILED = new AtomicLong();
+    private static final AtomicLong REJECTED = new AtomicLong();
+    private static PooledClient[] clients;
     private static MqttConfiguration configuration;
-    private static Callback callback;
+    private static Map<String, List<ArrivedCallback>> callbacks = new ConcurrentHashMap<>();
+    private static Map<ArrivedCallback, String> subscriptions = new ConcurrentHashMap<>(); // callback -> filter
     private static MqttQoS qos = MqttQoS.AT_LEAST_ONCE;
     
     /**
@@ -93,13 +106,13 @@ public class MqttClient {
      */
     private static class Callback implements MqttCallback {
 
-        private Map<String, ArrivedCallback> callbacks = Collections.synchronizedMap(new HashMap<>());
-
         @Override
         public void messageArrived(String topic, MqttMessage message) throws Exception {
-            ArrivedCallback cb = callbacks.get(topic);
-            if (null != cb) {
-                cb.messageArrived(topic, message);
+            List<ArrivedCallback> cbs = callbacks.get(topic);
+            if (null != cbs) {
+                for (ArrivedCallback cb : cbs) {
+                    cb.messageArrived(topic, message);
+                }
             }
         }
 
@@ -130,30 +143,95 @@ public class MqttClient {
         }
 
     }
-    
+
     /**
-     * Creates the client based on a given MQTT client configuration.
+     * A pooled client limiting the number of unacknowledged publishes.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class PooledClient implements MqttActionListener {
+
+        private MqttAsyncClient client;
+        private Semaphore inflight;
+
+        /**
+         * Creates a pooled client.
+         * 
+         * @param client the connected client
+         * @param maxInflight the maximum number of unacknowledged publishes
+         */
+        private PooledClient(MqttAsyncClient client, int maxInflight) {
+            this.client = client;
+            this.inflight = new Semaphore(maxInflight);
+        }
+
+        /**
+         * Publishes {@code message} to {@code topic}. Waits at most the configured in-flight timeout for a free 
+         * in-flight slot.
+         * 
+         * @param topic the topic
+         * @param message the message
+         * @throws MqttException if publishing fails, with reason code {@code REASON_CODE_MAX_INFLIGHT} if there was 
+         *   no free in-flight slot
+         */
+        private void publish(String topic, MqttMessage message) throws MqttException {
+            boolean acquired = false;
+            try {
+                acquired = inflight.tryAcquire(configuration.getInflightTimeout(), TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // acquired is false
+            }
+            if (!acquired) {
+                throw new MqttException(MqttClientException.REASON_CODE_MAX_INFLIGHT);
+            }
+            try {
+                client.publish(topic, message, null, this);
+            } catch (MqttException e) {
+                inflight.release();
+                throw e;
+            }
+        }
+
+        @Override
+        public void onSuccess(IMqttToken asyncActionToken) {
+            inflight.release();
+        }
+
+        @Override
+        public void onFailure(IMqttToken asyncActionToken, Throwable exception) {
+            inflight.release();
+            FAILED.incrementAndGet();
+            LOGGER.error("Sending MQTT message failed: " + exception.getMessage());
+        }
+
+    }
+
+    /**
+     * Creates the clients based on a given MQTT client configuration.
      * 
      * @param config the MQTT configuration to take the connection information from
      */
-    static synchronized void createClient(MqttConfiguration config) {
-        if (null == client) {
+    public static synchronized void createClient(MqttConfiguration config) {
+        if (null == clients) {
             try {
                 configuration = config;
                 qos = config.getQos();
                 String clientId = AbstractTransportConnector.getApplicationId(config.getClientId(), "stream", 
                     config.getAutoClientId());
-                LOGGER.info("Connecting to " + config.getBrokerString() + " with client id " + clientId);
-                MqttAsyncClient cl = new MqttAsyncClient(config.getBrokerString(), 
-                    clientId, new MemoryPersistence());
-                callback = new Callback();
-                cl.setCallback(callback);
-                MqttConnectionOptions connOpts = new MqttConnectionOptions();
-                connOpts.setCleanStart(false);
-                connOpts.setKeepAliveInterval(config.getKeepAlive());
-                connOpts.setAutomaticReconnect(true);
-                waitForCompletion(cl.connect(connOpts));
-                client = cl;
+                PooledClient[] pool = new PooledClient[config.getClients()];
+                for (int c = 0; c < pool.length; c++) {
+                    String id = c == 0 ? clientId : clientId + "-" + c;
+                    LOGGER.info("Connecting to " + config.getBrokerString() + " with client id " + id);
+                    MqttAsyncClient cl = new MqttAsyncClient(config.getBrokerString(), id, new MemoryPersistence());
+                    cl.setCallback(new Callback());
+                    MqttConnectionOptions connOpts = new MqttConnectionOptions();
+                    connOpts.setCleanStart(false);
+                    connOpts.setKeepAliveInterval(config.getKeepAlive());
+                    connOpts.setAutomaticReconnect(true);
+                    waitForCompletion(cl.connect(connOpts));
+                    pool[c] = new PooledClient(cl, config.getMaxInflight());
+                }
+                clients = pool;
             } catch (MqttException e) {
                 LOGGER.error("Connecting MQTT client: " + e.getMessage(), e);
             }
@@ -161,17 +239,66 @@ public class MqttClient {
     }
     
     /**
-     * Stops the client.
+     * Stops the clients.
+     */
+    public static synchronized void stopClient() {
+        if (null != clients) {
+            for (PooledClient c : clients) {
+                try {
+                    waitForCompletion(c.client.disconnect());
+                    c.client.close();
+                } catch (MqttException e) {
+                    LOGGER.error("Stopping MQTT client: " + e.getMessage(), e);
+                }
+            }
+            clients = null;
+            callbacks.clear();
+            subscriptions.clear();
+        }
+    }
+
+    /**
+     * Returns the client responsible for {@code topic}.
+     * 
+     * @param topic the topic
+     * @return the client, <b>null</b> if there is none
      */
-    public static void stopClient() {
-        try {
-            waitForCompletion(client.disconnect());
-            client.close();
-            callback = null;
-            client = null;
-        } catch (MqttException e) {
-            LOGGER.error("Stopping MQTT client: " + e.getMessage(), e);
+    private static PooledClient getClient(String topic) {
+        PooledClient[] pool = clients;
+        PooledClient result = null;
+        if (null != pool) {
+            result = pool[(topic.hashCode() & Integer.MAX_VALUE) % pool.length];
         }
+        return result;
+    }
+
+    /**
+     * Returns the number of connected clients.
+     * 
+     * @return the number of clients
+     */
+    public static int getClientCount() {
+        PooledClient[] pool = clients;
+        return null == pool ? 0 : pool.length;
+    }
+
+    /**
+     * Returns the number of asynchronously failed publishes.
+     * 
+     * @return the number of failed publishes
+     */
+    public static long getFailedCount() {
+        return FAILED.get();
+    }
+
+    /**
+     * Returns the number of messages rejected by {@link #send(String, byte[])}, e.g., as no in-flight slot became 
+     * free within {@link MqttConfiguration#getInflightTimeout()}.
+     * 
+     * @return the number of rejected messages
+     */
+    public static long getRejectedCount() {
+        return REJECTED.get();
     }
 
     /**
@@ -183,58 +310,123 @@ public class MqttClient {
      * @return {@code true} if done/successful, {@code false} else
      */
     static boolean subscribeTo(String topic, ArrivedCallback arrivedCallback) {
+        return subscribeTo(topic, null, arrivedCallback);
+    }
+
+    /**
+     * Subscribes to {@code topic} if {@code topic} is not blacklisted by 
+     * {@link MqttConfiguration#isFilteredTopic(String)}. If {@code group} is given, a shared subscription is 
+     * created so that all subscribers in {@code group} receive the messages in turn. Multiple callbacks may be
+     * registered for the same topic, e.g., by different bindings; the underlying subscription is created with the
+     * configured QoS when the first callback for a subscription filter is registered.
+     * 
+     * @param topic the topic to unsubscribe from
+     * @param group the consumer group, may be <b>null</b> or empty for none
+     * @param arrivedCallback the callback to be called when a message arrived
+     * @return {@code true} if done/successful, {@code false} else
+     */
+    static synchronized boolean subscribeTo(String topic, String group, ArrivedCallback arrivedCallback) {
         boolean done = false;
+        PooledClient client = getClient(topic);
         if (!configuration.isFilteredTopic(topic) && null != client) {
-            try {
-                callback.callbacks.put(topic, arrivedCallback);
-                waitForCompletion(client.subscribe(topic, MqttQoS.AT_LEAST_ONCE.value()));
-                LOGGER.info("Subscribed to " + topic);
+            String filter = null == group || group.trim().isEmpty() ? topic : "$share/" + group.trim() + "/" + topic;
+            boolean subscribed = subscriptions.containsValue(filter);
+            callbacks.computeIfAbsent(topic, t -> new CopyOnWriteArrayList<>()).add(arrivedCallback);
+            subscriptions.put(arrivedCallback, filter);
+            if (subscribed) {
                 done = true;
-            } catch (MqttException e) {
-                LOGGER.error("Subscribing to MQTT topic '" + topic + "': " + e.getMessage(), e);
+            } else {
+                try {
+                    waitForCompletion(client.client.subscribe(filter, qos.value()));
+                    LOGGER.info("Subscribed to " + filter);
+                    done = true;
+                } catch (MqttException e) {
+                    removeCallback(topic, arrivedCallback);
+                    LOGGER.error("Subscribing to MQTT topic '" + filter + "': " + e.getMessage(), e);
+                }
             }
         }
         return done;
     }
+
+    /**
+     * Removes a registered callback.
+     * 
+     * @param topic the topic the callback was registered for
+     * @param arrivedCallback the callback
+     * @return the subscription filter of {@code arrivedCallback}, {@code topic} if there was none
+     */
+    private static String removeCallback(String topic, ArrivedCallback arrivedCallback) {
+        String filter = subscriptions.remove(arrivedCallback);
+        if (null == filter) {
+            filter = topic;
+        }
+        List<ArrivedCallback> cbs = callbacks.get(topic);
+        if (null != cbs) {
+            cbs.remove(arrivedCallback);
+            if (cbs.isEmpty()) {
+                callbacks.remove(topic);
+            }
+        }
+        return filter;
+    }
     
     /**
-     * Unsubscribes from {@code topic} if {@code topic} is not blacklisted by 
-     * {@link MqttConfiguration#isFilteredTopic(String)}.
+     * Unregisters {@code arrivedCallback} from {@code topic} if {@code topic} is not blacklisted by 
+     * {@link MqttConfiguration#isFilteredTopic(String)}. The underlying subscription is removed when no further 
+     * callback uses its subscription filter.
      * 
      * @param topic the topic to unsubscribe from
+     * @param arrivedCallback the callback passed to {@link #subscribeTo(String, String, ArrivedCallback)}
      * @return {@code true} if done/successful, {@code false} else
      */
-    static boolean unsubscribeFrom(String topic) {
+    static synchronized boolean unsubscribeFrom(String topic, ArrivedCallback arrivedCallback) {
         boolean done = false;
+        PooledClient client = getClient(topic);
         if (!configuration.isFilteredTopic(topic) && null != client) {
+            String filter = removeCallback(topic, arrivedCallback);
             try {
-                callback.callbacks.remove(topic);
-                waitForCompletion(client.unsubscribe(topic));
-                LOGGER.info("Unsubscribed from " + topic);
+                if (!subscriptions.containsValue(filter)) {
+                    waitForCompletion(client.client.unsubscribe(filter));
+                    LOGGER.info("Unsubscribed from " + filter);
+                }
                 done = true;
             } catch (MqttException e) {
-                LOGGER.error("Unsubscribing from MQTT topic '" + topic + "': " + e.getMessage(), e);
+                LOGGER.error("Unsubscribing from MQTT topic '" + filter + "': " + e.getMessage(), e);
             }
         }
         return done;
     }
     
     /**
-     * Sends {@code payload} to {@code topic}.
+     * Sends {@code payload} to {@code topic}. Completion is tracked asynchronously. Messages that cannot be handed 
+     * over to a client, e.g., as there is no connected client or no free in-flight slot, are counted and logged.
      * 
      * @param topic the topic to send to
      * @param payload the payload to send
+     * @return {@code true} if the message was handed over to a client, {@code false} if it was rejected
+     * @see #getFailedCount()
+     * @see #getRejectedCount()
      */
-    static void send(String topic, byte[] payload) {
+    public static boolean send(String topic, byte[] payload) {
+        boolean sent = false;
+        PooledClient client = getClient(topic);
         if (null != client) {
             MqttMessage message = new MqttMessage(payload);
-            message.setQos(qos.value()); 
+            message.setQos(qos.value());
             try {
                 client.publish(topic, message);
+                sent = true;
             } catch (MqttException e) {
-                LOGGER.error("Sending MQTT message with topic " + topic + ": " + e.getMessage(), e);
+                LOGGER.error("Sending MQTT message with topic " + topic + ": " + e.getMessage());
             }
+        } else {
+            LOGGER.error("Sending MQTT message with topic " + topic + ": No connected client");
+        }
+        if (!sent) {
+            REJECTED.incrementAndGet();
         }
+        return sent;
     }
     
     /**
@@ -18,6 +18,7 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
+import de.iip_ecosphere.platform.transport.connectors.basics.AbstractMqttTransportConnector;
 import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
 
 /**
@@ -37,6 +38,9 @@ public class MqttConfiguration {
     private int actionTimeout = 1000;
     private List<String> filteredTopics = new ArrayList<String>();
     private String qos = MqttQoS.AT_LEAST_ONCE.name();
+    private int clients = 1;
+    private int maxInflight = AbstractMqttTransportConnector.DEFAULT_MAX_INFLIGHT;
+    private int inflightTimeout = -1;
     
     /**
      * Returns whether {@code topic} is a filtered topic, i.e., we shall not subscribe to this topic.
@@ -140,6 +144,33 @@ public class MqttConfiguration {
         return MqttQoS.valueOf(qos);
     }
 
+    /**
+     * Returns the number of pooled clients to distribute the topics on.
+     * 
+     * @return the number of clients
+     */
+    public int getClients() {
+        return clients;
+    }
+
+    /**
+     * Returns the maximum number of unacknowledged messages per client.
+     * 
+     * @return the maximum number of in-flight messages
+     */
+    public int getMaxInflight() {
+        return maxInflight;
+    }
+
+    /**
+     * Returns the time to wait for a free in-flight slot before a message is rejected.
+     * 
+     * @return the time in ms, by default the {@link #getActionTimeout() action timeout}
+     */
+    public int getInflightTimeout() {
+        return inflightTimeout < 0 ? getActionTimeout() : inflightTimeout;
+    }
+
     // setters required for @ConfigurationProperties
 
     /**
@@ -230,6 +261,33 @@ public class MqttConfiguration {
         }
     }
 
+    /**
+     * Defines the number of pooled clients. [required by Spring]
+     * 
+     * @param clients the number of clients, at least 1
+     */
+    public void setClients(int clients) {
+        this.clients = Math.max(1, clients);
+    }
+
+    /**
+     * Defines the maximum number of unacknowledged messages per client. [required by Spring]
+     * 
+     * @param maxInflight the maximum number of in-flight messages, at least 1
+     */
+    public void setMaxInflight(int maxInflight) {
+        this.maxInflight = Math.max(1, maxInflight);
+    }
+
+    /**
+     * Defines the time to wait for a free in-flight slot before a message is rejected. [required by Spring]
+     * 
+     * @param inflightTimeout the time in ms, negative for the {@link #getActionTimeout() action timeout}
+     */
+    public void setInflightTimeout(int inflightTimeout) {
+        this.inflightTimeout = inflightTimeout;
+    }
+
     // converter
     
     /**
@@ -25,6 +25,8 @@ import org.springframework.messaging.Message;
 public class MqttV5MessageProducer extends MessageProducerSupport {
 
     private final ConsumerDestination destination;
+    private final String group;
+    private final Callback callback = new Callback();
     
     /**
      * Creates a message producer instance.
@@ -32,7 +34,19 @@ public class MqttV5MessageProducer extends MessageProducerSupport {
      * @param destination the consumer destination
      */
     public MqttV5MessageProducer(ConsumerDestination destination) {
+        this(destination, null);
+    }
+
+    /**
+     * Creates a message producer instance for a consumer group. All producers in the same group share the 
+     * messages of the destination.
+     * 
+     * @param destination the consumer destination
+     * @param group the consumer group, may be <b>null</b> or empty for none
+     */
+    public MqttV5MessageProducer(ConsumerDestination destination, String group) {
         this.destination = destination;
+        this.group = group;
     }
     
     /**
@@ -53,12 +67,12 @@ public class MqttV5MessageProducer extends MessageProducerSupport {
 
     @Override
     public void doStart() {
-        MqttClient.subscribeTo(destination.getName(), new Callback());
+        MqttClient.subscribeTo(destination.getName(), group, callback);
     }
 
     @Override
     protected void doStop() {
-        MqttClient.unsubscribeFrom(destination.getName());
+        MqttClient.unsubscribeFrom(destination.getName(), callback);
     }
 
 }
@@ -21,7 +21,8 @@ import org.junit.runners.Suite;
  */
 @RunWith(Suite.class)
 @Suite.SuiteClasses({
-    MqttV5MessageBinderTest.class
+    MqttV5MessageBinderTest.class,
+    MqttClientTest.class
 })
 public class AllTests {
 }
@@ -12,6 +12,7 @@
 package de.iip_ecosphere.platform.transport.spring;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,6 +23,7 @@ import org.springframework.messaging.MessageHeaders;
 import org.springframework.messaging.converter.AbstractMessageConverter;
 import org.springframework.util.MimeType;
 
+import de.iip_ecosphere.platform.transport.serialization.BufferPool;
 import de.iip_ecosphere.platform.transport.serialization.Serializer;
 import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 
@@ -61,14 +63,24 @@ public class SerializerMessageConverter extends AbstractMessageConverter {
     protected boolean supports(Class<?> clazz) {
         return SerializerRegistry.hasSerializer(clazz);
     }
+
+    @Override
+    protected boolean canConvertFrom(Message<?> message, Class<?> targetClass) {
+        // deserialization does not resolve superclasses/interfaces as a supertype serializer cannot create targetClass
+        return SerializerRegistry.hasDeserializer(targetClass) && super.canConvertFrom(message, targetClass);
+    }
     
     @Override
     protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
         Object payload = message.getPayload();
-        Serializer<?> serializer = SerializerRegistry.getSerializer(targetClass);
+        Serializer<?> serializer = SerializerRegistry.getDeserializer(targetClass);
         if (null != serializer) {
             try {
-                payload = serializer.from((byte[]) payload);
+                if (payload instanceof ByteBuffer) {
+                    payload = BufferPool.deserialize(serializer, (ByteBuffer) payload);
+                } else {
+                    payload = serializer.from((byte[]) payload);
+                }
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -97,7 +109,7 @@ public class SerializerMessageConverter extends AbstractMessageConverter {
         Serializer<T> serializer = (Serializer<T>) SerializerRegistry.getSerializer(payload.getClass());
         if (null != serializer) {
             try {
-                result = serializer.to(payload);
+                result = BufferPool.serialize(serializer, payload);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
@@ -122,7 +134,8 @@ public class SerializerMessageConverter extends AbstractMessageConverter {
         Serializer<T> serializer = (Serializer<T>) SerializerRegistry.getSerializer(payload.getClass());
         if (null != serializer) {
             try {
-                streamBridge.send(bindingName, MessageBuilder.withPayload(serializer.to(payload)).build());
+                byte[] data = BufferPool.serialize(serializer, payload);
+                streamBridge.send(bindingName, MessageBuilder.withPayload(data).build());
             } catch (IOException e) {
                 LOGGER.error("Cannot send instance of " + payload.getClass().getName() 
                     + ": " + e.getMessage());
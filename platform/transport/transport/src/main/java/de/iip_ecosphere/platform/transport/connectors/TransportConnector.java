@@ -11,6 +11,7 @@
 package de.iip_ecosphere.platform.transport.connectors;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Defines the interface of a transport connector. The connector can handle
@@ -47,6 +48,32 @@ public interface TransportConnector {
      */
     public void asyncSend(String stream, Object data) throws IOException;
 
+    /**
+     * Sends the given {@code data} items on {@code stream} as a batch. Items may be buffered until 
+     * {@link TransportParameter#getBatchSize()} items are collected or {@link TransportParameter#getLingerTime()} 
+     * is over. A batch is sent by pipelining the underlying send operations, i.e., this call may block until 
+     * the sent batches are completed, but not for individual items. Use {@link #flush()} to enforce sending of 
+     * buffered items. The default implementation just {@link #syncSend(String, Object) sends} the items one by one.
+     * 
+     * @param stream the stream to send to
+     * @param data   the data items to send to {@code stream}
+     * @throws IOException in case that problems during the connection happens
+     */
+    public default void sendBatch(String stream, List<?> data) throws IOException {
+        for (Object d : data) {
+            syncSend(stream, d);
+        }
+    }
+
+    /**
+     * Sends all buffered batch items and waits for the completion of pending send operations. The default 
+     * implementation does nothing as the default {@link #sendBatch(String, List)} does not buffer.
+     * 
+     * @throws IOException in case that problems during the connection happens
+     */
+    public default void flush() throws IOException {
+    }
+
     /**
      * Attaches a reception {@code callback} to {@code stream}. The {@code callback}
      * is called upon a reception.
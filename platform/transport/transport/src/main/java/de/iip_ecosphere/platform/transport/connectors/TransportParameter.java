@@ -10,7 +10,11 @@
  ********************************************************************************/
 package de.iip_ecosphere.platform.transport.connectors;
 
+import java.util.HashMap;
+import java.util.Map;
+
 import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
 
 /**
  * Captures common transport parameter for all connector types. Connectors shall document which of the
@@ -26,13 +30,74 @@ public class TransportParameter {
     private String applicationId = "";
     private boolean autoApplicationId = true;
     private int keepAlive = 2000; 
+    private int batchSize = 100;
+    private int lingerTime = 0;
+    private DispatchMode dispatchMode = DispatchMode.SYNCHRONOUS;
+    private int dispatchThreads = 4;
+    private int dispatchQueueCapacity = 1000;
+    private DispatchOverflowPolicy dispatchOverflowPolicy = DispatchOverflowPolicy.BLOCK;
     private String user; // preliminary, AMQP
     private String password; // preliminary, AMQP
+    private String exchange = ""; // AMQP
+    private int prefetch = 0; // AMQP
+    private MqttQoS qos = MqttQoS.AT_LEAST_ONCE; // MQTT
+    private boolean retain = false; // MQTT
+    private Map<String, MqttQoS> streamQoS = new HashMap<>(); // MQTT
+    private Map<String, Boolean> streamRetain = new HashMap<>(); // MQTT
+    private long messageExpiry = 0; // MQTT v5
+    private int topicAliasMaximum = 0; // MQTT v5
 
     // inspired by OPC UA, just an idea for UKL
     //private X509Certificate certificate;
     //private KeyPair keyPair;
 
+    /**
+     * Defines how received data is handed over to the reception callbacks.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    public enum DispatchMode {
+        
+        /**
+         * Deserialize and call the reception callback directly on the thread of the underlying client library.
+         */
+        SYNCHRONOUS,
+        
+        /**
+         * Dispatch received data through an own ordered worker per stream.
+         */
+        PER_STREAM,
+        
+        /**
+         * Dispatch received data through a fixed number of ordered workers, streams are assigned to the workers 
+         * by the hash of their name.
+         */
+        STRIPED
+    }
+
+    /**
+     * Defines what happens if a dispatch queue is full.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    public enum DispatchOverflowPolicy {
+        
+        /**
+         * Block the thread of the underlying client library until there is space in the queue.
+         */
+        BLOCK,
+        
+        /**
+         * Discard the oldest queued data in favor of the received data.
+         */
+        DROP_OLDEST,
+        
+        /**
+         * Reject the received data by an exception.
+         */
+        FAIL
+    }
+
     /**
      * A builder for transport parameter. Connectors shall indicate the required settings.
      * 
@@ -117,6 +182,75 @@ public class TransportParameter {
             return this;
         }
 
+        /**
+         * Sets the maximum number of data items to be sent in one batch. Optional, remains 100 if unset.
+         * 
+         * @param batchSize the batch size (values less than 1 are considered as 1)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setBatchSize(int batchSize) {
+            instance.batchSize = Math.max(1, batchSize);
+            return this;
+        }
+
+        /**
+         * Sets the time to wait for further batch items before an incomplete batch is sent. Optional, remains 0 
+         * (send incomplete batches immediately) if unset.
+         * 
+         * @param lingerTime the linger time in milliseconds (values less than 0 are considered as 0)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setLingerTime(int lingerTime) {
+            instance.lingerTime = Math.max(0, lingerTime);
+            return this;
+        }
+
+        /**
+         * Sets the reception dispatch mode. Optional, remains {@link DispatchMode#SYNCHRONOUS} if unset.
+         * 
+         * @param dispatchMode the dispatch mode (<b>null</b> is considered as {@link DispatchMode#SYNCHRONOUS})
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setDispatchMode(DispatchMode dispatchMode) {
+            instance.dispatchMode = null == dispatchMode ? DispatchMode.SYNCHRONOUS : dispatchMode;
+            return this;
+        }
+
+        /**
+         * Sets the number of dispatch workers for {@link DispatchMode#STRIPED}. Optional, remains 4 if unset.
+         * 
+         * @param dispatchThreads the number of dispatch threads (values less than 1 are considered as 1)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setDispatchThreads(int dispatchThreads) {
+            instance.dispatchThreads = Math.max(1, dispatchThreads);
+            return this;
+        }
+
+        /**
+         * Sets the capacity of each dispatch queue. Optional, remains 1000 if unset.
+         * 
+         * @param dispatchQueueCapacity the queue capacity (values less than 1 are considered as 1)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setDispatchQueueCapacity(int dispatchQueueCapacity) {
+            instance.dispatchQueueCapacity = Math.max(1, dispatchQueueCapacity);
+            return this;
+        }
+
+        /**
+         * Sets the policy to apply if a dispatch queue is full. Optional, remains 
+         * {@link DispatchOverflowPolicy#BLOCK} if unset.
+         * 
+         * @param dispatchOverflowPolicy the policy (<b>null</b> is considered as {@link DispatchOverflowPolicy#BLOCK})
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setDispatchOverflowPolicy(DispatchOverflowPolicy dispatchOverflowPolicy) {
+            instance.dispatchOverflowPolicy = null == dispatchOverflowPolicy 
+                ? DispatchOverflowPolicy.BLOCK : dispatchOverflowPolicy;
+            return this;
+        }
+
         /**
          * Sets plain user information. Preliminary!!!
          * 
@@ -130,6 +264,124 @@ public class TransportParameter {
             return this;
         }
 
+        /**
+         * Sets the name of the topic exchange to publish to/bind consumer queues to. Optional, by default 
+         * the default exchange with one queue per stream is used, i.e., receivers of a stream compete for the data.
+         * 
+         * @param exchange the name of the exchange, <b>null</b> or empty for the default exchange
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setExchange(String exchange) {
+            instance.exchange = null == exchange ? "" : exchange.trim();
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of unacknowledged messages per receiver. Optional, unlimited if unset.
+         * 
+         * @param prefetch the prefetch count, {@code 0} or negative for unlimited
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setPrefetch(int prefetch) {
+            instance.prefetch = Math.max(0, prefetch);
+            return this;
+        }
+
+        /**
+         * Sets the default quality of service for publishing to/subscribing to streams. Optional, remains 
+         * {@link MqttQoS#AT_LEAST_ONCE} if unset.
+         * 
+         * @param qos the quality of service (<b>null</b> is considered as {@link MqttQoS#AT_LEAST_ONCE})
+         * @return <b>this</b>
+         * @throws IllegalArgumentException if {@code qos} is {@link MqttQoS#FAILURE}
+         */
+        public TransportParameterBuilder setQoS(MqttQoS qos) {
+            instance.qos = checkQoS(qos);
+            return this;
+        }
+
+        /**
+         * Sets the quality of service for publishing to/subscribing to {@code stream}, e.g., 
+         * {@link MqttQoS#AT_MOST_ONCE} for high-rate telemetry. Optional, the {@link #setQoS(MqttQoS) default} 
+         * applies if unset.
+         * 
+         * @param stream the stream name
+         * @param qos the quality of service (<b>null</b> for the default)
+         * @return <b>this</b>
+         * @throws IllegalArgumentException if {@code qos} is {@link MqttQoS#FAILURE}
+         */
+        public TransportParameterBuilder setQoS(String stream, MqttQoS qos) {
+            if (null == qos) {
+                instance.streamQoS.remove(stream);
+            } else {
+                instance.streamQoS.put(stream, checkQoS(qos));
+            }
+            return this;
+        }
+
+        /**
+         * Checks a quality of service value.
+         * 
+         * @param qos the quality of service
+         * @return {@code qos} or {@link MqttQoS#AT_LEAST_ONCE} if {@code qos} is <b>null</b>
+         * @throws IllegalArgumentException if {@code qos} is {@link MqttQoS#FAILURE}
+         */
+        private static MqttQoS checkQoS(MqttQoS qos) {
+            if (MqttQoS.FAILURE == qos) {
+                throw new IllegalArgumentException("invalid QoS: " + qos);
+            }
+            return null == qos ? MqttQoS.AT_LEAST_ONCE : qos;
+        }
+
+        /**
+         * Sets whether the broker shall retain the last data sent to a stream by default. Optional, remains 
+         * {@code false} if unset.
+         * 
+         * @param retain {@code true} for retaining, {@code false} else
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setRetain(boolean retain) {
+            instance.retain = retain;
+            return this;
+        }
+
+        /**
+         * Sets whether the broker shall retain the last data sent to {@code stream}. Optional, the 
+         * {@link #setRetain(boolean) default} applies if unset.
+         * 
+         * @param stream the stream name
+         * @param retain {@code true} for retaining, {@code false} else
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setRetain(String stream, boolean retain) {
+            instance.streamRetain.put(stream, retain);
+            return this;
+        }
+
+        /**
+         * Sets the time after which the broker shall discard undelivered data. Optional, remains 0 (no expiry) if
+         * unset.
+         * 
+         * @param messageExpiry the expiry interval in seconds (values less than 0 are considered as 0)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setMessageExpiry(long messageExpiry) {
+            instance.messageExpiry = Math.max(0, messageExpiry);
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of topic aliases the broker may use when sending to this client. Optional, 
+         * remains 0 (no aliases) if unset.
+         * 
+         * @param topicAliasMaximum the maximum number of aliases (clamped to 0-65535)
+         * @return <b>this</b>
+         */
+        public TransportParameterBuilder setTopicAliasMaximum(int topicAliasMaximum) {
+            instance.topicAliasMaximum = Math.min(65535, Math.max(0, topicAliasMaximum));
+            return this;
+        }
+
         /**
          * Returns the created instance.
          * 
@@ -188,6 +440,60 @@ public class TransportParameter {
         return keepAlive;
     }
 
+    /**
+     * Returns the maximum number of data items to be sent in one batch.
+     * 
+     * @return the batch size, at least 1
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Returns the time to wait for further batch items before an incomplete batch is sent.
+     * 
+     * @return the linger time in milliseconds, 0 for sending incomplete batches immediately
+     */
+    public int getLingerTime() {
+        return lingerTime;
+    }
+
+    /**
+     * Returns the reception dispatch mode.
+     * 
+     * @return the dispatch mode
+     */
+    public DispatchMode getDispatchMode() {
+        return dispatchMode;
+    }
+
+    /**
+     * Returns the number of dispatch workers for {@link DispatchMode#STRIPED}.
+     * 
+     * @return the number of dispatch threads, at least 1
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    /**
+     * Returns the capacity of each dispatch queue.
+     * 
+     * @return the capacity, at least 1
+     */
+    public int getDispatchQueueCapacity() {
+        return dispatchQueueCapacity;
+    }
+
+    /**
+     * Returns the policy to apply if a dispatch queue is full.
+     * 
+     * @return the policy
+     */
+    public DispatchOverflowPolicy getDispatchOverflowPolicy() {
+        return dispatchOverflowPolicy;
+    }
+
     /**
      * Returns the unique application/client identifier.
      * 
@@ -225,6 +531,84 @@ public class TransportParameter {
         return user;
     }
 
+    /**
+     * Returns the name of the topic exchange. [AMQP]
+     * 
+     * @return the name of the exchange, empty for the default exchange
+     */
+    public String getExchange() {
+        return exchange;
+    }
+
+    /**
+     * Returns the maximum number of unacknowledged messages per receiver. [AMQP]
+     * 
+     * @return the prefetch count, {@code 0} for unlimited
+     */
+    public int getPrefetch() {
+        return prefetch;
+    }
+
+    /**
+     * Returns the default quality of service. [MQTT]
+     * 
+     * @return the quality of service
+     */
+    public MqttQoS getQoS() {
+        return qos;
+    }
+
+    /**
+     * Returns the quality of service for {@code stream}. [MQTT]
+     * 
+     * @param stream the stream name
+     * @return the quality of service for {@code stream}, the {@link #getQoS() default} if not set specifically
+     */
+    public MqttQoS getQoS(String stream) {
+        MqttQoS result = streamQoS.get(stream);
+        return null == result ? qos : result;
+    }
+
+    /**
+     * Returns whether the broker shall retain the last data sent to a stream by default. [MQTT]
+     * 
+     * @return {@code true} for retaining, {@code false} else
+     */
+    public boolean getRetain() {
+        return retain;
+    }
+
+    /**
+     * Returns whether the broker shall retain the last data sent to {@code stream}. [MQTT]
+     * 
+     * @param stream the stream name
+     * @return {@code true} for retaining, {@code false} else, the {@link #getRetain() default} if not set 
+     *     specifically
+     */
+    public boolean getRetain(String stream) {
+        Boolean result = streamRetain.get(stream);
+        return null == result ? retain : result;
+    }
+
+    /**
+     * Returns the time after which the broker shall discard undelivered data. [MQTT v5]
+     * 
+     * @return the expiry interval in seconds, 0 for no expiry
+     */
+    public long getMessageExpiry() {
+        return messageExpiry;
+    }
+
+    /**
+     * Returns the maximum number of topic aliases the broker may use when sending to this client. Aliases for 
+     * sending are assigned by the client as granted by the broker. [MQTT v5]
+     * 
+     * @return the maximum number of topic aliases, 0 for none
+     */
+    public int getTopicAliasMaximum() {
+        return topicAliasMaximum;
+    }
+
     // TODO per stream: authentication, TLS
 
 }
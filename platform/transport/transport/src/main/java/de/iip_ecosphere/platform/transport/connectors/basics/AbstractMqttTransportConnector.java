@@ -10,15 +10,26 @@
  ********************************************************************************/
 package de.iip_ecosphere.platform.transport.connectors.basics;
 
+import java.io.IOException;
+
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
 import de.iip_ecosphere.platform.transport.connectors.impl.AbstractTransportConnector;
 
 /**
- * An abstract MQTT transport connector.
+ * An abstract MQTT transport connector. Quality of service, retain flag and message expiry are taken from the 
+ * {@link TransportParameter} per stream and may be overridden per send operation through 
+ * {@link MqttPublishOptions}.
  * 
  * @author Holger Eichelberger, SSE
  */
 public abstract class AbstractMqttTransportConnector extends AbstractTransportConnector {
 
+    /**
+     * The default number of unacknowledged messages in flight if not granted otherwise by the broker (as in the 
+     * Paho clients).
+     */
+    public static final int DEFAULT_MAX_INFLIGHT = 10;
+
     /**
      * Composes a hierarchical stream name (in the syntax/semantics of the
      * connector).
@@ -37,4 +48,80 @@ public abstract class AbstractMqttTransportConnector extends AbstractTransportCo
         return composeNames(parent, name);
     }
 
+    @Override
+    public void syncSend(String stream, Object data) throws IOException {
+        syncSend(stream, data, null);
+    }
+
+    @Override
+    public void asyncSend(String stream, Object data) throws IOException {
+        asyncSend(stream, data, null);
+    }
+
+    /**
+     * Sends the given {@code data} on {@code stream} in synchronized manner.
+     * 
+     * @param stream the stream to send to
+     * @param data the data to send to {@code stream}
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
+     * @throws IOException in case that problems during the connection happens
+     * @see #syncSend(String, Object)
+     */
+    public abstract void syncSend(String stream, Object data, MqttPublishOptions options) throws IOException;
+
+    /**
+     * Sends the given {@code data} on {@code stream} in asynchronous manner.
+     * 
+     * @param stream the stream to send to
+     * @param data the data to send to {@code stream}
+     * @param options the options overriding the transport parameter, may be <b>null</b> for none
+     * @throws IOException in case that problems during the connection happens
+     * @see #asyncSend(String, Object)
+     */
+    public abstract void asyncSend(String stream, Object data, MqttPublishOptions options) throws IOException;
+
+    /**
+     * Returns the quality of service for sending to {@code stream}.
+     * 
+     * @param stream the stream
+     * @param options the publish options, may be <b>null</b> for none
+     * @return the quality of service
+     */
+    protected MqttQoS getQoS(String stream, MqttPublishOptions options) {
+        MqttQoS result = null == options ? null : options.getQoS();
+        if (null == result) {
+            result = getTransportParameter().getQoS(stream);
+        }
+        return result;
+    }
+
+    /**
+     * Returns whether the broker shall retain data sent to {@code stream}.
+     * 
+     * @param stream the stream
+     * @param options the publish options, may be <b>null</b> for none
+     * @return {@code true} for retain, {@code false} else
+     */
+    protected boolean getRetain(String stream, MqttPublishOptions options) {
+        Boolean result = null == options ? null : options.getRetain();
+        if (null == result) {
+            result = getTransportParameter().getRetain(stream);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the message expiry for data sent.
+     * 
+     * @param options the publish options, may be <b>null</b> for none
+     * @return the expiry interval in seconds, 0 for no expiry
+     */
+    protected long getMessageExpiry(MqttPublishOptions options) {
+        long result = null == options ? MqttPublishOptions.DEFAULT_EXPIRY : options.getMessageExpiry();
+        if (result < 0) {
+            result = getTransportParameter().getMessageExpiry();
+        }
+        return result;
+    }
+
 }
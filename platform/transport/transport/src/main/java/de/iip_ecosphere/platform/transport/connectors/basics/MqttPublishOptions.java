@@ -0,0 +1,98 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.transport.connectors.basics;
+
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+
+/**
+ * Options overriding the {@link TransportParameter transport parameter} for an individual MQTT send operation. 
+ * Options that are not given, i.e., <b>null</b> or {@link #DEFAULT_EXPIRY}, are inherited from the stream settings 
+ * of the transport parameter.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class MqttPublishOptions {
+
+    /**
+     * Denotes that the message expiry of the transport parameter shall apply.
+     */
+    public static final long DEFAULT_EXPIRY = -1;
+
+    private MqttQoS qos;
+    private Boolean retain;
+    private long messageExpiry;
+
+    /**
+     * Creates publish options overriding only the quality of service.
+     *
+     * @param qos the quality of service (<b>null</b> for the quality of service of the stream)
+     */
+    public MqttPublishOptions(MqttQoS qos) {
+        this(qos, null, DEFAULT_EXPIRY);
+    }
+
+    /**
+     * Creates publish options with the message expiry of the transport parameter.
+     *
+     * @param qos the quality of service (<b>null</b> for the quality of service of the stream)
+     * @param retain whether the broker shall retain the data (<b>null</b> for the retain setting of the stream)
+     */
+    public MqttPublishOptions(MqttQoS qos, Boolean retain) {
+        this(qos, retain, DEFAULT_EXPIRY);
+    }
+
+    /**
+     * Creates publish options.
+     *
+     * @param qos the quality of service (<b>null</b> for the quality of service of the stream)
+     * @param retain whether the broker shall retain the data (<b>null</b> for the retain setting of the stream)
+     * @param messageExpiry the expiry interval in seconds (MQTT v5), 0 for no expiry, {@link #DEFAULT_EXPIRY} for
+     *     the expiry of the transport parameter
+     * @throws IllegalArgumentException if {@code qos} is {@link MqttQoS#FAILURE}
+     */
+    public MqttPublishOptions(MqttQoS qos, Boolean retain, long messageExpiry) {
+        if (MqttQoS.FAILURE == qos) {
+            throw new IllegalArgumentException("invalid QoS: " + qos);
+        }
+        this.qos = qos;
+        this.retain = retain;
+        this.messageExpiry = Math.max(DEFAULT_EXPIRY, messageExpiry);
+    }
+
+    /**
+     * Returns the quality of service.
+     *
+     * @return the quality of service, <b>null</b> for the quality of service of the stream
+     */
+    public MqttQoS getQoS() {
+        return qos;
+    }
+
+    /**
+     * Returns whether the broker shall retain the data.
+     *
+     * @return {@code true} for retain, {@code false} else, <b>null</b> for the retain setting of the stream
+     */
+    public Boolean getRetain() {
+        return retain;
+    }
+
+    /**
+     * Returns the message expiry.
+     *
+     * @return the expiry interval in seconds, 0 for no expiry, {@link #DEFAULT_EXPIRY} for the expiry of the
+     *     transport parameter
+     */
+    public long getMessageExpiry() {
+        return messageExpiry;
+    }
+
+}
@@ -11,34 +11,308 @@
 package de.iip_ecosphere.platform.transport.connectors.impl;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.LoggerFactory;
 
 import de.iip_ecosphere.platform.support.NetUtils;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchMode;
+import de.iip_ecosphere.platform.transport.serialization.BufferPool;
+import de.iip_ecosphere.platform.transport.serialization.BufferSerializer;
 import de.iip_ecosphere.platform.transport.serialization.Serializer;
 import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 
 /**
- * An abstract transport connector.
+ * An abstract transport connector. Depending on {@link TransportParameter#getDispatchMode()}, received data is 
+ * deserialized and handed over to the reception callbacks by a {@link ReceptionDispatcher} rather than on the 
+ * thread of the underlying client library.
  * 
  * @author Holger Eichelberger, SSE
  */
 public abstract class AbstractTransportConnector implements TransportConnector {
 
-    private Map<String, ReceptionCallback<?>> callbacks = new HashMap<>();
+    /**
+     * The number of consecutive attempts to send the first buffered batch item of a stream before the failing item 
+     * (or the failing batch if the failing item is not known) is dropped.
+     */
+    public static final int MAX_BATCH_RETRIES = 3;
+
+    private Map<String, ReceptionCallback<?>> callbacks = new ConcurrentHashMap<>();
+    private Set<String> streams = ConcurrentHashMap.newKeySet();
     private TransportParameter params;
+    private volatile ReceptionDispatcher dispatcher;
+    private Map<String, Batch> batches = new ConcurrentHashMap<>();
+    private Object lingerLock = new Object();
+    private Timer lingerTimer;
+    private TimerTask lingerTask;
+
+    /**
+     * The buffered batch items of a stream. Draining and sending happens while holding the lock on the batch 
+     * instance so that items of a stream are sent in sequence. Items are removed only after sending succeeded or
+     * after {@link AbstractTransportConnector#MAX_BATCH_RETRIES} failed attempts.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Batch {
+
+        private List<Object> buffer = new ArrayList<>();
+        private IOException failure;
+        private int retries;
+
+    }
 
     @Override
     public void setReceptionCallback(String stream, ReceptionCallback<?> callback) throws IOException {
-        callbacks.put(stream, callback);
+        streams.add(stream);
+        if (null == callback) {
+            callbacks.remove(stream);
+        } else {
+            callbacks.put(stream, callback);
+        }
     }
 
     @Override
     public void connect(TransportParameter params) throws IOException {
         this.params = params;
+        shutdownDispatcher();
+        if (DispatchMode.SYNCHRONOUS != params.getDispatchMode()) {
+            dispatcher = new ReceptionDispatcher(params, getName(), (s, d) -> handleReception(s, d));
+        }
+    }
+
+    /**
+     * Shuts down the reception dispatcher if there is one.
+     */
+    private void shutdownDispatcher() {
+        if (null != dispatcher) {
+            dispatcher.shutdown();
+            dispatcher = null;
+        }
+    }
+
+    /**
+     * Returns the reception dispatcher, e.g., to obtain dispatch statistics.
+     * 
+     * @return the dispatcher, <b>null</b> if received data is handled synchronously
+     */
+    public ReceptionDispatcher getReceptionDispatcher() {
+        return dispatcher;
+    }
+
+    /**
+     * Sends buffered batch items, stops batch lingering and the reception dispatcher. Connectors shall call this 
+     * method before closing the underlying connection.
+     * 
+     * @throws IOException in case that sending buffered batch items fails
+     */
+    @Override
+    public void disconnect() throws IOException {
+        try {
+            sendBatches(false);
+        } finally {
+            synchronized (lingerLock) {
+                if (null != lingerTimer) {
+                    lingerTimer.cancel();
+                    lingerTimer = null;
+                    lingerTask = null;
+                }
+            }
+            shutdownDispatcher();
+        }
+    }
+
+    /**
+     * Buffers {@code data} and sends complete batches. {@code data} is buffered in any case, i.e., if sending 
+     * fails, the items remain buffered for the next attempt. If sending lingering items in the background failed 
+     * before, the failure is thrown here after buffering {@code data} and the lingering is rescheduled.
+     * 
+     * @param stream the stream to send to
+     * @param data   the data items to send to {@code stream}
+     * @throws IOException in case that the connector is not connected, sending fails or sending lingering items 
+     *   failed before
+     */
+    @Override
+    public void sendBatch(String stream, List<?> data) throws IOException {
+        if (null == params) {
+            throw new IOException("Not connected");
+        }
+        int batchSize = Math.max(1, params.getBatchSize());
+        int lingerTime = params.getLingerTime();
+        Batch batch = batches.computeIfAbsent(stream, s -> new Batch());
+        synchronized (batch) {
+            batch.buffer.addAll(data);
+            IOException failure = batch.failure;
+            batch.failure = null;
+            if (null != failure) {
+                if (lingerTime > 0) {
+                    scheduleLinger(lingerTime);
+                }
+                throw new IOException("Sending lingering batch items failed, items are retained: " 
+                    + failure.getMessage(), failure);
+            }
+            send(stream, batch, batchSize, false);
+            if (!batch.buffer.isEmpty()) {
+                if (lingerTime > 0) {
+                    scheduleLinger(lingerTime);
+                } else {
+                    send(stream, batch, batchSize, true);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends buffered items of {@code batch} in chunks of at most {@code batchSize}. Must be called while holding the 
+     * lock on {@code batch}. Sent items are removed from the buffer only if sending succeeds, leading items reported 
+     * as sent by a {@link BatchSendException} are removed as well. If sending the first buffered item fails 
+     * {@link #MAX_BATCH_RETRIES} times in sequence, the failing item (or the entire chunk if the failing item is not
+     * known) is dropped so that it does not block the stream.
+     * 
+     * @param stream the stream to send to
+     * @param batch the batch
+     * @param batchSize the batch size
+     * @param all send all buffered items or only complete batches
+     * @throws IOException in case that sending fails
+     */
+    private void send(String stream, Batch batch, int batchSize, boolean all) throws IOException {
+        List<Object> buffer = batch.buffer;
+        while (buffer.size() >= batchSize || (all && !buffer.isEmpty())) {
+            int size = Math.min(batchSize, buffer.size());
+            try {
+                sendBatchImpl(stream, new ArrayList<>(buffer.subList(0, size)));
+                buffer.subList(0, size).clear();
+                batch.retries = 0;
+            } catch (IOException e) {
+                int drop = size; // failing item unknown
+                if (e instanceof BatchSendException) {
+                    int sent = Math.max(0, Math.min(size, ((BatchSendException) e).getSentCount()));
+                    buffer.subList(0, sent).clear();
+                    if (sent > 0) {
+                        batch.retries = 0;
+                    }
+                    drop = Math.min(1, size - sent); // the item after the sent ones failed
+                }
+                batch.retries++;
+                if (batch.retries >= MAX_BATCH_RETRIES && drop > 0) {
+                    LoggerFactory.getLogger(AbstractTransportConnector.class).error("Dropping " + drop 
+                        + " batch item(s) to " + stream + " after " + batch.retries + " failed attempts: " 
+                        + e.getMessage());
+                    buffer.subList(0, drop).clear();
+                    batch.retries = 0;
+                }
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Schedules sending buffered batch items after {@code lingerTime} if not already scheduled.
+     * 
+     * @param lingerTime the linger time in milliseconds
+     */
+    private void scheduleLinger(int lingerTime) {
+        synchronized (lingerLock) {
+            if (null == lingerTask) {
+                if (null == lingerTimer) {
+                    lingerTimer = new Timer(true);
+                }
+                lingerTask = new TimerTask() {
+    
+                    @Override
+                    public void run() {
+                        try {
+                            sendBatches(true);
+                        } catch (IOException e) {
+                            // recorded per batch, thrown on next sendBatch
+                        }
+                    }
+                    
+                };
+                lingerTimer.schedule(lingerTask, lingerTime);
+            }
+        }
+    }
+
+    /**
+     * Sends all buffered batch items. Items of a failing stream remain buffered.
+     * 
+     * @param linger whether called from the linger task, i.e., failures are logged and recorded to be thrown on the 
+     *   next {@link #sendBatch(String, List)} of the stream rather than thrown directly
+     * @throws IOException in case that sending fails (the first failure if multiple streams fail)
+     */
+    private void sendBatches(boolean linger) throws IOException {
+        synchronized (lingerLock) {
+            lingerTask = null;
+        }
+        int batchSize = null == params ? 1 : Math.max(1, params.getBatchSize());
+        IOException failure = null;
+        for (Map.Entry<String, Batch> ent : batches.entrySet()) {
+            Batch batch = ent.getValue();
+            synchronized (batch) {
+                try {
+                    send(ent.getKey(), batch, batchSize, true);
+                    batch.failure = null;
+                } catch (IOException e) {
+                    if (linger) {
+                        LoggerFactory.getLogger(AbstractTransportConnector.class).error(
+                            "While sending batch to " + ent.getKey() + ": " + e.getMessage());
+                        batch.failure = e;
+                    } else if (null == failure) {
+                        failure = e;
+                    }
+                }
+            }
+        }
+        if (null != failure) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends a complete batch of {@code data} items to {@code stream}. The default implementation just calls 
+     * {@link #syncSend(String, Object)} for each item. Connectors shall override this method to pipeline the 
+     * sending and to wait for the completion of the batch only once. If some leading items were sent before sending
+     * failed, implementations shall throw a {@link BatchSendException} so that these items are not sent again.
+     * 
+     * @param stream the stream to send to
+     * @param data the data items to send
+     * @throws IOException in case that sending fails, a {@link BatchSendException} if the number of successfully 
+     *   sent items is known
+     */
+    protected void sendBatchImpl(String stream, List<?> data) throws IOException {
+        int sent = 0;
+        try {
+            for (Object d : data) {
+                syncSend(stream, d);
+                sent++;
+            }
+        } catch (IOException e) {
+            throw new BatchSendException(e.getMessage(), sent, e);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        sendBatches(false);
+        flushImpl();
+    }
+
+    /**
+     * Waits for the completion of pending send operations. Called by {@link #flush()} after sending the buffered
+     * batch items. The default implementation does nothing.
+     * 
+     * @throws IOException in case that waiting fails or pending operations did not complete
+     */
+    protected void flushImpl() throws IOException {
     }
 
     /**
@@ -118,9 +392,7 @@ public abstract class AbstractTransportConnector implements TransportConnector {
      * @param stream the name of the stream
      */
     protected void registerStream(String stream) {
-        if (!isStreamKnown(stream)) {
-            callbacks.put(stream, null);
-        }
+        streams.add(stream);
     }
     
     /**
@@ -130,12 +402,29 @@ public abstract class AbstractTransportConnector implements TransportConnector {
      * @return {@code true} if the stream is known, {@code false} else
      */
     protected boolean isStreamKnown(String stream) {
-        return callbacks.containsKey(stream);
+        return streams.contains(stream);
     }
 
     /**
      * Notifies the callback in {@code stream} based on received serialized
-     * {@code data}.
+     * {@code data}. Hands the data over to the {@link #getReceptionDispatcher() reception dispatcher} if 
+     * configured, else deserializes and calls the callback directly.
+     * 
+     * @param stream the stream to notify the callback for
+     * @param data   the received serialized data
+     * @throws IOException in case that deserialization fails or the dispatcher rejects the data
+     */
+    protected void notifyCallback(String stream, byte[] data) throws IOException {
+        ReceptionDispatcher disp = dispatcher;
+        if (null != disp) {
+            disp.dispatch(stream, data);
+        } else {
+            handleReception(stream, data);
+        }
+    }
+
+    /**
+     * Deserializes received {@code data} and calls the callback of {@code stream}.
      * 
      * @param <T>    the type of data
      * @param stream the stream to notify the callback for
@@ -143,10 +432,10 @@ public abstract class AbstractTransportConnector implements TransportConnector {
      * @throws IOException in case that deserialization fails
      */
     @SuppressWarnings("unchecked")
-    protected <T> void notifyCallback(String stream, byte[] data) throws IOException {
+    private <T> void handleReception(String stream, byte[] data) throws IOException {
         ReceptionCallback<T> callback = (ReceptionCallback<T>) getCallback(stream);
         if (null != callback) {
-            Serializer<T> serializer = SerializerRegistry.getSerializer(callback.getType());
+            Serializer<T> serializer = SerializerRegistry.getDeserializer(callback.getType());
             if (null != serializer) {
                 callback.received(serializer.from(data));
             }
@@ -154,25 +443,24 @@ public abstract class AbstractTransportConnector implements TransportConnector {
     }
 
     /**
-     * Serializes {@code data} to {@code stream}. [helper]
+     * Serializes {@code data} to {@code stream}. [helper] Uses pooled buffers for {@link BufferSerializer buffer 
+     * serializers}, as the client libraries finally require an exact-size array.
      * 
      * @param <T>    the type of the data
      * @param stream the stream to serialize to
      * @param data   the data to serialize
      * @return the serialized bytes
-     * @throws IOException in case that problems occur during serialization
+     * @throws IOException in case that problems occur during serialization or no serializer is registered for 
+     *   the type of {@code data}
      */
     protected <T> byte[] serialize(String stream, T data) throws IOException {
-        byte[] result;
         @SuppressWarnings("unchecked")
         Class<T> cls = (Class<T>) data.getClass();
         Serializer<T> serializer = SerializerRegistry.getSerializer(cls);
-        if (null != serializer) {
-            result = serializer.to(data);
-        } else {
-            result = new byte[0];
+        if (null == serializer) {
+            throw new IOException("No serializer registered for " + cls.getName() + ", cannot send to " + stream);
         }
-        return result;
+        return BufferPool.serialize(serializer, data);
     }
 
 }
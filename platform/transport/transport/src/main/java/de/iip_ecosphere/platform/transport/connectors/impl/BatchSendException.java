@@ -0,0 +1,48 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.transport.connectors.impl;
+
+import java.io.IOException;
+
+/**
+ * Thrown by {@link AbstractTransportConnector#sendBatchImpl(String, java.util.List)} if sending a batch failed after
+ * a number of leading items have been sent successfully. These items are not sent again, the item following them is
+ * considered to be the failing one.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class BatchSendException extends IOException {
+
+    private static final long serialVersionUID = 4476107412830165243L;
+    private final int sentCount;
+
+    /**
+     * Creates an exception.
+     *
+     * @param message the message
+     * @param sentCount the number of leading items of the batch that were sent successfully
+     * @param cause the cause, may be <b>null</b>
+     */
+    public BatchSendException(String message, int sentCount, Throwable cause) {
+        super(message, cause);
+        this.sentCount = sentCount;
+    }
+
+    /**
+     * Returns the number of leading items of the batch that were sent successfully.
+     *
+     * @return the number of items
+     */
+    public int getSentCount() {
+        return sentCount;
+    }
+
+}
@@ -11,11 +11,10 @@
 package de.iip_ecosphere.platform.transport.connectors.impl;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
@@ -24,7 +23,9 @@ import de.iip_ecosphere.platform.transport.serialization.Serializer;
 import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 
 /**
- * Does a direct memory transfer.
+ * Does a direct memory transfer. Subscriptions are kept in a concurrent copy-on-write index, i.e., sending does not 
+ * lock and the serializer for cloning is resolved once when subscribing. If the sending connector is in immutable 
+ * payload mode, the same data instance is handed to all subscribers without cloning.
  * 
  * @author Holger Eichelberger, SSE
  */
@@ -32,19 +33,85 @@ public class DirectMemoryTransferTransportConnector extends AbstractTransportCon
 
     public static final String NAME = "IIP-Ecosphere direct memory transfer";
     
-    private static Map<String, List<DirectMemoryTransferTransportConnector>> subscriptions 
-        = new HashMap<String, List<DirectMemoryTransferTransportConnector>>();
+    private static Map<String, List<Subscription<?>>> subscriptions = new ConcurrentHashMap<>();
+    
+    private boolean immutablePayload;
+
+    /**
+     * Represents a subscription of a connector to a stream.
+     * 
+     * @param <T> the type of data
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Subscription<T> {
+
+        private DirectMemoryTransferTransportConnector connector;
+        private ReceptionCallback<T> callback;
+        private volatile Serializer<T> serializer; // resolved lazily by the first sending thread
+
+        /**
+         * Creates a subscription.
+         * 
+         * @param connector the subscribing connector
+         * @param callback the reception callback
+         */
+        private Subscription(DirectMemoryTransferTransportConnector connector, ReceptionCallback<T> callback) {
+            this.connector = connector;
+            this.callback = callback;
+            this.serializer = SerializerRegistry.getDeserializer(callback.getType());
+        }
+
+        /**
+         * Transfers {@code data} to the callback of this subscription.
+         * 
+         * @param data the data
+         * @param clone shall {@code data} be cloned before handing it over to the callback
+         * @throws IOException if cloning fails
+         */
+        private void transfer(Object data, boolean clone) throws IOException {
+            Class<T> type = callback.getType();
+            T received = type.cast(data);
+            if (clone) {
+                Serializer<T> ser = serializer;
+                if (null == ser) { // registered after subscription, resolving twice in parallel is harmless
+                    ser = SerializerRegistry.getDeserializer(type);
+                    serializer = ser;
+                }
+                if (null != ser) {
+                    received = ser.clone(received);
+                } // Potentially dangerous... in case that there is no serializer, we use the same instance
+            }
+            callback.received(received);
+        }
+
+    }
+
+    /**
+     * Creates a direct memory transfer connector cloning payloads for each subscriber.
+     */
+    public DirectMemoryTransferTransportConnector() {
+        this(false);
+    }
+
+    /**
+     * Creates a direct memory transfer connector.
+     * 
+     * @param immutablePayload if {@code true}, payloads sent by this connector are considered immutable and handed 
+     *   over to all subscribers without cloning, if {@code false} each subscriber receives a clone
+     */
+    public DirectMemoryTransferTransportConnector(boolean immutablePayload) {
+        this.immutablePayload = immutablePayload;
+    }
 
     @Override
     public void setReceptionCallback(String stream, ReceptionCallback<?> callback) throws IOException {
         super.setReceptionCallback(stream, callback);
-        synchronized (subscriptions) {
-            List<DirectMemoryTransferTransportConnector> list = subscriptions.get(stream);
-            if (null == list) {
-                list = Collections.synchronizedList(new ArrayList<DirectMemoryTransferTransportConnector>());
-                subscriptions.put(stream, list);
+        List<Subscription<?>> list = subscriptions.computeIfAbsent(stream, s -> new CopyOnWriteArrayList<>());
+        synchronized (list) { // only writers, replace an existing subscription of this connector
+            list.removeIf(s -> s.connector == this);
+            if (null != callback) {
+                list.add(new Subscription<>(this, callback));
             }
-            list.add(this);
         }
     }
     
@@ -61,29 +128,15 @@ public class DirectMemoryTransferTransportConnector extends AbstractTransportCon
     /**
      * Transfers {@code data} to {@code stream}.
      * 
-     * @param <T> the type of data
      * @param stream the stream
      * @param data the data
      * @throws IOException if the transfer fails
      */
-    @SuppressWarnings("unchecked")
-    private final <T> void transfer(String stream, Object data) throws IOException {
-        List<DirectMemoryTransferTransportConnector> list = subscriptions.get(stream);
+    private final void transfer(String stream, Object data) throws IOException {
+        List<Subscription<?>> list = subscriptions.get(stream);
         if (null != list) {
-            for (DirectMemoryTransferTransportConnector c : list) {
-                ReceptionCallback<T> callback = (ReceptionCallback<T>) c.getCallback(stream);
-                if (null != callback) {
-                    Class<T> type = callback.getType();
-                    Serializer<T> serializer = SerializerRegistry.getSerializer(type);
-                    T received;
-                    if (null != serializer) {
-                        received = serializer.clone(type.cast(data));
-                    } else {
-                        // Potentially dangerous... in case that there is no serializer, we use the same instance
-                        received = type.cast(data);
-                    }
-                    callback.received(received);
-                }
+            for (Subscription<?> s : list) {
+                s.transfer(data, !immutablePayload);
             }
         }
     }
@@ -100,9 +153,10 @@ public class DirectMemoryTransferTransportConnector extends AbstractTransportCon
 
     @Override
     public void disconnect() throws IOException {
-        synchronized (subscriptions) {
-            for (List<DirectMemoryTransferTransportConnector> list : subscriptions.values()) {
-                list.remove(this);
+        super.disconnect();
+        for (List<Subscription<?>> list : subscriptions.values()) {
+            synchronized (list) {
+                list.removeIf(s -> s.connector == this);
             }
         }
     }
@@ -112,6 +166,15 @@ public class DirectMemoryTransferTransportConnector extends AbstractTransportCon
         return NAME;
     }
 
+    /**
+     * Returns whether this connector considers sent payloads as immutable.
+     * 
+     * @return {@code true} for immutable payloads that are not cloned, {@code false} else
+     */
+    public boolean isImmutablePayload() {
+        return immutablePayload;
+    }
+
     /**
      * Clears everything.
      */
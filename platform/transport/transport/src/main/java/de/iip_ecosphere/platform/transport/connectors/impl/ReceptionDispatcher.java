@@ -0,0 +1,337 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package de.iip_ecosphere.platform.transport.connectors.impl;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
+
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchMode;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchOverflowPolicy;
+
+/**
+ * Decouples the threads of the underlying client libraries from the reception callbacks. Received data is queued
+ * into bounded queues of ordered workers, either one per stream or a fixed number of workers to which streams are
+ * assigned by their hash. Workers run on named daemon threads of an own executor. Collects basic statistics about 
+ * the queues and the dispatch latency.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class ReceptionDispatcher {
+
+    private Handler handler;
+    private DispatchMode mode;
+    private DispatchOverflowPolicy policy;
+    private int capacity;
+    private Worker[] stripes;
+    private Map<String, Worker> perStream = new ConcurrentHashMap<>();
+    private List<Worker> workers = new ArrayList<>();
+    private ExecutorService executor;
+    private volatile boolean running = true;
+
+    private AtomicLong dispatched = new AtomicLong();
+    private AtomicLong dropped = new AtomicLong();
+    private AtomicLong rejected = new AtomicLong();
+    private AtomicLong latencySum = new AtomicLong();
+    private AtomicLong latencyMax = new AtomicLong();
+
+    /**
+     * Handles received data on the dispatch workers.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    public interface Handler {
+
+        /**
+         * Handles received data, e.g., deserializes it and calls the reception callback.
+         *
+         * @param stream the stream the data was received on
+         * @param data the received serialized data
+         * @throws IOException in case that handling fails
+         */
+        public void handle(String stream, byte[] data) throws IOException;
+
+    }
+
+    /**
+     * A queued reception.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Reception {
+
+        private String stream;
+        private byte[] data;
+        private long enqueued;
+
+        /**
+         * Creates a reception.
+         *
+         * @param stream the stream the data was received on
+         * @param data the received serialized data
+         */
+        private Reception(String stream, byte[] data) {
+            this.stream = stream;
+            this.data = data;
+            this.enqueued = System.nanoTime();
+        }
+
+    }
+
+    /**
+     * An ordered worker with a bounded queue.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private class Worker implements Runnable {
+
+        private BlockingQueue<Reception> queue;
+
+        /**
+         * Creates a worker and starts it on {@link #executor}.
+         */
+        private Worker() {
+            queue = new ArrayBlockingQueue<>(capacity);
+            executor.execute(this);
+        }
+
+        /**
+         * Queues a reception considering the overflow policy.
+         *
+         * @param reception the reception
+         * @throws IOException if the reception is rejected or queuing was interrupted
+         */
+        private void enqueue(Reception reception) throws IOException {
+            switch (policy) {
+            case DROP_OLDEST:
+                while (!queue.offer(reception)) {
+                    if (null != queue.poll()) {
+                        dropped.incrementAndGet();
+                    }
+                }
+                break;
+            case FAIL:
+                if (!queue.offer(reception)) {
+                    rejected.incrementAndGet();
+                    throw new IOException("Dispatch queue for stream " + reception.stream + " is full");
+                }
+                break;
+            case BLOCK:
+            default:
+                try {
+                    queue.put(reception);
+                } catch (InterruptedException e) {
+                    throw new IOException(e.getMessage(), e);
+                }
+                break;
+            }
+        }
+
+        // checkstyle: stop exception type check
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    Reception reception = queue.take();
+                    long latency = System.nanoTime() - reception.enqueued;
+                    latencySum.addAndGet(latency);
+                    latencyMax.accumulateAndGet(latency, Math::max);
+                    dispatched.incrementAndGet();
+                    handler.handle(reception.stream, reception.data);
+                } catch (InterruptedException e) {
+                    // stop if not running anymore
+                } catch (IOException e) {
+                    LoggerFactory.getLogger(ReceptionDispatcher.class).error(
+                        "While dispatching received data: " + e.getMessage());
+                } catch (RuntimeException e) { // keep the worker alive for the next reception
+                    LoggerFactory.getLogger(ReceptionDispatcher.class).error(
+                        "While dispatching received data: " + e.getMessage());
+                }
+            }
+        }
+
+        // checkstyle: resume exception type check
+
+    }
+
+    /**
+     * Creates a dispatcher.
+     *
+     * @param params the transport parameters to take the settings from
+     * @param name the name prefix for the worker threads
+     * @param handler the handler to be called on the worker threads
+     */
+    public ReceptionDispatcher(TransportParameter params, String name, Handler handler) {
+        this.handler = handler;
+        this.mode = params.getDispatchMode();
+        this.policy = params.getDispatchOverflowPolicy();
+        this.capacity = params.getDispatchQueueCapacity();
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> {
+            Thread result = new Thread(r, name + "-dispatch-" + threadCount.getAndIncrement());
+            result.setDaemon(true);
+            return result;
+        });
+        if (DispatchMode.STRIPED == mode) {
+            stripes = new Worker[params.getDispatchThreads()];
+            for (int s = 0; s < stripes.length; s++) {
+                stripes[s] = new Worker();
+                workers.add(stripes[s]);
+            }
+        }
+    }
+
+    /**
+     * Dispatches received data. Data received after {@link #shutdown()} is silently dropped.
+     *
+     * @param stream the stream the data was received on
+     * @param data the received serialized data
+     * @throws IOException in case that the data cannot be queued according to the overflow policy
+     */
+    public void dispatch(String stream, byte[] data) throws IOException {
+        Worker worker = running ? getWorker(stream) : null;
+        if (null != worker) {
+            worker.enqueue(new Reception(stream, data));
+        }
+    }
+
+    /**
+     * Returns the worker responsible for {@code stream}. New workers are created while holding the same lock as
+     * {@link #shutdown()}, i.e., no worker is started after shutdown.
+     *
+     * @param stream the stream
+     * @return the worker, <b>null</b> if the dispatcher is shut down
+     */
+    private Worker getWorker(String stream) {
+        Worker result;
+        if (null != stripes) {
+            result = stripes[(stream.hashCode() & Integer.MAX_VALUE) % stripes.length];
+        } else {
+            result = perStream.get(stream);
+            if (null == result) {
+                synchronized (workers) {
+                    result = perStream.get(stream);
+                    if (null == result && running) {
+                        try {
+                            result = new Worker();
+                            perStream.put(stream, result);
+                            workers.add(result);
+                        } catch (RejectedExecutionException e) {
+                            result = null; // executor terminated, drop silently
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Stops all workers. Queued data is discarded, senders blocked on a full queue are released.
+     */
+    public void shutdown() {
+        synchronized (workers) {
+            running = false;
+            executor.shutdownNow(); // interrupts the workers
+            for (Worker w : workers) {
+                w.queue.clear();
+            }
+            workers.clear();
+            perStream.clear();
+        }
+    }
+
+    /**
+     * Returns the number of currently queued receptions over all workers.
+     *
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        int result = 0;
+        synchronized (workers) {
+            for (Worker w : workers) {
+                result += w.queue.size();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of workers.
+     *
+     * @return the number of workers
+     */
+    public int getWorkerCount() {
+        synchronized (workers) {
+            return workers.size();
+        }
+    }
+
+    /**
+     * Returns the number of dispatched receptions.
+     *
+     * @return the number of dispatched receptions
+     */
+    public long getDispatchedCount() {
+        return dispatched.get();
+    }
+
+    /**
+     * Returns the number of receptions dropped due to {@link DispatchOverflowPolicy#DROP_OLDEST}.
+     *
+     * @return the number of dropped receptions
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Returns the number of receptions rejected due to {@link DispatchOverflowPolicy#FAIL}.
+     *
+     * @return the number of rejected receptions
+     */
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    /**
+     * Returns the average time between queuing and dispatching a reception.
+     *
+     * @return the average latency in milliseconds
+     */
+    public double getAverageDispatchLatency() {
+        long count = dispatched.get();
+        return count > 0 ? latencySum.get() / (double) count / 1000000.0 : 0;
+    }
+
+    /**
+     * Returns the maximum time between queuing and dispatching a reception.
+     *
+     * @return the maximum latency in milliseconds
+     */
+    public double getMaxDispatchLatency() {
+        return latencyMax.get() / 1000000.0;
+    }
+
+}
@@ -0,0 +1,969 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.transport.serialization;
+
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Modifier;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A generic binary serializer for plain data types. The schema is derived once when creating the serializer from
+ * the non-static, non-transient fields of the type (including inherited fields) in the order of their names.
+ * Integral values are written as zig-zag varints, floating point values in fixed size, references with a leading
+ * presence marker. Supported field types are primitives and their wrappers, {@link String}, enums,
+ * {@code byte[]}, {@code int[]}, {@code long[]}, {@code double[]}, {@code String[]} and nested types that are
+ * supported by this serializer. Unsupported types, including nested ones, {@code Object} fields and further JDK
+ * types, are rejected when the schema is derived. The type must have a no-arg constructor (may be private). Cloning
+ * copies the fields without encoding/decoding. Serialization into byte arrays uses buffers from the
+ * {@link BufferPool}. Lengths in received data are checked against the available bytes, i.e., malformed data leads
+ * to an {@link IOException}. Values must be instances of exactly the serialized type or the declared nested field
+ * type, subclass instances are rejected with an {@link IOException} rather than silently truncated, abstract nested
+ * types are rejected when the schema is derived. Object graphs must not contain cycles, cycles are detected by
+ * identity and rejected with an {@link IOException}. Shared (acyclic) references are written/cloned as copies.
+ *
+ * @param <T> the type to be serialized
+ * @author Holger Eichelberger, SSE
+ */
+public class BinarySerializer<T> implements BufferSerializer<T> {
+
+    private Class<T> type;
+    private Constructor<T> constructor;
+    private FieldCodec[] codecs;
+    private boolean hasNested;
+
+    /**
+     * Encodes/decodes/clones an individual field.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private abstract static class FieldCodec {
+
+        private Field field;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         */
+        protected FieldCodec(Field field) {
+            this.field = field;
+        }
+
+        /**
+         * Returns the field.
+         *
+         * @return the field
+         */
+        protected Field getField() {
+            return field;
+        }
+
+        /**
+         * Writes the field value of {@code obj} to {@code out}.
+         *
+         * @param obj the object to take the value from
+         * @param out the output
+         * @throws IllegalAccessException if the field cannot be accessed
+         * @throws IOException if writing nested values fails
+         */
+        protected abstract void write(Object obj, Output out) throws IllegalAccessException, IOException;
+
+        /**
+         * Reads the field value from {@code in} and stores it in {@code obj}.
+         *
+         * @param obj the object to store the value in
+         * @param in the input
+         * @throws IllegalAccessException if the field cannot be accessed
+         * @throws IOException if reading fails
+         */
+        protected abstract void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException;
+
+        /**
+         * Copies the field value from {@code source} to {@code target}. The default implementation copies the
+         * reference, i.e., it is suitable for primitives and immutable values.
+         *
+         * @param source the source object
+         * @param target the target object
+         * @param path the objects currently being cloned to detect cycles, may be <b>null</b> for flat types
+         * @throws IllegalAccessException if the field cannot be accessed
+         * @throws IOException if cloning nested values fails
+         */
+        protected void copy(Object source, Object target, Map<Object, Object> path) 
+            throws IllegalAccessException, IOException {
+            field.set(target, field.get(source));
+        }
+
+    }
+
+    /**
+     * A growable output buffer.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    static class Output {
+
+        private ByteBuffer buf;
+        private Map<Object, Object> path; // objects currently being written to detect cycles, null for flat types
+
+        /**
+         * Creates an output buffer.
+         *
+         * @param buf the initial buffer
+         */
+        Output(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        /**
+         * Ensures that {@code bytes} can be written, grows the buffer if needed.
+         *
+         * @param bytes the number of bytes
+         * @return the buffer
+         */
+        ByteBuffer ensure(int bytes) {
+            if (buf.remaining() < bytes) {
+                ByteBuffer tmp = ByteBuffer.allocate(Math.max(buf.capacity() * 2, buf.position() + bytes));
+                buf.flip();
+                tmp.put(buf);
+                buf = tmp;
+            }
+            return buf;
+        }
+
+        /**
+         * Returns the underlying buffer.
+         *
+         * @return the buffer
+         */
+        ByteBuffer getBuffer() {
+            return buf;
+        }
+
+        /**
+         * Writes a zig-zag encoded varint.
+         *
+         * @param value the value
+         */
+        void writeVarLong(long value) {
+            long v = (value << 1) ^ (value >> 63);
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf.put((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        /**
+         * Writes a length/presence marker, i.e., {@code 0} for <b>null</b> else {@code length + 1}.
+         *
+         * @param isNull whether the value is <b>null</b>
+         * @param length the length of the value
+         */
+        void writeLength(boolean isNull, int length) {
+            writeVarLong(isNull ? 0 : length + 1);
+        }
+
+        /**
+         * Writes a string.
+         *
+         * @param value the string, may be <b>null</b>
+         */
+        void writeString(String value) {
+            if (null == value) {
+                writeLength(true, 0);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeLength(false, bytes.length);
+                ensure(bytes.length).put(bytes);
+            }
+        }
+
+    }
+
+    /**
+     * Reads a zig-zag encoded varint.
+     *
+     * @param in the input
+     * @return the value
+     * @throws IOException if the varint is malformed
+     */
+    static long readVarLong(ByteBuffer in) throws IOException {
+        long v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            if (shift > 63) {
+                throw new IOException("Malformed varint");
+            }
+            b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * Reads a length/presence marker.
+     *
+     * @param in the input
+     * @return the length, {@code -1} for <b>null</b>
+     * @throws IOException if the marker is malformed
+     */
+    static int readLength(ByteBuffer in) throws IOException {
+        long marker = readVarLong(in);
+        if (marker < 0 || marker > Integer.MAX_VALUE) {
+            throw new IOException("Malformed length " + marker);
+        }
+        return (int) marker - 1;
+    }
+
+    /**
+     * Ensures that {@code length} elements of at least {@code elementSize} bytes each are available in {@code in}.
+     *
+     * @param in the input
+     * @param length the number of elements
+     * @param elementSize the minimum size of an element in bytes
+     * @throws IOException if the data is too short, e.g., due to a malformed length
+     */
+    static void checkAvailable(ByteBuffer in, int length, int elementSize) throws IOException {
+        if ((long) length * elementSize > in.remaining()) {
+            throw new IOException("Length " + length + " exceeds remaining data (" + in.remaining() + " bytes)");
+        }
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in the input
+     * @return the string, may be <b>null</b>
+     * @throws IOException if reading fails
+     */
+    static String readString(ByteBuffer in) throws IOException {
+        String result = null;
+        int len = readLength(in);
+        if (len >= 0) {
+            checkAvailable(in, len, 1);
+            if (in.hasArray()) {
+                result = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+                in.position(in.position() + len);
+            } else {
+                byte[] bytes = new byte[len];
+                in.get(bytes);
+                result = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Creates a binary serializer and derives the schema of {@code type}.
+     *
+     * @param type the type to be serialized
+     * @throws IllegalArgumentException if {@code type} has no no-arg constructor or fields of unsupported types
+     */
+    public BinarySerializer(Class<T> type) {
+        this(type, new HashMap<>());
+    }
+
+    /**
+     * Creates a binary serializer and derives the schema of {@code type} including the schemas of nested types.
+     *
+     * @param type the type to be serialized
+     * @param schemas the serializers of the types the schema is currently derived for, to resolve recursive types
+     * @throws IllegalArgumentException if {@code type} has no no-arg constructor or fields of unsupported types
+     */
+    private BinarySerializer(Class<T> type, Map<Class<?>, BinarySerializer<?>> schemas) {
+        this.type = type;
+        schemas.put(type, this);
+        try {
+            constructor = type.getDeclaredConstructor();
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException("No no-arg constructor for " + type.getName());
+        } catch (SecurityException e) {
+            throw new IllegalArgumentException(e);
+        }
+        List<Field> fields = new ArrayList<>();
+        Class<?> cls = type;
+        while (null != cls && Object.class != cls) {
+            for (Field f : cls.getDeclaredFields()) {
+                int mod = f.getModifiers();
+                if (!Modifier.isStatic(mod) && !Modifier.isTransient(mod) && !f.isSynthetic()) {
+                    fields.add(f);
+                }
+            }
+            cls = cls.getSuperclass();
+        }
+        fields.sort(Comparator.comparing((Field f) -> f.getName())
+            .thenComparing(f -> f.getDeclaringClass().getName()));
+        codecs = new FieldCodec[fields.size()];
+        for (int f = 0; f < codecs.length; f++) {
+            Field field = fields.get(f);
+            field.setAccessible(true);
+            codecs[f] = createCodec(field, schemas);
+            hasNested |= codecs[f] instanceof NestedCodec;
+        }
+    }
+
+    /**
+     * Creates a binary serializer and registers it with the {@link SerializerRegistry}.
+     *
+     * @param <T> the type to be serialized
+     * @param type the type to be serialized
+     * @return the registered serializer
+     * @throws IllegalArgumentException if {@code type} has no no-arg constructor or fields of unsupported types
+     */
+    public static <T> BinarySerializer<T> register(Class<T> type) {
+        BinarySerializer<T> result = new BinarySerializer<>(type);
+        SerializerRegistry.registerSerializer(result);
+        return result;
+    }
+
+    /**
+     * Creates the codec for {@code field}.
+     *
+     * @param field the field
+     * @param schemas the serializers of the types the schema is currently derived for
+     * @return the codec
+     * @throws IllegalArgumentException if the type of the field is not supported
+     */
+    private static FieldCodec createCodec(Field field, Map<Class<?>, BinarySerializer<?>> schemas) {
+        Class<?> fType = field.getType();
+        FieldCodec result;
+        if (fType.isPrimitive()) {
+            result = createPrimitiveCodec(field);
+        } else if (String.class == fType || Long.class == fType || Integer.class == fType || Short.class == fType
+            || Byte.class == fType || Double.class == fType || Float.class == fType || Boolean.class == fType
+            || Character.class == fType) {
+            result = new ValueCodec(field);
+        } else if (fType.isEnum()) {
+            result = new EnumCodec(field);
+        } else if (fType.isArray()) {
+            result = new ArrayCodec(field);
+        } else if (!fType.isInterface() && !Modifier.isAbstract(fType.getModifiers()) 
+            && !fType.getName().startsWith("java.")) { // also excludes Object and further Number types
+            result = new NestedCodec(field, schemas);
+        } else {
+            throw new IllegalArgumentException("Unsupported type " + fType.getName() + " of field "
+                + field.getName());
+        }
+        return result;
+    }
+
+    /**
+     * Creates the codec for a primitive {@code field}.
+     *
+     * @param field the field
+     * @return the codec
+     */
+    private static FieldCodec createPrimitiveCodec(Field field) {
+        Class<?> fType = field.getType();
+        FieldCodec result;
+        if (Double.TYPE == fType) {
+            result = new FieldCodec(field) {
+
+                @Override
+                protected void write(Object obj, Output out) throws IllegalAccessException {
+                    out.ensure(8).putDouble(getField().getDouble(obj));
+                }
+
+                @Override
+                protected void read(Object obj, ByteBuffer in) throws IllegalAccessException {
+                    getField().setDouble(obj, in.getDouble());
+                }
+
+            };
+        } else if (Float.TYPE == fType) {
+            result = new FieldCodec(field) {
+
+                @Override
+                protected void write(Object obj, Output out) throws IllegalAccessException {
+                    out.ensure(4).putFloat(getField().getFloat(obj));
+                }
+
+                @Override
+                protected void read(Object obj, ByteBuffer in) throws IllegalAccessException {
+                    getField().setFloat(obj, in.getFloat());
+                }
+
+            };
+        } else if (Boolean.TYPE == fType) {
+            result = new FieldCodec(field) {
+
+                @Override
+                protected void write(Object obj, Output out) throws IllegalAccessException {
+                    out.ensure(1).put((byte) (getField().getBoolean(obj) ? 1 : 0));
+                }
+
+                @Override
+                protected void read(Object obj, ByteBuffer in) throws IllegalAccessException {
+                    getField().setBoolean(obj, in.get() != 0);
+                }
+
+            };
+        } else {
+            result = new IntegralCodec(field);
+        }
+        return result;
+    }
+
+    /**
+     * Codec for primitive integral fields as varint.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class IntegralCodec extends FieldCodec {
+
+        private Class<?> fType;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         */
+        private IntegralCodec(Field field) {
+            super(field);
+            fType = field.getType();
+        }
+
+        @Override
+        protected void write(Object obj, Output out) throws IllegalAccessException {
+            long value;
+            if (Character.TYPE == fType) {
+                value = getField().getChar(obj);
+            } else {
+                value = getField().getLong(obj); // widening for byte, short, int
+            }
+            out.writeVarLong(value);
+        }
+
+        @Override
+        protected void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException {
+            long value = readVarLong(in);
+            Field field = getField();
+            if (Long.TYPE == fType) {
+                field.setLong(obj, value);
+            } else if (Integer.TYPE == fType) {
+                field.setInt(obj, (int) value);
+            } else if (Short.TYPE == fType) {
+                field.setShort(obj, (short) value);
+            } else if (Byte.TYPE == fType) {
+                field.setByte(obj, (byte) value);
+            } else {
+                field.setChar(obj, (char) value);
+            }
+        }
+
+    }
+
+    /**
+     * Codec for immutable value types, i.e., strings and primitive wrappers.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class ValueCodec extends FieldCodec {
+
+        private Class<?> fType;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         */
+        private ValueCodec(Field field) {
+            super(field);
+            fType = field.getType();
+        }
+
+        @Override
+        protected void write(Object obj, Output out) throws IllegalAccessException {
+            Object value = getField().get(obj);
+            if (String.class == fType) {
+                out.writeString((String) value);
+            } else if (null == value) {
+                out.ensure(1).put((byte) 0);
+            } else {
+                out.ensure(1).put((byte) 1);
+                if (value instanceof Double) {
+                    out.ensure(8).putDouble((Double) value);
+                } else if (value instanceof Float) {
+                    out.ensure(4).putFloat((Float) value);
+                } else if (value instanceof Boolean) {
+                    out.ensure(1).put((byte) (((Boolean) value) ? 1 : 0));
+                } else if (value instanceof Character) {
+                    out.writeVarLong((Character) value);
+                } else {
+                    out.writeVarLong(((Number) value).longValue());
+                }
+            }
+        }
+
+        @Override
+        protected void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException {
+            Object value = null;
+            if (String.class == fType) {
+                value = readString(in);
+            } else if (in.get() != 0) {
+                if (Double.class == fType) {
+                    value = in.getDouble();
+                } else if (Float.class == fType) {
+                    value = in.getFloat();
+                } else if (Boolean.class == fType) {
+                    value = in.get() != 0;
+                } else if (Character.class == fType) {
+                    value = (char) readVarLong(in);
+                } else {
+                    value = toNumber(readVarLong(in));
+                }
+            }
+            getField().set(obj, value);
+        }
+
+        /**
+         * Turns {@code value} into an instance of the (integral) field type.
+         *
+         * @param value the value
+         * @return the instance
+         * @throws IOException if the field type is not supported
+         */
+        private Object toNumber(long value) throws IOException {
+            Object result;
+            if (Long.class == fType) {
+                result = value;
+            } else if (Integer.class == fType) {
+                result = (int) value;
+            } else if (Short.class == fType) {
+                result = (short) value;
+            } else if (Byte.class == fType) {
+                result = (byte) value;
+            } else { // excluded by createCodec
+                throw new IOException("Unsupported number type " + fType.getName());
+            }
+            return result;
+        }
+
+    }
+
+    /**
+     * Codec for enum fields by ordinal.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class EnumCodec extends FieldCodec {
+
+        private Object[] constants;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         */
+        private EnumCodec(Field field) {
+            super(field);
+            constants = field.getType().getEnumConstants();
+        }
+
+        @Override
+        protected void write(Object obj, Output out) throws IllegalAccessException {
+            Enum<?> value = (Enum<?>) getField().get(obj);
+            out.writeLength(null == value, null == value ? 0 : value.ordinal());
+        }
+
+        @Override
+        protected void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException {
+            int ordinal = readLength(in);
+            if (ordinal < -1 || ordinal >= constants.length) {
+                throw new IOException("Unknown ordinal " + ordinal + " for " + getField().getType().getName());
+            }
+            getField().set(obj, ordinal < 0 ? null : constants[ordinal]);
+        }
+
+    }
+
+    /**
+     * Codec for arrays of supported component types.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class ArrayCodec extends FieldCodec {
+
+        private Class<?> fType;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         * @throws IllegalArgumentException if the component type is not supported
+         */
+        private ArrayCodec(Field field) {
+            super(field);
+            fType = field.getType();
+            if (byte[].class != fType && int[].class != fType && long[].class != fType && double[].class != fType
+                && String[].class != fType) {
+                throw new IllegalArgumentException("Unsupported array type " + fType.getSimpleName() + " of field "
+                    + field.getName());
+            }
+        }
+
+        @Override
+        protected void write(Object obj, Output out) throws IllegalAccessException {
+            Object value = getField().get(obj);
+            if (byte[].class == fType) {
+                byte[] arr = (byte[]) value;
+                out.writeLength(null == arr, null == arr ? 0 : arr.length);
+                if (null != arr) {
+                    out.ensure(arr.length).put(arr);
+                }
+            } else if (int[].class == fType) {
+                int[] arr = (int[]) value;
+                out.writeLength(null == arr, null == arr ? 0 : arr.length);
+                for (int i = 0; null != arr && i < arr.length; i++) {
+                    out.writeVarLong(arr[i]);
+                }
+            } else if (long[].class == fType) {
+                long[] arr = (long[]) value;
+                out.writeLength(null == arr, null == arr ? 0 : arr.length);
+                for (int i = 0; null != arr && i < arr.length; i++) {
+                    out.writeVarLong(arr[i]);
+                }
+            } else if (double[].class == fType) {
+                double[] arr = (double[]) value;
+                out.writeLength(null == arr, null == arr ? 0 : arr.length);
+                if (null != arr) {
+                    ByteBuffer buf = out.ensure(arr.length * 8);
+                    for (int i = 0; i < arr.length; i++) {
+                        buf.putDouble(arr[i]);
+                    }
+                }
+            } else {
+                String[] arr = (String[]) value;
+                out.writeLength(null == arr, null == arr ? 0 : arr.length);
+                for (int i = 0; null != arr && i < arr.length; i++) {
+                    out.writeString(arr[i]);
+                }
+            }
+        }
+
+        @Override
+        protected void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException {
+            int len = readLength(in);
+            Object value = null;
+            if (len >= 0) {
+                checkAvailable(in, len, double[].class == fType ? 8 : 1); // varints and strings take at least 1
+                if (byte[].class == fType) {
+                    byte[] arr = new byte[len];
+                    in.get(arr);
+                    value = arr;
+                } else if (int[].class == fType) {
+                    int[] arr = new int[len];
+                    for (int i = 0; i < len; i++) {
+                        arr[i] = (int) readVarLong(in);
+                    }
+                    value = arr;
+                } else if (long[].class == fType) {
+                    long[] arr = new long[len];
+                    for (int i = 0; i < len; i++) {
+                        arr[i] = readVarLong(in);
+                    }
+                    value = arr;
+                } else if (double[].class == fType) {
+                    double[] arr = new double[len];
+                    for (int i = 0; i < len; i++) {
+                        arr[i] = in.getDouble();
+                    }
+                    value = arr;
+                } else {
+                    String[] arr = new String[len];
+                    for (int i = 0; i < len; i++) {
+                        arr[i] = readString(in);
+                    }
+                    value = arr;
+                }
+            }
+            getField().set(obj, value);
+        }
+
+        @Override
+        protected void copy(Object source, Object target, Map<Object, Object> path) throws IllegalAccessException {
+            Object value = getField().get(source);
+            if (value instanceof byte[]) {
+                value = ((byte[]) value).clone();
+            } else if (value instanceof int[]) {
+                value = ((int[]) value).clone();
+            } else if (value instanceof long[]) {
+                value = ((long[]) value).clone();
+            } else if (value instanceof double[]) {
+                value = ((double[]) value).clone();
+            } else if (value instanceof String[]) {
+                value = ((String[]) value).clone();
+            }
+            getField().set(target, value);
+        }
+
+    }
+
+    /**
+     * Codec for nested types. The nested schema is derived when creating the codec, recursive types share the 
+     * serializer of the enclosing type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class NestedCodec extends FieldCodec {
+
+        private BinarySerializer<?> nested;
+
+        /**
+         * Creates a codec.
+         *
+         * @param field the field to handle
+         * @param schemas the serializers of the types the schema is currently derived for
+         * @throws IllegalArgumentException if the nested type is not supported
+         */
+        private NestedCodec(Field field, Map<Class<?>, BinarySerializer<?>> schemas) {
+            super(field);
+            if (Modifier.isAbstract(field.getType().getModifiers())) {
+                throw new IllegalArgumentException("Abstract type " + field.getType().getName() + " of field " 
+                    + field.getName() + " is not supported");
+            }
+            nested = schemas.get(field.getType());
+            if (null == nested) {
+                nested = new BinarySerializer<>(field.getType(), schemas);
+            }
+        }
+
+        /**
+         * Returns the serializer for the nested type.
+         *
+         * @return the serializer
+         */
+        private BinarySerializer<?> getNested() {
+            return nested;
+        }
+
+        @Override
+        protected void write(Object obj, Output out) throws IllegalAccessException, IOException {
+            Object value = getField().get(obj);
+            out.ensure(1).put((byte) (null == value ? 0 : 1));
+            if (null != value) {
+                getNested().writeFields(value, out);
+            }
+        }
+
+        @Override
+        protected void read(Object obj, ByteBuffer in) throws IllegalAccessException, IOException {
+            Object value = null;
+            if (in.get() != 0) {
+                value = getNested().readObject(in);
+            }
+            getField().set(obj, value);
+        }
+
+        @Override
+        protected void copy(Object source, Object target, Map<Object, Object> path) 
+            throws IllegalAccessException, IOException {
+            Object value = getField().get(source);
+            if (null != value) {
+                value = getNested().cloneObject(value, path);
+            }
+            getField().set(target, value);
+        }
+
+    }
+
+    /**
+     * Writes the fields of {@code obj} to {@code out}.
+     *
+     * @param obj the object
+     * @param out the output
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @throws IOException if {@code obj} is not exactly of the handled type or it is part of a cycle
+     */
+    private void writeFields(Object obj, Output out) throws IllegalAccessException, IOException {
+        checkType(obj);
+        enter(out.path, obj);
+        for (int c = 0; c < codecs.length; c++) {
+            codecs[c].write(obj, out);
+        }
+        if (null != out.path) {
+            out.path.remove(obj);
+        }
+    }
+
+    /**
+     * Checks that {@code obj} is exactly of the handled type, i.e., that no state of a subclass would be lost.
+     *
+     * @param obj the object to check
+     * @throws IOException if {@code obj} is not exactly of the handled type
+     */
+    private void checkType(Object obj) throws IOException {
+        if (obj.getClass() != type) {
+            throw new IOException("Instance of " + obj.getClass().getName() + " cannot be handled as " 
+                + type.getName() + " without losing data. Register a serializer for the concrete type.");
+        }
+    }
+
+    /**
+     * Records that {@code obj} is being written/cloned.
+     *
+     * @param path the objects currently being written/cloned, may be <b>null</b> for flat types
+     * @param obj the object
+     * @throws IOException if {@code obj} is already being written/cloned, i.e., there is a cycle
+     */
+    private static void enter(Map<Object, Object> path, Object obj) throws IOException {
+        if (null != path && null != path.put(obj, obj)) {
+            throw new IOException("Cyclic reference to an instance of " + obj.getClass().getName() 
+                + ", cycles are not supported");
+        }
+    }
+
+    /**
+     * Creates a new instance of the type.
+     *
+     * @return the instance
+     * @throws IOException if the instance cannot be created
+     */
+    private T newInstance() throws IOException {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (InvocationTargetException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an instance from {@code in}.
+     *
+     * @param in the input
+     * @return the instance
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @throws IOException if the instance cannot be created or the input is malformed
+     */
+    private T readObject(ByteBuffer in) throws IllegalAccessException, IOException {
+        T result = newInstance();
+        for (int c = 0; c < codecs.length; c++) {
+            codecs[c].read(result, in);
+        }
+        return result;
+    }
+
+    /**
+     * Clones {@code origin} field-wise.
+     *
+     * @param origin the object to clone
+     * @param path the objects currently being cloned to detect cycles, may be <b>null</b> for flat types
+     * @return the clone
+     * @throws IllegalAccessException if a field cannot be accessed
+     * @throws IOException if the instance cannot be created, {@code origin} is not exactly of the handled type or
+     *   it is part of a cycle
+     */
+    private T cloneObject(Object origin, Map<Object, Object> path) throws IllegalAccessException, IOException {
+        checkType(origin);
+        enter(path, origin);
+        T result = newInstance();
+        for (int c = 0; c < codecs.length; c++) {
+            codecs[c].copy(origin, result, path);
+        }
+        if (null != path) {
+            path.remove(origin);
+        }
+        return result;
+    }
+
+    /**
+     * Writes {@code source} to {@code out}.
+     *
+     * @param source the object to write
+     * @param out the output
+     * @throws IOException if writing fails
+     */
+    void write(T source, Output out) throws IOException {
+        try {
+            out.path = hasNested ? new IdentityHashMap<>() : null;
+            writeFields(source, out);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Reads an instance from {@code in}.
+     *
+     * @param in the input
+     * @return the instance
+     * @throws IOException if reading fails
+     */
+    T read(ByteBuffer in) throws IOException {
+        try {
+            return readObject(in);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.getMessage(), e);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Data too short for " + type.getName(), e);
+        }
+    }
+
+    @Override
+    public byte[] to(T source) throws IOException {
+        return BufferPool.serialize(this, source);
+    }
+
+    @Override
+    public ByteBuffer to(T source, ByteBuffer target) throws IOException {
+        target.clear();
+        Output out = new Output(target);
+        write(source, out);
+        ByteBuffer result = out.getBuffer();
+        result.flip();
+        return result;
+    }
+
+    @Override
+    public T from(byte[] data) throws IOException {
+        return read(ByteBuffer.wrap(data));
+    }
+
+    @Override
+    public T from(ByteBuffer data) throws IOException {
+        return read(data);
+    }
+
+    @Override
+    public T clone(T origin) throws IOException {
+        try {
+            return cloneObject(origin, hasNested ? new IdentityHashMap<>() : null);
+        } catch (IllegalAccessException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Class<T> getType() {
+        return type;
+    }
+
+}
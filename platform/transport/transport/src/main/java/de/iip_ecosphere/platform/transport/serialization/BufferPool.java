@@ -0,0 +1,139 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.transport.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-local pool of heap buffers for {@link BufferSerializer}. Each thread keeps (at most) its largest
+ * released buffer up to {@link #MAX_POOLED_CAPACITY}, i.e., a thread serializing repeatedly re-uses the same
+ * buffer. Acquired buffers must not be shared across threads.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class BufferPool {
+
+    /**
+     * The minimum capacity of allocated buffers.
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    /**
+     * The maximum capacity of buffers kept in the pool.
+     */
+    public static final int MAX_POOLED_CAPACITY = 1024 * 1024;
+
+    private static final ThreadLocal<ByteBuffer[]> BUFFERS = ThreadLocal.withInitial(() -> new ByteBuffer[1]);
+    private static final AtomicLong ALLOCATIONS = new AtomicLong();
+
+    /**
+     * Prevents external creation.
+     */
+    private BufferPool() {
+    }
+
+    /**
+     * Acquires a cleared buffer with at least {@code minCapacity} bytes. Shall be {@link #release(ByteBuffer)
+     * released} after use.
+     *
+     * @param minCapacity the minimum capacity
+     * @return the buffer
+     */
+    public static ByteBuffer acquire(int minCapacity) {
+        ByteBuffer[] slot = BUFFERS.get();
+        ByteBuffer result = slot[0];
+        if (null != result && result.capacity() >= minCapacity) {
+            slot[0] = null;
+            result.clear();
+        } else {
+            ALLOCATIONS.incrementAndGet();
+            result = ByteBuffer.allocate(Math.max(minCapacity, DEFAULT_CAPACITY));
+        }
+        return result;
+    }
+
+    /**
+     * Returns a buffer to the pool of the calling thread. The buffer must not be used afterwards.
+     *
+     * @param buffer the buffer, may be <b>null</b>
+     */
+    public static void release(ByteBuffer buffer) {
+        if (null != buffer && buffer.hasArray() && buffer.capacity() <= MAX_POOLED_CAPACITY) {
+            ByteBuffer[] slot = BUFFERS.get();
+            if (null == slot[0] || slot[0].capacity() < buffer.capacity()) {
+                slot[0] = buffer;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of buffers allocated by the pool so far.
+     *
+     * @return the number of allocations
+     */
+    public static long getAllocationCount() {
+        return ALLOCATIONS.get();
+    }
+
+    /**
+     * Serializes {@code data} using {@code serializer}. If {@code serializer} is a {@link BufferSerializer},
+     * serializes into a pooled buffer and just allocates the resulting array. The buffer is released also if 
+     * serialization fails.
+     *
+     * @param <T> the type of the data
+     * @param serializer the serializer
+     * @param data the data to serialize
+     * @return the serialized data
+     * @throws IOException in case that serialization fails
+     */
+    public static <T> byte[] serialize(Serializer<T> serializer, T data) throws IOException {
+        byte[] result;
+        if (serializer instanceof BufferSerializer) {
+            ByteBuffer buf = acquire(DEFAULT_CAPACITY);
+            try {
+                buf = ((BufferSerializer<T>) serializer).to(data, buf);
+                result = Arrays.copyOfRange(buf.array(), buf.arrayOffset(), buf.arrayOffset() + buf.limit());
+            } finally {
+                release(buf);
+            }
+        } else {
+            result = serializer.to(data);
+        }
+        return result;
+    }
+
+    /**
+     * Deserializes the remaining bytes of {@code data} using {@code serializer}. If {@code serializer} is a 
+     * {@link BufferSerializer}, reads directly from {@code data}, else copies the remaining bytes into an array.
+     *
+     * @param <T> the type of the data
+     * @param serializer the serializer
+     * @param data the data to deserialize
+     * @return the deserialized data
+     * @throws IOException in case that deserialization fails
+     */
+    public static <T> T deserialize(Serializer<T> serializer, ByteBuffer data) throws IOException {
+        T result;
+        if (serializer instanceof BufferSerializer) {
+            result = ((BufferSerializer<T>) serializer).from(data);
+        } else {
+            byte[] tmp = new byte[data.remaining()];
+            data.get(tmp);
+            result = serializer.from(tmp);
+        }
+        return result;
+    }
+
+}
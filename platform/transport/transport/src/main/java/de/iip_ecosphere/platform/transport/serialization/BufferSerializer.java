@@ -0,0 +1,47 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+
+package de.iip_ecosphere.platform.transport.serialization;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Optional extension of {@link Serializer} writing into/reading from {@link ByteBuffer buffers}, e.g., taken from
+ * the {@link BufferPool}, to avoid intermediary allocations.
+ *
+ * @param <T> the type to be serialized
+ * @author Holger Eichelberger, SSE
+ */
+public interface BufferSerializer<T> extends Serializer<T> {
+
+    /**
+     * Serializes {@code source} into {@code target}. {@code target} is cleared before writing. If {@code target}
+     * is too small, a larger buffer is allocated and returned instead.
+     *
+     * @param source the object to serialize
+     * @param target the buffer to write into
+     * @return the buffer containing the serialized data, flipped for reading, i.e., {@code target} or a larger
+     *     buffer
+     * @throws IOException in case that serialization fails
+     */
+    public ByteBuffer to(T source, ByteBuffer target) throws IOException;
+
+    /**
+     * Deserializes an object from the remaining bytes of {@code data}. Advances the position of {@code data}.
+     *
+     * @param data the buffer to read from
+     * @return the deserialized object
+     * @throws IOException in case that deserialization fails
+     */
+    public T from(ByteBuffer data) throws IOException;
+
+}
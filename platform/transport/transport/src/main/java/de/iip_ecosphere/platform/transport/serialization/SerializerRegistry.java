@@ -11,19 +11,35 @@
 package de.iip_ecosphere.platform.transport.serialization;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.LoggerFactory;
 
 /**
  * A registry for serializers to be able to handle also nested types on-demand.
- * All relevant serializers must be registered for correct functionality.
+ * All relevant serializers must be registered for correct functionality. Types without a directly registered 
+ * serializer are resolved for serialization via their closest superclass and then via their interfaces. As a 
+ * serializer for a supertype cannot create instances of a subtype, {@link #getDeserializer(Class) deserialization} 
+ * requires a serializer registered for exactly the requested type. Registrations replace an immutable snapshot of 
+ * the registered serializers, resolved types are cached until the next registration, i.e., lookups do not lock.
  * 
  * @author Holger Eichelberger, SSE
  */
 public class SerializerRegistry {
 
-    private static Map<Class<?>, Serializer<?>> serializers = Collections.synchronizedMap(new HashMap<>());
+    private static final Object LOCK = new Object();
+    private static final AtomicLong UNRESOLVED = new AtomicLong();
+    private static final Set<Class<?>> UNRESOLVED_TYPES = ConcurrentHashMap.newKeySet();
+    private static volatile Map<Class<?>, Serializer<?>> serializers = Collections.emptyMap();
+    private static volatile Map<Class<?>, Optional<Serializer<?>>> resolved = new ConcurrentHashMap<>();
     private static String wireName = "";
     
     static {
@@ -38,15 +54,53 @@ public class SerializerRegistry {
     }
 
     /**
-     * Returns a serializer instance.
+     * Returns a serializer instance. Counts and logs types that cannot be resolved.
      * 
      * @param <T>  the data type to be handled by the serializer
      * @param type the type to return the serializer for
-     * @return the serializer, <b>null</b> if no such serializer is registered
+     * @return the serializer, <b>null</b> if no such serializer is registered for {@code type}, its superclasses or 
+     *   interfaces
+     * @see #getUnresolvedCount()
      */
     @SuppressWarnings("unchecked")
     public static <T> Serializer<T> getSerializer(Class<T> type) {
-        return (Serializer<T>) serializers.get(type);
+        Serializer<?> result = resolve(type);
+        if (null == result) {
+            countUnresolved(type, "");
+        }
+        return (Serializer<T>) result;
+    }
+
+    /**
+     * Returns a serializer instance for deserializing {@code type}, i.e., without resolving superclasses or 
+     * interfaces. Counts and logs types that cannot be resolved.
+     * 
+     * @param <T>  the data type to be handled by the serializer
+     * @param type the type to return the serializer for
+     * @return the serializer, <b>null</b> if no such serializer is registered for exactly {@code type}
+     * @see #getUnresolvedCount()
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> Serializer<T> getDeserializer(Class<T> type) {
+        Serializer<?> result = null == type ? null : serializers.get(type);
+        if (null == result) {
+            countUnresolved(type, " (deserialization requires the exact type)");
+        }
+        return (Serializer<T>) result;
+    }
+
+    /**
+     * Counts an unresolved lookup and logs the type once.
+     * 
+     * @param type the type, may be <b>null</b>
+     * @param hint a hint to be appended to the log message, may be empty
+     */
+    private static void countUnresolved(Class<?> type, String hint) {
+        UNRESOLVED.incrementAndGet();
+        if (null != type && UNRESOLVED_TYPES.add(type)) {
+            LoggerFactory.getLogger(SerializerRegistry.class).warn("No serializer registered for " 
+                + type.getName() + hint);
+        }
     }
     
     /**
@@ -56,7 +110,73 @@ public class SerializerRegistry {
      * @return {@code true} if there is a registered serizalizer, {@code false} else
      */
     public static boolean hasSerializer(Class<?> type) {
-        return serializers.get(type) != null;
+        return resolve(type) != null;
+    }
+
+    /**
+     * Returns whether a serializer for deserializing exactly the given {@code type} is known.
+     * 
+     * @param type the type to query for
+     * @return {@code true} if there is a registered serizalizer, {@code false} else
+     * @see #getDeserializer(Class)
+     */
+    public static boolean hasDeserializer(Class<?> type) {
+        return null != type && serializers.containsKey(type);
+    }
+
+    /**
+     * Returns the number of {@link #getSerializer(Class) lookups} or {@link #getDeserializer(Class) deserializer 
+     * lookups} that did not lead to a serializer.
+     * 
+     * @return the number of unresolved lookups
+     */
+    public static long getUnresolvedCount() {
+        return UNRESOLVED.get();
+    }
+
+    /**
+     * Resolves the serializer for {@code type} through the cache.
+     * 
+     * @param type the type, may be <b>null</b>
+     * @return the serializer, <b>null</b> if none can be resolved
+     */
+    private static Serializer<?> resolve(Class<?> type) {
+        Serializer<?> result = null;
+        if (null != type) {
+            Map<Class<?>, Optional<Serializer<?>>> cache = resolved; // replaced on registration, read it first
+            Optional<Serializer<?>> res = cache.get(type);
+            if (null == res) {
+                res = Optional.ofNullable(lookup(serializers, type));
+                cache.putIfAbsent(type, res);
+            }
+            result = res.orElse(null);
+        }
+        return result;
+    }
+
+    /**
+     * Looks up the serializer for {@code type} in {@code registered}, first by the type itself, then by its 
+     * superclasses and then (breadth-first) by its interfaces.
+     * 
+     * @param registered the registered serializers
+     * @param type the type
+     * @return the serializer, <b>null</b> if none can be found
+     */
+    private static Serializer<?> lookup(Map<Class<?>, Serializer<?>> registered, Class<?> type) {
+        Serializer<?> result = null;
+        Deque<Class<?>> interfaces = new ArrayDeque<>();
+        Class<?> cls = type;
+        while (null == result && null != cls) {
+            result = registered.get(cls);
+            Collections.addAll(interfaces, cls.getInterfaces());
+            cls = cls.getSuperclass();
+        }
+        while (null == result && !interfaces.isEmpty()) {
+            Class<?> iface = interfaces.poll();
+            result = registered.get(iface);
+            Collections.addAll(interfaces, iface.getInterfaces());
+        }
+        return result;
     }
     
     /**
@@ -93,7 +213,11 @@ public class SerializerRegistry {
      * @param serializer the serializer instance (must not be <b>null</b>)
      */
     public static <T> void registerSerializer(Serializer<T> serializer) {
-        serializers.put(serializer.getType(), serializer);
+        synchronized (LOCK) {
+            Map<Class<?>, Serializer<?>> tmp = new HashMap<>(serializers);
+            tmp.put(serializer.getType(), serializer);
+            update(tmp);
+        }
     }
 
     /**
@@ -112,7 +236,23 @@ public class SerializerRegistry {
      * @param type the serializer type to unregister
      */
     public static void unregisterSerializer(Class<?> type) {
-        serializers.remove(type);
+        synchronized (LOCK) {
+            Map<Class<?>, Serializer<?>> tmp = new HashMap<>(serializers);
+            tmp.remove(type);
+            update(tmp);
+        }
+    }
+
+    /**
+     * Publishes a new snapshot of registered serializers and invalidates the resolution cache. Must be called while
+     * holding {@link #LOCK}.
+     * 
+     * @param registered the new registered serializers
+     */
+    private static void update(Map<Class<?>, Serializer<?>> registered) {
+        serializers = Collections.unmodifiableMap(registered);
+        resolved = new ConcurrentHashMap<>();
+        UNRESOLVED_TYPES.clear();
     }
     
     /**
@@ -11,6 +11,10 @@
 package test.de.iip_ecosphere.platform.transport;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 
 import org.junit.Assert;
 
@@ -20,6 +24,7 @@ import de.iip_ecosphere.platform.transport.TransportFactory;
 import de.iip_ecosphere.platform.transport.connectors.AbstractReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchMode;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
 import de.iip_ecosphere.platform.transport.serialization.Serializer;
 import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
@@ -53,6 +58,29 @@ public class AbstractTransportConnectorTest {
         }
 
     }
+
+    /**
+     * Implements a reception callback collecting all received data in sequence.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    static class CollectingCallback extends AbstractReceptionCallback<Product> {
+
+        private List<Product> received = Collections.synchronizedList(new ArrayList<>());
+
+        /**
+         * Creates the callback instance.
+         */
+        protected CollectingCallback() {
+            super(Product.class);
+        }
+
+        @Override
+        public void received(Product data) {
+            received.add(data);
+        }
+
+    }
     
     /**
      * Implements the test using the {@link TransportFactory}.
@@ -69,23 +97,27 @@ public class AbstractTransportConnectorTest {
         System.out.println("Using serializer: " + serializerType.getSimpleName());
         SerializerRegistry.registerSerializer(serializerType);
         TransportParameter param1 = TransportParameterBuilder.newBuilder(addr.getHost(), addr.getPort())
-            .setApplicationId("cl1").build();
+            .setApplicationId("cl1").setBatchSize(3).setLingerTime(200).build();
         TransportConnector cl1 = TransportFactory.createConnector();
         Assert.assertTrue(cl1.getName().length() > 0);
         System.out.println("Connecting connector 1");
         cl1.connect(param1);
         final String stream1 = cl1.composeStreamName("", "stream1");
         final String stream2 = cl1.composeStreamName("", "stream2");
+        final String stream3 = cl1.composeStreamName("", "stream3");
         final Callback cb1 = new Callback();
         cl1.setReceptionCallback(stream2, cb1);
 
-        TransportParameter param2 = TransportParameterBuilder.newBuilder(addr).setApplicationId("cl2").build();
+        TransportParameter param2 = TransportParameterBuilder.newBuilder(addr).setApplicationId("cl2")
+            .setDispatchMode(DispatchMode.STRIPED).build();
         TransportConnector cl2 = TransportFactory.createConnector();
         Assert.assertTrue(cl2.getName().length() > 0);
         System.out.println("Connecting connector 2");
         cl2.connect(param2);
         final Callback cb2 = new Callback();
         cl2.setReceptionCallback(stream1, cb2);
+        final CollectingCallback cb3 = new CollectingCallback();
+        cl2.setReceptionCallback(stream3, cb3);
 
         System.out.println("Sending/Receiving");
         cl1.syncSend(stream1, data1);
@@ -94,12 +126,44 @@ public class AbstractTransportConnectorTest {
         assertProduct(data1, cb2);
         assertProduct(data2, cb1);
 
+        System.out.println("Sending/Receiving batch");
+        List<Product> batch = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            batch.add(new Product("batch" + i, i));
+        }
+        cl1.sendBatch(stream3, batch); // one full batch, one item lingering
+        assertProducts(batch, cb3); // without flush, lingering item must arrive
+        List<Product> batch2 = Arrays.asList(new Product("batch4", 4), new Product("batch5", 5));
+        cl1.sendBatch(stream3, batch2);
+        cl1.flush();
+        List<Product> all = new ArrayList<>(batch);
+        all.addAll(batch2);
+        assertProducts(all, cb3);
+
         System.out.println("Cleaning up");
         cl1.disconnect();
         cl2.disconnect();
         SerializerRegistry.unregisterSerializer(Product.class);
     }
 
+    /**
+     * Asserts that {@code expected} are received in sequence by {@code callback}. Waits up to 3s.
+     * 
+     * @param expected the expected values in sequence
+     * @param received the receiving callback
+     */
+    private static void assertProducts(List<Product> expected, CollectingCallback received) {
+        int count = 0;
+        while (received.received.size() < expected.size() && count < 30) {
+            TimeUtils.sleep(100);
+            count++;
+        }
+        Assert.assertEquals(expected.size(), received.received.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Assert.assertEquals(expected.get(i).getDescription(), received.received.get(i).getDescription());
+        }
+    }
+
     /**
      * Asserts that {@code expected} and the received value in {@code callback}
      * contain the same values.
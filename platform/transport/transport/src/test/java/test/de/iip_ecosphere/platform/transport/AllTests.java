@@ -25,7 +25,9 @@ import org.junit.runners.Suite;
     SerializerRegistryTest.class,
     TransportAasTest.class, 
     OtherTests.class,
-    TransportSetupTest.class
+    TransportSetupTest.class,
+    ReceptionDispatcherTest.class,
+    BinarySerializerTest.class
 })
 public class AllTests {
 }
@@ -0,0 +1,547 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.transport.serialization.BinarySerializer;
+import de.iip_ecosphere.platform.transport.serialization.BufferPool;
+import de.iip_ecosphere.platform.transport.serialization.Serializer;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
+
+/**
+ * Tests {@link BinarySerializer}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class BinarySerializerTest {
+
+    /**
+     * A test state enum.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private enum State {
+        IDLE,
+        RUNNING
+    }
+
+    /**
+     * A nested test type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Position {
+
+        private double x;
+        private double y;
+
+    }
+
+    /**
+     * A base test type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Base {
+
+        protected String id;
+
+    }
+
+    /**
+     * A test type covering the supported field types.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Machine extends Base {
+
+        private static int instances = 0;
+
+        private int count;
+        private long timestamp;
+        private short code;
+        private byte flags;
+        private char mark;
+        private boolean active;
+        private float load;
+        private Integer optional;
+        private Double temperature;
+        private String name;
+        private State state;
+        private byte[] payload;
+        private int[] ints;
+        private long[] longs;
+        private double[] values;
+        private String[] tags;
+        private Position position;
+        private transient Object cache = new Object();
+
+        /**
+         * Creates an instance.
+         */
+        private Machine() {
+            instances++;
+        }
+
+    }
+
+    /**
+     * A binary counterpart of {@link Product}.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class BinaryProduct {
+
+        private String description;
+        private double price;
+
+    }
+
+    /**
+     * A type with an unsupported field.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Unsupported {
+
+        @SuppressWarnings("unused")
+        private List<String> list;
+
+    }
+
+    /**
+     * A type with an unsupported number field.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class UnsupportedNumber {
+
+        @SuppressWarnings("unused")
+        private java.math.BigDecimal value;
+
+    }
+
+    /**
+     * A type with an untyped field.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class UnsupportedObject {
+
+        @SuppressWarnings("unused")
+        private Object value;
+
+    }
+
+    /**
+     * A type with a nested type having an unsupported field.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class UnsupportedNested {
+
+        @SuppressWarnings("unused")
+        private Unsupported nested;
+
+    }
+
+    /**
+     * A recursive test type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Node {
+
+        private String name;
+        private Node next;
+
+    }
+
+    /**
+     * A test type with an enum and an array.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Status {
+
+        private State state;
+        private long[] values;
+
+    }
+
+    /**
+     * A type with a field of a non-final nested type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Holder {
+
+        private Base base;
+
+    }
+
+    /**
+     * An abstract nested type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private abstract static class AbstractPart {
+
+        @SuppressWarnings("unused")
+        private int value;
+
+    }
+
+    /**
+     * A type with a field of an abstract nested type.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class AbstractHolder {
+
+        @SuppressWarnings("unused")
+        private AbstractPart part;
+
+    }
+
+    /**
+     * Creates a test instance.
+     *
+     * @return the test instance
+     */
+    private static Machine createMachine() {
+        Machine m = new Machine();
+        m.id = "m-1";
+        m.count = -42;
+        m.timestamp = 1617000000000L;
+        m.code = 300;
+        m.flags = -1;
+        m.mark = '\u00fc';
+        m.active = true;
+        m.load = 0.75f;
+        m.temperature = 21.5;
+        m.name = "Dr\u00e4hmaschine";
+        m.state = State.RUNNING;
+        m.payload = new byte[] {1, 2, 3};
+        m.ints = new int[] {Integer.MIN_VALUE, 0, Integer.MAX_VALUE};
+        m.longs = new long[] {Long.MIN_VALUE, Long.MAX_VALUE};
+        m.values = new double[] {1.5, -2.5};
+        m.tags = new String[] {"a", null, "b"};
+        m.position = new Position();
+        m.position.x = 1.0;
+        m.position.y = -1.0;
+        return m;
+    }
+
+    /**
+     * Asserts that {@code expected} and {@code actual} are equal but not identical.
+     *
+     * @param expected the expected instance
+     * @param actual the actual instance
+     */
+    private static void assertMachine(Machine expected, Machine actual) {
+        Assert.assertNotSame(expected, actual);
+        Assert.assertEquals(expected.id, actual.id);
+        Assert.assertEquals(expected.count, actual.count);
+        Assert.assertEquals(expected.timestamp, actual.timestamp);
+        Assert.assertEquals(expected.code, actual.code);
+        Assert.assertEquals(expected.flags, actual.flags);
+        Assert.assertEquals(expected.mark, actual.mark);
+        Assert.assertEquals(expected.active, actual.active);
+        Assert.assertEquals(expected.load, actual.load, 0.0001);
+        Assert.assertEquals(expected.optional, actual.optional);
+        Assert.assertEquals(expected.temperature, actual.temperature);
+        Assert.assertEquals(expected.name, actual.name);
+        Assert.assertEquals(expected.state, actual.state);
+        Assert.assertArrayEquals(expected.payload, actual.payload);
+        Assert.assertNotSame(expected.payload, actual.payload);
+        Assert.assertArrayEquals(expected.ints, actual.ints);
+        Assert.assertArrayEquals(expected.longs, actual.longs);
+        Assert.assertArrayEquals(expected.values, actual.values, 0.0001);
+        Assert.assertArrayEquals(expected.tags, actual.tags);
+        Assert.assertNotSame(expected.position, actual.position);
+        Assert.assertEquals(expected.position.x, actual.position.x, 0.0001);
+        Assert.assertEquals(expected.position.y, actual.position.y, 0.0001);
+    }
+
+    /**
+     * Tests serialization and cloning.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSerializer() throws IOException {
+        BinarySerializer<Machine> ser = BinarySerializer.register(Machine.class);
+        Assert.assertEquals(Machine.class, ser.getType());
+        Assert.assertSame(ser, SerializerRegistry.getSerializer(Machine.class));
+
+        Machine m = createMachine();
+        byte[] data = ser.to(m);
+        assertMachine(m, ser.from(data));
+        assertMachine(m, ser.clone(m));
+        Assert.assertNotSame(m.cache, ser.from(data).cache); // transient, initialized by constructor
+        Assert.assertTrue(Machine.instances > 0);
+
+        Machine empty = new Machine();
+        Machine tmp = ser.from(ser.to(empty));
+        Assert.assertNull(tmp.name);
+        Assert.assertNull(tmp.state);
+        Assert.assertNull(tmp.payload);
+        Assert.assertNull(tmp.position);
+        Assert.assertNull(ser.clone(empty).position);
+
+        try {
+            ser.from(new byte[] {2});
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // ok, too short
+        }
+        SerializerRegistry.unregisterSerializer(ser);
+    }
+
+    /**
+     * Tests serialization via pooled buffers.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testBuffer() throws IOException {
+        BinarySerializer<Machine> ser = new BinarySerializer<>(Machine.class);
+        Machine m = createMachine();
+        byte[] expected = ser.to(m);
+
+        ByteBuffer buf = BufferPool.acquire(8);
+        Assert.assertTrue(buf.capacity() >= BufferPool.DEFAULT_CAPACITY);
+        ByteBuffer result = ser.to(m, buf);
+        Assert.assertSame(buf, result);
+        Assert.assertArrayEquals(expected, Arrays.copyOf(result.array(), result.limit()));
+        assertMachine(m, ser.from(result));
+        Assert.assertFalse(result.hasRemaining());
+        BufferPool.release(result);
+        Assert.assertSame(buf, BufferPool.acquire(8)); // re-used by this thread
+        BufferPool.release(buf);
+
+        ByteBuffer small = ByteBuffer.allocate(4);
+        result = ser.to(m, small); // grows
+        Assert.assertNotSame(small, result);
+        assertMachine(m, ser.from(result.slice()));
+
+        long allocations = BufferPool.getAllocationCount();
+        for (int i = 0; i < 10; i++) {
+            ser.to(m);
+        }
+        Assert.assertEquals(allocations, BufferPool.getAllocationCount());
+
+        m.payload = new byte[BufferPool.DEFAULT_CAPACITY * 4];
+        assertMachine(m, ser.from(ser.to(m)));
+        Assert.assertTrue(BufferPool.acquire(BufferPool.DEFAULT_CAPACITY * 2).capacity() 
+            >= BufferPool.DEFAULT_CAPACITY * 2);
+
+        ByteBuffer direct = ByteBuffer.allocateDirect(expected.length);
+        direct.put(expected).flip();
+        assertMachine(createMachine(), BufferPool.deserialize(ser, direct));
+        Assert.assertFalse(direct.hasRemaining());
+        Product p = new Product("prod", 1.5);
+        ProductJsonSerializer jsonSer = new ProductJsonSerializer();
+        Product q = BufferPool.deserialize(jsonSer, ByteBuffer.wrap(jsonSer.to(p)));
+        Assert.assertEquals(p.getDescription(), q.getDescription());
+    }
+
+    /**
+     * Tests that a pooled buffer is released if serialization fails.
+     */
+    @Test
+    public void testBufferReleaseOnFailure() {
+        BinarySerializer<Machine> ser = new BinarySerializer<>(Machine.class);
+        BufferPool.release(BufferPool.acquire(BufferPool.DEFAULT_CAPACITY)); // ensure pooled buffer
+        long allocations = BufferPool.getAllocationCount();
+        for (int i = 0; i < 5; i++) {
+            try {
+                BufferPool.serialize(ser, null); // fails accessing the first field
+                Assert.fail("No exception");
+            } catch (IOException | RuntimeException e) {
+                // expected
+            }
+        }
+        Assert.assertEquals(allocations, BufferPool.getAllocationCount());
+    }
+
+    /**
+     * Compares the encoded size against the JSON serializer for {@link Product}.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSizeAgainstJson() throws IOException {
+        try {
+            new BinarySerializer<>(Product.class);
+            Assert.fail("No exception"); // Product has no no-arg constructor
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
+        Serializer<Product> json = new ProductJsonSerializer();
+        byte[] jsonData = json.to(new Product("Prod1", 10.2));
+        BinaryProduct p = new BinaryProduct();
+        p.description = "Prod1";
+        p.price = 10.2;
+        byte[] binData = new BinarySerializer<>(BinaryProduct.class).to(p);
+        Assert.assertEquals(1 + 5 + 8, binData.length);
+        Assert.assertTrue(binData.length < jsonData.length);
+    }
+
+    /**
+     * Tests an unsupported field type.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupported() {
+        new BinarySerializer<>(Unsupported.class);
+    }
+
+    /**
+     * Tests that unsupported number, untyped and nested field types are rejected when deriving the schema.
+     */
+    @Test
+    public void testUnsupportedTypes() {
+        Class<?>[] types = {UnsupportedNumber.class, UnsupportedObject.class, UnsupportedNested.class};
+        for (Class<?> t : types) {
+            try {
+                new BinarySerializer<>(t);
+                Assert.fail("No exception for " + t.getSimpleName());
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Tests a recursive type.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testRecursive() throws IOException {
+        BinarySerializer<Node> serializer = new BinarySerializer<>(Node.class);
+        Node node = new Node();
+        node.name = "a";
+        node.next = new Node();
+        node.next.name = "b";
+        Node result = serializer.from(serializer.to(node));
+        Assert.assertEquals("a", result.name);
+        Assert.assertEquals("b", result.next.name);
+        Assert.assertNull(result.next.next);
+        Assert.assertEquals("b", serializer.clone(node).next.name);
+
+        node.next.next = node; // cycle
+        assertFailing(() -> serializer.to(node));
+        assertFailing(() -> serializer.clone(node));
+        node.next.next = null;
+        Assert.assertEquals("a", serializer.from(serializer.to(node)).name); // path is reset after failure
+    }
+
+    /**
+     * Tests that subclass instances in nested fields and on top level are rejected rather than truncated and that
+     * abstract nested types are rejected when deriving the schema.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSubtypes() throws IOException {
+        BinarySerializer<Holder> serializer = new BinarySerializer<>(Holder.class);
+        Holder holder = new Holder();
+        holder.base = new Base();
+        holder.base.id = "b";
+        Assert.assertEquals("b", serializer.from(serializer.to(holder)).base.id);
+        holder.base = createMachine();
+        assertFailing(() -> serializer.to(holder));
+        assertFailing(() -> serializer.clone(holder));
+
+        BinarySerializer<Base> bases = new BinarySerializer<>(Base.class);
+        assertFailing(() -> bases.to(createMachine()));
+        try {
+            new BinarySerializer<>(AbstractHolder.class);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    /**
+     * An operation that may fail with an {@link IOException}.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private interface IoOperation {
+
+        /**
+         * Executes the operation.
+         *
+         * @throws IOException if the operation fails
+         */
+        public void execute() throws IOException;
+
+    }
+
+    /**
+     * Asserts that {@code operation} fails with an {@link IOException}.
+     *
+     * @param operation the operation
+     */
+    private static void assertFailing(IoOperation operation) {
+        try {
+            operation.execute();
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Asserts that deserializing {@code data} fails with an {@link IOException}.
+     *
+     * @param <T> the type
+     * @param serializer the serializer
+     * @param data the malformed data
+     */
+    private static <T> void assertMalformed(BinarySerializer<T> serializer, byte[] data) {
+        try {
+            serializer.from(data);
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // expected
+        }
+    }
+
+    /**
+     * Tests that malformed lengths and ordinals lead to an {@link IOException} rather than runtime exceptions or
+     * huge allocations.
+     */
+    @Test
+    public void testMalformed() {
+        BinarySerializer<BinaryProduct> products = new BinarySerializer<>(BinaryProduct.class);
+        // description length 100 (marker 101, zig-zag 202 as varint), but no data follows
+        assertMalformed(products, new byte[] {(byte) 0xCA, 0x01, 'a'});
+        BinarySerializer<Status> status = new BinarySerializer<>(Status.class);
+        // state (sorted first): zig-zag -1 as marker, i.e., ordinal -2
+        assertMalformed(status, new byte[] {0x01, 0x00});
+        // state null, array length Integer.MAX_VALUE - 1
+        assertMalformed(status, new byte[] {0x02, (byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F});
+        // state null, array length 1000 with only one element
+        assertMalformed(status, new byte[] {0x02, (byte) 0xD2, 0x0F, 0x02});
+    }
+
+}
@@ -11,19 +11,28 @@
 package test.de.iip_ecosphere.platform.transport;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
 import de.iip_ecosphere.platform.support.Schema;
 import de.iip_ecosphere.platform.support.ServerAddress;
+import de.iip_ecosphere.platform.support.TimeUtils;
 import de.iip_ecosphere.platform.support.jsl.ExcludeFirst;
 import de.iip_ecosphere.platform.transport.DefaultTransportFactoryDescriptor;
 import de.iip_ecosphere.platform.transport.TransportFactory;
 import de.iip_ecosphere.platform.transport.TransportFactory.ConnectorCreator;
+import de.iip_ecosphere.platform.transport.connectors.AbstractReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.ReceptionCallback;
 import de.iip_ecosphere.platform.transport.connectors.TransportConnector;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
+import de.iip_ecosphere.platform.transport.connectors.impl.AbstractTransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.impl.BatchSendException;
 import de.iip_ecosphere.platform.transport.connectors.impl.DirectMemoryTransferTransportConnector;
+import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 import org.junit.Assert;
 
 /**
@@ -151,4 +160,250 @@ public class DirectMemoryTransportConnectorTest {
         AbstractTransportConnectorTest.doTest(addr, ProductProtobufSerializer.class);
     }
 
+    /**
+     * Collects received products.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class CollectingCallback extends AbstractReceptionCallback<Product> {
+
+        private List<Product> received = new ArrayList<>();
+
+        /**
+         * Creates the callback instance.
+         */
+        protected CollectingCallback() {
+            super(Product.class);
+        }
+
+        @Override
+        public void received(Product data) {
+            received.add(data);
+        }
+
+    }
+
+    /**
+     * Tests cloning/immutable payload transfer to multiple subscribers.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test
+    public void testImmutablePayload() throws IOException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        TransportParameter param = TransportParameterBuilder.newBuilder("", 0).build();
+        final String stream = "immutableStream";
+        DirectMemoryTransferTransportConnector sender = new DirectMemoryTransferTransportConnector(true);
+        Assert.assertTrue(sender.isImmutablePayload());
+        sender.connect(param);
+        DirectMemoryTransferTransportConnector cl1 = new DirectMemoryTransferTransportConnector();
+        Assert.assertFalse(cl1.isImmutablePayload());
+        cl1.connect(param);
+        CollectingCallback cb1 = new CollectingCallback();
+        cl1.setReceptionCallback(stream, new CollectingCallback());
+        cl1.setReceptionCallback(stream, cb1); // replaces the first callback
+        DirectMemoryTransferTransportConnector cl2 = new DirectMemoryTransferTransportConnector();
+        cl2.connect(param);
+        CollectingCallback cb2 = new CollectingCallback();
+        cl2.setReceptionCallback(stream, cb2);
+
+        Product data = new Product("prod", 1.5);
+        sender.syncSend(stream, data);
+        Assert.assertEquals(1, cb1.received.size());
+        Assert.assertEquals(1, cb2.received.size());
+        Assert.assertTrue(data == cb1.received.get(0));
+        Assert.assertTrue(data == cb2.received.get(0));
+
+        cl2.syncSend(stream, data); // cloning
+        Assert.assertEquals(2, cb1.received.size());
+        Assert.assertEquals(2, cb2.received.size());
+        Assert.assertTrue(data != cb1.received.get(1));
+        Assert.assertTrue(data != cb2.received.get(1));
+        Assert.assertEquals(data.getDescription(), cb1.received.get(1).getDescription());
+        Assert.assertEquals(data.getPrice(), cb2.received.get(1).getPrice(), 0.01);
+
+        cl1.disconnect();
+        sender.asyncSend(stream, data);
+        Assert.assertEquals(2, cb1.received.size());
+        Assert.assertEquals(3, cb2.received.size());
+
+        cl2.disconnect();
+        sender.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+    }
+
+    /**
+     * Tests batch sending with batch size and linger time.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test
+    public void testBatch() throws IOException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        final String stream = "batchStream";
+        DirectMemoryTransferTransportConnector sender = new DirectMemoryTransferTransportConnector();
+        sender.connect(TransportParameterBuilder.newBuilder("", 0).setBatchSize(2).setLingerTime(5000).build());
+        DirectMemoryTransferTransportConnector receiver = new DirectMemoryTransferTransportConnector();
+        receiver.connect(TransportParameterBuilder.newBuilder("", 0).build());
+        CollectingCallback cb = new CollectingCallback();
+        receiver.setReceptionCallback(stream, cb);
+
+        Product data = new Product("prod", 1.5);
+        sender.sendBatch(stream, Arrays.asList(data, data, data));
+        Assert.assertEquals(2, cb.received.size()); // one full batch, one item lingering
+        sender.sendBatch(stream, Arrays.asList(data));
+        Assert.assertEquals(4, cb.received.size()); // batch completed
+        sender.sendBatch(stream, Arrays.asList(data));
+        Assert.assertEquals(4, cb.received.size());
+        sender.flush();
+        Assert.assertEquals(5, cb.received.size());
+
+        sender.connect(TransportParameterBuilder.newBuilder("", 0).setBatchSize(2).setLingerTime(100).build());
+        sender.sendBatch(stream, Arrays.asList(data));
+        Assert.assertEquals(5, cb.received.size());
+        TimeUtils.sleep(500);
+        Assert.assertEquals(6, cb.received.size());
+
+        sender.connect(TransportParameterBuilder.newBuilder("", 0).setBatchSize(2).build());
+        sender.sendBatch(stream, Arrays.asList(data, data, data));
+        Assert.assertEquals(9, cb.received.size()); // no linger, incomplete batch sent directly
+
+        sender.sendBatch(stream, Arrays.asList(data));
+        receiver.disconnect();
+        sender.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+    }
+
+    /**
+     * A direct memory connector failing batch sending on demand.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    private static class FailingConnector extends DirectMemoryTransferTransportConnector {
+
+        private volatile boolean fail;
+        private volatile String failOn;
+
+        @Override
+        protected void sendBatchImpl(String stream, List<?> data) throws IOException {
+            if (fail) {
+                throw new IOException("failing on purpose");
+            }
+            int pos = -1;
+            for (int i = 0; pos < 0 && i < data.size(); i++) {
+                if (((Product) data.get(i)).getDescription().equals(failOn)) {
+                    pos = i;
+                }
+            }
+            if (pos < 0) {
+                super.sendBatchImpl(stream, data);
+            } else {
+                super.sendBatchImpl(stream, data.subList(0, pos));
+                throw new BatchSendException("failing on purpose", pos, null);
+            }
+        }
+
+    }
+
+    /**
+     * Tests that batch items are delivered in sequence although the linger task competes with the caller and that
+     * a failure while lingering is thrown on the next call without losing the items.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test
+    public void testBatchOrderAndLingerFailure() throws IOException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        final String stream = "batchOrderStream";
+        FailingConnector sender = new FailingConnector();
+        sender.connect(TransportParameterBuilder.newBuilder("", 0).setBatchSize(3).setLingerTime(1).build());
+        DirectMemoryTransferTransportConnector receiver = new DirectMemoryTransferTransportConnector();
+        receiver.connect(TransportParameterBuilder.newBuilder("", 0).build());
+        CollectingCallback cb = new CollectingCallback();
+        receiver.setReceptionCallback(stream, cb);
+
+        final int count = 200;
+        for (int i = 0; i < count; i++) {
+            sender.sendBatch(stream, Arrays.asList(new Product("p" + i, i)));
+            if (i % 7 == 0) {
+                TimeUtils.sleep(2); // let linger task send incomplete batches
+            }
+        }
+        sender.flush();
+        Assert.assertEquals(count, cb.received.size());
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals("p" + i, cb.received.get(i).getDescription());
+        }
+
+        sender.fail = true;
+        sender.sendBatch(stream, Arrays.asList(new Product("p" + count, count)));
+        TimeUtils.sleep(300); // linger fails
+        try {
+            sender.sendBatch(stream, Arrays.asList(new Product("p" + (count + 1), count + 1)));
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // expected, surfaced linger failure
+        }
+        Assert.assertEquals(count, cb.received.size());
+        sender.fail = false;
+        sender.flush();
+        Assert.assertEquals(count + 2, cb.received.size()); // lingering item retained, new item buffered
+        Assert.assertEquals("p" + count, cb.received.get(count).getDescription());
+        Assert.assertEquals("p" + (count + 1), cb.received.get(count + 1).getDescription());
+
+        receiver.disconnect();
+        sender.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+    }
+
+    /**
+     * Tests that batch sending fails before connecting, that items reported as sent are not sent again and that a 
+     * failing item is dropped after {@link AbstractTransportConnector#MAX_BATCH_RETRIES} attempts.
+     * 
+     * @throws IOException in case that connection/communication fails
+     */
+    @Test
+    public void testBatchPartialFailure() throws IOException {
+        SerializerRegistry.registerSerializer(ProductJsonSerializer.class);
+        final String stream = "batchPartialStream";
+        FailingConnector sender = new FailingConnector();
+        try {
+            sender.sendBatch(stream, Arrays.asList(new Product("p", 0)));
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // expected, not connected
+        }
+        sender.connect(TransportParameterBuilder.newBuilder("", 0).setBatchSize(3).build());
+        DirectMemoryTransferTransportConnector receiver = new DirectMemoryTransferTransportConnector();
+        receiver.connect(TransportParameterBuilder.newBuilder("", 0).build());
+        CollectingCallback cb = new CollectingCallback();
+        receiver.setReceptionCallback(stream, cb);
+
+        sender.failOn = "bad";
+        for (int i = 0; i < AbstractTransportConnector.MAX_BATCH_RETRIES; i++) {
+            try {
+                if (0 == i) {
+                    sender.sendBatch(stream, Arrays.asList(new Product("a", 0), new Product("bad", 0), 
+                        new Product("c", 0)));
+                } else {
+                    sender.sendBatch(stream, Arrays.asList(new Product("d" + i, i)));
+                }
+                Assert.fail("No exception");
+            } catch (IOException e) {
+                // expected, first item sent, bad item dropped in last iteration
+            }
+        }
+        Assert.assertEquals(1, cb.received.size());
+        sender.sendBatch(stream, Arrays.asList(new Product("e", 0)));
+        List<String> received = new ArrayList<>();
+        for (Product p : cb.received) {
+            received.add(p.getDescription());
+        }
+        Assert.assertEquals(Arrays.asList("a", "c", "d1", "d2", "e"), received);
+
+        receiver.disconnect();
+        sender.disconnect();
+        SerializerRegistry.unregisterSerializer(Product.class);
+    }
+
 }
@@ -0,0 +1,277 @@
+/********************************************************************************
+ * Copyright (c) {2021} The original author or authors
+ *
+ * All rights reserved. This program and the accompanying materials are made
+ * available under the terms of the Eclipse Public License 2.0 which is available
+ * at http://www.eclipse.org/legal/epl-2.0, or the Apache License, Version 2.0
+ * which is available at https://www.apache.org/licenses/LICENSE-2.0.
+ *
+ * SPDX-License-Identifier: Apache-2.0 OR EPL-2.0
+ ********************************************************************************/
+package test.de.iip_ecosphere.platform.transport;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import de.iip_ecosphere.platform.support.TimeUtils;
+import de.iip_ecosphere.platform.transport.connectors.AbstractReceptionCallback;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchMode;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchOverflowPolicy;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.TransportParameterBuilder;
+import de.iip_ecosphere.platform.transport.connectors.basics.AbstractMqttTransportConnector;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttPublishOptions;
+import de.iip_ecosphere.platform.transport.connectors.impl.ReceptionDispatcher;
+
+/**
+ * Tests the asynchronous reception dispatching of {@link AbstractMqttTransportConnector}.
+ *
+ * @author Holger Eichelberger, SSE
+ */
+public class ReceptionDispatcherTest {
+
+    /**
+     * A connector just simulating receptions.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class ReceivingConnector extends AbstractMqttTransportConnector {
+
+        @Override
+        public void syncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        }
+
+        @Override
+        public void asyncSend(String stream, Object data, MqttPublishOptions options) throws IOException {
+        }
+
+        @Override
+        public String getName() {
+            return "Receiving";
+        }
+
+        /**
+         * Simulates receiving {@code data} on {@code stream}.
+         *
+         * @param stream the stream
+         * @param data the data
+         * @throws IOException if dispatching fails
+         */
+        private void receive(String stream, String data) throws IOException {
+            notifyCallback(stream, data.getBytes());
+        }
+
+    }
+
+    /**
+     * Collects received strings, optionally delaying each reception.
+     *
+     * @author Holger Eichelberger, SSE
+     */
+    private static class Callback extends AbstractReceptionCallback<String> {
+
+        private List<String> received = Collections.synchronizedList(new ArrayList<>());
+        private List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+        private int delay;
+
+        /**
+         * Creates a callback.
+         *
+         * @param delay the delay per reception in milliseconds
+         */
+        private Callback(int delay) {
+            super(String.class);
+            this.delay = delay;
+        }
+
+        @Override
+        public void received(String data) {
+            TimeUtils.sleep(delay);
+            threads.add(Thread.currentThread());
+            received.add(data);
+        }
+
+    }
+
+    /**
+     * Waits until {@code callback} has received {@code count} items.
+     *
+     * @param callback the callback
+     * @param count the expected number of items
+     */
+    private static void waitFor(Callback callback, int count) {
+        int wait = 0;
+        while (callback.received.size() < count && wait < 50) {
+            TimeUtils.sleep(100);
+            wait++;
+        }
+        Assert.assertEquals(count, callback.received.size());
+    }
+
+    /**
+     * Tests synchronous reception.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testSynchronous() throws IOException {
+        ReceivingConnector conn = new ReceivingConnector();
+        conn.connect(TransportParameterBuilder.newBuilder("", 0).build());
+        Assert.assertNull(conn.getReceptionDispatcher());
+        Callback cb = new Callback(0);
+        conn.setReceptionCallback("s1", cb);
+        conn.receive("s1", "a");
+        Assert.assertEquals(1, cb.received.size());
+        Assert.assertTrue(Thread.currentThread() == cb.threads.get(0));
+        conn.disconnect();
+    }
+
+    /**
+     * Tests ordered dispatching with one worker per stream.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testPerStream() throws IOException {
+        ReceivingConnector conn = new ReceivingConnector();
+        conn.connect(TransportParameterBuilder.newBuilder("", 0).setDispatchMode(DispatchMode.PER_STREAM).build());
+        ReceptionDispatcher disp = conn.getReceptionDispatcher();
+        Assert.assertNotNull(disp);
+        Callback cb1 = new Callback(20);
+        Callback cb2 = new Callback(0);
+        conn.setReceptionCallback("s1", cb1);
+        conn.setReceptionCallback("s2", cb2);
+        for (int i = 0; i < 10; i++) {
+            conn.receive("s1", String.valueOf(i));
+            conn.receive("s2", String.valueOf(i));
+        }
+        waitFor(cb2, 10);
+        waitFor(cb1, 10);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(String.valueOf(i), cb1.received.get(i));
+            Assert.assertEquals(String.valueOf(i), cb2.received.get(i));
+        }
+        Assert.assertTrue(Thread.currentThread() != cb1.threads.get(0));
+        Assert.assertTrue(cb1.threads.get(0) != cb2.threads.get(0));
+        Assert.assertTrue(cb1.threads.get(0).isDaemon());
+        Assert.assertTrue(cb1.threads.get(0).getName().startsWith("Receiving-dispatch-"));
+        Assert.assertEquals(2, disp.getWorkerCount());
+        Assert.assertEquals(20, disp.getDispatchedCount());
+        Assert.assertEquals(0, disp.getQueueDepth());
+        Assert.assertTrue(disp.getAverageDispatchLatency() >= 0);
+        Assert.assertTrue(disp.getMaxDispatchLatency() >= disp.getAverageDispatchLatency());
+        conn.disconnect();
+        Assert.assertNull(conn.getReceptionDispatcher());
+        Assert.assertEquals(0, disp.getWorkerCount());
+    }
+
+    /**
+     * Tests dispatching with a fixed number of workers.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testStriped() throws IOException {
+        ReceivingConnector conn = new ReceivingConnector();
+        conn.connect(TransportParameterBuilder.newBuilder("", 0).setDispatchMode(DispatchMode.STRIPED)
+            .setDispatchThreads(2).build());
+        ReceptionDispatcher disp = conn.getReceptionDispatcher();
+        Assert.assertEquals(2, disp.getWorkerCount());
+        Callback cb = new Callback(0);
+        for (int s = 0; s < 5; s++) {
+            conn.setReceptionCallback("s" + s, cb);
+        }
+        for (int s = 0; s < 5; s++) {
+            conn.receive("s" + s, "a");
+        }
+        waitFor(cb, 5);
+        Assert.assertEquals(2, disp.getWorkerCount());
+        conn.disconnect();
+    }
+
+    /**
+     * Tests the overflow policies.
+     *
+     * @throws IOException shall not occur
+     */
+    @Test
+    public void testOverflow() throws IOException {
+        ReceivingConnector conn = new ReceivingConnector();
+        TransportParameter params = TransportParameterBuilder.newBuilder("", 0)
+            .setDispatchMode(DispatchMode.PER_STREAM)
+            .setDispatchQueueCapacity(1)
+            .setDispatchOverflowPolicy(DispatchOverflowPolicy.DROP_OLDEST)
+            .build();
+        Assert.assertEquals(1, params.getDispatchQueueCapacity());
+        Assert.assertEquals(DispatchOverflowPolicy.DROP_OLDEST, params.getDispatchOverflowPolicy());
+        conn.connect(params);
+        Callback cb = new Callback(300);
+        conn.setReceptionCallback("s1", cb);
+        conn.receive("s1", "a"); // taken by worker, blocked in callback
+        TimeUtils.sleep(100);
+        conn.receive("s1", "b"); // queued
+        conn.receive("s1", "c"); // drops b
+        waitFor(cb, 2);
+        Assert.assertEquals("a", cb.received.get(0));
+        Assert.assertEquals("c", cb.received.get(1));
+        Assert.assertEquals(1, conn.getReceptionDispatcher().getDroppedCount());
+        conn.disconnect();
+
+        conn.connect(TransportParameterBuilder.newBuilder("", 0)
+            .setDispatchMode(DispatchMode.PER_STREAM)
+            .setDispatchQueueCapacity(1)
+            .setDispatchOverflowPolicy(DispatchOverflowPolicy.FAIL)
+            .build());
+        cb = new Callback(300);
+        conn.setReceptionCallback("s1", cb);
+        conn.receive("s1", "a");
+        TimeUtils.sleep(100);
+        conn.receive("s1", "b");
+        try {
+            conn.receive("s1", "c");
+            Assert.fail("No exception");
+        } catch (IOException e) {
+            // ok
+        }
+        Assert.assertEquals(1, conn.getReceptionDispatcher().getRejectedCount());
+        waitFor(cb, 2);
+        conn.disconnect();
+    }
+
+    /**
+     * Tests that dispatching to new streams while shutting down does not fail and that data received after 
+     * shutdown is dropped silently.
+     *
+     * @throws IOException shall not occur
+     * @throws InterruptedException shall not occur
+     */
+    @Test
+    public void testDispatchWhileShutdown() throws IOException, InterruptedException {
+        ReceptionDispatcher dispatcher = new ReceptionDispatcher(TransportParameterBuilder.newBuilder("", 0)
+            .setDispatchMode(DispatchMode.PER_STREAM).build(), "test", (s, d) -> { });
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread sender = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100000; i++) {
+                    dispatcher.dispatch("s" + i, new byte[0]);
+                }
+            } catch (IOException | RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        sender.start();
+        TimeUtils.sleep(20);
+        dispatcher.shutdown();
+        sender.join();
+        Assert.assertNull(failure.get());
+        dispatcher.dispatch("late", new byte[0]);
+        Assert.assertEquals(0, dispatcher.getWorkerCount());
+    }
+
+}
@@ -6,6 +6,9 @@ import de.iip_ecosphere.platform.transport.serialization.Serializer;
 import de.iip_ecosphere.platform.transport.serialization.SerializerRegistry;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
 
 import org.junit.Assert;
 
@@ -37,4 +40,112 @@ public class SerializerRegistryTest {
         Assert.assertEquals(test, tmp);
     }
     
+    /**
+     * Tests resolving serializers via superclasses and interfaces.
+     * 
+     * @throws IOException shall not occur  
+     */
+    @Test
+    public void testResolution() throws IOException {
+        long unresolved = SerializerRegistry.getUnresolvedCount();
+        Assert.assertNull(SerializerRegistry.getSerializer(ArrayList.class));
+        Assert.assertFalse(SerializerRegistry.hasSerializer(ArrayList.class));
+        Assert.assertNull(SerializerRegistry.getSerializer(null));
+        Assert.assertEquals(unresolved + 2, SerializerRegistry.getUnresolvedCount());
+
+        ListSerializer listSer = new ListSerializer();
+        SerializerRegistry.registerSerializer(listSer);
+        Assert.assertSame(listSer, SerializerRegistry.getSerializer(ArrayList.class)); // via interface
+        Assert.assertSame(listSer, SerializerRegistry.getSerializer(LinkedList.class));
+        Assert.assertSame(listSer, SerializerRegistry.getDeserializer(List.class));
+        Assert.assertFalse(SerializerRegistry.hasDeserializer(ArrayList.class));
+        unresolved = SerializerRegistry.getUnresolvedCount();
+        Assert.assertNull(SerializerRegistry.getDeserializer(ArrayList.class)); // would create a List
+        Assert.assertNull(SerializerRegistry.getDeserializer(null));
+        Assert.assertEquals(unresolved + 2, SerializerRegistry.getUnresolvedCount());
+        Assert.assertTrue(SerializerRegistry.hasSerializer(ArrayList.class));
+
+        ArrayListSerializer arrayListSer = new ArrayListSerializer();
+        SerializerRegistry.registerSerializer(arrayListSer);
+        Assert.assertSame(arrayListSer, SerializerRegistry.getSerializer(ArrayList.class)); // cache invalidated
+        Assert.assertSame(arrayListSer, SerializerRegistry.getSerializer(MyList.class)); // via superclass
+        Assert.assertSame(listSer, SerializerRegistry.getSerializer(LinkedList.class));
+        Assert.assertSame(arrayListSer, SerializerRegistry.getDeserializer(ArrayList.class));
+        Assert.assertNull(SerializerRegistry.getDeserializer(MyList.class));
+
+        SerializerRegistry.unregisterSerializer(arrayListSer);
+        SerializerRegistry.unregisterSerializer(List.class);
+        Assert.assertNull(SerializerRegistry.getSerializer(MyList.class));
+        Assert.assertNotNull(SerializerRegistry.getSerializer(String.class));
+    }
+
+    /**
+     * A test list type.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    @SuppressWarnings("serial")
+    private static class MyList extends ArrayList<String> {
+    }
+
+    /**
+     * A test serializer for lists.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    @SuppressWarnings("rawtypes")
+    private static class ListSerializer implements Serializer<List> {
+
+        @Override
+        public List from(byte[] data) throws IOException {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public byte[] to(List source) throws IOException {
+            return new byte[0];
+        }
+
+        @Override
+        public List clone(List origin) throws IOException {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Class<List> getType() {
+            return List.class;
+        }
+
+    }
+
+    /**
+     * A test serializer for array lists.
+     * 
+     * @author Holger Eichelberger, SSE
+     */
+    @SuppressWarnings("rawtypes")
+    private static class ArrayListSerializer implements Serializer<ArrayList> {
+
+        @Override
+        public ArrayList from(byte[] data) throws IOException {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public byte[] to(ArrayList source) throws IOException {
+            return new byte[0];
+        }
+
+        @Override
+        public ArrayList clone(ArrayList origin) throws IOException {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public Class<ArrayList> getType() {
+            return ArrayList.class;
+        }
+
+    }
+
 }
@@ -17,6 +17,9 @@ import org.junit.Test;
 import de.iip_ecosphere.platform.support.Schema;
 import de.iip_ecosphere.platform.support.ServerAddress;
 import de.iip_ecosphere.platform.transport.connectors.TransportParameter;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchMode;
+import de.iip_ecosphere.platform.transport.connectors.TransportParameter.DispatchOverflowPolicy;
+import de.iip_ecosphere.platform.transport.connectors.basics.MqttQoS;
 import de.iip_ecosphere.platform.transport.connectors.impl.AbstractTransportConnector;
 
 import org.junit.Assert;
@@ -40,6 +43,8 @@ public class TransportParameterTest {
             .setApplicationId("app")
             .setAutoApplicationId(false)
             .setKeepAlive(1236)
+            .setBatchSize(20)
+            .setLingerTime(50)
             .build();
         Assert.assertEquals(addr.getHost(), params.getHost());
         Assert.assertEquals(addr.getPort(), params.getPort());
@@ -47,6 +52,76 @@ public class TransportParameterTest {
         Assert.assertEquals("app", params.getApplicationId());
         Assert.assertEquals(false, params.getAutoApplicationId());
         Assert.assertEquals(1236, params.getKeepAlive());
+        Assert.assertEquals(20, params.getBatchSize());
+        Assert.assertEquals(50, params.getLingerTime());
+        
+        params = TransportParameter.TransportParameterBuilder
+            .newBuilder(addr)
+            .setBatchSize(-1)
+            .setLingerTime(-1)
+            .build();
+        Assert.assertEquals(1, params.getBatchSize());
+        Assert.assertEquals(0, params.getLingerTime());
+        Assert.assertEquals(DispatchMode.SYNCHRONOUS, params.getDispatchMode());
+        Assert.assertEquals(DispatchOverflowPolicy.BLOCK, params.getDispatchOverflowPolicy());
+
+        params = TransportParameter.TransportParameterBuilder
+            .newBuilder(addr)
+            .setDispatchMode(DispatchMode.STRIPED)
+            .setDispatchThreads(0)
+            .setDispatchQueueCapacity(10)
+            .setDispatchOverflowPolicy(DispatchOverflowPolicy.FAIL)
+            .build();
+        Assert.assertEquals(DispatchMode.STRIPED, params.getDispatchMode());
+        Assert.assertEquals(1, params.getDispatchThreads());
+        Assert.assertEquals(10, params.getDispatchQueueCapacity());
+        Assert.assertEquals(DispatchOverflowPolicy.FAIL, params.getDispatchOverflowPolicy());
+        Assert.assertEquals("", params.getExchange());
+        Assert.assertEquals(0, params.getPrefetch());
+
+        params = TransportParameter.TransportParameterBuilder
+            .newBuilder(addr)
+            .setExchange(" iip ")
+            .setPrefetch(-1)
+            .build();
+        Assert.assertEquals("iip", params.getExchange());
+        Assert.assertEquals(0, params.getPrefetch());
+        params = TransportParameter.TransportParameterBuilder
+            .newBuilder(addr)
+            .setExchange(null)
+            .setPrefetch(10)
+            .build();
+        Assert.assertEquals("", params.getExchange());
+        Assert.assertEquals(10, params.getPrefetch());
+        Assert.assertEquals(MqttQoS.AT_LEAST_ONCE, params.getQoS());
+        Assert.assertEquals(MqttQoS.AT_LEAST_ONCE, params.getQoS("s"));
+        Assert.assertFalse(params.getRetain("s"));
+        Assert.assertEquals(0, params.getMessageExpiry());
+        Assert.assertEquals(0, params.getTopicAliasMaximum());
+
+        params = TransportParameter.TransportParameterBuilder
+            .newBuilder(addr)
+            .setQoS(MqttQoS.EXACTLY_ONCE)
+            .setQoS("telemetry", MqttQoS.AT_MOST_ONCE)
+            .setQoS("other", MqttQoS.AT_MOST_ONCE)
+            .setQoS("other", null)
+            .setRetain("status", true)
+            .setMessageExpiry(-1)
+            .setTopicAliasMaximum(100000)
+            .build();
+        Assert.assertEquals(MqttQoS.EXACTLY_ONCE, params.getQoS());
+        Assert.assertEquals(MqttQoS.AT_MOST_ONCE, params.getQoS("telemetry"));
+        Assert.assertEquals(MqttQoS.EXACTLY_ONCE, params.getQoS("other"));
+        Assert.assertTrue(params.getRetain("status"));
+        Assert.assertFalse(params.getRetain("telemetry"));
+        Assert.assertEquals(0, params.getMessageExpiry());
+        Assert.assertEquals(65535, params.getTopicAliasMaximum());
+        try {
+            TransportParameter.TransportParameterBuilder.newBuilder(addr).setQoS(MqttQoS.FAILURE);
+            Assert.fail("No exception");
+        } catch (IllegalArgumentException e) {
+            // ok
+        }
     }
 
     /**